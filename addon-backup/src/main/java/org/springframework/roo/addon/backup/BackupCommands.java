@@ -5,6 +5,7 @@ import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.Service;
 import org.springframework.roo.shell.CliAvailabilityIndicator;
 import org.springframework.roo.shell.CliCommand;
+import org.springframework.roo.shell.CliOption;
 import org.springframework.roo.shell.CommandMarker;
 
 /**
@@ -21,9 +22,14 @@ public class BackupCommands implements CommandMarker {
   private BackupOperations backupOperations;
 
   @CliCommand(value = "backup",
-      help = "Backup your project to a zip file located in root directory.")
-  public String backup() {
-    return backupOperations.backup();
+      help = "Backup your project to a zip file located in root directory. Files matching the "
+          + "project's `.gitignore` rules are skipped.")
+  public String backup(
+      @CliOption(key = "incremental", mandatory = false, unspecifiedDefaultValue = "false",
+          specifiedDefaultValue = "true",
+          help = "Whether to only archive the files added or changed since the last backup. "
+              + "Default if option present: `true`; default if option not present: `false`.") final boolean incremental) {
+    return backupOperations.backup(incremental);
   }
 
   @CliAvailabilityIndicator("backup")
@@ -0,0 +1,178 @@
+package org.springframework.roo.addon.backup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * The <code>.gitignore</code> rules applying to a directory of the project
+ * being backed up.
+ * <p>
+ * Supports the usual syntax: <code>#</code> comments, <code>!</code>
+ * negations, a trailing <code>/</code> for directories only, a leading or
+ * inner <code>/</code> to anchor a pattern to the directory of its
+ * <code>.gitignore</code>, and the <code>*</code>, <code>?</code>,
+ * <code>[...]</code> and <code>**</code> wildcards. As with Git, the last
+ * matching rule wins, and the rules of a nested <code>.gitignore</code> come
+ * after those of its parents.
+ * <p>
+ * Instances are immutable.
+ *
+ * @since 2.0
+ */
+public class BackupExclusions {
+
+  static final String GITIGNORE = ".gitignore";
+
+  /**
+   * One non-blank, non-comment line of a <code>.gitignore</code> file.
+   */
+  private static class Rule {
+
+    final String base;
+    final boolean directoryOnly;
+    final boolean negated;
+    final Pattern pattern;
+
+    Rule(final String base, final String line) {
+      this.base = base;
+      String glob = line;
+      negated = glob.startsWith("!");
+      if (negated) {
+        glob = glob.substring(1);
+      }
+      directoryOnly = glob.endsWith("/");
+      if (directoryOnly) {
+        glob = glob.substring(0, glob.length() - 1);
+      }
+      final boolean anchored = glob.indexOf('/') >= 0;
+      if (glob.startsWith("/")) {
+        glob = glob.substring(1);
+      }
+      pattern = Pattern.compile((anchored ? "" : "(?:.*/)?") + toRegex(glob));
+    }
+
+    /**
+     * Returns whether this rule matches the given path, relative to the
+     * project root and using <code>/</code> as separator
+     */
+    boolean matches(final String path, final boolean directory) {
+      if (directoryOnly && !directory) {
+        return false;
+      }
+      if (base.length() > 0 && !path.startsWith(base)) {
+        return false;
+      }
+      return pattern.matcher(path.substring(base.length())).matches();
+    }
+  }
+
+  /**
+   * The rules applying to nothing, i.e. those of a project without any
+   * <code>.gitignore</code> file
+   */
+  public static final BackupExclusions NONE = new BackupExclusions(Collections.<Rule>emptyList());
+
+  /**
+   * Converts the given glob to a regular expression, in which <code>*</code>
+   * and <code>?</code> do not match <code>/</code> but <code>**</code> does
+   */
+  static String toRegex(final String glob) {
+    final StringBuilder regex = new StringBuilder();
+    for (int i = 0; i < glob.length(); i++) {
+      final char c = glob.charAt(i);
+      if (c == '*' && i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+        i++;
+        if (i + 1 < glob.length() && glob.charAt(i + 1) == '/') {
+          // "**/" matches zero or more directories
+          i++;
+          regex.append("(?:.*/)?");
+        } else {
+          regex.append(".*");
+        }
+      } else if (c == '*') {
+        regex.append("[^/]*");
+      } else if (c == '?') {
+        regex.append("[^/]");
+      } else if (c == '[' && glob.indexOf(']', i + 2) > 0) {
+        final int end = glob.indexOf(']', i + 2);
+        String set = glob.substring(i + 1, end);
+        if (set.startsWith("!")) {
+          set = "^" + set.substring(1);
+        }
+        regex.append('[').append(set.replace("\\", "\\\\").replace("[", "\\[")).append(']');
+        i = end;
+      } else if (c == '\\' && i + 1 < glob.length()) {
+        i++;
+        regex.append(Pattern.quote(String.valueOf(glob.charAt(i))));
+      } else if (Character.isLetterOrDigit(c) || c == '/') {
+        regex.append(c);
+      } else {
+        regex.append('\\').append(c);
+      }
+    }
+    return regex.toString();
+  }
+
+  private final List<Rule> rules;
+
+  private BackupExclusions(final List<Rule> rules) {
+    this.rules = rules;
+  }
+
+  /**
+   * Returns the rules applying to the given directory, i.e. these rules
+   * followed by those of its own <code>.gitignore</code> file, if any.
+   *
+   * @param directory the directory (required)
+   * @param path the path of the directory relative to the project root,
+   *            using <code>/</code> as separator and ending with it unless
+   *            it is the root itself (required)
+   * @return this instance if the directory has no <code>.gitignore</code>
+   * @throws IOException if the <code>.gitignore</code> cannot be read
+   */
+  public BackupExclusions forDirectory(final File directory, final String path)
+      throws IOException {
+    Validate.notNull(directory, "Directory required");
+    Validate.notNull(path, "Path required");
+    final File gitignore = new File(directory, GITIGNORE);
+    if (!gitignore.isFile()) {
+      return this;
+    }
+    final List<Rule> directoryRules = new ArrayList<Rule>(rules);
+    for (final String line : FileUtils.readFileToString(gitignore, "UTF-8").split("\r\n|\r|\n")) {
+      // Trailing spaces are ignored unless escaped
+      final String trimmed = line.replaceAll("(?<!\\\\)\\s+$", "");
+      if (StringUtils.isBlank(trimmed) || trimmed.startsWith("#")) {
+        continue;
+      }
+      directoryRules.add(new Rule(path, trimmed));
+    }
+    return directoryRules.size() == rules.size() ? this : new BackupExclusions(directoryRules);
+  }
+
+  /**
+   * Indicates whether the given file or directory is excluded.
+   *
+   * @param path the path relative to the project root, using <code>/</code>
+   *            as separator (required)
+   * @param directory whether the path denotes a directory
+   * @return see above
+   */
+  public boolean isExcluded(final String path, final boolean directory) {
+    for (int i = rules.size() - 1; i >= 0; i--) {
+      final Rule rule = rules.get(i);
+      if (rule.matches(path, directory)) {
+        return !rule.negated;
+      }
+    }
+    return false;
+  }
+}
@@ -10,5 +10,15 @@ public interface BackupOperations {
 
   String backup();
 
+  /**
+   * Backs up the focused project to a zip file in its root directory.
+   * 
+   * @param incremental whether to only archive the files added or changed
+   *            since the last backup (a full backup is made if there was
+   *            none)
+   * @return a message describing the outcome
+   */
+  String backup(boolean incremental);
+
   boolean isBackupPossible();
 }
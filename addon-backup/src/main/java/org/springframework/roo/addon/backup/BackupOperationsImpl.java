@@ -2,16 +2,21 @@ package org.springframework.roo.addon.backup;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringWriter;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.logging.Logger;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.Validate;
@@ -51,10 +56,23 @@ public class BackupOperationsImpl implements BackupOperations {
 
   private static final Logger LOGGER = HandlerUtils.getLogger(BackupOperationsImpl.class);
 
+  private static final String INCREMENTAL_SUFFIX = "_incremental";
+  /**
+   * The entry of an incremental archive listing the files deleted since the
+   * previous backup
+   */
+  static final String DELETIONS_ENTRY_NAME = ".roo-backup-deleted";
+  private static final String LEGACY_MANIFEST_FILE_NAME = ".roo-backup-manifest";
+  private static final String MANIFEST_FILE_NAME = ".roo/cache/backup-manifest.properties";
+
   private FileManager fileManager;
   private ProjectOperations projectOperations;
 
   public String backup() {
+    return backup(false);
+  }
+
+  public String backup(final boolean incremental) {
     Validate.isTrue(isBackupPossible(), "Project metadata unavailable");
 
     // For Windows, make a date format that can legally form part of a
@@ -64,34 +82,129 @@ public class BackupOperationsImpl implements BackupOperations {
     final DateFormat df = new SimpleDateFormat(pattern);
     final long start = System.nanoTime();
 
-    ZipOutputStream zos = null;
+    final File projectDirectory =
+        new File(getProjectOperations().getPathResolver().getFocusedIdentifier(Path.ROOT, "."));
+    final File manifestFile = new File(projectDirectory, MANIFEST_FILE_NAME);
+    final File legacyManifestFile = new File(projectDirectory, LEGACY_MANIFEST_FILE_NAME);
+    Properties previousManifest = null;
+    if (incremental) {
+      previousManifest =
+          loadManifest(manifestFile.isFile() ? manifestFile : legacyManifestFile);
+    }
+    final Properties manifest = new Properties();
+
+    final String archive =
+        FileUtils.getCanonicalPath(new File(projectDirectory, getProjectOperations()
+            .getFocusedProjectName()
+            + "_"
+            + df.format(new Date())
+            + (previousManifest == null ? "" : INCREMENTAL_SUFFIX) + ".zip"));
+
+    final int threads = Runtime.getRuntime().availableProcessors();
+    final ExecutorService executorService = Executors.newFixedThreadPool(threads);
+    ParallelZipWriter writer = null;
+    boolean completed = false;
+    int entries = 0;
+    int deletions = 0;
     try {
-      final File projectDirectory =
-          new File(getProjectOperations().getPathResolver().getFocusedIdentifier(Path.ROOT, "."));
-      final MutableFile file =
-          getFileManager().createFile(
-              FileUtils.getCanonicalPath(new File(projectDirectory, getProjectOperations()
-                  .getFocusedProjectName() + "_" + df.format(new Date()) + ".zip")));
-      zos = new ZipOutputStream(file.getOutputStream());
-      zip(projectDirectory, projectDirectory, zos);
-    } catch (final FileNotFoundException e) {
-      LOGGER.fine("Could not determine project directory");
+      final MutableFile file = getFileManager().createFile(archive);
+      writer = new ParallelZipWriter(file.getOutputStream(), executorService, threads);
+      zip(projectDirectory, "", projectDirectory,
+          BackupExclusions.NONE.forDirectory(projectDirectory, ""), previousManifest, manifest,
+          writer);
+      if (previousManifest != null) {
+        deletions = addDeletions(previousManifest, manifest, writer);
+      }
+      entries = writer.getEntryCount();
+      writer.close();
+      completed = true;
     } catch (final IOException e) {
-      LOGGER.fine("Could not create backup archive");
+      throw new IllegalStateException("Could not create backup archive '" + archive + "'", e);
     } finally {
-      IOUtils.closeQuietly(zos);
+      if (!completed) {
+        // Don't leave a truncated archive behind; as the manifest isn't
+        // stored either, its files will be backed up again next time
+        if (writer != null) {
+          writer.abort();
+        }
+        if (getFileManager().exists(archive)) {
+          getFileManager().delete(archive, "incomplete backup");
+        }
+      }
+      executorService.shutdownNow();
+    }
+    storeManifest(manifestFile, manifest);
+    if (legacyManifestFile.isFile()) {
+      // Manifests used to be stored in the project root
+      getFileManager().delete(FileUtils.getCanonicalPath(legacyManifestFile),
+          "moved to " + MANIFEST_FILE_NAME);
     }
 
     final long milliseconds = (System.nanoTime() - start) / 1000000;
-    return "Backup completed in " + milliseconds + " ms";
+    return (previousManifest == null ? "Backup" : "Incremental backup") + " of " + entries
+        + " entries" + (deletions == 0 ? "" : " (recording " + deletions + " deletions)")
+        + " completed in " + milliseconds + " ms";
   }
 
   public boolean isBackupPossible() {
     return getProjectOperations().isFocusedProjectAvailable();
   }
 
-  private void zip(final File directory, final File base, final ZipOutputStream zos)
-      throws IOException {
+  /**
+   * Returns the manifest of the last backup, listing the size and
+   * modification time of each file it covered
+   * 
+   * @return <code>null</code> if there is no usable manifest
+   */
+  private Properties loadManifest(final File manifestFile) {
+    if (!manifestFile.isFile()) {
+      return null;
+    }
+    final Properties manifest = new Properties();
+    InputStream inputStream = null;
+    try {
+      inputStream = new FileInputStream(manifestFile);
+      manifest.load(inputStream);
+      return manifest;
+    } catch (final IOException e) {
+      LOGGER.fine("Could not read backup manifest; backing up all files");
+      return null;
+    } finally {
+      IOUtils.closeQuietly(inputStream);
+    }
+  }
+
+  private void storeManifest(final File manifestFile, final Properties manifest) {
+    final StringWriter contents = new StringWriter();
+    try {
+      manifest.store(contents, "Files covered by the last Spring Roo backup");
+    } catch (final IOException e) {
+      throw new IllegalStateException(e);
+    }
+    getFileManager().createOrUpdateTextFileIfRequired(
+        FileUtils.getCanonicalPath(manifestFile), contents.toString(), false);
+  }
+
+  /**
+   * Adds the given directory to the archive, skipping excluded files and, for
+   * an incremental backup, those unchanged since the previous one.
+   * 
+   * @param directory the directory to archive
+   * @param path the path of the directory within the archive, ending with
+   *            "/" unless it is the base directory
+   * @param base the project directory
+   * @param exclusions the <code>.gitignore</code> rules of the directory
+   * @param previousManifest the manifest of the previous backup, or
+   *            <code>null</code> for a full backup
+   * @param manifest the manifest of this backup, to which the archived
+   *            entries are added
+   * @param writer the archive
+   * @throws IOException if a directory can't be listed or the archive can't
+   *             be written
+   */
+  static void zip(final File directory, final String path, final File base,
+      final BackupExclusions exclusions, final Properties previousManifest,
+      final Properties manifest, final ParallelZipWriter writer) throws IOException {
     final File[] files = directory.listFiles(new FilenameFilter() {
       public boolean accept(final File dir, final String name) {
         // Don't use this directory if it's "target" under base
@@ -108,32 +221,73 @@ public class BackupOperationsImpl implements BackupOperations {
         return !name.startsWith(".");
       }
     });
+    if (files == null) {
+      throw new IOException("Could not list '" + directory + "'");
+    }
+    // Keep the order of the entries stable from one backup to the next
+    Arrays.sort(files);
 
     for (final File file : files) {
-      if (file.isDirectory()) {
-        if (file.listFiles().length == 0) {
-          final ZipEntry dirEntry =
-              new ZipEntry(file.getPath().substring(base.getPath().length() + 1)
-                  + File.separatorChar);
-          zos.putNextEntry(dirEntry);
+      final boolean isDirectory = file.isDirectory();
+      final String name = path + file.getName();
+      if (exclusions.isExcluded(name, isDirectory)) {
+        continue;
+      }
+      if (isDirectory) {
+        final String[] children = file.list();
+        if (children != null && children.length == 0) {
+          manifest.setProperty(name + "/", "");
+          if (previousManifest == null || !previousManifest.containsKey(name + "/")) {
+            writer.addDirectory(name, file.lastModified());
+          }
         }
-        zip(file, base, zos);
+        zip(file, name + "/", base, exclusions.forDirectory(file, name + "/"),
+            previousManifest, manifest, writer);
       } else {
-        InputStream inputStream = null;
-        try {
-          final ZipEntry entry =
-              new ZipEntry(file.getPath().substring(base.getPath().length() + 1));
-          zos.putNextEntry(entry);
-
-          inputStream = new FileInputStream(file);
-          IOUtils.write(IOUtils.toByteArray(inputStream), zos);
-        } finally {
-          IOUtils.closeQuietly(inputStream);
+        final String state = file.length() + "@" + file.lastModified();
+        manifest.setProperty(name, state);
+        if (previousManifest == null || !state.equals(previousManifest.getProperty(name))) {
+          writer.addFile(name, file);
         }
       }
     }
   }
 
+  /**
+   * Records the files and empty directories covered by the previous backup
+   * but no longer present, so that restoring a chain of incremental backups
+   * in order doesn't bring them back. They are listed one per line, sorted,
+   * in the {@link #DELETIONS_ENTRY_NAME} entry at the root of the archive;
+   * as files whose name starts with "." are never archived, that name can't
+   * clash with a project file.
+   * 
+   * @param previousManifest the manifest of the previous backup (required)
+   * @param manifest the manifest of this backup (required)
+   * @param writer the archive
+   * @return the number of deletions recorded
+   * @throws IOException if the archive can't be written
+   */
+  static int addDeletions(final Properties previousManifest, final Properties manifest,
+      final ParallelZipWriter writer) throws IOException {
+    final List<String> deleted = new ArrayList<String>();
+    for (final String name : previousManifest.stringPropertyNames()) {
+      if (!manifest.containsKey(name)) {
+        deleted.add(name);
+      }
+    }
+    if (deleted.isEmpty()) {
+      return 0;
+    }
+    Collections.sort(deleted);
+    final StringBuilder content = new StringBuilder();
+    for (final String name : deleted) {
+      content.append(name).append('\n');
+    }
+    writer.addFile(DELETIONS_ENTRY_NAME, content.toString().getBytes("UTF-8"),
+        System.currentTimeMillis());
+    return deleted.size();
+  }
+
   public FileManager getFileManager() {
     if (fileManager == null) {
       // Get all Services implement FileManager interface
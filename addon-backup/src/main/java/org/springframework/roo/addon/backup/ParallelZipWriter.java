@@ -0,0 +1,446 @@
+package org.springframework.roo.addon.backup;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Writes a zip archive whose entries are compressed in parallel.
+ * <p>
+ * {@link java.util.zip.ZipOutputStream} deflates each entry on the calling
+ * thread, so archiving a project is bound to a single core. Instead, each
+ * file added here is read and deflated by a task of the given executor, and
+ * the compressed entries are streamed to the archive in the order they were
+ * added, as soon as they are ready. At most a few entries per thread are in
+ * memory at any time; files larger than a threshold are not buffered at all
+ * but deflated straight into the archive, after the entries before them,
+ * with their CRC and sizes in a data descriptor following their content.
+ * <p>
+ * The archives are plain zip files without Zip64 extensions, so they are
+ * limited to 65535 entries and 4 GB; names are stored in UTF-8.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @since 2.0
+ */
+public class ParallelZipWriter {
+
+  /**
+   * An entry ready to be written.
+   */
+  private static class Entry {
+
+    byte[] compressed;
+    long compressedSize;
+    long crc;
+    boolean directory;
+    long dosTime;
+    int flags = UTF8_FLAG;
+    byte[] name;
+    long offset;
+    long size;
+  }
+
+  private static final int BUFFER_SIZE = 8192;
+  private static final int DATA_DESCRIPTOR_FLAG = 0x08;
+  private static final long DIRECT_WRITE_THRESHOLD = 1024 * 1024;
+  private static final long MAX_SIZE = 0xFFFFFFFFL;
+  private static final int MAX_ENTRIES = 0xFFFF;
+  private static final int METHOD_DEFLATED = 8;
+  private static final int METHOD_STORED = 0;
+  private static final int UTF8_FLAG = 0x800;
+  private static final int VERSION = 20;
+
+  private static long toDosTime(final long time) {
+    final Calendar calendar = Calendar.getInstance();
+    calendar.setTimeInMillis(time);
+    final int year = calendar.get(Calendar.YEAR);
+    if (year < 1980) {
+      return (1 << 21) | (1 << 16);
+    }
+    return (year - 1980) << 25 | (calendar.get(Calendar.MONTH) + 1) << 21
+        | calendar.get(Calendar.DAY_OF_MONTH) << 16 | calendar.get(Calendar.HOUR_OF_DAY) << 11
+        | calendar.get(Calendar.MINUTE) << 5 | calendar.get(Calendar.SECOND) >> 1;
+  }
+
+  private final long directWriteThreshold;
+  private final List<Entry> entries = new ArrayList<Entry>();
+  private final ExecutorService executorService;
+  private final int maxPending;
+  private final OutputStream outputStream;
+  private final LinkedList<Future<Entry>> pending = new LinkedList<Future<Entry>>();
+  private long written;
+
+  /**
+   * Constructor
+   *
+   * @param outputStream the stream to write the archive to (required); closed
+   *            by {@link #close()}
+   * @param executorService the executor compressing the entries (required)
+   * @param threads the number of threads of that executor
+   */
+  public ParallelZipWriter(final OutputStream outputStream,
+      final ExecutorService executorService, final int threads) {
+    this(outputStream, executorService, threads, DIRECT_WRITE_THRESHOLD);
+  }
+
+  /**
+   * Constructor for testing
+   *
+   * @param outputStream see above
+   * @param executorService see above
+   * @param threads see above
+   * @param directWriteThreshold the size in bytes above which files are
+   *            deflated straight into the archive
+   */
+  ParallelZipWriter(final OutputStream outputStream, final ExecutorService executorService,
+      final int threads, final long directWriteThreshold) {
+    Validate.notNull(outputStream, "Output stream required");
+    Validate.notNull(executorService, "Executor service required");
+    this.outputStream = new BufferedOutputStream(outputStream, BUFFER_SIZE * 8);
+    this.executorService = executorService;
+    this.directWriteThreshold = directWriteThreshold;
+    maxPending = Math.max(threads, 1) * 2;
+  }
+
+  /**
+   * Adds an empty directory to the archive.
+   *
+   * @param name the path of the directory within the archive, using
+   *            <code>/</code> as separator (required)
+   * @param lastModified the modification time of the directory
+   * @throws IOException if previously added entries could not be written
+   */
+  public void addDirectory(final String name, final long lastModified) throws IOException {
+    final Entry entry = new Entry();
+    entry.name = (name.endsWith("/") ? name : name + "/").getBytes("UTF-8");
+    entry.directory = true;
+    entry.dosTime = toDosTime(lastModified);
+    entry.compressed = new byte[0];
+    entry.crc = new CRC32().getValue();
+    enqueue(new Callable<Entry>() {
+      public Entry call() {
+        return entry;
+      }
+    });
+  }
+
+  /**
+   * Adds a file to the archive; the file is read and compressed in the
+   * background, unless it's large enough to be compressed on the calling
+   * thread straight into the archive.
+   *
+   * @param name the path of the file within the archive, using
+   *            <code>/</code> as separator (required)
+   * @param file the file to add (required)
+   * @throws IOException if previously added entries could not be written
+   */
+  public void addFile(final String name, final File file) throws IOException {
+    final byte[] entryName = name.getBytes("UTF-8");
+    if (file.length() > directWriteThreshold) {
+      checkEntryCount();
+      while (!pending.isEmpty()) {
+        write(take());
+      }
+      writeDirectly(entryName, file);
+      return;
+    }
+    enqueue(new Callable<Entry>() {
+      public Entry call() throws IOException {
+        return compress(entryName, new FileInputStream(file), file.length(),
+            file.lastModified(), "file '" + file + "'");
+      }
+    });
+  }
+
+  /**
+   * Adds a file with the given content to the archive; the content is
+   * compressed in the background.
+   *
+   * @param name the path of the file within the archive, using
+   *            <code>/</code> as separator (required)
+   * @param content the content of the file (required)
+   * @param lastModified the modification time of the file
+   * @throws IOException if previously added entries could not be written
+   */
+  public void addFile(final String name, final byte[] content, final long lastModified)
+      throws IOException {
+    Validate.notNull(content, "Content required");
+    final byte[] entryName = name.getBytes("UTF-8");
+    enqueue(new Callable<Entry>() {
+      public Entry call() throws IOException {
+        return compress(entryName, new ByteArrayInputStream(content), content.length,
+            lastModified, "file '" + name + "'");
+      }
+    });
+  }
+
+  /**
+   * Writes the entries still being compressed and the central directory,
+   * then closes the stream.
+   *
+   * @throws IOException if the archive could not be written
+   */
+  public void close() throws IOException {
+    try {
+      while (!pending.isEmpty()) {
+        write(take());
+      }
+      final long centralDirectoryOffset = written;
+      for (final Entry entry : entries) {
+        writeCentralDirectoryHeader(entry);
+      }
+      check(written, "archive");
+      final long centralDirectorySize = written - centralDirectoryOffset;
+      writeInt(0x06054b50);
+      writeShort(0);
+      writeShort(0);
+      writeShort(entries.size());
+      writeShort(entries.size());
+      writeInt(centralDirectorySize);
+      writeInt(centralDirectoryOffset);
+      writeShort(0);
+      outputStream.flush();
+    } finally {
+      cancel();
+      IOUtils.closeQuietly(outputStream);
+    }
+  }
+
+  /**
+   * Abandons the entries still being compressed and closes the stream,
+   * leaving an incomplete archive.
+   */
+  public void abort() {
+    cancel();
+    IOUtils.closeQuietly(outputStream);
+  }
+
+  /**
+   * Returns the number of entries added so far.
+   *
+   * @return see above
+   */
+  public int getEntryCount() {
+    return entries.size() + pending.size();
+  }
+
+  private void cancel() {
+    for (final Future<Entry> future : pending) {
+      future.cancel(true);
+    }
+    pending.clear();
+  }
+
+  private void check(final long value, final String what) throws IOException {
+    if (value > MAX_SIZE) {
+      throw new IOException("The " + what + " exceeds the 4 GB limit of the zip format");
+    }
+  }
+
+  /**
+   * Compresses the given content, closing the stream afterwards.
+   */
+  private void checkEntryCount() throws IOException {
+    if (getEntryCount() >= MAX_ENTRIES) {
+      throw new IOException("The archive exceeds the " + MAX_ENTRIES
+          + " entries limit of the zip format");
+    }
+  }
+
+  private Entry compress(final byte[] name, final InputStream inputStream,
+      final long expectedSize, final long lastModified, final String what) throws IOException {
+    final Entry entry = new Entry();
+    entry.name = name;
+    entry.dosTime = toDosTime(lastModified);
+    final CRC32 crc = new CRC32();
+    final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    final ByteArrayOutputStream compressed =
+        new ByteArrayOutputStream((int) Math.min(expectedSize / 2 + 64, BUFFER_SIZE * 16));
+    final byte[] buffer = new byte[BUFFER_SIZE];
+    final byte[] output = new byte[BUFFER_SIZE];
+    try {
+      int read;
+      while ((read = inputStream.read(buffer)) >= 0) {
+        crc.update(buffer, 0, read);
+        entry.size += read;
+        deflater.setInput(buffer, 0, read);
+        while (!deflater.needsInput()) {
+          compressed.write(output, 0, deflater.deflate(output));
+        }
+      }
+      deflater.finish();
+      while (!deflater.finished()) {
+        compressed.write(output, 0, deflater.deflate(output));
+      }
+    } finally {
+      deflater.end();
+      IOUtils.closeQuietly(inputStream);
+    }
+    check(entry.size, what);
+    entry.crc = crc.getValue();
+    entry.compressed = compressed.toByteArray();
+    return entry;
+  }
+
+  private void enqueue(final Callable<Entry> task) throws IOException {
+    checkEntryCount();
+    // Bound the memory held by compressed entries waiting to be written
+    while (pending.size() >= maxPending) {
+      write(take());
+    }
+    pending.add(executorService.submit(task));
+  }
+
+  private Entry take() throws IOException {
+    final Future<Entry> future = pending.removeFirst();
+    try {
+      return future.get();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while compressing the archive");
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private void write(final Entry entry) throws IOException {
+    entry.compressedSize = entry.compressed.length;
+    writeLocalHeader(entry);
+    writeBytes(entry.compressed);
+    // Only the headers are needed from now on
+    entry.compressed = null;
+    entries.add(entry);
+  }
+
+  /**
+   * Deflates the given file into the archive as it's read; as its CRC and
+   * sizes are only known at the end, they follow its content in a data
+   * descriptor.
+   */
+  private void writeDirectly(final byte[] name, final File file) throws IOException {
+    final Entry entry = new Entry();
+    entry.name = name;
+    entry.dosTime = toDosTime(file.lastModified());
+    entry.flags |= DATA_DESCRIPTOR_FLAG;
+    writeLocalHeader(entry);
+    final CRC32 crc = new CRC32();
+    final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    final byte[] buffer = new byte[BUFFER_SIZE];
+    final byte[] output = new byte[BUFFER_SIZE];
+    InputStream inputStream = null;
+    try {
+      inputStream = new FileInputStream(file);
+      int read;
+      while ((read = inputStream.read(buffer)) >= 0) {
+        crc.update(buffer, 0, read);
+        entry.size += read;
+        deflater.setInput(buffer, 0, read);
+        while (!deflater.needsInput()) {
+          writeBytes(output, deflater.deflate(output));
+        }
+      }
+      deflater.finish();
+      while (!deflater.finished()) {
+        writeBytes(output, deflater.deflate(output));
+      }
+      entry.compressedSize = deflater.getBytesWritten();
+    } finally {
+      deflater.end();
+      IOUtils.closeQuietly(inputStream);
+    }
+    check(entry.size, "file '" + file + "'");
+    check(entry.compressedSize, "file '" + file + "'");
+    entry.crc = crc.getValue();
+    writeInt(0x08074b50);
+    writeInt(entry.crc);
+    writeInt(entry.compressedSize);
+    writeInt(entry.size);
+    entries.add(entry);
+  }
+
+  /**
+   * Writes the local header of the given entry; its CRC and sizes are left
+   * to the data descriptor if it has one.
+   */
+  private void writeLocalHeader(final Entry entry) throws IOException {
+    check(written, "archive");
+    entry.offset = written;
+    final boolean hasDataDescriptor = (entry.flags & DATA_DESCRIPTOR_FLAG) != 0;
+    writeInt(0x04034b50);
+    writeShort(VERSION);
+    writeShort(entry.flags);
+    writeShort(entry.directory ? METHOD_STORED : METHOD_DEFLATED);
+    writeInt(entry.dosTime);
+    writeInt(hasDataDescriptor ? 0 : entry.crc);
+    writeInt(hasDataDescriptor ? 0 : entry.compressedSize);
+    writeInt(hasDataDescriptor ? 0 : entry.size);
+    writeShort(entry.name.length);
+    writeShort(0);
+    writeBytes(entry.name);
+  }
+
+  private void writeBytes(final byte[] bytes) throws IOException {
+    writeBytes(bytes, bytes.length);
+  }
+
+  private void writeBytes(final byte[] bytes, final int length) throws IOException {
+    outputStream.write(bytes, 0, length);
+    written += length;
+  }
+
+  private void writeCentralDirectoryHeader(final Entry entry) throws IOException {
+    writeInt(0x02014b50);
+    writeShort(VERSION);
+    writeShort(VERSION);
+    writeShort(entry.flags);
+    writeShort(entry.directory ? METHOD_STORED : METHOD_DEFLATED);
+    writeInt(entry.dosTime);
+    writeInt(entry.crc);
+    writeInt(entry.compressedSize);
+    writeInt(entry.size);
+    writeShort(entry.name.length);
+    writeShort(0); // extra field length
+    writeShort(0); // comment length
+    writeShort(0); // disk number
+    writeShort(0); // internal attributes
+    writeInt(entry.directory ? 0x10 : 0); // external attributes
+    writeInt(entry.offset);
+    writeBytes(entry.name);
+  }
+
+  private void writeInt(final long value) throws IOException {
+    outputStream.write((int) (value & 0xFF));
+    outputStream.write((int) ((value >>> 8) & 0xFF));
+    outputStream.write((int) ((value >>> 16) & 0xFF));
+    outputStream.write((int) ((value >>> 24) & 0xFF));
+    written += 4;
+  }
+
+  private void writeShort(final int value) throws IOException {
+    outputStream.write(value & 0xFF);
+    outputStream.write((value >>> 8) & 0xFF);
+    written += 2;
+  }
+}
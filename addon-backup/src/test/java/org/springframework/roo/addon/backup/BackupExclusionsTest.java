@@ -0,0 +1,134 @@
+package org.springframework.roo.addon.backup;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link BackupExclusions}
+ *
+ * @since 2.0
+ */
+public class BackupExclusionsTest {
+
+  private File directory;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = File.createTempFile("backup-exclusions", "");
+    directory.delete();
+    directory.mkdirs();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(directory);
+  }
+
+  private BackupExclusions getExclusions(final String... lines) throws IOException {
+    FileUtils.writeStringToFile(new File(directory, BackupExclusions.GITIGNORE),
+        StringUtils.join(lines, "\n"), "UTF-8");
+    return BackupExclusions.NONE.forDirectory(directory, "");
+  }
+
+  @Test
+  public void testNoGitignore() throws IOException {
+    assertSame(BackupExclusions.NONE, BackupExclusions.NONE.forDirectory(directory, ""));
+    assertFalse(BackupExclusions.NONE.isExcluded("src/Main.java", false));
+  }
+
+  @Test
+  public void testCommentsAndBlankLinesAreIgnored() throws IOException {
+    final BackupExclusions exclusions = getExclusions("# *.java", "", "   ", "*.class");
+
+    assertFalse(exclusions.isExcluded("Main.java", false));
+    assertTrue(exclusions.isExcluded("Main.class", false));
+  }
+
+  @Test
+  public void testUnanchoredPatternsMatchAtAnyDepth() throws IOException {
+    final BackupExclusions exclusions = getExclusions("*.log", "te?t.txt", "[ab].tmp");
+
+    assertTrue(exclusions.isExcluded("server.log", false));
+    assertTrue(exclusions.isExcluded("a/b/server.log", false));
+    assertTrue(exclusions.isExcluded("dir/test.txt", false));
+    assertFalse(exclusions.isExcluded("dir/teest.txt", false));
+    assertTrue(exclusions.isExcluded("b.tmp", false));
+    assertFalse(exclusions.isExcluded("c.tmp", false));
+    // "*" doesn't match "/"
+    assertFalse(exclusions.isExcluded("server.log/readme", false));
+  }
+
+  @Test
+  public void testAnchoredPatternsMatchFromTheirDirectory() throws IOException {
+    final BackupExclusions exclusions = getExclusions("/todo.txt", "doc/*.txt");
+
+    assertTrue(exclusions.isExcluded("todo.txt", false));
+    assertFalse(exclusions.isExcluded("sub/todo.txt", false));
+    assertTrue(exclusions.isExcluded("doc/notes.txt", false));
+    assertFalse(exclusions.isExcluded("doc/sub/notes.txt", false));
+    assertFalse(exclusions.isExcluded("other/doc/notes.txt", false));
+  }
+
+  @Test
+  public void testDoubleAsterisk() throws IOException {
+    final BackupExclusions exclusions =
+        getExclusions("**/generated", "logs/**", "a/**/b", "**.bak");
+
+    assertTrue(exclusions.isExcluded("generated", true));
+    assertTrue(exclusions.isExcluded("x/y/generated", true));
+    assertTrue(exclusions.isExcluded("logs/2016/march.txt", false));
+    assertFalse(exclusions.isExcluded("logs", true));
+    assertTrue(exclusions.isExcluded("a/b", false));
+    assertTrue(exclusions.isExcluded("a/x/y/b", false));
+    assertFalse(exclusions.isExcluded("a/xb", false));
+    assertTrue(exclusions.isExcluded("x/y/file.bak", false));
+  }
+
+  @Test
+  public void testTrailingSlashMatchesDirectoriesOnly() throws IOException {
+    final BackupExclusions exclusions = getExclusions("build/");
+
+    assertTrue(exclusions.isExcluded("build", true));
+    assertTrue(exclusions.isExcluded("module/build", true));
+    assertFalse(exclusions.isExcluded("build", false));
+  }
+
+  @Test
+  public void testNegationReincludesAndTheLastMatchingRuleWins() throws IOException {
+    final BackupExclusions exclusions = getExclusions("*.log", "!keep.log", "keep.log.*");
+
+    assertTrue(exclusions.isExcluded("other.log", false));
+    assertFalse(exclusions.isExcluded("keep.log", false));
+    assertFalse(exclusions.isExcluded("sub/keep.log", false));
+    assertTrue(exclusions.isExcluded("keep.log.1", false));
+  }
+
+  @Test
+  public void testNestedGitignoreRulesApplyBelowTheirDirectory() throws IOException {
+    final BackupExclusions rootExclusions = getExclusions("*.log");
+    final File sub = new File(directory, "sub");
+    FileUtils.writeStringToFile(new File(sub, BackupExclusions.GITIGNORE),
+        StringUtils.join(new String[] { "*.tmp", "/local", "!debug.log" }, "\n"), "UTF-8");
+    final BackupExclusions exclusions = rootExclusions.forDirectory(sub, "sub/");
+
+    assertTrue(exclusions.isExcluded("sub/x.tmp", false));
+    assertTrue(exclusions.isExcluded("sub/deep/x.tmp", false));
+    assertFalse(exclusions.isExcluded("x.tmp", false));
+    assertTrue(exclusions.isExcluded("sub/local", true));
+    assertFalse(exclusions.isExcluded("sub/deep/local", true));
+    assertTrue(exclusions.isExcluded("sub/other.log", false));
+    assertFalse(exclusions.isExcluded("sub/debug.log", false));
+    // The parent's rules are unchanged
+    assertFalse(rootExclusions.isExcluded("sub/x.tmp", false));
+  }
+}
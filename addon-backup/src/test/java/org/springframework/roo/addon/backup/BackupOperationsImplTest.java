@@ -0,0 +1,152 @@
+package org.springframework.roo.addon.backup;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests of the archiving done by {@link BackupOperationsImpl}
+ *
+ * @since 2.0
+ */
+public class BackupOperationsImplTest {
+
+  private static final long LAST_MODIFIED = 1458000000000L;
+
+  private File archives;
+  private ExecutorService executorService;
+  private File project;
+
+  @Before
+  public void setUp() throws IOException {
+    project = File.createTempFile("backup-project", "");
+    project.delete();
+    project.mkdirs();
+    archives = File.createTempFile("backup-archives", "");
+    archives.delete();
+    archives.mkdirs();
+    executorService = Executors.newFixedThreadPool(2);
+
+    write("pom.xml", "<project/>");
+    write("src/main/java/Main.java", "class Main {}");
+    write("src/main/java/Other.java", "class Other {}");
+    write("target/Main.class", "compiled");
+    write("logs/server.log", "log");
+    write(".gitignore", "logs/");
+    new File(project, "src/test").mkdirs();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    executorService.shutdownNow();
+    FileUtils.deleteDirectory(project);
+    FileUtils.deleteDirectory(archives);
+  }
+
+  private void write(final String path, final String content) throws IOException {
+    final File file = new File(project, path);
+    FileUtils.writeStringToFile(file, content, "UTF-8");
+    file.setLastModified(LAST_MODIFIED);
+  }
+
+  /**
+   * Archives the project as the "backup" command does, and returns the names
+   * of the archived entries
+   */
+  private List<String> backup(final String name, final Properties previousManifest,
+      final Properties manifest) throws IOException {
+    final File archive = new File(archives, name);
+    final ParallelZipWriter writer =
+        new ParallelZipWriter(new FileOutputStream(archive), executorService, 2);
+    BackupOperationsImpl.zip(project, "", project,
+        BackupExclusions.NONE.forDirectory(project, ""), previousManifest, manifest, writer);
+    if (previousManifest != null) {
+      BackupOperationsImpl.addDeletions(previousManifest, manifest, writer);
+    }
+    writer.close();
+
+    final List<String> names = new ArrayList<String>();
+    final ZipFile zipFile = new ZipFile(archive);
+    try {
+      final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        names.add(entries.nextElement().getName());
+      }
+    } finally {
+      zipFile.close();
+    }
+    return names;
+  }
+
+  private String readEntry(final String name, final String entryName) throws IOException {
+    final ZipFile zipFile = new ZipFile(new File(archives, name));
+    try {
+      return IOUtils.toString(zipFile.getInputStream(zipFile.getEntry(entryName)), "UTF-8");
+    } finally {
+      zipFile.close();
+    }
+  }
+
+  @Test
+  public void testFullBackupSkipsExcludedFiles() throws IOException {
+    final Properties manifest = new Properties();
+
+    assertEquals(Arrays.asList("pom.xml", "src/main/java/Main.java",
+        "src/main/java/Other.java", "src/test/"), backup("full.zip", null, manifest));
+    assertEquals(4, manifest.size());
+  }
+
+  @Test
+  public void testIncrementalBackupOnlyArchivesChangedFiles() throws IOException {
+    final Properties fullManifest = new Properties();
+    backup("full.zip", null, fullManifest);
+
+    // Modified, same size but newer, and added files
+    write("src/main/java/Main.java", "class Main { int i; }");
+    new File(project, "src/main/java/Other.java").setLastModified(LAST_MODIFIED + 2000);
+    write("src/main/resources/app.properties", "a=b");
+    final Properties manifest = new Properties();
+
+    assertEquals(Arrays.asList("src/main/java/Main.java", "src/main/java/Other.java",
+        "src/main/resources/app.properties"), backup("incremental.zip", fullManifest, manifest));
+    assertEquals(5, manifest.size());
+
+    // Nothing changed since
+    assertEquals(Collections.<String>emptyList(),
+        backup("empty.zip", manifest, new Properties()));
+  }
+
+  @Test
+  public void testIncrementalBackupRecordsDeletedFiles() throws IOException {
+    final Properties fullManifest = new Properties();
+    backup("full.zip", null, fullManifest);
+
+    new File(project, "src/main/java/Other.java").delete();
+    new File(project, "src/test").delete();
+    final Properties manifest = new Properties();
+
+    assertEquals(Arrays.asList(BackupOperationsImpl.DELETIONS_ENTRY_NAME),
+        backup("incremental.zip", fullManifest, manifest));
+    assertEquals("src/main/java/Other.java\nsrc/test/\n",
+        readEntry("incremental.zip", BackupOperationsImpl.DELETIONS_ENTRY_NAME));
+    assertEquals(2, manifest.size());
+  }
+}
@@ -0,0 +1,207 @@
+package org.springframework.roo.addon.backup;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ParallelZipWriter}: the archives it writes must be
+ * readable by {@link ZipFile}.
+ *
+ * @since 2.0
+ */
+public class ParallelZipWriterTest {
+
+  private static final int THREADS = 4;
+
+  private static byte[] getContent(final int index) {
+    // Compressible and incompressible parts, of varying sizes
+    final byte[] content = new byte[index * 1031];
+    for (int i = 0; i < content.length; i++) {
+      content[i] = (byte) (i % 2 == 0 ? 'a' + index % 26 : (i * 31 + index) >> 3);
+    }
+    return content;
+  }
+
+  private File archive;
+  private File directory;
+  private ExecutorService executorService;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = File.createTempFile("parallel-zip", "");
+    directory.delete();
+    directory.mkdirs();
+    archive = new File(directory, "archive.zip");
+    executorService = Executors.newFixedThreadPool(THREADS);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    executorService.shutdownNow();
+    FileUtils.deleteDirectory(directory);
+  }
+
+  @Test
+  public void testEntriesCanBeReadBack() throws IOException {
+    final List<String> names = new ArrayList<String>();
+    final ParallelZipWriter writer =
+        new ParallelZipWriter(new FileOutputStream(archive), executorService, THREADS);
+    for (int i = 0; i < 50; i++) {
+      final String name = "src/main/file" + i + ".txt";
+      final File file = new File(directory, "file" + i);
+      FileUtils.writeByteArrayToFile(file, getContent(i));
+      writer.addFile(name, file);
+      names.add(name);
+    }
+    writer.addDirectory("src/empty", System.currentTimeMillis());
+    names.add("src/empty/");
+    assertEquals(51, writer.getEntryCount());
+    writer.close();
+
+    final ZipFile zipFile = new ZipFile(archive);
+    try {
+      final List<String> readNames = new ArrayList<String>();
+      final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        readNames.add(entries.nextElement().getName());
+      }
+      // Entries are written in the order they were added
+      assertEquals(names, readNames);
+
+      for (int i = 0; i < 50; i++) {
+        final ZipEntry entry = zipFile.getEntry(names.get(i));
+        final byte[] expected = getContent(i);
+        final CRC32 crc = new CRC32();
+        crc.update(expected);
+        assertEquals(expected.length, entry.getSize());
+        assertEquals(crc.getValue(), entry.getCrc());
+        final InputStream inputStream = zipFile.getInputStream(entry);
+        try {
+          assertArrayEquals(expected, IOUtils.toByteArray(inputStream));
+        } finally {
+          inputStream.close();
+        }
+      }
+      assertTrue(zipFile.getEntry("src/empty/").isDirectory());
+    } finally {
+      zipFile.close();
+    }
+  }
+
+  @Test
+  public void testLargeFilesAreWrittenDirectly() throws IOException {
+    // Files above 20 KB are written directly, the others in the background
+    final ParallelZipWriter writer =
+        new ParallelZipWriter(new FileOutputStream(archive), executorService, THREADS, 20000);
+    for (int i = 0; i < 40; i++) {
+      final File file = new File(directory, "file" + i);
+      FileUtils.writeByteArrayToFile(file, getContent(i));
+      writer.addFile("file" + i, file);
+    }
+    writer.close();
+
+    final ZipFile zipFile = new ZipFile(archive);
+    try {
+      assertEquals(40, zipFile.size());
+      for (int i = 0; i < 40; i++) {
+        final ZipEntry entry = zipFile.getEntry("file" + i);
+        assertEquals(getContent(i).length, entry.getSize());
+        final InputStream inputStream = zipFile.getInputStream(entry);
+        try {
+          assertArrayEquals(getContent(i), IOUtils.toByteArray(inputStream));
+        } finally {
+          inputStream.close();
+        }
+      }
+    } finally {
+      zipFile.close();
+    }
+
+    // Streaming readers rely on the local headers and data descriptors
+    final ZipInputStream zipInputStream = new ZipInputStream(new FileInputStream(archive));
+    try {
+      for (int i = 0; i < 40; i++) {
+        assertEquals("file" + i, zipInputStream.getNextEntry().getName());
+        assertArrayEquals(getContent(i), IOUtils.toByteArray(zipInputStream));
+      }
+      assertEquals(null, zipInputStream.getNextEntry());
+    } finally {
+      zipInputStream.close();
+    }
+  }
+
+  @Test
+  public void testNamesAreStoredInUtf8() throws IOException {
+    final File file = new File(directory, "file");
+    FileUtils.writeStringToFile(file, "content", "UTF-8");
+    final ParallelZipWriter writer =
+        new ParallelZipWriter(new FileOutputStream(archive), executorService, THREADS);
+    writer.addFile("\u00e9t\u00e9/\u00fcber.txt", file);
+    writer.close();
+
+    final ZipFile zipFile = new ZipFile(archive);
+    try {
+      assertEquals("\u00e9t\u00e9/\u00fcber.txt", zipFile.entries().nextElement().getName());
+    } finally {
+      zipFile.close();
+    }
+  }
+
+  @Test
+  public void testModificationTimesKeepTheirTwoSecondPrecision() throws IOException {
+    final Calendar calendar = Calendar.getInstance();
+    calendar.clear();
+    calendar.set(2016, Calendar.MARCH, 14, 15, 9, 26);
+    final File file = new File(directory, "file");
+    FileUtils.writeStringToFile(file, "content", "UTF-8");
+    file.setLastModified(calendar.getTimeInMillis() + 1500);
+    final ParallelZipWriter writer =
+        new ParallelZipWriter(new FileOutputStream(archive), executorService, THREADS);
+    writer.addFile("file", file);
+    writer.addDirectory("directory", calendar.getTimeInMillis());
+    writer.close();
+
+    final ZipFile zipFile = new ZipFile(archive);
+    try {
+      assertEquals(calendar.getTimeInMillis(), zipFile.getEntry("file").getTime());
+      assertEquals(calendar.getTimeInMillis(), zipFile.getEntry("directory/").getTime());
+    } finally {
+      zipFile.close();
+    }
+  }
+
+  @Test
+  public void testEmptyArchive() throws IOException {
+    new ParallelZipWriter(new FileOutputStream(archive), executorService, THREADS).close();
+
+    final ZipFile zipFile = new ZipFile(archive);
+    try {
+      assertEquals(0, zipFile.size());
+    } finally {
+      zipFile.close();
+    }
+  }
+}
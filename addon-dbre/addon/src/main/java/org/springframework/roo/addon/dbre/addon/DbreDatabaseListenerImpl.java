@@ -27,6 +27,7 @@ import org.osgi.framework.InvalidSyntaxException;
 import org.osgi.framework.ServiceReference;
 import org.springframework.roo.addon.dbre.addon.model.Column;
 import org.springframework.roo.addon.dbre.addon.model.Database;
+import org.springframework.roo.addon.dbre.addon.model.DatabaseDiff;
 import org.springframework.roo.addon.dbre.addon.model.DbreModelService;
 import org.springframework.roo.addon.dbre.addon.model.Table;
 import org.springframework.roo.addon.jpa.addon.identifier.Identifier;
@@ -89,6 +90,7 @@ public class DbreDatabaseListenerImpl extends AbstractHashCodeTrackingMetadataNo
   private TypeManagementService typeManagementService;
 
   private Map<JavaType, List<Identifier>> identifierResults;
+  private DatabaseDiff lastAppliedChanges;
 
   private void createIdentifierClass(final JavaType identifierType) {
     final List<AnnotationMetadataBuilder> identifierAnnotations =
@@ -215,8 +217,16 @@ public class DbreDatabaseListenerImpl extends AbstractHashCodeTrackingMetadataNo
   private void deserializeDatabase() {
     final Database database = getDbreModelService().getDatabase(true);
     if (database != null) {
-      identifierResults = new LinkedHashMap<JavaType, List<Identifier>>();
-      reverseEngineer(database);
+      // Only entities of changed tables need updating if the changes since the
+      // previous run in this session are known; otherwise update them all
+      final DatabaseDiff changes = getDbreModelService().getLastChanges();
+      if (identifierResults == null || changes == null || changes == lastAppliedChanges) {
+        identifierResults = new LinkedHashMap<JavaType, List<Identifier>>();
+        reverseEngineer(database, null);
+      } else {
+        reverseEngineer(database, changes);
+      }
+      lastAppliedChanges = changes;
     }
   }
 
@@ -502,7 +512,15 @@ public class DbreDatabaseListenerImpl extends AbstractHashCodeTrackingMetadataNo
     }
   }
 
-  private void reverseEngineer(final Database database) {
+  /**
+   * Creates, updates and deletes the DBRE-managed entities to match the given
+   * database.
+   * 
+   * @param database the database to reverse engineer (required)
+   * @param changes the changes since the previous run, or <code>null</code> to
+   *            update every managed entity
+   */
+  private void reverseEngineer(final Database database, final DatabaseDiff changes) {
     final Set<ClassOrInterfaceTypeDetails> managedEntities =
         getTypeLocationService().findClassesOrInterfaceDetailsWithAnnotation(ROO_DB_MANAGED);
     // Lookup the relevant destination package if not explicitly given
@@ -515,7 +533,17 @@ public class DbreDatabaseListenerImpl extends AbstractHashCodeTrackingMetadataNo
     final Set<Table> tables = new LinkedHashSet<Table>(database.getTables());
 
     // Manage existing entities with @RooDbManaged annotation
+    final List<ClassOrInterfaceTypeDetails> updatedEntities =
+        new ArrayList<ClassOrInterfaceTypeDetails>();
     for (final ClassOrInterfaceTypeDetails managedEntity : managedEntities) {
+      if (changes != null) {
+        final Table unchangedTable = findTable(managedEntity, database);
+        if (changes.isUnchanged(unchangedTable)) {
+          tables.remove(unchangedTable);
+          continue;
+        }
+      }
+
       // Remove table from set as each managed entity is processed.
       // The tables that remain in the set will be used for creation of
       // new entities later
@@ -523,6 +551,7 @@ public class DbreDatabaseListenerImpl extends AbstractHashCodeTrackingMetadataNo
       if (table != null) {
         tables.remove(table);
       }
+      updatedEntities.add(managedEntity);
     }
 
     // Create new entities from tables
@@ -553,7 +582,8 @@ public class DbreDatabaseListenerImpl extends AbstractHashCodeTrackingMetadataNo
       for (final ClassOrInterfaceTypeDetails entity : newEntities) {
         final JavaType type = entity.getType();
         getRepositoryJpaOperations().addRepository(
-            new JavaType(type.getFullyQualifiedTypeName() + "Repository"), type, null);
+            new JavaType(type.getFullyQualifiedTypeName() + "Repository"), type, null, false,
+            false);
       }
     }
 
@@ -577,8 +607,39 @@ public class DbreDatabaseListenerImpl extends AbstractHashCodeTrackingMetadataNo
     final List<ClassOrInterfaceTypeDetails> allEntities =
         new ArrayList<ClassOrInterfaceTypeDetails>();
     allEntities.addAll(newEntities);
-    allEntities.addAll(managedEntities);
+    allEntities.addAll(updatedEntities);
     notify(allEntities);
+
+    if (changes != null) {
+      LOGGER.info("Database changes: " + changes.getSummary() + "; " + newEntities.size()
+          + " entities created, " + updatedEntities.size() + " updated or deleted, "
+          + (managedEntities.size() - updatedEntities.size()) + " untouched");
+    }
+  }
+
+  /**
+   * Finds the table of the given DBRE-managed entity from the
+   * <code>table</code> and <code>schema</code> attributes of its JPA
+   * annotation.
+   * 
+   * @return the table, or <code>null</code> if it cannot be determined or
+   *         does not exist
+   */
+  private Table findTable(final ClassOrInterfaceTypeDetails managedEntity,
+      final Database database) {
+    final AnnotationMetadata jpaAnnotation = getJpaAnnotation(managedEntity);
+    if (jpaAnnotation == null) {
+      return null;
+    }
+    final AnnotationAttributeValue<?> tableAttribute =
+        jpaAnnotation.getAttribute(new JavaSymbolName("table"));
+    if (tableAttribute == null || StringUtils.isBlank((String) tableAttribute.getValue())) {
+      return null;
+    }
+    final AnnotationAttributeValue<?> schemaAttribute =
+        jpaAnnotation.getAttribute(new JavaSymbolName("schema"));
+    final String schemaName = schemaAttribute != null ? (String) schemaAttribute.getValue() : null;
+    return database.getTable((String) tableAttribute.getValue(), schemaName);
   }
 
   private Table updateOrDeleteManagedEntity(final ClassOrInterfaceTypeDetails managedEntity,
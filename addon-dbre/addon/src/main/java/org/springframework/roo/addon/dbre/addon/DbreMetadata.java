@@ -218,11 +218,7 @@ public class DbreMetadata extends AbstractItdTypeDetailsProvidingMetadataItem {
     final Map<JavaSymbolName, FieldMetadataBuilder> uniqueInverseSideFields =
         new LinkedHashMap<JavaSymbolName, FieldMetadataBuilder>();
 
-    for (final Table joinTable : database.getTables()) {
-      if (!joinTable.isJoinTable()) {
-        continue;
-      }
-
+    for (final Table joinTable : database.getJoinTables()) {
       final String errMsg =
           "table in join table '"
               + joinTable.getName()
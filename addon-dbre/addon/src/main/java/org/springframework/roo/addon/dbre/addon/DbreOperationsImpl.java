@@ -1,13 +1,14 @@
 package org.springframework.roo.addon.dbre.addon;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
-import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.Collections;
 import java.util.Set;
 import java.util.logging.Logger;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.apache.felix.scr.annotations.Component;
@@ -82,12 +83,17 @@ public class DbreOperationsImpl implements DbreOperations {
     } else {
       try {
         if (displayOnly) {
-          final Document document = DatabaseXmlUtils.getDatabaseDocument(database);
-          final OutputStream outputStream =
-              file != null ? new FileOutputStream(file) : new ByteArrayOutputStream();
-          XmlUtils.writeXml(outputStream, document);
-          LOGGER.info(file != null ? "Database metadata written to file " + file.getAbsolutePath()
-              : outputStream.toString());
+          if (file != null) {
+            final Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+            try {
+              DatabaseXmlUtils.writeDatabase(database, writer);
+            } finally {
+              IOUtils.closeQuietly(writer);
+            }
+            LOGGER.info("Database metadata written to file " + file.getAbsolutePath());
+          } else {
+            LOGGER.info(DatabaseXmlUtils.getDatabaseXml(database));
+          }
         } else {
           dbreModelService.writeDatabase(database);
         }
@@ -1,10 +1,13 @@
 package org.springframework.roo.addon.dbre.addon.model;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -48,9 +51,15 @@ public class Database {
   /** Whether or not to generate a service layer for each entity */
   private boolean service;
 
+  /** The many-to-many join tables, in table order */
+  private final List<Table> joinTables = new ArrayList<Table>();
+
   /** All tables. */
   private final Set<Table> tables;
 
+  /** The tables by case-insensitive name, in table order */
+  private final Map<String, List<Table>> tablesByName = new HashMap<String, List<Table>>();
+
   /** Whether to create integration tests */
   private boolean testAutomatically;
 
@@ -95,8 +104,22 @@ public class Database {
     return moduleName;
   }
 
+  /**
+   * Returns the many-to-many join tables, i.e. the tables whose
+   * {@link Table#isJoinTable()} is <code>true</code>, in table order.
+   * 
+   * @return a non-<code>null</code> list
+   */
+  public List<Table> getJoinTables() {
+    return Collections.unmodifiableList(joinTables);
+  }
+
   public Table getTable(final String name, final String schemaName) {
-    for (final Table table : tables) {
+    final List<Table> candidates = tablesByName.get(Table.getIndexKey(name));
+    if (candidates == null) {
+      return null;
+    }
+    for (final Table table : candidates) {
       if (table.getName().equals(name)) {
         if (StringUtils.isBlank(schemaName)
             || DbreModelService.NO_SCHEMA_REQUIRED.equals(schemaName)
@@ -199,6 +222,17 @@ public class Database {
    * in this model eg. in foreign keys etc.
    */
   private void init() {
+    // Index the tables first, as resolving the keys looks them up by name
+    for (final Table table : tables) {
+      final String key = Table.getIndexKey(table.getName());
+      List<Table> tablesWithName = tablesByName.get(key);
+      if (tablesWithName == null) {
+        tablesWithName = new ArrayList<Table>(1);
+        tablesByName.put(key, tablesWithName);
+      }
+      tablesWithName.add(table);
+    }
+
     final Set<Schema> schemas = new HashSet<Schema>();
     for (final Table table : tables) {
       schemas.add(table.getSchema());
@@ -206,6 +240,9 @@ public class Database {
       initializeExportedKeys(table);
       initializeIndices(table);
       initializeJoinTable(table);
+      if (table.isJoinTable()) {
+        joinTables.add(table);
+      }
     }
     multipleSchemas = schemas.size() > 1;
   }
@@ -0,0 +1,316 @@
+package org.springframework.roo.addon.dbre.addon.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.Validate;
+import org.springframework.roo.model.JavaPackage;
+
+/**
+ * A cache of parsed DBRE XML files in a compact binary form, so that the
+ * {@link Database} can be restored without parsing the XML again, e.g. after
+ * a restart.
+ * <p>
+ * Entries are keyed by a digest of the XML contents, so an edited file never
+ * hits a stale entry. Only the most recently used {@value #MAX_ENTRIES}
+ * entries are kept. A missing, truncated or outdated entry is treated as a
+ * cache miss.
+ *
+ * @since 2.0
+ */
+public class DatabaseBinaryCache {
+
+  private static final String EXTENSION = ".bin";
+  private static final int FORMAT_VERSION = 1;
+  private static final int MAGIC = 0x44425245; // "DBRE"
+  static final int MAX_ENTRIES = 8;
+
+  /**
+   * Returns the cache key of the given DBRE XML contents.
+   *
+   * @param contents the raw bytes of the DBRE XML file (required)
+   * @return a hexadecimal digest
+   */
+  public static String getKey(final byte[] contents) {
+    try {
+      final byte[] digest = MessageDigest.getInstance("SHA-1").digest(contents);
+      final StringBuilder sb = new StringBuilder(digest.length * 2);
+      for (final byte b : digest) {
+        sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return sb.toString();
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private final File directory;
+
+  /**
+   * Constructor
+   *
+   * @param directory the directory in which to store the entries (required);
+   *            created if necessary
+   */
+  public DatabaseBinaryCache(final File directory) {
+    Validate.notNull(directory, "Directory required");
+    this.directory = directory;
+  }
+
+  /**
+   * Returns the database cached under the given key.
+   *
+   * @param key the key returned by {@link #getKey(byte[])}
+   * @return <code>null</code> if there is no usable entry
+   */
+  public Database get(final String key) {
+    final File file = getFile(key);
+    if (!file.isFile()) {
+      return null;
+    }
+    DataInputStream in = null;
+    try {
+      in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+      if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+        return null;
+      }
+      final Database database = readDatabase(in);
+      file.setLastModified(System.currentTimeMillis());
+      return database;
+    } catch (final IOException e) {
+      return null;
+    } catch (final RuntimeException e) {
+      // Corrupt entry, e.g. a truncated string or an invalid model
+      return null;
+    } finally {
+      IOUtils.closeQuietly(in);
+    }
+  }
+
+  /**
+   * Caches the given database under the given key, evicting the least
+   * recently used entries beyond {@value #MAX_ENTRIES}. Failures are ignored,
+   * as the cache is only an optimisation.
+   *
+   * @param key the key returned by {@link #getKey(byte[])}
+   * @param database the database parsed from the XML with that key (required)
+   */
+  public void put(final String key, final Database database) {
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      return;
+    }
+    final File file = getFile(key);
+    final File tempFile = new File(directory, key + ".tmp");
+    DataOutputStream out = null;
+    try {
+      out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      writeDatabase(out, database);
+      out.close();
+      out = null;
+      file.delete();
+      if (!tempFile.renameTo(file)) {
+        tempFile.delete();
+        return;
+      }
+    } catch (final IOException e) {
+      IOUtils.closeQuietly(out);
+      tempFile.delete();
+      return;
+    }
+    evictOldEntries();
+  }
+
+  private void evictOldEntries() {
+    final File[] entries = directory.listFiles(new FileFilter() {
+      public boolean accept(final File pathname) {
+        return pathname.isFile() && pathname.getName().endsWith(EXTENSION);
+      }
+    });
+    if (entries == null || entries.length <= MAX_ENTRIES) {
+      return;
+    }
+    Arrays.sort(entries, new Comparator<File>() {
+      public int compare(final File o1, final File o2) {
+        final long difference = o2.lastModified() - o1.lastModified();
+        return difference > 0 ? 1 : difference < 0 ? -1 : 0;
+      }
+    });
+    for (int i = MAX_ENTRIES; i < entries.length; i++) {
+      entries[i].delete();
+    }
+  }
+
+  private File getFile(final String key) {
+    return new File(directory, key + EXTENSION);
+  }
+
+  private Database readDatabase(final DataInputStream in) throws IOException {
+    final String destinationPackage = readString(in);
+    final String moduleName = readString(in);
+    final boolean includeNonPortableAttributes = in.readBoolean();
+    final boolean disableVersionFields = in.readBoolean();
+    final boolean disableGeneratedIdentifiers = in.readBoolean();
+    final boolean repository = in.readBoolean();
+    final boolean service = in.readBoolean();
+    final boolean testAutomatically = in.readBoolean();
+
+    final int tableCount = in.readInt();
+    final Set<Table> tables = new LinkedHashSet<Table>();
+    for (int i = 0; i < tableCount; i++) {
+      final Table table = new Table(readString(in), new Schema(readString(in)));
+      table.setDescription(readString(in));
+
+      final int columnCount = in.readInt();
+      for (int j = 0; j < columnCount; j++) {
+        final Column column =
+            new Column(readString(in), in.readInt(), readString(in), in.readInt(), in.readInt());
+        column.setDescription(readString(in));
+        column.setPrimaryKey(in.readBoolean());
+        column.setRequired(in.readBoolean());
+        table.addColumn(column);
+      }
+
+      final int foreignKeyCount = in.readInt();
+      for (int j = 0; j < foreignKeyCount; j++) {
+        final ForeignKey foreignKey = new ForeignKey(readString(in), readString(in));
+        foreignKey.setForeignSchemaName(readString(in));
+        foreignKey.setExported(in.readBoolean());
+        foreignKey.setOnDelete(CascadeAction.getCascadeAction(readString(in)));
+        foreignKey.setOnUpdate(CascadeAction.getCascadeAction(readString(in)));
+        final int referenceCount = in.readInt();
+        for (int k = 0; k < referenceCount; k++) {
+          foreignKey.addReference(new Reference(readString(in), readString(in)));
+        }
+        if (foreignKey.isExported()) {
+          table.addExportedKey(foreignKey);
+        } else {
+          table.addImportedKey(foreignKey);
+        }
+      }
+
+      final int indexCount = in.readInt();
+      for (int j = 0; j < indexCount; j++) {
+        final Index index = new Index(readString(in));
+        index.setUnique(in.readBoolean());
+        final int indexColumnCount = in.readInt();
+        for (int k = 0; k < indexColumnCount; k++) {
+          index.addColumn(new IndexColumn(readString(in)));
+        }
+        table.addIndex(index);
+      }
+      tables.add(table);
+    }
+
+    final Database database = new Database(tables);
+    database.setDestinationPackage(destinationPackage == null ? null : new JavaPackage(
+        destinationPackage));
+    database.setModuleName(moduleName);
+    database.setIncludeNonPortableAttributes(includeNonPortableAttributes);
+    database.setDisableVersionFields(disableVersionFields);
+    database.setDisableGeneratedIdentifiers(disableGeneratedIdentifiers);
+    database.setRepository(repository);
+    database.setService(service);
+    database.setTestAutomatically(testAutomatically);
+    return database;
+  }
+
+  private String readString(final DataInputStream in) throws IOException {
+    final int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    final byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, "UTF-8");
+  }
+
+  private void writeDatabase(final DataOutputStream out, final Database database)
+      throws IOException {
+    final JavaPackage destinationPackage = database.getDestinationPackage();
+    writeString(out, destinationPackage == null ? null : destinationPackage
+        .getFullyQualifiedPackageName());
+    writeString(out, database.getModuleName());
+    out.writeBoolean(database.isIncludeNonPortableAttributes());
+    out.writeBoolean(database.isDisableVersionFields());
+    out.writeBoolean(database.isDisableGeneratedIdentifiers());
+    out.writeBoolean(database.isRepository());
+    out.writeBoolean(database.isService());
+    out.writeBoolean(database.isTestAutomatically());
+
+    out.writeInt(database.getTables().size());
+    for (final Table table : database.getTables()) {
+      writeString(out, table.getName());
+      writeString(out, table.getSchema().getName());
+      writeString(out, table.getDescription());
+
+      out.writeInt(table.getColumns().size());
+      for (final Column column : table.getColumns()) {
+        writeString(out, column.getName());
+        out.writeInt(column.getDataType());
+        writeString(out, column.getTypeName());
+        out.writeInt(column.getColumnSize());
+        out.writeInt(column.getScale());
+        writeString(out, column.getDescription());
+        out.writeBoolean(column.isPrimaryKey());
+        out.writeBoolean(column.isRequired());
+      }
+
+      out.writeInt(table.getImportedKeyCount() + table.getExportedKeys().size());
+      writeForeignKeys(out, table.getImportedKeys());
+      writeForeignKeys(out, table.getExportedKeys());
+
+      out.writeInt(table.getIndices().size());
+      for (final Index index : table.getIndices()) {
+        writeString(out, index.getName());
+        out.writeBoolean(index.isUnique());
+        out.writeInt(index.getColumns().size());
+        for (final IndexColumn indexColumn : index.getColumns()) {
+          writeString(out, indexColumn.getName());
+        }
+      }
+    }
+  }
+
+  private void writeForeignKeys(final DataOutputStream out, final Set<ForeignKey> foreignKeys)
+      throws IOException {
+    for (final ForeignKey foreignKey : foreignKeys) {
+      writeString(out, foreignKey.getName());
+      writeString(out, foreignKey.getForeignTableName());
+      writeString(out, foreignKey.getForeignSchemaName());
+      out.writeBoolean(foreignKey.isExported());
+      writeString(out, foreignKey.getOnDelete().getCode());
+      writeString(out, foreignKey.getOnUpdate().getCode());
+      out.writeInt(foreignKey.getReferences().size());
+      for (final Reference reference : foreignKey.getReferences()) {
+        writeString(out, reference.getLocalColumnName());
+        writeString(out, reference.getForeignColumnName());
+      }
+    }
+  }
+
+  private void writeString(final DataOutputStream out, final String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    final byte[] bytes = value.getBytes("UTF-8");
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+}
@@ -0,0 +1,221 @@
+package org.springframework.roo.addon.dbre.addon.model;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.commons.lang3.ObjectUtils;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * The differences between two {@link Database} models, usually the one stored
+ * in the DBRE XML file and a fresh introspection of the live database.
+ * <p>
+ * Tables are compared by a fingerprint of everything DBRE generates code from:
+ * their columns, primary keys, imported and exported foreign keys and indices.
+ * As the relationship fields of an entity depend on the tables at the other end
+ * of its foreign keys, a table related to an added, changed or removed table
+ * is also reported as changed. A change to the database-wide reverse
+ * engineering options, such as the destination package, marks every table as
+ * changed.
+ *
+ * @since 2.0
+ */
+public class DatabaseDiff {
+
+  /**
+   * Compares the given models.
+   *
+   * @param previous the earlier model (can be <code>null</code> if there was
+   *            none, in which case every table is added)
+   * @param current the later model (required)
+   * @return a non-<code>null</code> diff
+   */
+  public static DatabaseDiff compare(final Database previous, final Database current) {
+    final Map<String, String> previousFingerprints = getFingerprints(previous);
+    final Map<String, String> currentFingerprints = getFingerprints(current);
+    final boolean optionsChanged = previous == null || !haveSameOptions(previous, current);
+
+    final DatabaseDiff diff = new DatabaseDiff();
+    for (final Map.Entry<String, String> entry : currentFingerprints.entrySet()) {
+      final String previousFingerprint = previousFingerprints.get(entry.getKey());
+      if (previousFingerprint == null) {
+        diff.addedTables.add(entry.getKey());
+      } else if (optionsChanged || !previousFingerprint.equals(entry.getValue())) {
+        diff.changedTables.add(entry.getKey());
+      } else {
+        diff.unchangedTables.add(entry.getKey());
+      }
+    }
+    for (final String tableName : previousFingerprints.keySet()) {
+      if (!currentFingerprints.containsKey(tableName)) {
+        diff.removedTables.add(tableName);
+      }
+    }
+
+    // Tables whose relationships point at a modified table are modified too
+    final Set<String> modifiedTables = new HashSet<String>(diff.addedTables);
+    modifiedTables.addAll(diff.changedTables);
+    modifiedTables.addAll(diff.removedTables);
+    for (final Table table : current.getTables()) {
+      final String tableName = table.getFullyQualifiedTableName();
+      if (diff.unchangedTables.contains(tableName)
+          && (referencesAny(table.getImportedKeys(), modifiedTables) || referencesAny(
+              table.getExportedKeys(), modifiedTables))) {
+        diff.unchangedTables.remove(tableName);
+        diff.changedTables.add(tableName);
+      }
+    }
+    return diff;
+  }
+
+  /**
+   * Returns a fingerprint of the given table's structure, which changes
+   * whenever anything DBRE generates code from changes.
+   *
+   * @param table the table to fingerprint (required)
+   * @return a non-blank canonical description of the table
+   */
+  public static String getFingerprint(final Table table) {
+    final StringBuilder sb = new StringBuilder();
+    sb.append(table.getFullyQualifiedTableName()).append('|').append(table.getCatalog())
+        .append('|').append(table.isJoinTable()).append('\n');
+    for (final Column column : table.getColumns()) {
+      sb.append("C|").append(column.getName()).append('|').append(column.getDataType())
+          .append('|').append(column.getTypeName()).append('|').append(column.getColumnSize())
+          .append('|').append(column.getScale()).append('|').append(column.isRequired())
+          .append('|').append(column.isPrimaryKey()).append('|').append(column.isUnique())
+          .append('|').append(column.getDefaultValue()).append('\n');
+    }
+    appendForeignKeys(sb, "I|", table.getImportedKeys());
+    appendForeignKeys(sb, "E|", table.getExportedKeys());
+    for (final Index index : table.getIndices()) {
+      sb.append("X|").append(index.getName()).append('|').append(index.isUnique());
+      for (final IndexColumn indexColumn : index.getColumns()) {
+        sb.append('|').append(indexColumn.getName());
+      }
+      sb.append('\n');
+    }
+    return sb.toString();
+  }
+
+  private static void appendForeignKeys(final StringBuilder sb, final String prefix,
+      final Set<ForeignKey> foreignKeys) {
+    // Order the keys, as the driver may report them in any order
+    final Set<String> lines = new TreeSet<String>();
+    for (final ForeignKey foreignKey : foreignKeys) {
+      final StringBuilder line = new StringBuilder(prefix);
+      line.append(foreignKey.getName()).append('|').append(foreignKey.getForeignSchemaName())
+          .append('|').append(foreignKey.getForeignTableName()).append('|')
+          .append(foreignKey.getOnUpdate()).append('|').append(foreignKey.getOnDelete());
+      for (final Reference reference : foreignKey.getReferences()) {
+        line.append('|').append(reference.getLocalColumnName()).append('>')
+            .append(reference.getForeignColumnName());
+      }
+      lines.add(line.toString());
+    }
+    for (final String line : lines) {
+      sb.append(line).append('\n');
+    }
+  }
+
+  private static Map<String, String> getFingerprints(final Database database) {
+    final Map<String, String> fingerprints = new LinkedHashMap<String, String>();
+    if (database != null) {
+      for (final Table table : database.getTables()) {
+        fingerprints.put(table.getFullyQualifiedTableName(), getFingerprint(table));
+      }
+    }
+    return fingerprints;
+  }
+
+  private static String getForeignTableName(final ForeignKey foreignKey) {
+    final String schemaName = foreignKey.getForeignSchemaName();
+    return schemaName == null || DbreModelService.NO_SCHEMA_REQUIRED.equals(schemaName) ? foreignKey
+        .getForeignTableName() : schemaName + "." + foreignKey.getForeignTableName();
+  }
+
+  private static boolean referencesAny(final Set<ForeignKey> foreignKeys,
+      final Set<String> tableNames) {
+    for (final ForeignKey foreignKey : foreignKeys) {
+      if (tableNames.contains(getForeignTableName(foreignKey))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean haveSameOptions(final Database previous, final Database current) {
+    return ObjectUtils.equals(previous.getDestinationPackage(), current.getDestinationPackage())
+        && StringUtils.equals(previous.getModuleName(), current.getModuleName())
+        && previous.isDisableGeneratedIdentifiers() == current.isDisableGeneratedIdentifiers()
+        && previous.isDisableVersionFields() == current.isDisableVersionFields()
+        && previous.isIncludeNonPortableAttributes() == current.isIncludeNonPortableAttributes()
+        && previous.isRepository() == current.isRepository()
+        && previous.isService() == current.isService()
+        && previous.isTestAutomatically() == current.isTestAutomatically();
+  }
+
+  private final Set<String> addedTables = new TreeSet<String>();
+  private final Set<String> changedTables = new TreeSet<String>();
+  private final Set<String> removedTables = new TreeSet<String>();
+  private final Set<String> unchangedTables = new TreeSet<String>();
+
+  private DatabaseDiff() {}
+
+  /**
+   * Returns the fully qualified names of the tables only present in the later
+   * model
+   */
+  public Set<String> getAddedTables() {
+    return Collections.unmodifiableSet(addedTables);
+  }
+
+  /**
+   * Returns the fully qualified names of the tables present in both models
+   * but with a different structure
+   */
+  public Set<String> getChangedTables() {
+    return Collections.unmodifiableSet(changedTables);
+  }
+
+  /**
+   * Returns the fully qualified names of the tables only present in the
+   * earlier model
+   */
+  public Set<String> getRemovedTables() {
+    return Collections.unmodifiableSet(removedTables);
+  }
+
+  /**
+   * Returns a one-line description of the differences, e.g.
+   * "2 tables added, 1 changed, 0 removed, 40 unchanged"
+   */
+  public String getSummary() {
+    return addedTables.size() + (addedTables.size() == 1 ? " table" : " tables") + " added, "
+        + changedTables.size() + " changed, " + removedTables.size() + " removed, "
+        + unchangedTables.size() + " unchanged";
+  }
+
+  public boolean hasChanges() {
+    return !addedTables.isEmpty() || !changedTables.isEmpty() || !removedTables.isEmpty();
+  }
+
+  /**
+   * Indicates whether the given table of the later model is identical in the
+   * earlier one
+   *
+   * @param table the table to check (can be <code>null</code>)
+   */
+  public boolean isUnchanged(final Table table) {
+    return table != null && unchangedTables.contains(table.getFullyQualifiedTableName());
+  }
+
+  @Override
+  public String toString() {
+    return getSummary();
+  }
+}
@@ -4,22 +4,64 @@ import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
 
 /**
  * Creates a {@link Database database} model from a live database using JDBC.
+ * <p>
+ * The columns of all the tables of a schema are read in a single
+ * {@link DatabaseMetaData#getColumns} call. Keys and indices can only be
+ * requested table by table through JDBC; when a {@link ConnectionFactory} is
+ * given, those requests are spread over up to {@value #MAX_CONNECTIONS}
+ * connections.
  * 
  * @author Alan Stewart
  * @since 1.1
  */
 public class DatabaseIntrospector extends AbstractIntrospector {
 
+  /**
+   * Supplies additional connections to the database being introspected.
+   */
+  public interface ConnectionFactory {
+
+    /**
+     * Closes the given connection, which was obtained from this factory
+     * 
+     * @param connection the connection to close (can be <code>null</code>)
+     */
+    void closeConnection(Connection connection);
+
+    /**
+     * Returns a new connection to the database being introspected
+     * 
+     * @return <code>null</code> if no further connection can be opened
+     */
+    Connection getConnection() throws SQLException;
+  }
+
+  /** The maximum number of connections reading table details at once */
+  static final int MAX_CONNECTIONS = 4;
+
+  /** The minimum number of tables worth giving to each connection */
+  private static final int MIN_TABLES_PER_CONNECTION = 25;
+
+  private final ConnectionFactory connectionFactory;
+  private String databaseProductName;
   private final Set<String> excludeTables;
   private final Set<String> includeTables;
   private final Set<Schema> schemas;
@@ -28,7 +70,27 @@ public class DatabaseIntrospector extends AbstractIntrospector {
   public DatabaseIntrospector(final Connection connection, final Set<Schema> schemas,
       final boolean view, final Set<String> includeTables, final Set<String> excludeTables)
       throws SQLException {
+    this(connection, null, schemas, view, includeTables, excludeTables);
+  }
+
+  /**
+   * Constructor
+   * 
+   * @param connection the connection to introspect (required)
+   * @param connectionFactory supplies additional connections for reading
+   *            table details in parallel (can be <code>null</code> to only use
+   *            the given connection)
+   * @param schemas the schemas to introspect (required)
+   * @param view whether to include views
+   * @param includeTables the patterns of the tables to include (can be empty)
+   * @param excludeTables the patterns of the tables to exclude (can be empty)
+   * @throws SQLException
+   */
+  public DatabaseIntrospector(final Connection connection,
+      final ConnectionFactory connectionFactory, final Set<Schema> schemas, final boolean view,
+      final Set<String> includeTables, final Set<String> excludeTables) throws SQLException {
     super(connection);
+    this.connectionFactory = connectionFactory;
     this.schemas = schemas;
     this.view = view;
     this.includeTables = includeTables;
@@ -40,6 +102,7 @@ public class DatabaseIntrospector extends AbstractIntrospector {
     for (final Schema schema : schemas) {
       tables.addAll(getTables(schema));
     }
+    readTableDetails(new ArrayList<Table>(tables));
     return new Database(tables);
   }
 
@@ -108,19 +171,6 @@ public class DatabaseIntrospector extends AbstractIntrospector {
           final Table table = new Table(tableName, new Schema(rs.getString("TABLE_SCHEM")));
           table.setCatalog(rs.getString("TABLE_CAT"));
           table.setDescription(rs.getString("REMARKS"));
-
-          readColumns(table);
-          readForeignKeys(table, false);
-          readForeignKeys(table, true);
-          readIndices(table);
-
-          for (final String columnName : readPrimaryKeyNames(table)) {
-            final Column column = table.findColumn(columnName);
-            if (column != null) {
-              column.setPrimaryKey(true);
-            }
-          }
-
           tables.add(table);
         }
       }
@@ -128,6 +178,9 @@ public class DatabaseIntrospector extends AbstractIntrospector {
       rs.close();
     }
 
+    if (!tables.isEmpty()) {
+      readColumns(schema, tables);
+    }
     return tables;
   }
 
@@ -157,27 +210,154 @@ public class DatabaseIntrospector extends AbstractIntrospector {
   }
 
   private boolean ignoreTables(final String tableName) {
+    if (databaseProductName == null) {
+      try {
+        databaseProductName = StringUtils.defaultString(databaseMetaData.getDatabaseProductName());
+      } catch (final SQLException e) {
+        databaseProductName = "";
+      }
+    }
     boolean ignore = false;
+    if ("Oracle".equalsIgnoreCase(databaseProductName) && tableName.startsWith("BIN$")) {
+      ignore = true;
+    }
+    if ("MySQL".equalsIgnoreCase(databaseProductName) && tableName.equals("SEQUENCE")) {
+      ignore = true;
+    }
+    return ignore;
+  }
+
+  private String getTableKey(final String catalog, final String schemaName, final String tableName) {
+    return StringUtils.defaultString(catalog) + "|" + StringUtils.defaultString(schemaName) + "|"
+        + tableName;
+  }
+
+  /**
+   * Reads the keys and indices of the given table.
+   */
+  private void readTableDetails(final DatabaseMetaData databaseMetaData, final Table table)
+      throws SQLException {
+    readForeignKeys(databaseMetaData, table, false);
+    readForeignKeys(databaseMetaData, table, true);
+    readIndices(databaseMetaData, table);
+
+    for (final String columnName : readPrimaryKeyNames(databaseMetaData, table)) {
+      final Column column = table.findColumn(columnName);
+      if (column != null) {
+        column.setPrimaryKey(true);
+      }
+    }
+  }
+
+  /**
+   * Reads the keys and indices of the given tables, in parallel if additional
+   * connections are available.
+   */
+  private void readTableDetails(final List<Table> tables) throws SQLException {
+    final int connections =
+        connectionFactory == null ? 1 : Math.min(MAX_CONNECTIONS,
+            (tables.size() + MIN_TABLES_PER_CONNECTION - 1) / MIN_TABLES_PER_CONNECTION);
+    if (connections <= 1) {
+      for (final Table table : tables) {
+        readTableDetails(databaseMetaData, table);
+      }
+      return;
+    }
+
+    final ExecutorService executor = Executors.newFixedThreadPool(connections - 1);
     try {
-      if ("Oracle".equalsIgnoreCase(databaseMetaData.getDatabaseProductName())
-          && tableName.startsWith("BIN$")) {
-        ignore = true;
+      final List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+      for (int i = 1; i < connections; i++) {
+        final List<Table> batch = getBatch(tables, i, connections);
+        futures.add(executor.submit(new Callable<Boolean>() {
+          public Boolean call() throws SQLException {
+            final Connection connection = connectionFactory.getConnection();
+            if (connection == null) {
+              return false;
+            }
+            try {
+              final DatabaseMetaData metaData = connection.getMetaData();
+              for (final Table table : batch) {
+                readTableDetails(metaData, table);
+              }
+              return true;
+            } finally {
+              connectionFactory.closeConnection(connection);
+            }
+          }
+        }));
       }
-      if ("MySQL".equalsIgnoreCase(databaseMetaData.getDatabaseProductName())
-          && tableName.equals("SEQUENCE")) {
-        ignore = true;
+
+      // This thread reads its own share on the caller's connection
+      for (final Table table : getBatch(tables, 0, connections)) {
+        readTableDetails(databaseMetaData, table);
       }
-    } catch (final SQLException ignored) {
+
+      for (int i = 0; i < futures.size(); i++) {
+        if (!waitFor(futures.get(i))) {
+          // Fall back to the caller's connection
+          for (final Table table : getBatch(tables, i + 1, connections)) {
+            readTableDetails(databaseMetaData, table);
+          }
+        }
+      }
+    } finally {
+      executor.shutdownNow();
     }
-    return ignore;
   }
 
-  private void readColumns(final Table table) throws SQLException {
+  /**
+   * Returns every <code>count</code>-th table starting at the given index
+   */
+  private List<Table> getBatch(final List<Table> tables, final int index, final int count) {
+    final List<Table> batch = new ArrayList<Table>();
+    for (int i = index; i < tables.size(); i += count) {
+      batch.add(tables.get(i));
+    }
+    return batch;
+  }
+
+  /**
+   * Waits for the given batch to complete
+   * 
+   * @return <code>false</code> if it had no connection to work with
+   */
+  private boolean waitFor(final Future<Boolean> future) throws SQLException {
+    try {
+      return future.get();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof SQLException) {
+        throw (SQLException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /**
+   * Reads the columns of all the given tables of the given schema with a
+   * single metadata call.
+   */
+  private void readColumns(final Schema schema, final Set<Table> tables) throws SQLException {
+    final Map<String, Table> tablesByKey = new HashMap<String, Table>();
+    for (final Table table : tables) {
+      tablesByKey.put(
+          getTableKey(table.getCatalog(), table.getSchema().getName(), table.getName()), table);
+    }
+
     final ResultSet rs =
-        databaseMetaData.getColumns(table.getCatalog(), table.getSchema().getName(),
-            table.getName(), null);
+        databaseMetaData.getColumns(null, getArtifact(schema.getName()), null, null);
     try {
       while (rs.next()) {
+        final Table table =
+            tablesByKey.get(getTableKey(rs.getString("TABLE_CAT"), rs.getString("TABLE_SCHEM"),
+                rs.getString("TABLE_NAME")));
+        if (table == null) {
+          // Excluded, ignored or not of a requested type
+          continue;
+        }
         final Column column =
             new Column(rs.getString("COLUMN_NAME"), rs.getInt("DATA_TYPE"),
                 rs.getString("TYPE_NAME"), rs.getInt("COLUMN_SIZE"), rs.getInt("DECIMAL_DIGITS"));
@@ -192,7 +372,8 @@ public class DatabaseIntrospector extends AbstractIntrospector {
     }
   }
 
-  private void readForeignKeys(final Table table, final boolean exported) throws SQLException {
+  private void readForeignKeys(final DatabaseMetaData databaseMetaData, final Table table,
+      final boolean exported) throws SQLException {
     final Map<String, ForeignKey> foreignKeys = new LinkedHashMap<String, ForeignKey>();
 
     ResultSet rs;
@@ -247,17 +428,19 @@ public class DatabaseIntrospector extends AbstractIntrospector {
     }
   }
 
-  private void readIndices(final Table table) throws SQLException {
+  private void readIndices(final DatabaseMetaData databaseMetaData, final Table table)
+      throws SQLException {
     final Set<Index> indices = new LinkedHashSet<Index>();
 
     ResultSet rs;
     try {
       // Catching SQLException here due to Oracle throwing exception when
       // attempting to retrieve indices for deleted tables that exist in
-      // Oracle's recycle bin
+      // Oracle's recycle bin. Approximate statistics are fine, as they are
+      // skipped anyway, and spare Oracle from analyzing every table
       rs =
           databaseMetaData.getIndexInfo(table.getCatalog(), table.getSchema().getName(),
-              table.getName(), false, false);
+              table.getName(), false, true);
     } catch (final SQLException e) {
       return;
     }
@@ -294,7 +477,8 @@ public class DatabaseIntrospector extends AbstractIntrospector {
     }
   }
 
-  private Set<String> readPrimaryKeyNames(final Table table) throws SQLException {
+  private Set<String> readPrimaryKeyNames(final DatabaseMetaData databaseMetaData,
+      final Table table) throws SQLException {
     final Set<String> columnNames = new LinkedHashSet<String>();
 
     final ResultSet rs =
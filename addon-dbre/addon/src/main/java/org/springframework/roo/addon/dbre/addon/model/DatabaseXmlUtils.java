@@ -1,6 +1,9 @@
 package org.springframework.roo.addon.dbre.addon.model;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.EmptyStackException;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -17,7 +20,8 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
 /**
- * Assists converting a {@link Database} to and from XML using DOM or SAX.
+ * Assists converting a {@link Database} to and from XML using DOM or SAX, or
+ * writing it directly as a stream.
  * 
  * @author Alan Stewart
  * @author Juan Carlos García
@@ -38,6 +42,10 @@ public abstract class DatabaseXmlUtils {
   public static final String ON_UPDATE = "onUpdate";
   public static final String REFERENCE = "reference";
 
+  private static final String COMMENT =
+      "WARNING: DO NOT EDIT THIS FILE. THIS FILE IS MANAGED BY SPRING ROO.";
+  private static final String INDENT = "    ";
+
   /**
    * Adds an <option key="foo" value="true"> element as a child of the given
    * parent element
@@ -190,6 +198,193 @@ public abstract class DatabaseXmlUtils {
     return document;
   }
 
+  /**
+   * Returns the XML representation of the given database, as written by
+   * {@link #writeDatabase(Database, Writer)}.
+   * 
+   * @param database the database to convert (required)
+   * @return the XML
+   */
+  public static String getDatabaseXml(final Database database) {
+    final StringWriter writer = new StringWriter();
+    try {
+      writeDatabase(database, writer);
+    } catch (final IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return writer.toString();
+  }
+
+  /**
+   * Writes the given database as XML without building a DOM first.
+   * <p>
+   * The output is identical to serializing {@link #getDatabaseDocument}
+   * with {@link XmlUtils#nodeToString}, i.e. attributes in alphabetical order
+   * and elements indented by four spaces, so that switching between the two
+   * does not change existing DBRE XML files.
+   * 
+   * @param database the database to write (required)
+   * @param writer the writer to write to, left open (required)
+   * @throws IOException if the writer fails
+   */
+  public static void writeDatabase(final Database database, final Writer writer)
+      throws IOException {
+    writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n");
+    writer.write("<!--" + COMMENT + "-->");
+
+    writer.write("<database");
+    writeAttribute(writer, NAME, "deprecated");
+    if (database.getDestinationPackage() != null) {
+      writeAttribute(writer, "package", database.getDestinationPackage()
+          .getFullyQualifiedPackageName());
+    }
+    writer.write(">\n");
+
+    writeOption(writer, 1, "moduleName", database.getModuleName());
+    writeOption(writer, 1, "repository", String.valueOf(database.isRepository()));
+    writeOption(writer, 1, "service", String.valueOf(database.isService()));
+    writeOption(writer, 1, "includeNonPortableAttributes",
+        String.valueOf(database.isIncludeNonPortableAttributes()));
+    writeOption(writer, 1, "disableVersionFields",
+        String.valueOf(database.isDisableVersionFields()));
+    writeOption(writer, 1, "disableGeneratedIdentifiers",
+        String.valueOf(database.isDisableGeneratedIdentifiers()));
+    writeOption(writer, 1, "testAutomatically", String.valueOf(database.isTestAutomatically()));
+
+    for (final Table table : database.getTables()) {
+      writer.write(INDENT + "<table");
+      final String schemaName = table.getSchema().getName();
+      if (!DbreModelService.NO_SCHEMA_REQUIRED.equals(schemaName)) {
+        writeAttribute(writer, "alias", schemaName);
+      }
+      if (StringUtils.isNotBlank(table.getDescription())) {
+        writeAttribute(writer, DESCRIPTION, table.getDescription());
+      }
+      writeAttribute(writer, NAME, table.getName());
+      if (table.getColumns().isEmpty() && table.getImportedKeys().isEmpty()
+          && table.getExportedKeys().isEmpty() && table.getIndices().isEmpty()) {
+        writer.write("/>\n");
+        continue;
+      }
+      writer.write(">\n");
+
+      for (final Column column : table.getColumns()) {
+        writer.write(INDENT + INDENT + "<column");
+        if (StringUtils.isNotBlank(column.getDescription())) {
+          writeAttribute(writer, DESCRIPTION, column.getDescription());
+        }
+        writeAttribute(writer, NAME, column.getName());
+        writeAttribute(writer, "primaryKey", String.valueOf(column.isPrimaryKey()));
+        writeAttribute(writer, "required", String.valueOf(column.isRequired()));
+        writeAttribute(writer, "scale", String.valueOf(column.getScale()));
+        writeAttribute(writer, "size", String.valueOf(column.getColumnSize()));
+        writeAttribute(writer, "type", column.getDataType() + "," + column.getTypeName());
+        writer.write("/>\n");
+      }
+
+      writeForeignKeys(writer, table.getImportedKeys(), false);
+      writeForeignKeys(writer, table.getExportedKeys(), true);
+
+      for (final Index index : table.getIndices()) {
+        final String elementName =
+            index.isUnique() ? IndexType.UNIQUE.name().toLowerCase() : IndexType.INDEX.name()
+                .toLowerCase();
+        writer.write(INDENT + INDENT + "<" + elementName);
+        writeAttribute(writer, NAME, index.getName());
+        if (index.getColumns().isEmpty()) {
+          writer.write("/>\n");
+          continue;
+        }
+        writer.write(">\n");
+        for (final IndexColumn indexColumn : index.getColumns()) {
+          writer.write(INDENT + INDENT + INDENT + "<" + elementName + "-column");
+          writeAttribute(writer, NAME, indexColumn.getName());
+          writer.write("/>\n");
+        }
+        writer.write(INDENT + INDENT + "</" + elementName + ">\n");
+      }
+
+      writer.write(INDENT + "</table>\n");
+    }
+
+    writer.write("</database>\n");
+  }
+
+  private static void writeAttribute(final Writer writer, final String name, final String value)
+      throws IOException {
+    writer.write(' ');
+    writer.write(name);
+    writer.write("=\"");
+    if (value != null) {
+      for (int i = 0; i < value.length(); i++) {
+        final char c = value.charAt(i);
+        switch (c) {
+          case '&':
+            writer.write("&amp;");
+            break;
+          case '<':
+            writer.write("&lt;");
+            break;
+          case '>':
+            writer.write("&gt;");
+            break;
+          case '"':
+            writer.write("&quot;");
+            break;
+          case '\t':
+            writer.write("&#9;");
+            break;
+          case '\n':
+            writer.write("&#10;");
+            break;
+          case '\r':
+            writer.write("&#13;");
+            break;
+          default:
+            writer.write(c);
+        }
+      }
+    }
+    writer.write('"');
+  }
+
+  private static void writeForeignKeys(final Writer writer, final Set<ForeignKey> foreignKeys,
+      final boolean exported) throws IOException {
+    for (final ForeignKey foreignKey : foreignKeys) {
+      writer.write(INDENT + INDENT + "<foreign-key");
+      writeAttribute(writer, FOREIGN_TABLE, foreignKey.getForeignTableName());
+      writeAttribute(writer, NAME, foreignKey.getName());
+      writeAttribute(writer, ON_DELETE, foreignKey.getOnDelete().getCode());
+      writeAttribute(writer, ON_UPDATE, foreignKey.getOnUpdate().getCode());
+      writer.write(">\n");
+
+      final String foreignSchemaName = foreignKey.getForeignSchemaName();
+      if (!DbreModelService.NO_SCHEMA_REQUIRED.equals(foreignSchemaName)) {
+        writeOption(writer, 3, "foreignSchemaName", foreignSchemaName);
+      }
+      writeOption(writer, 3, "exported", String.valueOf(exported));
+
+      for (final Reference reference : foreignKey.getReferences()) {
+        writer.write(INDENT + INDENT + INDENT + "<" + REFERENCE);
+        writeAttribute(writer, FOREIGN, reference.getForeignColumnName());
+        writeAttribute(writer, LOCAL, reference.getLocalColumnName());
+        writer.write("/>\n");
+      }
+      writer.write(INDENT + INDENT + "</foreign-key>\n");
+    }
+  }
+
+  private static void writeOption(final Writer writer, final int depth, final String key,
+      final String value) throws IOException {
+    for (int i = 0; i < depth; i++) {
+      writer.write(INDENT);
+    }
+    writer.write("<option");
+    writeAttribute(writer, "key", key);
+    writeAttribute(writer, "value", value);
+    writer.write("/>\n");
+  }
+
   static Database readDatabase(final InputStream inputStream) {
     try {
       final SAXParserFactory spf = SAXParserFactory.newInstance();
@@ -31,6 +31,16 @@ public interface DbreModelService {
    */
   Database getDatabase(boolean evictCache);
 
+  /**
+   * Returns the differences between the database last written by
+   * {@link #writeDatabase(Database)} and the one the DBRE XML file held
+   * before, so that only the entities of changed tables need regenerating.
+   * 
+   * @return the changes, or <code>null</code> if no database has been written
+   *         since this service started
+   */
+  DatabaseDiff getLastChanges();
+
   /**
    * Returns a Set of available database {@link Schema schemas}.
    * 
@@ -1,7 +1,10 @@
 package org.springframework.roo.addon.dbre.addon.model;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
@@ -26,6 +29,7 @@ import org.osgi.framework.ServiceReference;
 import org.osgi.service.component.ComponentContext;
 import org.springframework.roo.addon.dbre.addon.jdbc.ConnectionProvider;
 import org.springframework.roo.addon.propfiles.PropFileOperations;
+import org.springframework.roo.application.config.ApplicationConfigService;
 import org.springframework.roo.file.monitor.event.FileDetails;
 import org.springframework.roo.process.manager.FileManager;
 import org.springframework.roo.project.LogicalPath;
@@ -51,13 +55,27 @@ public class DbreModelServiceImpl implements DbreModelService {
 
   private static final Logger LOGGER = HandlerUtils.getLogger(DbreModelServiceImpl.class);
 
+  private static final String DATASOURCE_PREFIX = "spring.datasource";
+  private static final String DATABASE_DRIVER = "driver-class-name";
+  private static final String DATABASE_PASSWORD = "password";
+  private static final String DATABASE_URL = "url";
+  private static final String DATABASE_USERNAME = "username";
+
   protected void activate(final ComponentContext cContext) {
     this.context = cContext.getBundleContext();
+    final File cacheDirectory = context.getDataFile("dbre-cache");
+    if (cacheDirectory != null) {
+      binaryCache = new DatabaseBinaryCache(cacheDirectory);
+    }
   }
 
+  private ApplicationConfigService applicationConfigService;
+  private DatabaseBinaryCache binaryCache;
+
   private final Set<Database> cachedIntrospections = new HashSet<Database>();
   private ConnectionProvider connectionProvider;
   private FileManager fileManager;
+  private DatabaseDiff lastChanges;
   private Database lastDatabase;
 
   private ProjectOperations projectOperations;
@@ -70,28 +88,36 @@ public class DbreModelServiceImpl implements DbreModelService {
     }
   }
 
+  /**
+   * Opens a connection to the database configured by the
+   * <code>spring.datasource</code> properties of the focused module, as
+   * written by the "jpa setup" command. Data sources looked up through JNDI
+   * only exist inside the application server, so a JDBC URL is required.
+   * 
+   * @param displayAddOns whether to suggest add-ons providing a missing JDBC
+   *            driver
+   * @return a new connection, to be closed by the caller
+   */
   private Connection getConnection(final boolean displayAddOns) {
-    /*final String dbProps = "database.properties";
-    final String jndiDataSource = getJndiDataSourceName();
-    if (StringUtils.isNotBlank(jndiDataSource)) {
-        final Map<String, String> props = getPropFileOperations().getProperties(
-                Path.SPRING_CONFIG_ROOT.getModulePathId(getProjectOperations()
-                        .getFocusedModuleName()), "jndi.properties");
-        return getConnectionProvider().getConnectionViaJndiDataSource(
-                jndiDataSource, props, displayAddOns);
-    }
-    else if (getFileManager().exists(getProjectOperations().getPathResolver()
-            .getFocusedIdentifier(Path.SPRING_CONFIG_ROOT, dbProps))) {
-        final Map<String, String> props = getPropFileOperations().getProperties(
-                Path.SPRING_CONFIG_ROOT.getModulePathId(getProjectOperations()
-                        .getFocusedModuleName()), dbProps);
-        return getConnectionProvider().getConnection(props, displayAddOns);
+    final String moduleName = getProjectOperations().getFocusedModuleName();
+    final String url = getDataSourceProperty(moduleName, DATABASE_URL);
+    if (StringUtils.isBlank(url)) {
+      throw new IllegalStateException("No JDBC URL configured for the database; "
+          + "run 'jpa setup' with the '--database' option to configure one");
     }
+    final Properties connectionProperties = new Properties();
+    connectionProperties.put("database.url", url);
+    connectionProperties.put("database.driverClassName",
+        StringUtils.defaultString(getDataSourceProperty(moduleName, DATABASE_DRIVER)));
+    connectionProperties.put("database.username",
+        StringUtils.defaultString(getDataSourceProperty(moduleName, DATABASE_USERNAME)));
+    connectionProperties.put("database.password",
+        StringUtils.defaultString(getDataSourceProperty(moduleName, DATABASE_PASSWORD)));
+    return getConnectionProvider().getConnection(connectionProperties, displayAddOns);
+  }
 
-    final Properties connectionProperties = getConnectionPropertiesFromDataNucleusConfiguration();
-    return getConnectionProvider().getConnection(connectionProperties,
-            displayAddOns);*/
-    return null;
+  private String getDataSourceProperty(final String moduleName, final String key) {
+    return getApplicationConfigService().getProperty(moduleName, DATASOURCE_PREFIX, key, null);
   }
 
   private Properties getConnectionPropertiesFromDataNucleusConfiguration() {
@@ -167,18 +193,45 @@ public class DbreModelServiceImpl implements DbreModelService {
       return null;
     }
 
-    Database database = null;
-    InputStream inputStream = null;
     try {
-      inputStream = getFileManager().getInputStream(dbreXmlPath);
-      database = DatabaseXmlUtils.readDatabase(inputStream);
+      final Database database = readDatabase(dbreXmlPath);
       cacheDatabase(database);
       return database;
     } catch (final Exception e) {
       throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Reads the given DBRE XML file, from the binary cache if it holds an entry
+   * for the file's current contents.
+   * 
+   * @param dbreXmlPath the path of an existing DBRE XML file
+   * @return the database
+   * @throws IOException if the file cannot be read
+   */
+  private Database readDatabase(final String dbreXmlPath) throws IOException {
+    final byte[] contents;
+    InputStream inputStream = null;
+    try {
+      inputStream = getFileManager().getInputStream(dbreXmlPath);
+      contents = IOUtils.toByteArray(inputStream);
     } finally {
       IOUtils.closeQuietly(inputStream);
     }
+
+    final String key = binaryCache == null ? null : DatabaseBinaryCache.getKey(contents);
+    if (key != null) {
+      final Database cachedDatabase = binaryCache.get(key);
+      if (cachedDatabase != null) {
+        return cachedDatabase;
+      }
+    }
+    final Database database = DatabaseXmlUtils.readDatabase(new ByteArrayInputStream(contents));
+    if (key != null && database != null) {
+      binaryCache.put(key, database);
+    }
+    return database;
   }
 
   private String getDbreXmlPath() {
@@ -225,8 +278,19 @@ public class DbreModelServiceImpl implements DbreModelService {
     Connection connection = null;
     try {
       connection = getConnection(true);
+      final DatabaseIntrospector.ConnectionFactory connectionFactory =
+          new DatabaseIntrospector.ConnectionFactory() {
+            public void closeConnection(final Connection connection) {
+              getConnectionProvider().closeConnection(connection);
+            }
+
+            public Connection getConnection() {
+              return DbreModelServiceImpl.this.getConnection(false);
+            }
+          };
       final DatabaseIntrospector introspector =
-          new DatabaseIntrospector(connection, schemas, view, includeTables, excludeTables);
+          new DatabaseIntrospector(connection, connectionFactory, schemas, view, includeTables,
+              excludeTables);
       final Database database = introspector.createDatabase();
       cacheDatabase(database);
       return database;
@@ -251,10 +315,66 @@ public class DbreModelServiceImpl implements DbreModelService {
     }
   }
 
+  public DatabaseDiff getLastChanges() {
+    return lastChanges;
+  }
+
   public void writeDatabase(final Database database) {
-    final Document document = DatabaseXmlUtils.getDatabaseDocument(database);
-    getFileManager().createOrUpdateTextFileIfRequired(getDbreXmlPath(),
-        XmlUtils.nodeToString(document), true);
+    final String dbreXmlPath = getDbreXmlPath();
+    lastChanges = DatabaseDiff.compare(readStoredDatabase(dbreXmlPath), database);
+    LOGGER.fine("Database changes since the last reverse engineering: "
+        + lastChanges.getSummary());
+
+    getFileManager().createOrUpdateTextFileIfRequired(dbreXmlPath,
+        DatabaseXmlUtils.getDatabaseXml(database), true);
+  }
+
+  /**
+   * Reads the DBRE XML file as it was before being overwritten, bypassing the
+   * cache so as not to replace the database being written.
+   * 
+   * @param dbreXmlPath the path of the DBRE XML file
+   * @return the stored database, or <code>null</code> if there is none or it
+   *         cannot be read
+   */
+  private Database readStoredDatabase(final String dbreXmlPath) {
+    if (StringUtils.isBlank(dbreXmlPath) || !getFileManager().exists(dbreXmlPath)) {
+      return null;
+    }
+    try {
+      return readDatabase(dbreXmlPath);
+    } catch (final Exception e) {
+      // Treat an unreadable file like a missing one, i.e. regenerate everything
+      return null;
+    }
+  }
+
+  /**
+   * Method to get ApplicationConfigService Service implementation
+   * 
+   * @return
+   */
+  public ApplicationConfigService getApplicationConfigService() {
+    if (applicationConfigService == null) {
+      // Get all Services implement ApplicationConfigService interface
+      try {
+        ServiceReference<?>[] references =
+            context.getAllServiceReferences(ApplicationConfigService.class.getName(), null);
+
+        for (ServiceReference<?> ref : references) {
+          applicationConfigService = (ApplicationConfigService) context.getService(ref);
+          return applicationConfigService;
+        }
+
+        return null;
+
+      } catch (InvalidSyntaxException e) {
+        LOGGER.warning("Cannot load ApplicationConfigService on DbreModelServiceImpl.");
+        return null;
+      }
+    } else {
+      return applicationConfigService;
+    }
   }
 
   /**
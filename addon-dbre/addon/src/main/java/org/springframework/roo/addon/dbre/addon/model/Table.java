@@ -1,6 +1,9 @@
 package org.springframework.roo.addon.dbre.addon.model;
 
+import java.util.HashMap;
 import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
@@ -13,11 +16,26 @@ import org.apache.commons.lang3.Validate;
  * @since 1.1
  */
 public class Table {
+
+  /**
+   * Returns the key under which the given name is indexed, so that lookups
+   * are as case-insensitive as the linear scans they replace.
+   */
+  static String getIndexKey(final String name) {
+    return name == null ? null : name.toUpperCase(Locale.ENGLISH);
+  }
+
   private String catalog;
   private final Set<Column> columns = new LinkedHashSet<Column>();
+  private final Map<String, Column> columnsByName = new HashMap<String, Column>();
   private String description;
   private final Set<ForeignKey> exportedKeys = new LinkedHashSet<ForeignKey>();
+  private final Map<String, Integer> exportedKeyCountsByForeignTableName =
+      new HashMap<String, Integer>();
   private final Set<ForeignKey> importedKeys = new LinkedHashSet<ForeignKey>();
+  private final Map<String, Integer> importedKeyCountsByForeignTableName =
+      new HashMap<String, Integer>();
+  private final Map<String, ForeignKey> importedKeysByName = new HashMap<String, ForeignKey>();
   private boolean includeNonPortableAttributes;
   private boolean disableVersionFields;
   private boolean disableGeneratedIdentifiers;
@@ -35,17 +53,36 @@ public class Table {
 
   public boolean addColumn(final Column column) {
     Validate.notNull(column, "Column required");
-    return columns.add(column);
+    if (!columns.add(column)) {
+      return false;
+    }
+    final String key = getIndexKey(column.getName());
+    if (!columnsByName.containsKey(key)) {
+      columnsByName.put(key, column);
+    }
+    return true;
   }
 
   public boolean addExportedKey(final ForeignKey exportedKey) {
     Validate.notNull(exportedKey, "Exported key required");
-    return exportedKeys.add(exportedKey);
+    if (!exportedKeys.add(exportedKey)) {
+      return false;
+    }
+    incrementCount(exportedKeyCountsByForeignTableName, exportedKey.getForeignTableName());
+    return true;
   }
 
   public boolean addImportedKey(final ForeignKey foreignKey) {
     Validate.notNull(foreignKey, "Foreign key required");
-    return importedKeys.add(foreignKey);
+    if (!importedKeys.add(foreignKey)) {
+      return false;
+    }
+    incrementCount(importedKeyCountsByForeignTableName, foreignKey.getForeignTableName());
+    final String key = getIndexKey(foreignKey.getName());
+    if (key != null && !importedKeysByName.containsKey(key)) {
+      importedKeysByName.put(key, foreignKey);
+    }
+    return true;
   }
 
   public boolean addIndex(final Index index) {
@@ -83,12 +120,7 @@ public class Table {
   }
 
   public Column findColumn(final String name) {
-    for (final Column column : columns) {
-      if (column.getName().equalsIgnoreCase(name)) {
-        return column;
-      }
-    }
-    return null;
+    return columnsByName.get(getIndexKey(name));
   }
 
   public ForeignKey findImportedKeyByLocalColumnName(final String localColumnName) {
@@ -119,13 +151,8 @@ public class Table {
   }
 
   public int getExportedKeyCountByForeignTableName(final String foreignTableName) {
-    int count = 0;
-    for (final ForeignKey exportedKey : exportedKeys) {
-      if (exportedKey.getForeignTableName().equalsIgnoreCase(foreignTableName)) {
-        count++;
-      }
-    }
-    return count;
+    final Integer count = exportedKeyCountsByForeignTableName.get(getIndexKey(foreignTableName));
+    return count == null ? 0 : count;
   }
 
   public Set<ForeignKey> getExportedKeys() {
@@ -138,13 +165,7 @@ public class Table {
   }
 
   public ForeignKey getImportedKey(final String name) {
-    for (final ForeignKey foreignKey : importedKeys) {
-      Validate.notBlank(foreignKey.getName(), "Foreign key name required");
-      if (foreignKey.getName().equalsIgnoreCase(name)) {
-        return foreignKey;
-      }
-    }
-    return null;
+    return importedKeysByName.get(getIndexKey(name));
   }
 
   public int getImportedKeyCount() {
@@ -152,13 +173,8 @@ public class Table {
   }
 
   public int getImportedKeyCountByForeignTableName(final String foreignTableName) {
-    int count = 0;
-    for (final ForeignKey foreignKey : importedKeys) {
-      if (foreignKey.getForeignTableName().equalsIgnoreCase(foreignTableName)) {
-        count++;
-      }
-    }
-    return count;
+    final Integer count = importedKeyCountsByForeignTableName.get(getIndexKey(foreignTableName));
+    return count == null ? 0 : count;
   }
 
   public Set<ForeignKey> getImportedKeys() {
@@ -200,6 +216,12 @@ public class Table {
     return result;
   }
 
+  private void incrementCount(final Map<String, Integer> counts, final String foreignTableName) {
+    final String key = getIndexKey(foreignTableName);
+    final Integer count = counts.get(key);
+    counts.put(key, count == null ? 1 : count + 1);
+  }
+
   public boolean isIncludeNonPortableAttributes() {
     return includeNonPortableAttributes;
   }
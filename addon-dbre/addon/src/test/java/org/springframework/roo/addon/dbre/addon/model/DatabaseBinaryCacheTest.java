@@ -0,0 +1,132 @@
+package org.springframework.roo.addon.dbre.addon.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.roo.model.JavaPackage;
+import org.springframework.roo.support.util.XmlUtils;
+
+/**
+ * Unit test of {@link DatabaseBinaryCache} and of the streaming writer of
+ * {@link DatabaseXmlUtils} it complements.
+ *
+ * @since 2.0
+ */
+public class DatabaseBinaryCacheTest {
+
+  private static Database createDatabase() {
+    final Table owner = new Table("OWNER", new Schema("APP"));
+    owner.setDescription("Pet <owners> & \"friends\"");
+    final Column ownerId = new Column("ID", Types.BIGINT, "BIGINT", 19, 0);
+    ownerId.setPrimaryKey(true);
+    owner.addColumn(ownerId);
+    final Column name = new Column("NAME", Types.VARCHAR, "VARCHAR", 255, 0);
+    name.setDescription("Line one\nline two");
+    name.setRequired(true);
+    owner.addColumn(name);
+    final Index index = new Index("OWNER_NAME_IDX");
+    index.setUnique(true);
+    index.addColumn(new IndexColumn("NAME"));
+    owner.addIndex(index);
+
+    final Table pet = new Table("PET", new Schema("APP"));
+    final Column petId = new Column("ID", Types.BIGINT, "BIGINT", 19, 0);
+    petId.setPrimaryKey(true);
+    pet.addColumn(petId);
+    pet.addColumn(new Column("OWNER_ID", Types.BIGINT, "BIGINT", 19, 0));
+    final ForeignKey foreignKey = new ForeignKey("FK_PET_OWNER", "OWNER");
+    foreignKey.setForeignSchemaName("APP");
+    foreignKey.setOnDelete(CascadeAction.CASCADE);
+    foreignKey.addReference(new Reference("OWNER_ID", "ID"));
+    pet.addImportedKey(foreignKey);
+
+    final Database database = new Database(new LinkedHashSet<Table>(Arrays.asList(owner, pet)));
+    database.setDestinationPackage(new JavaPackage("com.example.domain"));
+    database.setModuleName("");
+    database.setRepository(true);
+    return database;
+  }
+
+  private File directory;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = File.createTempFile("dbre-cache", "");
+    directory.delete();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(directory);
+  }
+
+  @Test
+  public void testStreamedXmlMatchesTheDocument() {
+    final Database database = createDatabase();
+
+    assertEquals(XmlUtils.nodeToString(DatabaseXmlUtils.getDatabaseDocument(database)),
+        DatabaseXmlUtils.getDatabaseXml(database));
+  }
+
+  @Test
+  public void testCachedDatabaseMatchesTheParsedOne() throws Exception {
+    final byte[] xml = DatabaseXmlUtils.getDatabaseXml(createDatabase()).getBytes("UTF-8");
+    final Database parsed = DatabaseXmlUtils.readDatabase(new ByteArrayInputStream(xml));
+    final DatabaseBinaryCache cache = new DatabaseBinaryCache(directory);
+    final String key = DatabaseBinaryCache.getKey(xml);
+
+    assertNull(cache.get(key));
+    cache.put(key, parsed);
+    final Database cached = cache.get(key);
+
+    assertNotSame(parsed, cached);
+    assertEquals(DatabaseXmlUtils.getDatabaseXml(parsed), DatabaseXmlUtils.getDatabaseXml(cached));
+    final Table pet = cached.getTable("PET", "APP");
+    assertSame(cached.getTable("OWNER", "APP"), pet.getImportedKey("FK_PET_OWNER")
+        .getForeignTable());
+    assertTrue(cached.getTable("OWNER", "APP").findColumn("NAME").isUnique());
+  }
+
+  @Test
+  public void testCorruptEntriesAreMisses() throws Exception {
+    final DatabaseBinaryCache cache = new DatabaseBinaryCache(directory);
+    cache.put("abc", createDatabase());
+    final FileOutputStream outputStream = new FileOutputStream(new File(directory, "abc.bin"));
+    try {
+      outputStream.write(new byte[] {0x44, 0x42, 0x52, 0x45, 0, 0, 0, 1, 0, 0});
+    } finally {
+      IOUtils.closeQuietly(outputStream);
+    }
+
+    assertNull(cache.get("abc"));
+  }
+
+  @Test
+  public void testOldestEntriesAreEvicted() {
+    final DatabaseBinaryCache cache = new DatabaseBinaryCache(directory);
+    for (int i = 0; i <= DatabaseBinaryCache.MAX_ENTRIES; i++) {
+      cache.put("key" + i, createDatabase());
+      new File(directory, "key" + i + ".bin").setLastModified(1000000L * (i + 1));
+    }
+    cache.put("latest", createDatabase());
+
+    assertEquals(DatabaseBinaryCache.MAX_ENTRIES, directory.list().length);
+    assertNull(cache.get("key0"));
+  }
+}
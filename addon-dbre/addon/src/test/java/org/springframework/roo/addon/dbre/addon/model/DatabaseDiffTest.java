@@ -0,0 +1,107 @@
+package org.springframework.roo.addon.dbre.addon.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Unit test of {@link DatabaseDiff}.
+ *
+ * @since 2.0
+ */
+public class DatabaseDiffTest {
+
+  private static final Schema SCHEMA = new Schema("APP");
+
+  private static Database database(final Table... tables) {
+    final Set<Table> tableSet = new LinkedHashSet<Table>();
+    Collections.addAll(tableSet, tables);
+    return new Database(tableSet);
+  }
+
+  private static Table table(final String name, final String... columnNames) {
+    final Table table = new Table(name, SCHEMA);
+    final Column id = new Column("ID", Types.BIGINT, "BIGINT", 19, 0);
+    id.setPrimaryKey(true);
+    table.addColumn(id);
+    for (final String columnName : columnNames) {
+      table.addColumn(new Column(columnName, Types.VARCHAR, "VARCHAR", 255, 0));
+    }
+    return table;
+  }
+
+  private static void addForeignKey(final Table table, final String foreignTableName) {
+    final ForeignKey foreignKey = new ForeignKey("FK_" + table.getName(), foreignTableName);
+    foreignKey.setForeignSchemaName(SCHEMA.getName());
+    foreignKey.addReference(new Reference(foreignTableName + "_ID", "ID"));
+    table.addImportedKey(foreignKey);
+  }
+
+  @Test
+  public void testEveryTableIsAddedWithoutPreviousDatabase() {
+    final DatabaseDiff diff = DatabaseDiff.compare(null, database(table("OWNER", "NAME")));
+
+    assertEquals(Collections.singleton("APP.OWNER"), diff.getAddedTables());
+    assertTrue(diff.hasChanges());
+  }
+
+  @Test
+  public void testIdenticalDatabasesHaveNoChanges() {
+    final Database current = database(table("OWNER", "NAME"), table("PET", "NAME"));
+
+    final DatabaseDiff diff =
+        DatabaseDiff.compare(database(table("OWNER", "NAME"), table("PET", "NAME")), current);
+
+    assertFalse(diff.hasChanges());
+    for (final Table table : current.getTables()) {
+      assertTrue(diff.isUnchanged(table));
+    }
+    assertEquals("0 tables added, 0 changed, 0 removed, 2 unchanged", diff.getSummary());
+  }
+
+  @Test
+  public void testOnlyModifiedTablesAreReported() {
+    final Database current = database(table("OWNER", "NAME", "EMAIL"), table("VET", "NAME"));
+
+    final DatabaseDiff diff =
+        DatabaseDiff.compare(database(table("OWNER", "NAME"), table("PET", "NAME")), current);
+
+    assertEquals(Collections.singleton("APP.VET"), diff.getAddedTables());
+    assertEquals(Collections.singleton("APP.OWNER"), diff.getChangedTables());
+    assertEquals(Collections.singleton("APP.PET"), diff.getRemovedTables());
+  }
+
+  @Test
+  public void testTablesRelatedToAChangedTableAreChanged() {
+    final Table previousPet = table("PET", "NAME", "OWNER_ID");
+    addForeignKey(previousPet, "OWNER");
+    final Table currentPet = table("PET", "NAME", "OWNER_ID");
+    addForeignKey(currentPet, "OWNER");
+
+    final DatabaseDiff diff =
+        DatabaseDiff.compare(database(table("OWNER", "NAME"), previousPet, table("VET", "NAME")),
+            database(table("OWNER", "NAME", "EMAIL"), currentPet, table("VET", "NAME")));
+
+    assertEquals(new LinkedHashSet<String>(Arrays.asList("APP.OWNER", "APP.PET")),
+        diff.getChangedTables());
+    assertTrue(diff.isUnchanged(table("VET", "NAME")));
+  }
+
+  @Test
+  public void testChangedOptionsChangeEveryTable() {
+    final Database current = database(table("OWNER", "NAME"));
+    current.setDisableVersionFields(true);
+
+    final DatabaseDiff diff = DatabaseDiff.compare(database(table("OWNER", "NAME")), current);
+
+    assertEquals(Collections.singleton("APP.OWNER"), diff.getChangedTables());
+  }
+}
@@ -0,0 +1,236 @@
+package org.springframework.roo.addon.dbre.addon.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test of {@link DatabaseIntrospector}, run against an in-memory fake of
+ * the JDBC metadata API.
+ *
+ * @since 2.0
+ */
+public class DatabaseIntrospectorTest {
+
+  private static final String SCHEMA = "APP";
+  private static final int TABLE_COUNT = 60;
+
+  /**
+   * Answers metadata calls from fixed rows and counts them by method name.
+   */
+  private static class FakeMetaData implements InvocationHandler {
+
+    private final Map<String, AtomicInteger> calls = new HashMap<String, AtomicInteger>();
+
+    int getCalls(final String methodName) {
+      synchronized (calls) {
+        final AtomicInteger count = calls.get(methodName);
+        return count == null ? 0 : count.get();
+      }
+    }
+
+    public Object invoke(final Object proxy, final Method method, final Object[] args) {
+      final String name = method.getName();
+      synchronized (calls) {
+        if (!calls.containsKey(name)) {
+          calls.put(name, new AtomicInteger());
+        }
+        calls.get(name).incrementAndGet();
+      }
+      if ("getDatabaseProductName".equals(name)) {
+        return "Fake";
+      }
+      if (name.startsWith("stores")) {
+        return true;
+      }
+      if ("getTables".equals(name)) {
+        final List<Map<String, Object>> rows = new ArrayList<Map<String, Object>>();
+        for (int i = 0; i < TABLE_COUNT; i++) {
+          rows.add(row("TABLE_NAME", tableName(i), "TABLE_SCHEM", SCHEMA));
+        }
+        return resultSet(rows);
+      }
+      if ("getColumns".equals(name)) {
+        final List<Map<String, Object>> rows = new ArrayList<Map<String, Object>>();
+        for (int i = 0; i < TABLE_COUNT; i++) {
+          rows.add(column(tableName(i), "ID"));
+          rows.add(column(tableName(i), "NAME"));
+        }
+        // A table that was not requested
+        rows.add(column("OTHER", "ID"));
+        return resultSet(rows);
+      }
+      if ("getPrimaryKeys".equals(name)) {
+        return resultSet(Collections.singletonList(row("COLUMN_NAME", "ID")));
+      }
+      if ("getImportedKeys".equals(name)) {
+        final String table = (String) args[2];
+        if (table.equals(tableName(0))) {
+          return resultSet(Collections.<Map<String, Object>>emptyList());
+        }
+        return resultSet(Collections.singletonList(row("FK_NAME", "FK_" + table, "PKTABLE_NAME",
+            tableName(0), "PKTABLE_SCHEM", SCHEMA, "FKCOLUMN_NAME", "NAME", "PKCOLUMN_NAME",
+            "ID", "UPDATE_RULE", (short) DatabaseMetaData.importedKeyNoAction, "DELETE_RULE",
+            (short) DatabaseMetaData.importedKeyCascade)));
+      }
+      if ("getExportedKeys".equals(name) || "getIndexInfo".equals(name)) {
+        return resultSet(Collections.<Map<String, Object>>emptyList());
+      }
+      throw new UnsupportedOperationException(name);
+    }
+  }
+
+  private static Map<String, Object> column(final String tableName, final String columnName) {
+    return row("TABLE_SCHEM", SCHEMA, "TABLE_NAME", tableName, "COLUMN_NAME", columnName,
+        "DATA_TYPE", Types.VARCHAR, "TYPE_NAME", "VARCHAR", "COLUMN_SIZE", 255, "IS_NULLABLE",
+        "NO");
+  }
+
+  private static Connection connection(final DatabaseMetaData metaData) {
+    return (Connection) Proxy.newProxyInstance(DatabaseIntrospectorTest.class.getClassLoader(),
+        new Class<?>[] {Connection.class}, new InvocationHandler() {
+          public Object invoke(final Object proxy, final Method method, final Object[] args) {
+            if ("getMetaData".equals(method.getName())) {
+              return metaData;
+            }
+            return null;
+          }
+        });
+  }
+
+  private static ResultSet resultSet(final List<Map<String, Object>> rows) {
+    return (ResultSet) Proxy.newProxyInstance(DatabaseIntrospectorTest.class.getClassLoader(),
+        new Class<?>[] {ResultSet.class}, new InvocationHandler() {
+          private int index = -1;
+
+          public Object invoke(final Object proxy, final Method method, final Object[] args) {
+            final String name = method.getName();
+            if ("next".equals(name)) {
+              return ++index < rows.size();
+            }
+            if ("close".equals(name)) {
+              return null;
+            }
+            final Object value = rows.get(index).get(args[0]);
+            if ("getInt".equals(name)) {
+              return value == null ? 0 : value;
+            }
+            if ("getShort".equals(name)) {
+              return value == null ? (short) 0 : value;
+            }
+            if ("getBoolean".equals(name)) {
+              return value == null ? false : value;
+            }
+            return value;
+          }
+        });
+  }
+
+  private static Map<String, Object> row(final Object... keysAndValues) {
+    final Map<String, Object> row = new LinkedHashMap<String, Object>();
+    for (int i = 0; i < keysAndValues.length; i += 2) {
+      row.put((String) keysAndValues[i], keysAndValues[i + 1]);
+    }
+    return row;
+  }
+
+  private static String tableName(final int index) {
+    return "TABLE_" + index;
+  }
+
+  private FakeMetaData fakeMetaData;
+  private DatabaseMetaData metaData;
+
+  @Before
+  public void setUp() {
+    fakeMetaData = new FakeMetaData();
+    metaData =
+        (DatabaseMetaData) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[] {DatabaseMetaData.class}, fakeMetaData);
+  }
+
+  private void assertDatabase(final Database database) {
+    assertEquals(TABLE_COUNT, database.getTables().size());
+    for (final Table table : database.getTables()) {
+      assertEquals(2, table.getColumnCount());
+      assertEquals(1, table.getPrimaryKeyCount());
+      assertTrue(table.findColumn("ID").isPrimaryKey());
+      assertEquals(table.getName().equals(tableName(0)) ? 0 : 1, table.getImportedKeyCount());
+    }
+  }
+
+  @Test
+  public void testColumnsAreReadOncePerSchema() throws Exception {
+    final DatabaseIntrospector introspector =
+        new DatabaseIntrospector(connection(metaData), Collections.singleton(new Schema(SCHEMA)),
+            false, null, null);
+
+    final Database database = introspector.createDatabase();
+
+    assertDatabase(database);
+    assertEquals(1, fakeMetaData.getCalls("getColumns"));
+    assertEquals(TABLE_COUNT, fakeMetaData.getCalls("getImportedKeys"));
+  }
+
+  @Test
+  public void testTableDetailsAreReadOnAdditionalConnections() throws Exception {
+    final AtomicInteger opened = new AtomicInteger();
+    final AtomicInteger closed = new AtomicInteger();
+    final DatabaseIntrospector.ConnectionFactory connectionFactory =
+        new DatabaseIntrospector.ConnectionFactory() {
+          public void closeConnection(final Connection connection) {
+            closed.incrementAndGet();
+          }
+
+          public Connection getConnection() {
+            opened.incrementAndGet();
+            return connection(metaData);
+          }
+        };
+    final DatabaseIntrospector introspector =
+        new DatabaseIntrospector(connection(metaData), connectionFactory,
+            Collections.singleton(new Schema(SCHEMA)), false, null, null);
+
+    final Database database = introspector.createDatabase();
+
+    assertDatabase(database);
+    assertEquals(2, opened.get());
+    assertEquals(2, closed.get());
+    assertEquals(TABLE_COUNT, fakeMetaData.getCalls("getPrimaryKeys"));
+  }
+
+  @Test
+  public void testMissingAdditionalConnectionsFallBackToTheCallersConnection()
+      throws Exception {
+    final DatabaseIntrospector.ConnectionFactory connectionFactory =
+        new DatabaseIntrospector.ConnectionFactory() {
+          public void closeConnection(final Connection connection) {}
+
+          public Connection getConnection() {
+            return null;
+          }
+        };
+    final DatabaseIntrospector introspector =
+        new DatabaseIntrospector(connection(metaData), connectionFactory,
+            Collections.singleton(new Schema(SCHEMA)), false, null, null);
+
+    assertDatabase(introspector.createDatabase());
+  }
+}
@@ -0,0 +1,88 @@
+package org.springframework.roo.addon.dbre.addon.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+
+import org.junit.Test;
+
+/**
+ * Unit test of the lookups of {@link Database} and {@link Table}.
+ *
+ * @since 2.0
+ */
+public class DatabaseTest {
+
+  private static Column column(final String name, final boolean primaryKey) {
+    final Column column = new Column(name, Types.BIGINT, "BIGINT", 19, 0);
+    column.setPrimaryKey(primaryKey);
+    return column;
+  }
+
+  private static void addForeignKey(final Table table, final String columnName,
+      final Table foreignTable) {
+    final ForeignKey foreignKey =
+        new ForeignKey("FK_" + table.getName() + "_" + columnName, foreignTable.getName());
+    foreignKey.setForeignSchemaName(foreignTable.getSchema().getName());
+    foreignKey.addReference(new Reference(columnName, "ID"));
+    table.addImportedKey(foreignKey);
+  }
+
+  @Test
+  public void testTablesAreLookedUpByExactNameAndOptionalSchema() {
+    final Table appOwner = new Table("OWNER", new Schema("APP"));
+    final Table otherOwner = new Table("OWNER", new Schema("OTHER"));
+    final Table lowerCaseOwner = new Table("owner", new Schema("APP"));
+    final Database database =
+        new Database(new LinkedHashSet<Table>(Arrays.asList(appOwner, otherOwner,
+            lowerCaseOwner)));
+
+    assertSame(appOwner, database.getTable("OWNER", null));
+    assertSame(otherOwner, database.getTable("OWNER", "OTHER"));
+    assertSame(lowerCaseOwner, database.getTable("owner", "APP"));
+    assertNull(database.getTable("Owner", null));
+    assertNull(database.getTable("PET", null));
+  }
+
+  @Test
+  public void testColumnsAndKeysAreLookedUpIgnoringCase() {
+    final Table owner = new Table("OWNER", new Schema("APP"));
+    owner.addColumn(column("ID", true));
+    final Table pet = new Table("PET", new Schema("APP"));
+    pet.addColumn(column("ID", true));
+    pet.addColumn(column("OWNER_ID", false));
+    pet.addColumn(column("CO_OWNER_ID", false));
+    addForeignKey(pet, "OWNER_ID", owner);
+    addForeignKey(pet, "CO_OWNER_ID", owner);
+    new Database(new LinkedHashSet<Table>(Arrays.asList(owner, pet)));
+
+    assertSame(pet.findColumn("OWNER_ID"), pet.findColumn("owner_id"));
+    assertNull(pet.findColumn("NAME"));
+    assertSame(owner, pet.getImportedKey("fk_pet_owner_id").getForeignTable());
+    assertEquals(2, pet.getImportedKeyCountByForeignTableName("owner"));
+    assertEquals(0, pet.getImportedKeyCountByForeignTableName("VET"));
+  }
+
+  @Test
+  public void testJoinTablesAreIndexed() {
+    final Table owner = new Table("OWNER", new Schema("APP"));
+    owner.addColumn(column("ID", true));
+    final Table vet = new Table("VET", new Schema("APP"));
+    vet.addColumn(column("ID", true));
+    final Table ownerVet = new Table("OWNER_VET", new Schema("APP"));
+    ownerVet.addColumn(column("OWNER_ID", true));
+    ownerVet.addColumn(column("VET_ID", true));
+    addForeignKey(ownerVet, "OWNER_ID", owner);
+    addForeignKey(ownerVet, "VET_ID", vet);
+
+    final Database database =
+        new Database(new LinkedHashSet<Table>(Arrays.asList(owner, ownerVet, vet)));
+
+    assertEquals(Collections.singletonList(ownerVet), database.getJoinTables());
+  }
+}
@@ -0,0 +1,131 @@
+package org.springframework.roo.addon.dbre.addon.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceReference;
+import org.osgi.service.component.ComponentContext;
+import org.springframework.roo.addon.dbre.addon.jdbc.ConnectionProvider;
+import org.springframework.roo.application.config.ApplicationConfigService;
+import org.springframework.roo.project.ProjectOperations;
+
+/**
+ * Unit test of the database connections opened by {@link DbreModelServiceImpl}
+ *
+ * @since 2.0
+ */
+public class DbreModelServiceImplTest {
+
+  private static final String MODULE_NAME = "core";
+  private static final String URL = "jdbc:h2:mem:clinic";
+
+  /**
+   * Records the properties of the connections it's asked for.
+   */
+  private class RecordingConnectionProvider implements ConnectionProvider {
+
+    final List<Properties> requested = new ArrayList<Properties>();
+
+    public void closeConnection(final Connection connection) {}
+
+    public Connection getConnection(final Map<String, String> map, final boolean displayAddOns) {
+      throw new UnsupportedOperationException();
+    }
+
+    public Connection getConnection(final Properties props, final boolean displayAddOns) {
+      requested.add(props);
+      return mockConnection;
+    }
+
+    public Connection getConnectionViaJndiDataSource(final String jndiDataSource,
+        final Map<String, String> map, final boolean displayAddOns) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  private RecordingConnectionProvider connectionProvider;
+  private ApplicationConfigService mockApplicationConfigService;
+  private Connection mockConnection;
+  private DbreModelServiceImpl dbreModelService;
+
+  @Before
+  public void setUp() throws Exception {
+    final DatabaseMetaData mockMetaData = mock(DatabaseMetaData.class);
+    when(mockMetaData.getSchemaTerm()).thenReturn("schema");
+    mockConnection = mock(Connection.class);
+    when(mockConnection.getMetaData()).thenReturn(mockMetaData);
+    connectionProvider = new RecordingConnectionProvider();
+    mockApplicationConfigService = mock(ApplicationConfigService.class);
+    final ProjectOperations mockProjectOperations = mock(ProjectOperations.class);
+    when(mockProjectOperations.getFocusedModuleName()).thenReturn(MODULE_NAME);
+
+    final BundleContext mockBundleContext = mock(BundleContext.class);
+    register(mockBundleContext, ApplicationConfigService.class, mockApplicationConfigService);
+    register(mockBundleContext, ConnectionProvider.class, connectionProvider);
+    register(mockBundleContext, ProjectOperations.class, mockProjectOperations);
+    final ComponentContext mockComponentContext = mock(ComponentContext.class);
+    when(mockComponentContext.getBundleContext()).thenReturn(mockBundleContext);
+    dbreModelService = new DbreModelServiceImpl();
+    dbreModelService.activate(mockComponentContext);
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> void register(final BundleContext mockBundleContext, final Class<T> serviceType,
+      final T service) throws Exception {
+    final ServiceReference<T> mockReference = mock(ServiceReference.class);
+    when(mockBundleContext.getAllServiceReferences(serviceType.getName(), null)).thenReturn(
+        new ServiceReference<?>[] {mockReference});
+    when(mockBundleContext.getService(mockReference)).thenReturn(service);
+  }
+
+  private void setDataSourceProperty(final String key, final String value) {
+    when(mockApplicationConfigService.getProperty(MODULE_NAME, "spring.datasource", key, null))
+        .thenReturn(value);
+  }
+
+  @Test
+  public void testConnectionUsesTheSpringDataSourceProperties() {
+    // Set up
+    setDataSourceProperty("url", URL);
+    setDataSourceProperty("driver-class-name", "org.h2.Driver");
+    setDataSourceProperty("username", "sa");
+
+    // Invoke
+    final boolean supportsSchema = dbreModelService.supportsSchema(false);
+
+    // Check
+    assertTrue(supportsSchema);
+    assertEquals(1, connectionProvider.requested.size());
+    final Properties properties = connectionProvider.requested.get(0);
+    assertEquals(URL, properties.getProperty("database.url"));
+    assertEquals("org.h2.Driver", properties.getProperty("database.driverClassName"));
+    assertEquals("sa", properties.getProperty("database.username"));
+    assertEquals("", properties.getProperty("database.password"));
+  }
+
+  @Test
+  public void testMissingUrlIsReported() {
+    try {
+      // Invoke
+      dbreModelService.supportsSchema(false);
+      fail("Expected an IllegalStateException");
+    } catch (final IllegalStateException expected) {
+      // Check
+      assertTrue(expected.getMessage(), expected.getMessage().contains("jpa setup"));
+      assertTrue(connectionProvider.requested.isEmpty());
+    }
+  }
+}
@@ -17,16 +17,24 @@ import org.springframework.roo.model.JavaType;
  */
 public class DataOnDemandAnnotationValues extends AbstractAnnotationValues {
 
+  @AutoPopulate
+  private int batchSize = 0;
   @AutoPopulate
   private JavaType entity;
   @AutoPopulate
   private int quantity = 10;
+  @AutoPopulate
+  private int seed = 0;
 
   public DataOnDemandAnnotationValues(final PhysicalTypeMetadata governorPhysicalTypeMetadata) {
     super(governorPhysicalTypeMetadata, ROO_DATA_ON_DEMAND);
     AutoPopulationUtils.populate(this, annotationMetadata);
   }
 
+  public int getBatchSize() {
+    return batchSize;
+  }
+
   public JavaType getEntity() {
     return entity;
   }
@@ -34,4 +42,8 @@ public class DataOnDemandAnnotationValues extends AbstractAnnotationValues {
   public int getQuantity() {
     return quantity;
   }
+
+  public int getSeed() {
+    return seed;
+  }
 }
@@ -13,6 +13,7 @@ import static org.springframework.roo.model.JdkJavaType.LIST;
 import static org.springframework.roo.model.JdkJavaType.RANDOM;
 import static org.springframework.roo.model.JdkJavaType.SECURE_RANDOM;
 import static org.springframework.roo.model.JdkJavaType.TIMESTAMP;
+import static org.springframework.roo.model.JpaJavaType.ENTITY_MANAGER;
 import static org.springframework.roo.model.JpaJavaType.JOIN_COLUMN;
 import static org.springframework.roo.model.Jsr303JavaType.CONSTRAINT_VIOLATION;
 import static org.springframework.roo.model.Jsr303JavaType.CONSTRAINT_VIOLATION_EXCEPTION;
@@ -27,6 +28,10 @@ import static org.springframework.roo.model.Jsr303JavaType.PAST;
 import static org.springframework.roo.model.Jsr303JavaType.SIZE;
 import static org.springframework.roo.model.SpringJavaType.AUTOWIRED;
 import static org.springframework.roo.model.SpringJavaType.COMPONENT;
+import static org.springframework.roo.model.SpringJavaType.PLATFORM_TRANSACTION_MANAGER;
+import static org.springframework.roo.model.SpringJavaType.TRANSACTION_CALLBACK_WITHOUT_RESULT;
+import static org.springframework.roo.model.SpringJavaType.TRANSACTION_STATUS;
+import static org.springframework.roo.model.SpringJavaType.TRANSACTION_TEMPLATE;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
@@ -116,6 +121,7 @@ public class DataOnDemandMetadata extends AbstractItdTypeDetailsProvidingMetadat
   }
 
   private JavaSymbolName dataFieldName;
+  private JavaSymbolName entityManagerFieldName;
   private final Map<FieldMetadata, Map<FieldMetadata, String>> embeddedFieldInitializers =
       new LinkedHashMap<FieldMetadata, Map<FieldMetadata, String>>();
   private List<EmbeddedHolder> embeddedHolders;
@@ -131,6 +137,7 @@ public class DataOnDemandMetadata extends AbstractItdTypeDetailsProvidingMetadat
   private MethodMetadata randomPersistentEntityMethod;
   private final List<JavaType> requiredDataOnDemandCollaborators = new ArrayList<JavaType>();
   private JavaSymbolName rndFieldName;
+  private JavaSymbolName transactionManagerFieldName;
   private MethodMetadata specificPersistentEntityMethod;
   private JavaType repository;
 
@@ -205,14 +212,22 @@ public class DataOnDemandMetadata extends AbstractItdTypeDetailsProvidingMetadat
     }
 
     builder.addAnnotation(getComponentAnnotation());
-    builder.addField(getRndField());
+    builder.addField(getRndField(annotationValues.getSeed()));
     builder.addField(getDataField());
 
     // add repository field
     ensureGovernorHasField(getRepositoryField());
 
+    // In batches, the creator of the DoD also passes in what init() needs to
+    // persist the entities in a transaction of its own
+    final boolean batched = annotationValues.getBatchSize() > 0;
+    if (batched) {
+      builder.addField(getEntityManagerField());
+      builder.addField(getTransactionManagerField());
+    }
+
     // add constructor
-    ensureGovernorHasConstructor(getConstructor());
+    ensureGovernorHasConstructor(getConstructor(batched));
 
 
     addCollaboratingDoDFieldsToBuilder(dataOnDemandClasses);
@@ -232,8 +247,8 @@ public class DataOnDemandMetadata extends AbstractItdTypeDetailsProvidingMetadat
     setSpecificPersistentEntityMethod();
     setRandomPersistentEntityMethod();
     setModifyMethod();
-    builder.addMethod(getInitMethod(annotationValues.getQuantity(), findEntriesMethod,
-        persistMethod, flushMethod));
+    builder.addMethod(getInitMethod(annotationValues.getQuantity(),
+        annotationValues.getBatchSize(), findEntriesMethod, persistMethod, flushMethod));
 
     itdTypeDetails = builder.build();
   }
@@ -257,14 +272,25 @@ public class DataOnDemandMetadata extends AbstractItdTypeDetailsProvidingMetadat
   /**
    * Builds constructor.
    *
+   * @param batched whether the constructor also takes the entity manager and
+   *            the transaction manager
    * @return ConstructorMetadataBuilder for adding constructor to ITD
    */
-  private ConstructorMetadataBuilder getConstructor() {
+  private ConstructorMetadataBuilder getConstructor(final boolean batched) {
     ConstructorMetadataBuilder constructorBuilder = new ConstructorMetadataBuilder(getId());
     InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
     String fieldName = StringUtils.uncapitalize(this.repository.getSimpleTypeName());
     constructorBuilder.addParameter(fieldName, this.repository);
     bodyBuilder.appendFormalLine(String.format("this.%s = %s;", fieldName, fieldName));
+    if (batched) {
+      final String entityManager = entityManagerFieldName.getSymbolName();
+      constructorBuilder.addParameter(entityManager, ENTITY_MANAGER);
+      bodyBuilder.appendFormalLine(String.format("this.%s = %s;", entityManager, entityManager));
+      final String transactionManager = transactionManagerFieldName.getSymbolName();
+      constructorBuilder.addParameter(transactionManager, PLATFORM_TRANSACTION_MANAGER);
+      bodyBuilder.appendFormalLine(String.format("this.%s = %s;", transactionManager,
+          transactionManager));
+    }
 
     constructorBuilder.setModifier(Modifier.PUBLIC);
     constructorBuilder.setBodyBuilder(bodyBuilder);
@@ -1015,8 +1041,8 @@ public class DataOnDemandMetadata extends AbstractItdTypeDetailsProvidingMetadat
         bodyBuilder.appendFormalLine("if (" + fieldName + ".length() > " + maxValue + ") {");
         bodyBuilder.indent();
         if (isUnique) {
-          bodyBuilder.appendFormalLine(fieldName + " = new Random().nextInt(10) + " + fieldName
-              + ".substring(1, " + maxValue + ");");
+          bodyBuilder.appendFormalLine(fieldName + " = " + getRndFieldName().getSymbolName()
+              + ".nextInt(10) + " + fieldName + ".substring(1, " + maxValue + ");");
         } else {
           bodyBuilder.appendFormalLine(fieldName + " = " + fieldName + ".substring(0, " + maxValue
               + ");");
@@ -1029,8 +1055,8 @@ public class DataOnDemandMetadata extends AbstractItdTypeDetailsProvidingMetadat
           bodyBuilder.appendFormalLine("if (" + fieldName + ".length() > " + lengthValue + ") {");
           bodyBuilder.indent();
           if (isUnique) {
-            bodyBuilder.appendFormalLine(fieldName + " = new Random().nextInt(10) + " + fieldName
-                + ".substring(1, " + lengthValue + ");");
+            bodyBuilder.appendFormalLine(fieldName + " = " + getRndFieldName().getSymbolName()
+                + ".nextInt(10) + " + fieldName + ".substring(1, " + lengthValue + ");");
           } else {
             bodyBuilder.appendFormalLine(fieldName + " = " + fieldName + ".substring(0, "
                 + lengthValue + ");");
@@ -1075,6 +1101,9 @@ public class DataOnDemandMetadata extends AbstractItdTypeDetailsProvidingMetadat
   /**
    * Returns the DoD type's "void init()" method (existing or generated)
    *
+   * @param quantity the number of entities to create
+   * @param batchSize the number of entities to persist before each flush, or
+   *            0 to flush after every entity
    * @param findEntriesMethod
    *            (required)
    * @param persistMethod
@@ -1083,7 +1112,7 @@ public class DataOnDemandMetadata extends AbstractItdTypeDetailsProvidingMetadat
    *            (required)
    * @return never <code>null</code>
    */
-  private MethodMetadataBuilder getInitMethod(final int quantity,
+  private MethodMetadataBuilder getInitMethod(final int quantity, final int batchSize,
       final MemberTypeAdditions findEntriesMethod, final MemberTypeAdditions persistMethod,
       final MemberTypeAdditions flushMethod) {
     // Method definition to find or build
@@ -1126,15 +1155,71 @@ public class DataOnDemandMetadata extends AbstractItdTypeDetailsProvidingMetadat
     bodyBuilder.indentRemove();
     bodyBuilder.appendFormalLine("}");
     bodyBuilder.appendFormalLine("");
-    bodyBuilder.appendFormalLine(dataField + " = new ArrayList<" + entity.getSimpleTypeName()
-        + ">();");
+    String flushCall = null;
+    String entityManagerField = null;
+    String transactionManagerField = null;
+    if (batchSize > 0) {
+      builder.getImportRegistrationResolver().addImports(TRANSACTION_TEMPLATE,
+          TRANSACTION_CALLBACK_WITHOUT_RESULT, TRANSACTION_STATUS);
+      entityManagerField = entityManagerFieldName.getSymbolName();
+      transactionManagerField = transactionManagerFieldName.getSymbolName();
+    } else if (flushMethod != null) {
+      flushCall = flushMethod.getMethodCall();
+      flushMethod.copyAdditionsTo(builder, governorTypeDetails);
+    }
+    appendPersistLoop(bodyBuilder, entity.getSimpleTypeName(), dataField, quantity,
+        newTransientEntityMethod.getMethodName().getSymbolName(), persistMethod.getMethodCall(),
+        flushCall, batchSize, entityManagerField, transactionManagerField);
+
+    // Create the method
+    return new MethodMetadataBuilder(getId(), Modifier.PUBLIC, methodName, returnType,
+        AnnotatedJavaType.convertFromJavaTypes(parameterTypes), parameterNames, bodyBuilder);
+  }
+
+  /**
+   * Appends the loop of "init()" that creates, persists and collects the
+   * entities. With a batch size, the loop runs in a single transaction and
+   * flushes and clears the entity manager every <code>batchSize</code>
+   * entities; otherwise the flush call (if any) follows every entity.
+   *
+   * @param bodyBuilder the body of "init()" (required)
+   * @param entityName the simple name of the entity type
+   * @param dataField the name of the field collecting the entities
+   * @param quantity the number of entities to create
+   * @param newTransientEntityMethod the name of the method creating an entity
+   * @param persistCall the call persisting the new entity
+   * @param flushCall the call flushing after each entity (can be
+   *            <code>null</code>; ignored in batches)
+   * @param batchSize the number of entities to persist before each flush, or
+   *            0 to flush after every entity
+   * @param entityManagerField the name of the entity manager field (required
+   *            in batches)
+   * @param transactionManagerField the name of the transaction manager field
+   *            (required in batches)
+   */
+  static void appendPersistLoop(final InvocableMemberBodyBuilder bodyBuilder,
+      final String entityName, final String dataField, final int quantity,
+      final String newTransientEntityMethod, final String persistCall, final String flushCall,
+      final int batchSize, final String entityManagerField, final String transactionManagerField) {
+    bodyBuilder.appendFormalLine(dataField + " = new ArrayList<" + entityName + ">();");
+    if (batchSize > 0) {
+      // Without a transaction around the loop, each entity would be saved
+      // and committed on its own, and the entity manager couldn't be flushed
+      bodyBuilder.appendFormalLine("new TransactionTemplate(" + transactionManagerField
+          + ").execute(new TransactionCallbackWithoutResult() {");
+      bodyBuilder.indent();
+      bodyBuilder.appendFormalLine("@Override");
+      bodyBuilder
+          .appendFormalLine("protected void doInTransactionWithoutResult(TransactionStatus status) {");
+      bodyBuilder.indent();
+    }
     bodyBuilder.appendFormalLine("for (int i = 0; i < " + quantity + "; i++) {");
     bodyBuilder.indent();
-    bodyBuilder.appendFormalLine(entity.getSimpleTypeName() + " " + OBJ_VAR + " = "
-        + newTransientEntityMethod.getMethodName().getSymbolName() + "(i);");
+    bodyBuilder.appendFormalLine(entityName + " " + OBJ_VAR + " = " + newTransientEntityMethod
+        + "(i);");
     bodyBuilder.appendFormalLine("try {");
     bodyBuilder.indent();
-    bodyBuilder.appendFormalLine(persistMethod.getMethodCall() + ";");
+    bodyBuilder.appendFormalLine(persistCall + ";");
     bodyBuilder.indentRemove();
     bodyBuilder.appendFormalLine("} catch (final ConstraintViolationException e) {");
     bodyBuilder.indent();
@@ -1150,17 +1235,31 @@ public class DataOnDemandMetadata extends AbstractItdTypeDetailsProvidingMetadat
     bodyBuilder.appendFormalLine("throw new IllegalStateException(msg.toString(), e);");
     bodyBuilder.indentRemove();
     bodyBuilder.appendFormalLine("}");
-    if (flushMethod != null) {
-      bodyBuilder.appendFormalLine(flushMethod.getMethodCall() + ";");
-      flushMethod.copyAdditionsTo(builder, governorTypeDetails);
+    if (batchSize > 0) {
+      // Flush and clear in chunks, so that the inserts can be batched and the
+      // persistence context doesn't grow with the quantity
+      bodyBuilder.appendFormalLine(dataField + ".add(" + OBJ_VAR + ");");
+      bodyBuilder.appendFormalLine("if ((i + 1) % " + batchSize + " == 0) {");
+      bodyBuilder.indent();
+      bodyBuilder.appendFormalLine(entityManagerField + ".flush();");
+      bodyBuilder.appendFormalLine(entityManagerField + ".clear();");
+      bodyBuilder.indentRemove();
+      bodyBuilder.appendFormalLine("}");
+      bodyBuilder.indentRemove();
+      bodyBuilder.appendFormalLine("}");
+      bodyBuilder.appendFormalLine(entityManagerField + ".flush();");
+      bodyBuilder.indentRemove();
+      bodyBuilder.appendFormalLine("}");
+      bodyBuilder.indentRemove();
+      bodyBuilder.appendFormalLine("});");
+    } else {
+      if (flushCall != null) {
+        bodyBuilder.appendFormalLine(flushCall + ";");
+      }
+      bodyBuilder.appendFormalLine(dataField + ".add(" + OBJ_VAR + ");");
+      bodyBuilder.indentRemove();
+      bodyBuilder.appendFormalLine("}");
     }
-    bodyBuilder.appendFormalLine(dataField + ".add(" + OBJ_VAR + ");");
-    bodyBuilder.indentRemove();
-    bodyBuilder.appendFormalLine("}");
-
-    // Create the method
-    return new MethodMetadataBuilder(getId(), Modifier.PUBLIC, methodName, returnType,
-        AnnotatedJavaType.convertFromJavaTypes(parameterTypes), parameterNames, bodyBuilder);
   }
 
   private String getMinAndMaxBody(final FieldMetadata field, final String suffix) {
@@ -1259,7 +1358,70 @@ public class DataOnDemandMetadata extends AbstractItdTypeDetailsProvidingMetadat
     return randomPersistentEntityMethod;
   }
 
-  private FieldMetadataBuilder getRndField() {
+  /**
+   * @return the "entityManager" field to flush and clear in batches, which is
+   *         either provided by the user or produced on demand (never returns
+   *         null)
+   */
+  private FieldMetadataBuilder getEntityManagerField() {
+    final FieldMetadataBuilder fieldBuilder = getPrivateField("entityManager", ENTITY_MANAGER);
+    entityManagerFieldName = fieldBuilder.getFieldName();
+    return fieldBuilder;
+  }
+
+  /**
+   * @return the "transactionManager" field to seed in batches within, which
+   *         is either provided by the user or produced on demand (never
+   *         returns null)
+   */
+  private FieldMetadataBuilder getTransactionManagerField() {
+    final FieldMetadataBuilder fieldBuilder =
+        getPrivateField("transactionManager", PLATFORM_TRANSACTION_MANAGER);
+    transactionManagerFieldName = fieldBuilder.getFieldName();
+    return fieldBuilder;
+  }
+
+  /**
+   * Returns the user's private field of the given type named after the given
+   * name, or a new one with the first name that is still free, obtained by
+   * appending "_" to it as often as needed.
+   *
+   * @param name the preferred name of the field
+   * @param fieldType the type of the field
+   * @return a non-<code>null</code> field
+   */
+  private FieldMetadataBuilder getPrivateField(final String name, final JavaType fieldType) {
+    int index = -1;
+    while (true) {
+      // Compute the required field name
+      index++;
+      final JavaSymbolName fieldName = new JavaSymbolName(name + StringUtils.repeat("_", index));
+      final FieldMetadata candidate = governorTypeDetails.getField(fieldName);
+      if (candidate != null) {
+        // Verify if candidate is suitable
+        if (!Modifier.isPrivate(candidate.getModifier())
+            || !candidate.getFieldType().equals(fieldType)) {
+          // Candidate might clash with a subclass or isn't of the right
+          // type, so go onto the next possible name
+          continue;
+        }
+        // If we got this far, we found a valid candidate, which the
+        // constructor will set
+        return new FieldMetadataBuilder(candidate);
+      }
+
+      // Candidate not found, so let's create one
+      return new FieldMetadataBuilder(getId(), Modifier.PRIVATE,
+          new ArrayList<AnnotationMetadataBuilder>(), fieldName, fieldType);
+    }
+  }
+
+  /**
+   * @param seed the seed of the random values, or 0 for an unseeded
+   *            SecureRandom (so a seed of 0 itself can't be requested)
+   * @return the user's "rnd" field, or a new one with the given seed
+   */
+  private FieldMetadataBuilder getRndField(final int seed) {
     int index = -1;
     while (true) {
       // Compute the required field name
@@ -1285,14 +1447,18 @@ public class DataOnDemandMetadata extends AbstractItdTypeDetailsProvidingMetadat
         return new FieldMetadataBuilder(candidate);
       }
 
-      // Candidate not found, so let's create one
-      builder.getImportRegistrationResolver().addImports(RANDOM, SECURE_RANDOM);
-
+      // Candidate not found, so let's create one, shared by all the values
       final FieldMetadataBuilder fieldBuilder = new FieldMetadataBuilder(getId());
       fieldBuilder.setModifier(Modifier.PRIVATE);
       fieldBuilder.setFieldName(fieldName);
       fieldBuilder.setFieldType(RANDOM);
-      fieldBuilder.setFieldInitializer("new SecureRandom()");
+      if (seed == 0) {
+        builder.getImportRegistrationResolver().addImports(RANDOM, SECURE_RANDOM);
+        fieldBuilder.setFieldInitializer("new SecureRandom()");
+      } else {
+        builder.getImportRegistrationResolver().addImport(RANDOM);
+        fieldBuilder.setFieldInitializer("new Random(" + seed + ")");
+      }
       return fieldBuilder;
     }
   }
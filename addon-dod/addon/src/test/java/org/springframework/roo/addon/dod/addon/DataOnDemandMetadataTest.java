@@ -0,0 +1,83 @@
+package org.springframework.roo.addon.dod.addon;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.roo.classpath.itd.InvocableMemberBodyBuilder;
+
+/**
+ * Unit tests of the seeding loop generated by {@link DataOnDemandMetadata}
+ *
+ * @since 2.0
+ */
+public class DataOnDemandMetadataTest {
+
+  private static final List<String> CATCH_CONSTRAINT_VIOLATIONS = Arrays.asList(
+      "} catch (final ConstraintViolationException e) {",
+      "final StringBuilder msg = new StringBuilder();",
+      "for (Iterator<ConstraintViolation<?>> iter = e.getConstraintViolations().iterator();"
+          + " iter.hasNext();) {", "final ConstraintViolation<?> cv = iter.next();",
+      "msg.append(\"[\").append(cv.getRootBean().getClass().getName()).append(\".\")"
+          + ".append(cv.getPropertyPath()).append(\": \").append(cv.getMessage())"
+          + ".append(\" (invalid value = \").append(cv.getInvalidValue()).append(\")\")"
+          + ".append(\"]\");", "}", "throw new IllegalStateException(msg.toString(), e);", "}");
+
+  private static List<String> getLines(final InvocableMemberBodyBuilder bodyBuilder) {
+    final List<String> lines = new ArrayList<String>();
+    for (final String line : bodyBuilder.getOutput().split("\n")) {
+      if (!line.trim().isEmpty()) {
+        lines.add(line.trim());
+      }
+    }
+    return lines;
+  }
+
+  @Test
+  public void testEveryEntityIsFlushedWithoutABatchSize() {
+    // Set up
+    final InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+
+    // Invoke
+    DataOnDemandMetadata.appendPersistLoop(bodyBuilder, "Owner", "data", 10,
+        "getNewTransientOwner", "ownerRepository.save(obj)", "ownerRepository.flush()", 0, null,
+        null);
+
+    // Check
+    final List<String> expected =
+        new ArrayList<String>(Arrays.asList("data = new ArrayList<Owner>();",
+            "for (int i = 0; i < 10; i++) {", "Owner obj = getNewTransientOwner(i);", "try {",
+            "ownerRepository.save(obj);"));
+    expected.addAll(CATCH_CONSTRAINT_VIOLATIONS);
+    expected.addAll(Arrays.asList("ownerRepository.flush();", "data.add(obj);", "}"));
+    assertEquals(expected, getLines(bodyBuilder));
+  }
+
+  @Test
+  public void testEntitiesAreFlushedInBatchesWithinATransaction() {
+    // Set up
+    final InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+
+    // Invoke
+    DataOnDemandMetadata.appendPersistLoop(bodyBuilder, "Owner", "data_", 1000,
+        "getNewTransientOwner", "ownerRepository.save(obj)", null, 50, "entityManager_",
+        "transactionManager");
+
+    // Check
+    final List<String> expected =
+        new ArrayList<String>(Arrays.asList("data_ = new ArrayList<Owner>();",
+            "new TransactionTemplate(transactionManager)"
+                + ".execute(new TransactionCallbackWithoutResult() {", "@Override",
+            "protected void doInTransactionWithoutResult(TransactionStatus status) {",
+            "for (int i = 0; i < 1000; i++) {", "Owner obj = getNewTransientOwner(i);", "try {",
+            "ownerRepository.save(obj);"));
+    expected.addAll(CATCH_CONSTRAINT_VIOLATIONS);
+    expected.addAll(Arrays.asList("data_.add(obj);", "if ((i + 1) % 50 == 0) {",
+        "entityManager_.flush();", "entityManager_.clear();", "}", "}",
+        "entityManager_.flush();", "}", "});"));
+    assertEquals(expected, getLines(bodyBuilder));
+  }
+}
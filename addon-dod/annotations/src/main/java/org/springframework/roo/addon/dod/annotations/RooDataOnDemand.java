@@ -26,4 +26,29 @@ public @interface RooDataOnDemand {
    * @return the number of entities to create (required; defaults to 10)
    */
   int quantity() default 10;
+
+  /**
+   * Persisting the entities one at a time, flushing after each of them,
+   * makes seeding large quantities slow. With a batch size, the entities are
+   * flushed and cleared from the persistence context in chunks of that size,
+   * which lets the JPA provider batch the inserts. It should match the
+   * provider's JDBC batch size, e.g. <code>hibernate.jdbc.batch_size</code>.
+   * The entities are then persisted in a transaction of their own, so the DoD
+   * is created with the <code>EntityManager</code> and the
+   * <code>PlatformTransactionManager</code> to use, besides the repository.
+   * 
+   * @return the number of entities to persist before each flush, or 0 to
+   *         flush after every entity (defaults to 0)
+   */
+  int batchSize() default 0;
+
+  /**
+   * As 0 stands for "unseeded", it can't be used as a seed itself; any other
+   * value, including a negative one, gives a <code>new Random(seed)</code>.
+   * 
+   * @return the seed of the random values, so that the same data is created
+   *         on each run, or 0 to use an unseeded <code>SecureRandom</code>
+   *         (defaults to 0)
+   */
+  int seed() default 0;
 }
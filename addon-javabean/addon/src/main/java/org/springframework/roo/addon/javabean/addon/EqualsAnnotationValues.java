@@ -20,6 +20,8 @@ public class EqualsAnnotationValues extends AbstractAnnotationValues {
   private boolean appendSuper;
   @AutoPopulate
   private String[] excludeFields;
+  @AutoPopulate
+  private boolean directComparisons;
 
   /**
    * Constructor
@@ -38,4 +40,8 @@ public class EqualsAnnotationValues extends AbstractAnnotationValues {
   public boolean isAppendSuper() {
     return appendSuper;
   }
+
+  public boolean isDirectComparisons() {
+    return directComparisons;
+  }
 }
@@ -74,9 +74,17 @@ public class EqualsCommands implements CommandMarker {
           mandatory = false,
           specifiedDefaultValue = "",
           optionContext = "exclude-fields",
-          help = "The fields to exclude in the `equals()` and `hashcode()` methods. Multiple field names must be a double-quoted list separated by spaces.s") final Set<String> excludeFields) {
+          help = "The fields to exclude in the `equals()` and `hashcode()` methods. Multiple field names must be a double-quoted list separated by spaces.s") final Set<String> excludeFields,
+      @CliOption(
+          key = "directComparisons",
+          mandatory = false,
+          specifiedDefaultValue = "true",
+          unspecifiedDefaultValue = "false",
+          help = "Whether to compare and hash the fields directly instead of using `EqualsBuilder` and `HashCodeBuilder`, which allocate on every call. JPA entities are then compared by their identifier and get a constant `hashCode()`. "
+              + "Default if option present: `true`; default if option not present: `false`.") final boolean directComparisons) {
 
-    equalsOperations.addEqualsAndHashCodeMethods(javaType, appendSuper, excludeFields);
+    equalsOperations.addEqualsAndHashCodeMethods(javaType, appendSuper, excludeFields,
+        directComparisons);
   }
 
   public ProjectOperations getProjectOperations() {
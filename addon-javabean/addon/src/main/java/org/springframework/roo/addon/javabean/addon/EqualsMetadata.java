@@ -5,14 +5,17 @@ import static org.springframework.roo.model.JavaType.INT_PRIMITIVE;
 import static org.springframework.roo.model.JavaType.OBJECT;
 
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.springframework.roo.addon.javabean.annotations.RooEquals;
 import org.springframework.roo.classpath.PhysicalTypeIdentifierNamingUtils;
 import org.springframework.roo.classpath.PhysicalTypeMetadata;
+import org.springframework.roo.classpath.details.BeanInfoUtils;
 import org.springframework.roo.classpath.details.FieldMetadata;
 import org.springframework.roo.classpath.details.MethodMetadataBuilder;
 import org.springframework.roo.classpath.details.annotations.AnnotatedJavaType;
@@ -39,6 +42,7 @@ public class EqualsMetadata extends AbstractItdTypeDetailsProvidingMetadataItem
       "org.apache.commons.lang3.builder.HashCodeBuilder");
   private static final JavaSymbolName HASH_CODE_METHOD_NAME = new JavaSymbolName("hashCode");
   private static final String OBJECT_NAME = "obj";
+  private static final JavaType OBJECTS = new JavaType("java.util.Objects");
   private static final String PROVIDES_TYPE_STRING = EqualsMetadata.class.getName();
   private static final String PROVIDES_TYPE = MetadataIdentificationUtils
       .create(PROVIDES_TYPE_STRING);
@@ -71,7 +75,80 @@ public class EqualsMetadata extends AbstractItdTypeDetailsProvidingMetadataItem
         metadataIdentificationString);
   }
 
+  /**
+   * Returns the expression that compares the given fields of this object and
+   * of <code>rhs</code> without allocating, as EqualsBuilder would.
+   * 
+   * @param fields the fields to compare (required)
+   * @param appendSuper whether to call the super class <code>equals</code>
+   * @return a Java boolean expression
+   */
+  static String getDirectEqualsExpression(final List<FieldMetadata> fields,
+      final boolean appendSuper) {
+    final List<String> comparisons = new ArrayList<String>();
+    if (appendSuper) {
+      comparisons.add("super.equals(" + OBJECT_NAME + ")");
+    }
+    for (final FieldMetadata field : fields) {
+      final String name = field.getFieldName().getSymbolName();
+      final JavaType type = field.getFieldType();
+      if (!type.isPrimitive()) {
+        comparisons.add("Objects.equals(" + name + ", rhs." + name + ")");
+      } else if (JavaType.FLOAT_PRIMITIVE.equals(type)) {
+        comparisons.add("Float.compare(" + name + ", rhs." + name + ") == 0");
+      } else if (JavaType.DOUBLE_PRIMITIVE.equals(type)) {
+        comparisons.add("Double.compare(" + name + ", rhs." + name + ") == 0");
+      } else {
+        comparisons.add(name + " == rhs." + name);
+      }
+    }
+    return comparisons.isEmpty() ? "true" : StringUtils.join(comparisons, " && ");
+  }
+
+  /**
+   * Returns the statements that hash the given fields without allocating.
+   * They use the same seed and multiplier as HashCodeBuilder, and hash every
+   * type the same way, so they compute the same hash codes.
+   * 
+   * @param fields the fields to hash (required)
+   * @param appendSuper whether to include the super class
+   *            <code>hashCode</code>
+   * @return the statements, the last of which returns the hash code
+   */
+  static List<String> getDirectHashCodeStatements(final List<FieldMetadata> fields,
+      final boolean appendSuper) {
+    final List<String> statements = new ArrayList<String>();
+    statements.add("int result = 17;");
+    if (appendSuper) {
+      statements.add("result = 37 * result + super.hashCode();");
+    }
+    for (final FieldMetadata field : fields) {
+      final String name = "this." + field.getFieldName().getSymbolName();
+      final JavaType type = field.getFieldType();
+      final String hash;
+      if (!type.isPrimitive()) {
+        hash = "Objects.hashCode(" + name + ")";
+      } else if (JavaType.BOOLEAN_PRIMITIVE.equals(type)) {
+        hash = "(" + name + " ? 0 : 1)";
+      } else if (JavaType.LONG_PRIMITIVE.equals(type)) {
+        hash = "(int) (" + name + " ^ (" + name + " >> 32))";
+      } else if (JavaType.FLOAT_PRIMITIVE.equals(type)) {
+        hash = "Float.floatToIntBits(" + name + ")";
+      } else if (JavaType.DOUBLE_PRIMITIVE.equals(type)) {
+        hash =
+            "(int) (Double.doubleToLongBits(" + name + ") ^ (Double.doubleToLongBits(" + name
+                + ") >> 32))";
+      } else {
+        hash = name;
+      }
+      statements.add("result = 37 * result + " + hash + ";");
+    }
+    statements.add("return result;");
+    return statements;
+  }
+
   private final EqualsAnnotationValues annotationValues;
+  private final FieldMetadata identifierField;
   private final List<FieldMetadata> locatedFields;
 
   /**
@@ -85,15 +162,19 @@ public class EqualsMetadata extends AbstractItdTypeDetailsProvidingMetadataItem
    *            (required)
    * @param equalityFields the fields to be compared by the
    *            <code>equals</code> method (can be <code>null</code> or empty)
+   * @param identifierField the identifier of the governor, if it is a JPA
+   *            entity (can be <code>null</code>)
    */
   public EqualsMetadata(final String identifier, final JavaType aspectName,
       final PhysicalTypeMetadata governorPhysicalTypeMetadata,
-      final EqualsAnnotationValues annotationValues, final List<FieldMetadata> equalityFields) {
+      final EqualsAnnotationValues annotationValues, final List<FieldMetadata> equalityFields,
+      final FieldMetadata identifierField) {
     super(identifier, aspectName, governorPhysicalTypeMetadata);
     Validate.isTrue(isValid(identifier), "Metadata id '%s' is invalid", identifier);
     Validate.notNull(annotationValues, "Annotation values required");
 
     this.annotationValues = annotationValues;
+    this.identifierField = identifierField;
     locatedFields = equalityFields;
 
     if (!CollectionUtils.isEmpty(equalityFields)) {
@@ -118,12 +199,33 @@ public class EqualsMetadata extends AbstractItdTypeDetailsProvidingMetadataItem
 
     final List<JavaSymbolName> parameterNames = Arrays.asList(new JavaSymbolName(OBJECT_NAME));
 
-    builder.getImportRegistrationResolver().addImport(EQUALS_BUILDER);
-
     final String typeName = destination.getSimpleTypeName();
 
     // Create the method
     final InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+    if (isComparedByIdentifier()) {
+      final String accessor = BeanInfoUtils.getAccessorMethodName(identifierField) + "()";
+      bodyBuilder.appendFormalLine("if (this == " + OBJECT_NAME + ") {");
+      bodyBuilder.indent();
+      bodyBuilder.appendFormalLine("return true;");
+      bodyBuilder.indentRemove();
+      bodyBuilder.appendFormalLine("}");
+      bodyBuilder.appendFormalLine("if (!(" + OBJECT_NAME + " instanceof " + typeName + ")) {");
+      bodyBuilder.indent();
+      bodyBuilder.appendFormalLine("return false;");
+      bodyBuilder.indentRemove();
+      bodyBuilder.appendFormalLine("}");
+
+      // Entities that are not persisted yet are only equal to themselves. The
+      // other one may be a lazy proxy, so use its accessor.
+      bodyBuilder.appendFormalLine("return " + accessor + " != null && " + accessor
+          + ".equals(((" + typeName + ") " + OBJECT_NAME + ")." + accessor + ");");
+
+      return new MethodMetadataBuilder(getId(), Modifier.PUBLIC, EQUALS_METHOD_NAME,
+          BOOLEAN_PRIMITIVE, AnnotatedJavaType.convertFromJavaTypes(parameterType),
+          parameterNames, bodyBuilder);
+    }
+
     bodyBuilder.appendFormalLine("if (!(" + OBJECT_NAME + " instanceof " + typeName + ")) {");
     bodyBuilder.indent();
     bodyBuilder.appendFormalLine("return false;");
@@ -136,6 +238,18 @@ public class EqualsMetadata extends AbstractItdTypeDetailsProvidingMetadataItem
     bodyBuilder.appendFormalLine("}");
     bodyBuilder.appendFormalLine(typeName + " rhs = (" + typeName + ") " + OBJECT_NAME + ";");
 
+    if (annotationValues.isDirectComparisons()) {
+      builder.getImportRegistrationResolver().addImport(OBJECTS);
+      bodyBuilder.appendFormalLine("return "
+          + getDirectEqualsExpression(locatedFields, annotationValues.isAppendSuper()) + ";");
+
+      return new MethodMetadataBuilder(getId(), Modifier.PUBLIC, EQUALS_METHOD_NAME,
+          BOOLEAN_PRIMITIVE, AnnotatedJavaType.convertFromJavaTypes(parameterType),
+          parameterNames, bodyBuilder);
+    }
+
+    builder.getImportRegistrationResolver().addImport(EQUALS_BUILDER);
+
     final StringBuilder builder = new StringBuilder("return new EqualsBuilder()");
     if (annotationValues.isAppendSuper()) {
       builder.append(".appendSuper(super.equals(" + OBJECT_NAME + "))");
@@ -162,11 +276,28 @@ public class EqualsMetadata extends AbstractItdTypeDetailsProvidingMetadataItem
       return null;
     }
 
-    builder.getImportRegistrationResolver().addImport(HASH_CODE_BUILDER);
-
     // Create the method
     final InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
 
+    if (isComparedByIdentifier()) {
+      // The identifier is assigned on persist, so it can't be part of the hash
+      bodyBuilder.appendFormalLine("return 31;");
+      return new MethodMetadataBuilder(getId(), Modifier.PUBLIC, HASH_CODE_METHOD_NAME,
+          INT_PRIMITIVE, bodyBuilder);
+    }
+
+    if (annotationValues.isDirectComparisons()) {
+      builder.getImportRegistrationResolver().addImport(OBJECTS);
+      for (final String statement : getDirectHashCodeStatements(locatedFields,
+          annotationValues.isAppendSuper())) {
+        bodyBuilder.appendFormalLine(statement);
+      }
+      return new MethodMetadataBuilder(getId(), Modifier.PUBLIC, HASH_CODE_METHOD_NAME,
+          INT_PRIMITIVE, bodyBuilder);
+    }
+
+    builder.getImportRegistrationResolver().addImport(HASH_CODE_BUILDER);
+
     final StringBuilder builder = new StringBuilder("return new HashCodeBuilder()");
     if (annotationValues.isAppendSuper()) {
       builder.append(".appendSuper(super.hashCode())");
@@ -182,6 +313,17 @@ public class EqualsMetadata extends AbstractItdTypeDetailsProvidingMetadataItem
         INT_PRIMITIVE, bodyBuilder);
   }
 
+  /**
+   * Indicates whether the governor is a JPA entity to be compared by its
+   * identifier, which must be nullable to tell new entities apart
+   * 
+   * @return see above
+   */
+  private boolean isComparedByIdentifier() {
+    return annotationValues.isDirectComparisons() && identifierField != null
+        && !identifierField.getFieldType().isPrimitive();
+  }
+
   @Override
   public String toString() {
     final ToStringBuilder builder = new ToStringBuilder(this);
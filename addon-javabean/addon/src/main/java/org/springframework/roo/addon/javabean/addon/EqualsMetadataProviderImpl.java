@@ -114,8 +114,18 @@ public class EqualsMetadataProviderImpl extends AbstractMemberDiscoveringItdMeta
         locateFields(javaType, annotationValues.getExcludeFields(), memberDetails,
             metadataIdentificationString);
 
+    // JPA entities can be compared by their identifier instead
+    FieldMetadata identifierField = null;
+    if (annotationValues.isDirectComparisons()) {
+      final List<FieldMetadata> identifierFields =
+          getPersistenceMemberLocator().getIdentifierFields(javaType);
+      if (identifierFields.size() == 1) {
+        identifierField = identifierFields.get(0);
+      }
+    }
+
     return new EqualsMetadata(metadataIdentificationString, aspectName,
-        governorPhysicalTypeMetadata, annotationValues, equalityFields);
+        governorPhysicalTypeMetadata, annotationValues, equalityFields, identifierField);
   }
 
   public String getProvidesType() {
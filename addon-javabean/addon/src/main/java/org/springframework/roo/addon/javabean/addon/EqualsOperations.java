@@ -13,5 +13,5 @@ import org.springframework.roo.model.JavaType;
 public interface EqualsOperations {
 
   void addEqualsAndHashCodeMethods(final JavaType javaType, boolean appendSuper,
-      final Set<String> excludeFields);
+      final Set<String> excludeFields, boolean directComparisons);
 }
@@ -36,7 +36,7 @@ public class EqualsOperationsImpl implements EqualsOperations {
   private TypeManagementService typeManagementService;
 
   public void addEqualsAndHashCodeMethods(final JavaType javaType, final boolean appendSuper,
-      final Set<String> excludeFields) {
+      final Set<String> excludeFields, final boolean directComparisons) {
     // Add @RooEquals annotation to class if not yet present
     final ClassOrInterfaceTypeDetails cid = typeLocationService.getTypeDetails(javaType);
     if (cid == null || cid.getTypeAnnotation(ROO_EQUALS) != null) {
@@ -55,6 +55,9 @@ public class EqualsOperationsImpl implements EqualsOperations {
       annotationBuilder.addAttribute(new ArrayAttributeValue<StringAttributeValue>(
           new JavaSymbolName("excludeFields"), attributes));
     }
+    if (directComparisons) {
+      annotationBuilder.addBooleanAttribute("directComparisons", directComparisons);
+    }
 
     final ClassOrInterfaceTypeDetailsBuilder cidBuilder =
         new ClassOrInterfaceTypeDetailsBuilder(cid);
@@ -0,0 +1,70 @@
+package org.springframework.roo.addon.javabean.addon;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+
+import org.junit.Test;
+import org.springframework.roo.classpath.details.DefaultFieldMetadata;
+import org.springframework.roo.classpath.details.FieldMetadata;
+import org.springframework.roo.model.CustomDataImpl;
+import org.springframework.roo.model.JavaSymbolName;
+import org.springframework.roo.model.JavaType;
+
+/**
+ * Unit test of the direct comparisons generated by {@link EqualsMetadata}
+ * 
+ * @since 2.0
+ */
+public class EqualsMetadataTest {
+
+  private static FieldMetadata getField(final String name, final JavaType type) {
+    return new DefaultFieldMetadata(new CustomDataImpl(new HashMap<Object, Object>()), name,
+        Modifier.PRIVATE, null, new JavaSymbolName(name), type, null);
+  }
+
+  private final FieldMetadata name = getField("name", JavaType.STRING);
+  private final FieldMetadata age = getField("age", JavaType.INT_PRIMITIVE);
+  private final FieldMetadata weight = getField("weight", JavaType.DOUBLE_PRIMITIVE);
+
+  @Test
+  public void testEqualsExpressionComparesEveryField() {
+    assertEquals("Objects.equals(name, rhs.name) && age == rhs.age"
+        + " && Double.compare(weight, rhs.weight) == 0",
+        EqualsMetadata.getDirectEqualsExpression(Arrays.asList(name, age, weight), false));
+  }
+
+  @Test
+  public void testEqualsExpressionAppendsSuper() {
+    assertEquals("super.equals(obj) && Objects.equals(name, rhs.name)",
+        EqualsMetadata.getDirectEqualsExpression(Arrays.asList(name), true));
+    assertEquals("true",
+        EqualsMetadata.getDirectEqualsExpression(Collections.<FieldMetadata>emptyList(), false));
+  }
+
+  @Test
+  public void testHashCodeStatementsHashEveryField() {
+    assertEquals(Arrays.asList("int result = 17;",
+        "result = 37 * result + super.hashCode();",
+        "result = 37 * result + Objects.hashCode(this.name);",
+        "result = 37 * result + this.age;",
+        "result = 37 * result + (int) (Double.doubleToLongBits(this.weight)"
+            + " ^ (Double.doubleToLongBits(this.weight) >> 32));", "return result;"),
+        EqualsMetadata.getDirectHashCodeStatements(Arrays.asList(name, age, weight), true));
+  }
+
+  @Test
+  public void testHashCodeStatementsHashPrimitivesAsHashCodeBuilderDoes() {
+    assertEquals(Arrays.asList("int result = 17;",
+        "result = 37 * result + (this.active ? 0 : 1);",
+        "result = 37 * result + (int) (this.id ^ (this.id >> 32));",
+        "result = 37 * result + Float.floatToIntBits(this.ratio);", "return result;"),
+        EqualsMetadata.getDirectHashCodeStatements(Arrays.asList(
+            getField("active", JavaType.BOOLEAN_PRIMITIVE),
+            getField("id", JavaType.LONG_PRIMITIVE), getField("ratio", JavaType.FLOAT_PRIMITIVE)),
+            false));
+  }
+}
@@ -17,6 +17,20 @@ public @interface RooEquals {
 
   boolean appendSuper() default false;
 
+  /**
+   * Whether the generated methods compare and hash the fields directly,
+   * instead of using commons-lang <code>EqualsBuilder</code> and
+   * <code>HashCodeBuilder</code>, which allocate a builder on every call.
+   * The hash codes are the same either way.
+   * <p>
+   * JPA entities with a non-primitive identifier are then compared by their
+   * identifier only, and have a constant hash code, so that they keep it
+   * when they are persisted.
+   * 
+   * @return true to compare and hash the fields directly
+   */
+  boolean directComparisons() default false;
+
   /**
    * @return an array of fields exclude in the equals and hashCode methods
    */
@@ -18,6 +18,7 @@ import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.Service;
 import org.osgi.service.component.ComponentContext;
+import org.springframework.roo.addon.jpa.addon.entity.IdentifierOptimizer;
 import org.springframework.roo.addon.jpa.addon.entity.IdentifierStrategy;
 import org.springframework.roo.addon.propfiles.PropFileOperations;
 import org.springframework.roo.classpath.ModuleFeatureName;
@@ -537,6 +538,20 @@ public class JpaCommands implements CommandMarker {
           help = "The generation value strategy to be used."
               + " This option is mandatory if `spring.roo.jpa.require.schema-object-name` configuration setting it’s `true`."
               + "Default if option present: `AUTO`.") final IdentifierStrategy identifierStrategy,
+      @CliOption(
+          key = "identifierOptimizer",
+          mandatory = false,
+          specifiedDefaultValue = "POOLED",
+          help = "The Hibernate optimizer reserving blocks of identifiers, so that inserting many "
+              + "entities costs one sequence or table call per `allocationSize` rows and the "
+              + "inserts can be batched. `POOLED_LO` suits databases whose sequence is also used "
+              + "by other applications. Not available with the `IDENTITY` strategy. "
+              + "Default if option present: `POOLED`; default if option not present: `NONE`.") final IdentifierOptimizer identifierOptimizer,
+      @CliOption(
+          key = "allocationSize",
+          mandatory = false,
+          help = "The number of identifiers reserved per call to the sequence or table. "
+              + "Default if option not present: `50`.") final Integer allocationSize,
       @CliOption(key = "extends", mandatory = false, unspecifiedDefaultValue = "java.lang.Object",
           optionContext = SUPERCLASS, help = "The fully qualified name of the superclass. "
               + "Default if option not present: `java.lang.Object`.") final JavaType superclass,
@@ -613,7 +628,8 @@ public class JpaCommands implements CommandMarker {
     if (superclass != null && !("java.lang.Object").equals(superclass.getFullyQualifiedTypeName())
         && !shellContext.isForce()) {
       this.checkExtendsOverride(identifierColumn, identifierField, identifierStrategy,
-          identifierType, sequenceName, versionColumn, versionField, versionType);
+          identifierOptimizer, allocationSize, identifierType, sequenceName, versionColumn,
+          versionField, versionType);
     }
 
     // ROO-3764: Check reserved words only if doesn't permit reserved words
@@ -698,8 +714,9 @@ public class JpaCommands implements CommandMarker {
 
     // Produce the entity itself
     jpaOperations.newEntity(name, createAbstract, superclass, implementsType, identifierField,
-        identifierType, identifierColumn, sequenceName, identifierStrategy, versionField,
-        versionType, versionColumn, inheritanceType, annotationBuilder);
+        identifierType, identifierColumn, sequenceName, identifierStrategy, identifierOptimizer,
+        allocationSize, versionField, versionType, versionColumn, inheritanceType,
+        annotationBuilder);
 
     // Update entity identifier class if required (identifierClass should be
     // only an embeddable class)
@@ -795,6 +812,8 @@ public class JpaCommands implements CommandMarker {
    * @param identifierColumn
    * @param identifierField
    * @param identifierStrategy
+   * @param identifierOptimizer
+   * @param allocationSize
    * @param identifierType
    * @param sequenceName
    * @param versionColumn
@@ -802,9 +821,11 @@ public class JpaCommands implements CommandMarker {
    * @param versionType
    */
   private void checkExtendsOverride(String identifierColumn, String identifierField,
-      IdentifierStrategy identifierStrategy, JavaType identifierType, String sequenceName,
-      String versionColumn, String versionField, JavaType versionType) {
+      IdentifierStrategy identifierStrategy, IdentifierOptimizer identifierOptimizer,
+      Integer allocationSize, JavaType identifierType, String sequenceName, String versionColumn,
+      String versionField, JavaType versionType) {
     if (identifierColumn != null || identifierField != null || identifierStrategy != null
+        || identifierOptimizer != null || allocationSize != null
         || !IDENTIFIER_DEFAULT_TYPE.equals(identifierType.getFullyQualifiedTypeName())
         || sequenceName != null || versionColumn != null || versionField != null
         || !VERSION_DEFAULT_TYPE.equals(versionType.getFullyQualifiedTypeName())) {
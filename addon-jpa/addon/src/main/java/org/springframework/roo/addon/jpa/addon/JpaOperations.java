@@ -1,6 +1,7 @@
 package org.springframework.roo.addon.jpa.addon;
 
 import org.apache.commons.lang3.tuple.Pair;
+import org.springframework.roo.addon.jpa.addon.entity.IdentifierOptimizer;
 import org.springframework.roo.addon.jpa.addon.entity.IdentifierStrategy;
 import org.springframework.roo.addon.jpa.addon.entity.JpaEntityMetadata.RelationInfo;
 import org.springframework.roo.classpath.details.ClassOrInterfaceTypeDetails;
@@ -81,6 +82,10 @@ public interface JpaOperations extends Feature {
    * @param identifierColumn
    * @param sequenceName
    * @param identifierStrategy
+   * @param identifierOptimizer the Hibernate optimizer reserving blocks of
+   *            identifiers (can be <code>null</code> for none)
+   * @param allocationSize the number of identifiers reserved per call to the
+   *            sequence or table (can be <code>null</code> for the default)
    * @param versionField
    * @param versionType
    * @param versionColumn
@@ -90,8 +95,9 @@ public interface JpaOperations extends Feature {
   void newEntity(JavaType name, boolean createAbstract, JavaType superclass,
       JavaType implementsType, String identifierField, JavaType identifierType,
       String identifierColumn, String sequenceName, IdentifierStrategy identifierStrategy,
-      String versionField, JavaType versionType, String versionColumn,
-      InheritanceType inheritanceType, List<AnnotationMetadataBuilder> annotations);
+      IdentifierOptimizer identifierOptimizer, Integer allocationSize, String versionField,
+      JavaType versionType, String versionColumn, InheritanceType inheritanceType,
+      List<AnnotationMetadataBuilder> annotations);
 
   /**
    * Updates an existing embeddable class to a JPA identifier class.
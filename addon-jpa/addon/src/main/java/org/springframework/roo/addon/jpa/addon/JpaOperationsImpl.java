@@ -1,5 +1,9 @@
 package org.springframework.roo.addon.jpa.addon;
 
+import static org.springframework.roo.model.HibernateJavaType.GENERIC_GENERATOR;
+import static org.springframework.roo.model.HibernateJavaType.PARAMETER;
+import static org.springframework.roo.model.HibernateJavaType.SEQUENCE_STYLE_GENERATOR;
+import static org.springframework.roo.model.HibernateJavaType.TABLE_GENERATOR;
 import static org.springframework.roo.model.JavaType.OBJECT;
 import static org.springframework.roo.model.JpaJavaType.COLUMN;
 import static org.springframework.roo.model.JpaJavaType.EMBEDDABLE;
@@ -22,6 +26,7 @@ import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Service;
 import org.osgi.framework.BundleContext;
 import org.osgi.service.component.ComponentContext;
+import org.springframework.roo.addon.jpa.addon.entity.IdentifierOptimizer;
 import org.springframework.roo.addon.jpa.addon.entity.IdentifierStrategy;
 import org.springframework.roo.addon.jpa.addon.entity.JpaEntityMetadata;
 import org.springframework.roo.addon.jpa.addon.entity.JpaEntityMetadata.RelationInfo;
@@ -38,6 +43,8 @@ import org.springframework.roo.classpath.details.FieldDetails;
 import org.springframework.roo.classpath.details.FieldMetadata;
 import org.springframework.roo.classpath.details.FieldMetadataBuilder;
 import org.springframework.roo.classpath.details.annotations.AnnotationMetadataBuilder;
+import org.springframework.roo.classpath.details.annotations.ArrayAttributeValue;
+import org.springframework.roo.classpath.details.annotations.NestedAnnotationAttributeValue;
 import org.springframework.roo.classpath.operations.InheritanceType;
 import org.springframework.roo.metadata.MetadataService;
 import org.springframework.roo.model.EnumDetails;
@@ -103,6 +110,7 @@ public class JpaOperationsImpl implements JpaOperations {
   private static final String HIBERNATE_NAMING_STRATEGY = "spring.jpa.hibernate.naming.strategy";
   private static final String HIBERNATE_NAMING_STRATEGY_VALUE =
       "org.hibernate.cfg.ImprovedNamingStrategy";
+  static final int DEFAULT_ALLOCATION_SIZE = 50;
   static final String POM_XML = "pom.xml";
 
   private ServiceInstaceManager serviceManager = new ServiceInstaceManager();
@@ -190,9 +198,10 @@ public class JpaOperationsImpl implements JpaOperations {
   public void newEntity(final JavaType name, final boolean createAbstract,
       final JavaType superclass, final JavaType implementsType, final String identifierField,
       final JavaType identifierType, final String identifierColumn, final String sequenceName,
-      final IdentifierStrategy identifierStrategy, final String versionField,
-      final JavaType versionType, final String versionColumn,
-      final InheritanceType inheritanceType, final List<AnnotationMetadataBuilder> annotations) {
+      final IdentifierStrategy identifierStrategy, final IdentifierOptimizer identifierOptimizer,
+      final Integer allocationSize, final String versionField, final JavaType versionType,
+      final String versionColumn, final InheritanceType inheritanceType,
+      final List<AnnotationMetadataBuilder> annotations) {
 
     Validate.notNull(name, "Entity name required");
     Validate.isTrue(!JdkJavaType.isPartOfJavaLang(name.getSimpleTypeName()),
@@ -251,7 +260,7 @@ public class JpaOperationsImpl implements JpaOperations {
     if (superclass.equals(OBJECT)) {
       getTypeManagementService().addField(
           getIdentifierField(name, identifierField, identifierType, identifierColumn, sequenceName,
-              identifierStrategy, inheritanceType), true);
+              identifierStrategy, identifierOptimizer, allocationSize, inheritanceType), true);
       getTypeManagementService().addField(
           getVersionField(name, versionField, versionType, versionColumn), true);
     }
@@ -854,12 +863,15 @@ public class JpaOperationsImpl implements JpaOperations {
    * @param identifierColumn
    * @param sequenceName
    * @param identifierStrategy
+   * @param identifierOptimizer
+   * @param allocationSize
    * @param inheritanceType
    * @return
    */
   private FieldMetadata getIdentifierField(final JavaType entity, String identifierField,
       final JavaType identifierType, final String identifierColumn, final String sequenceName,
-      IdentifierStrategy identifierStrategy, InheritanceType inheritanceType) {
+      final IdentifierStrategy identifierStrategy, final IdentifierOptimizer identifierOptimizer,
+      final Integer allocationSize, final InheritanceType inheritanceType) {
 
     final List<AnnotationMetadataBuilder> annotations = new ArrayList<AnnotationMetadataBuilder>();
     final boolean hasIdClass = !(identifierType.isCoreType());
@@ -873,49 +885,8 @@ public class JpaOperationsImpl implements JpaOperations {
     // Compute the column name, as required
     if (!hasIdClass) {
       if (!"".equals(sequenceName)) {
-
-        // ROO-3719: Add SEQUENCE as @GeneratedValue strategy
-        // Check if provided identifierStrategy is valid
-        boolean isValidIdentifierStrategy = false;
-        if (identifierStrategy != null) {
-          for (IdentifierStrategy identifierStrategyType : IdentifierStrategy.values()) {
-            if (identifierStrategyType.name().equals(identifierStrategy.name())) {
-              isValidIdentifierStrategy = true;
-              break;
-            }
-          }
-        }
-
-        if (!isValidIdentifierStrategy) {
-          identifierStrategy = IdentifierStrategy.AUTO;
-        }
-
-        // ROO-746: Use @GeneratedValue(strategy = GenerationType.TABLE)
-        // If the root of the governor declares @Inheritance(strategy =
-        // InheritanceType.TABLE_PER_CLASS)
-        if (IdentifierStrategy.AUTO.name().equals(identifierStrategy.name())) {
-          if (inheritanceType != null) {
-            if ("TABLE_PER_CLASS".equals(inheritanceType.name())) {
-              identifierStrategy = IdentifierStrategy.TABLE;
-            }
-          }
-        }
-
-        final AnnotationMetadataBuilder generatedValueBuilder =
-            new AnnotationMetadataBuilder(GENERATED_VALUE);
-        generatedValueBuilder.addEnumAttribute("strategy", new EnumDetails(GENERATION_TYPE,
-            new JavaSymbolName(identifierStrategy.name())));
-
-        if (StringUtils.isNotBlank(sequenceName)) {
-          final String sequenceKey = StringUtils.uncapitalize(entity.getSimpleTypeName()) + "Gen";
-          generatedValueBuilder.addStringAttribute("generator", sequenceKey);
-          final AnnotationMetadataBuilder sequenceGeneratorBuilder =
-              new AnnotationMetadataBuilder(SEQUENCE_GENERATOR);
-          sequenceGeneratorBuilder.addStringAttribute("name", sequenceKey);
-          sequenceGeneratorBuilder.addStringAttribute("sequenceName", sequenceName);
-          annotations.add(sequenceGeneratorBuilder);
-        }
-        annotations.add(generatedValueBuilder);
+        annotations.addAll(getIdentifierGeneratorAnnotations(entity, sequenceName,
+            identifierStrategy, identifierOptimizer, allocationSize, inheritanceType));
       }
 
       // User has specified alternative columnName
@@ -935,6 +906,107 @@ public class JpaOperationsImpl implements JpaOperations {
     return new FieldMetadataBuilder(identifierFieldDetails).build();
   }
 
+  /**
+   * This method generates the @GeneratedValue annotation of the identifier
+   * field, preceded by the generator it refers to, if any.
+   * <p>
+   * With a {@link IdentifierOptimizer} other than NONE, the generator is a
+   * Hibernate enhanced sequence (or table) generator reserving
+   * <code>allocationSize</code> identifiers per round-trip, so that bulk
+   * inserts are not slowed down by the identifier generation and can be
+   * batched.
+   * 
+   * @param entity
+   * @param sequenceName
+   * @param identifierStrategy
+   * @param identifierOptimizer
+   * @param allocationSize
+   * @param inheritanceType
+   * @return
+   */
+  static List<AnnotationMetadataBuilder> getIdentifierGeneratorAnnotations(
+      final JavaType entity, final String sequenceName, IdentifierStrategy identifierStrategy,
+      final IdentifierOptimizer identifierOptimizer, final Integer allocationSize,
+      final InheritanceType inheritanceType) {
+
+    Validate.isTrue(allocationSize == null || allocationSize > 0,
+        "Allocation size must be greater than zero");
+
+    // ROO-3719: Add SEQUENCE as @GeneratedValue strategy
+    if (identifierStrategy == null) {
+      identifierStrategy = IdentifierStrategy.AUTO;
+    }
+
+    // ROO-746: Use @GeneratedValue(strategy = GenerationType.TABLE)
+    // If the root of the governor declares @Inheritance(strategy =
+    // InheritanceType.TABLE_PER_CLASS)
+    if (IdentifierStrategy.AUTO == identifierStrategy && inheritanceType != null
+        && "TABLE_PER_CLASS".equals(inheritanceType.name())) {
+      identifierStrategy = IdentifierStrategy.TABLE;
+    }
+
+    final boolean optimized =
+        identifierOptimizer != null && identifierOptimizer != IdentifierOptimizer.NONE;
+    if (optimized) {
+      Validate.isTrue(identifierStrategy != IdentifierStrategy.IDENTITY,
+          "Identity columns generate one identifier per insert and cannot use the '%s' optimizer",
+          identifierOptimizer.name());
+      if (identifierStrategy == IdentifierStrategy.AUTO) {
+        identifierStrategy = IdentifierStrategy.SEQUENCE;
+      }
+    }
+
+    final List<AnnotationMetadataBuilder> annotations = new ArrayList<AnnotationMetadataBuilder>();
+    final AnnotationMetadataBuilder generatedValueBuilder =
+        new AnnotationMetadataBuilder(GENERATED_VALUE);
+    generatedValueBuilder.addEnumAttribute("strategy", new EnumDetails(GENERATION_TYPE,
+        new JavaSymbolName(identifierStrategy.name())));
+
+    final String generatorKey = StringUtils.uncapitalize(entity.getSimpleTypeName()) + "Gen";
+    if (optimized) {
+      generatedValueBuilder.addStringAttribute("generator", generatorKey);
+      final boolean table = identifierStrategy == IdentifierStrategy.TABLE;
+      final AnnotationMetadataBuilder genericGeneratorBuilder =
+          new AnnotationMetadataBuilder(GENERIC_GENERATOR);
+      genericGeneratorBuilder.addStringAttribute("name", generatorKey);
+      genericGeneratorBuilder.addStringAttribute("strategy", (table ? TABLE_GENERATOR
+          : SEQUENCE_STYLE_GENERATOR).getFullyQualifiedTypeName());
+      final List<NestedAnnotationAttributeValue> parameters =
+          new ArrayList<NestedAnnotationAttributeValue>();
+      if (StringUtils.isNotBlank(sequenceName)) {
+        parameters.add(getGeneratorParameter(table ? "segment_value" : "sequence_name",
+            sequenceName));
+      }
+      parameters.add(getGeneratorParameter("increment_size",
+          String.valueOf(allocationSize == null ? DEFAULT_ALLOCATION_SIZE : allocationSize)));
+      parameters.add(getGeneratorParameter("optimizer", identifierOptimizer.getHibernateName()));
+      genericGeneratorBuilder.addAttribute(new ArrayAttributeValue<NestedAnnotationAttributeValue>(
+          new JavaSymbolName("parameters"), parameters));
+      annotations.add(genericGeneratorBuilder);
+    } else if (StringUtils.isNotBlank(sequenceName)) {
+      generatedValueBuilder.addStringAttribute("generator", generatorKey);
+      final AnnotationMetadataBuilder sequenceGeneratorBuilder =
+          new AnnotationMetadataBuilder(SEQUENCE_GENERATOR);
+      sequenceGeneratorBuilder.addStringAttribute("name", generatorKey);
+      sequenceGeneratorBuilder.addStringAttribute("sequenceName", sequenceName);
+      if (allocationSize != null) {
+        sequenceGeneratorBuilder.addIntegerAttribute("allocationSize", allocationSize);
+      }
+      annotations.add(sequenceGeneratorBuilder);
+    }
+    annotations.add(generatedValueBuilder);
+    return annotations;
+  }
+
+  private static NestedAnnotationAttributeValue getGeneratorParameter(final String name,
+      final String value) {
+    final AnnotationMetadataBuilder parameterBuilder = new AnnotationMetadataBuilder(PARAMETER);
+    parameterBuilder.addStringAttribute("name", name);
+    parameterBuilder.addStringAttribute("value", value);
+    return new NestedAnnotationAttributeValue(new JavaSymbolName("value"),
+        parameterBuilder.build());
+  }
+
   /**
    * This method generates the version field using the provided values
    * 
@@ -0,0 +1,57 @@
+package org.springframework.roo.addon.jpa.addon.entity;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+/**
+ * This enum type represents the Hibernate optimizers of the enhanced
+ * sequence and table identifier generators on Spring Roo Shell.
+ * <p>
+ * Optimizers other than {@link #NONE} reserve a block of
+ * <code>allocationSize</code> identifiers with each call to the sequence or
+ * table, so that inserting many entities does not cost a round-trip per row
+ * and JDBC inserts can be batched.
+ * 
+ * @since 2.0
+ */
+public enum IdentifierOptimizer {
+
+  /**
+   * The JPA default: a plain <code>@SequenceGenerator</code>
+   */
+  NONE(null),
+
+  /**
+   * The sequence or table holds the highest value of the reserved block
+   */
+  POOLED("pooled"),
+
+  /**
+   * The sequence or table holds the lowest value of the reserved block, which
+   * plays well with other applications inserting rows by calling the
+   * sequence directly
+   */
+  POOLED_LO("pooled-lo");
+
+  private final String hibernateName;
+
+  private IdentifierOptimizer(final String hibernateName) {
+    this.hibernateName = hibernateName;
+  }
+
+  /**
+   * Returns the value of the <code>optimizer</code> parameter of the
+   * Hibernate generators for this optimizer.
+   * 
+   * @return <code>null</code> for {@link #NONE}
+   */
+  public String getHibernateName() {
+    return hibernateName;
+  }
+
+  @Override
+  public String toString() {
+    final ToStringBuilder builder = new ToStringBuilder(this);
+    builder.append("name", name());
+    return builder.toString();
+  }
+}
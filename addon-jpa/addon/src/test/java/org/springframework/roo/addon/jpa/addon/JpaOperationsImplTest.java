@@ -7,6 +7,9 @@ import static org.mockito.Mockito.when;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
 
 import org.apache.commons.io.IOUtils;
@@ -16,7 +19,16 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.powermock.api.support.membermodification.MemberModifier;
+import org.springframework.roo.addon.jpa.addon.entity.IdentifierOptimizer;
+import org.springframework.roo.addon.jpa.addon.entity.IdentifierStrategy;
 import org.springframework.roo.addon.propfiles.PropFileOperations;
+import org.springframework.roo.classpath.details.annotations.AnnotationMetadata;
+import org.springframework.roo.classpath.details.annotations.AnnotationMetadataBuilder;
+import org.springframework.roo.classpath.details.annotations.NestedAnnotationAttributeValue;
+import org.springframework.roo.model.EnumDetails;
+import org.springframework.roo.model.HibernateJavaType;
+import org.springframework.roo.model.JavaType;
+import org.springframework.roo.model.JpaJavaType;
 import org.springframework.roo.process.manager.FileManager;
 import org.springframework.roo.project.Path;
 import org.springframework.roo.project.PathResolver;
@@ -39,6 +51,7 @@ public class JpaOperationsImplTest {
   private static final String DB_NAME = "myDbName";
   private static final String DB_PASSWORD = "myDbPassword";
   private static final String DB_USER_NAME = "myDbUserName";
+  private static final JavaType ENTITY = new JavaType("com.example.domain.Owner");
   private static final String EXPECTED_APPLICATION_CONTEXT =
       "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n"
           + "<beans>\n"
@@ -222,6 +235,93 @@ public class JpaOperationsImplTest {
             PERSISTENCE_PATH);*/
   }
 
+  @Test
+  public void testPooledLoOptimizerUsesEnhancedSequenceGenerator() {
+    // Invoke
+    final List<AnnotationMetadataBuilder> annotations =
+        JpaOperationsImpl.getIdentifierGeneratorAnnotations(ENTITY, "OWNER_SEQ",
+            IdentifierStrategy.AUTO, IdentifierOptimizer.POOLED_LO, 100, null);
+
+    // Check
+    assertEquals(2, annotations.size());
+    final AnnotationMetadata genericGenerator = annotations.get(0).build();
+    assertEquals(HibernateJavaType.GENERIC_GENERATOR, genericGenerator.getAnnotationType());
+    assertEquals("ownerGen", genericGenerator.getAttribute("name").getValue());
+    assertEquals("org.hibernate.id.enhanced.SequenceStyleGenerator",
+        genericGenerator.getAttribute("strategy").getValue());
+    assertEquals(Arrays.asList("sequence_name=OWNER_SEQ", "increment_size=100",
+        "optimizer=pooled-lo"), getParameters(genericGenerator));
+
+    final AnnotationMetadata generatedValue = annotations.get(1).build();
+    assertEquals(JpaJavaType.GENERATED_VALUE, generatedValue.getAnnotationType());
+    assertEquals("SEQUENCE", ((EnumDetails) generatedValue.getAttribute("strategy").getValue())
+        .getField().getSymbolName());
+    assertEquals("ownerGen", generatedValue.getAttribute("generator").getValue());
+  }
+
+  @Test
+  public void testPooledOptimizerWithTableStrategyUsesDefaultAllocationSize() {
+    // Invoke
+    final List<AnnotationMetadataBuilder> annotations =
+        JpaOperationsImpl.getIdentifierGeneratorAnnotations(ENTITY, null,
+            IdentifierStrategy.TABLE, IdentifierOptimizer.POOLED, null, null);
+
+    // Check
+    final AnnotationMetadata genericGenerator = annotations.get(0).build();
+    assertEquals("org.hibernate.id.enhanced.TableGenerator",
+        genericGenerator.getAttribute("strategy").getValue());
+    assertEquals(Arrays.asList("increment_size=" + JpaOperationsImpl.DEFAULT_ALLOCATION_SIZE,
+        "optimizer=pooled"), getParameters(genericGenerator));
+  }
+
+  @Test
+  public void testSequenceGeneratorGetsAllocationSizeWithoutOptimizer() {
+    // Invoke
+    final List<AnnotationMetadataBuilder> annotations =
+        JpaOperationsImpl.getIdentifierGeneratorAnnotations(ENTITY, "OWNER_SEQ",
+            IdentifierStrategy.SEQUENCE, IdentifierOptimizer.NONE, 20, null);
+
+    // Check
+    final AnnotationMetadata sequenceGenerator = annotations.get(0).build();
+    assertEquals(JpaJavaType.SEQUENCE_GENERATOR, sequenceGenerator.getAnnotationType());
+    assertEquals("OWNER_SEQ", sequenceGenerator.getAttribute("sequenceName").getValue());
+    assertEquals(20, sequenceGenerator.getAttribute("allocationSize").getValue());
+  }
+
+  @Test
+  public void testNoGeneratorWithoutSequenceNameOrOptimizer() {
+    // Invoke
+    final List<AnnotationMetadataBuilder> annotations =
+        JpaOperationsImpl.getIdentifierGeneratorAnnotations(ENTITY, null, null, null, null, null);
+
+    // Check
+    assertEquals(1, annotations.size());
+    assertEquals("AUTO", ((EnumDetails) annotations.get(0).build().getAttribute("strategy")
+        .getValue()).getField().getSymbolName());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIdentityStrategyCannotBeOptimized() {
+    JpaOperationsImpl.getIdentifierGeneratorAnnotations(ENTITY, null,
+        IdentifierStrategy.IDENTITY, IdentifierOptimizer.POOLED, null, null);
+  }
+
+  /**
+   * Returns the parameters of the given @GenericGenerator as "name=value"
+   */
+  private List<String> getParameters(final AnnotationMetadata genericGenerator) {
+    final List<String> parameters = new ArrayList<String>();
+    @SuppressWarnings("unchecked")
+    final List<NestedAnnotationAttributeValue> values =
+        (List<NestedAnnotationAttributeValue>) genericGenerator.getAttribute("parameters")
+            .getValue();
+    for (final NestedAnnotationAttributeValue value : values) {
+      parameters.add(value.getValue().getAttribute("name").getValue() + "="
+          + value.getValue().getAttribute("value").getValue());
+    }
+    return parameters;
+  }
+
   /**
    * Verifies that the mock {@link FileManager} was asked to write the given
    * contents to the given file
@@ -0,0 +1,167 @@
+package org.springframework.roo.addon.layers.repository.jpa.addon;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+import org.springframework.roo.classpath.details.FieldMetadata;
+import org.springframework.roo.classpath.details.FieldMetadataBuilder;
+import org.springframework.roo.classpath.itd.InvocableMemberBodyBuilder;
+import org.springframework.roo.model.ImportRegistrationResolver;
+import org.springframework.roo.model.JavaSymbolName;
+import org.springframework.roo.model.JavaType;
+import org.springframework.roo.model.JdkJavaType;
+import org.springframework.roo.model.MicrometerJavaType;
+import org.springframework.roo.project.Dependency;
+import org.springframework.roo.project.Property;
+
+/**
+ * Wraps generated method bodies so that they record their duration in a
+ * Micrometer {@link MicrometerJavaType#TIMER} and their failures in a
+ * {@link MicrometerJavaType#COUNTER}.
+ * <p>
+ * Every instrumented method name gets a pair of <code>static final</code>
+ * meters, tagged with the entity and the method name and registered in
+ * Micrometer's global registry, so that the generated code needs no extra
+ * collaborator: applications (or tests, through a
+ * <code>SimpleMeterRegistry</code>) add their own registries to it.
+ * Overloaded methods share their meters.
+ * <p>
+ * Metadata only creates instances of this class when instrumentation was
+ * requested, so that uninstrumented methods are generated as before.
+ *
+ * @since 2.0
+ */
+public class MicrometerInstrumentation {
+
+  /**
+   * The dependency that instrumented code needs, with its version in
+   * {@link #VERSION_PROPERTY}
+   */
+  public static final Dependency DEPENDENCY = new Dependency("io.micrometer", "micrometer-core",
+      "${micrometer.version}");
+  public static final Property VERSION_PROPERTY = new Property("micrometer.version", "1.0.11");
+
+  static final String ENTITY_TAG = "entity";
+  static final String ERRORS_SUFFIX = ".errors";
+  static final String METHOD_TAG = "method";
+
+  private static final String EXCEPTION_VARIABLE = "instrumentationException";
+  private static final String START_VARIABLE = "instrumentationStart";
+
+  /**
+   * Returns the constant name for the given method name and suffix, e.g.
+   * <code>FIND_BY_NAME_TIMER</code> for <code>findByName</code>
+   */
+  static String getConstantName(final JavaSymbolName methodName, final String suffix) {
+    final String[] words = StringUtils.splitByCharacterTypeCamelCase(methodName.getSymbolName());
+    return StringUtils.join(words, "_").toUpperCase(Locale.ENGLISH) + "_" + suffix;
+  }
+
+  private final String declaredByMetadataId;
+  private final JavaType entity;
+  private final ImportRegistrationResolver importResolver;
+  private final Set<JavaSymbolName> methodNames = new LinkedHashSet<JavaSymbolName>();
+  private final String metricName;
+
+  /**
+   * Constructor
+   *
+   * @param declaredByMetadataId the metadata declaring the meters (required)
+   * @param metricName the name of the timers, e.g.
+   *            <code>roo.repository</code>; the error counters add
+   *            <code>.errors</code> to it (required)
+   * @param entity the entity the instrumented methods deal with (required)
+   * @param importResolver the resolver of the ITD declaring the methods
+   *            (required)
+   */
+  public MicrometerInstrumentation(final String declaredByMetadataId, final String metricName,
+      final JavaType entity, final ImportRegistrationResolver importResolver) {
+    Validate.notBlank(declaredByMetadataId, "Metadata identifier required");
+    Validate.notBlank(metricName, "Metric name required");
+    Validate.notNull(entity, "Entity required");
+    Validate.notNull(importResolver, "Import resolver required");
+    this.declaredByMetadataId = declaredByMetadataId;
+    this.metricName = metricName;
+    this.entity = entity;
+    this.importResolver = importResolver;
+  }
+
+  /**
+   * Returns the meters of the methods instrumented so far, to be declared by
+   * the ITD.
+   *
+   * @return a non-<code>null</code> list, with a timer and a counter per
+   *         method name
+   */
+  public List<FieldMetadata> getFields() {
+    final List<FieldMetadata> fields = new ArrayList<FieldMetadata>();
+    for (final JavaSymbolName methodName : methodNames) {
+      fields.add(getMeter(methodName, MicrometerJavaType.TIMER, "TIMER", metricName));
+      fields.add(getMeter(methodName, MicrometerJavaType.COUNTER, "ERRORS", metricName
+          + ERRORS_SUFFIX));
+    }
+    return fields;
+  }
+
+  private FieldMetadata getMeter(final JavaSymbolName methodName, final JavaType meterType,
+      final String suffix, final String name) {
+    final String initializer =
+        String.format(
+            "%s.builder(\"%s\").tag(\"%s\", \"%s\").tag(\"%s\", \"%s\").register(%s.globalRegistry)",
+            getName(meterType), name, ENTITY_TAG, entity.getSimpleTypeName(), METHOD_TAG,
+            methodName.getSymbolName(), getName(MicrometerJavaType.METRICS));
+    return new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.STATIC
+        | Modifier.FINAL, new JavaSymbolName(getConstantName(methodName, suffix)), meterType,
+        initializer).build();
+  }
+
+  private String getName(final JavaType type) {
+    return type.getNameIncludingTypeParameters(false, importResolver);
+  }
+
+  /**
+   * Returns a body that runs the given one while recording its duration and
+   * failures in the meters of the given method.
+   *
+   * @param methodName the name of the generated method (required)
+   * @param body the complete body of that method (required)
+   * @return a new builder
+   */
+  public InvocableMemberBodyBuilder instrument(final JavaSymbolName methodName,
+      final InvocableMemberBodyBuilder body) {
+    Validate.notNull(methodName, "Method name required");
+    Validate.notNull(body, "Body required");
+    methodNames.add(methodName);
+
+    final InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+    // long instrumentationStart = System.nanoTime();
+    bodyBuilder.appendFormalLine("long %s = System.nanoTime();", START_VARIABLE);
+    bodyBuilder.appendFormalLine("try {");
+    // The original body is indented one more level, keeping its blank lines
+    final String output = StringUtils.removeEnd(body.getOutput(), "\n");
+    for (final String line : StringUtils.splitPreserveAllTokens(output, '\n')) {
+      if (line.length() > 0) {
+        bodyBuilder.append("    ").append(line);
+      }
+      bodyBuilder.newLine(false);
+    }
+    bodyBuilder.appendFormalLine("} catch (RuntimeException %s) {", EXCEPTION_VARIABLE);
+    bodyBuilder.indent();
+    bodyBuilder.appendFormalLine("%s.increment();", getConstantName(methodName, "ERRORS"));
+    bodyBuilder.appendFormalLine("throw %s;", EXCEPTION_VARIABLE);
+    bodyBuilder.indentRemove();
+    bodyBuilder.appendFormalLine("} finally {");
+    bodyBuilder.indent();
+    bodyBuilder.appendFormalLine("%s.record(System.nanoTime() - %s, %s.NANOSECONDS);",
+        getConstantName(methodName, "TIMER"), START_VARIABLE, getName(JdkJavaType.TIME_UNIT));
+    bodyBuilder.indentRemove();
+    bodyBuilder.appendFormalLine("}");
+    return bodyBuilder;
+  }
+}
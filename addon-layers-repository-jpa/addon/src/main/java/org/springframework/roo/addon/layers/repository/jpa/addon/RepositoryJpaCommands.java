@@ -352,7 +352,16 @@ public class RepositoryJpaCommands implements CommandMarker {
               + "the Roo Shell focused module will be used. "
               + "This option is not available if `--all` option has not been specified."
               + "Default value if not present: `~.repository` package, or 'repository:~.' if multi-module "
-              + "project.") JavaPackage repositoriesPackage) {
+              + "project.") JavaPackage repositoriesPackage,
+      @CliOption(
+          key = "instrumentation",
+          mandatory = false,
+          unspecifiedDefaultValue = "false",
+          specifiedDefaultValue = "true",
+          help = "Whether the generated finders and counts should record a Micrometer timer and "
+              + "error counter, tagged with the entity and finder names, in the global meter "
+              + "registry. Adds the `micrometer-core` dependency to the project. "
+              + "Default if option present: `true`; default if option not present: `false`.") boolean instrumentation) {
 
     if (all) {
 
@@ -383,9 +392,10 @@ public class RepositoryJpaCommands implements CommandMarker {
                   projectOperations.getFocusedModuleName());
         }
       }
-      repositoryJpaOperations.generateAllRepositories(repositoriesPackage);
+      repositoryJpaOperations.generateAllRepositories(repositoriesPackage, instrumentation);
     } else {
-      repositoryJpaOperations.addRepository(interfaceType, domainType, defaultReturnType, true);
+      repositoryJpaOperations.addRepository(interfaceType, domainType, defaultReturnType, true,
+          instrumentation);
     }
   }
 
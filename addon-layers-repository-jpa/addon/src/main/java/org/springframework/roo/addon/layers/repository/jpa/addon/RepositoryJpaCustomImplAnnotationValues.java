@@ -19,6 +19,9 @@ public class RepositoryJpaCustomImplAnnotationValues extends AbstractAnnotationV
   @AutoPopulate
   private JavaType repository;
 
+  @AutoPopulate
+  private boolean instrumentation = false;
+
   /**
    * Constructor
    * 
@@ -38,4 +41,13 @@ public class RepositoryJpaCustomImplAnnotationValues extends AbstractAnnotationV
   public JavaType getRepository() {
     return repository;
   }
+
+  /**
+   * Indicates whether the generated methods are instrumented with Micrometer
+   * 
+   * @return see above
+   */
+  public boolean isInstrumentation() {
+    return instrumentation;
+  }
 }
@@ -2,6 +2,7 @@ package org.springframework.roo.addon.layers.repository.jpa.addon;
 
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -73,6 +74,7 @@ public class RepositoryJpaCustomImplMetadata extends AbstractItdTypeDetailsProvi
   final private Map<JavaType, Boolean> typesAreProjections;
   final private JavaType entityQtype;
   final private JpaEntityMetadata entityMetadata;
+  final private MicrometerInstrumentation instrumentation;
 
   private Map<String, FieldMetadata> constantsForFields;
 
@@ -106,6 +108,62 @@ public class RepositoryJpaCustomImplMetadata extends AbstractItdTypeDetailsProvi
         metadataIdentificationString);
   }
 
+  /**
+   * Returns the QueryDSL constructor expression selecting only the given
+   * projection fields, e.g.
+   * <code>Projections.constructor(CustomerInfo.class, customer.id, customer.name)</code>,
+   * so that the projection is built from the queried columns without loading
+   * any entity into the persistence context.
+   *
+   * @param projections the name of the QueryDSL <code>Projections</code> type
+   * @param projection the name of the projection type
+   * @param projectionFields the property names (keys) and path names (values)
+   *            of the projection fields, in constructor order
+   * @return the expression
+   */
+  static String getConstructorExpression(String projections, String projection,
+      List<Pair<String, String>> projectionFields) {
+    List<String> paths = new ArrayList<String>(projectionFields.size());
+    for (Pair<String, String> item : projectionFields) {
+      paths.add(item.getRight());
+    }
+    return String.format("%s.constructor(%s.class, %s)", projections, projection,
+        StringUtils.join(paths, ", "));
+  }
+
+  /**
+   * Returns the fetch joins to add to the query of an entity, which eagerly
+   * load its one-to-one compositions.
+   *
+   * Projection queries don't get any: they only select the projected columns,
+   * so fetching the compositions would load them into the persistence context
+   * for nothing (and Hibernate rejects fetch joins whose owner isn't selected).
+   *
+   * @param entityVariable the name of the variable of the Q entity
+   * @param relationInfos the relations of the entity
+   * @param projection whether the query returns a projection
+   * @return the joins to append to <code>from(entity)</code>, or an empty
+   *         String
+   */
+  static String getFetchJoins(String entityVariable, Collection<RelationInfo> relationInfos,
+      boolean projection) {
+    StringBuilder fetchJoins = new StringBuilder();
+    if (projection) {
+      return fetchJoins.toString();
+    }
+    for (RelationInfo relationInfo : relationInfos) {
+      if (relationInfo.type == JpaRelationType.COMPOSITION
+          && relationInfo.cardinality == Cardinality.ONE_TO_ONE) {
+        fetchJoins.append(".leftJoin(");
+        fetchJoins.append(entityVariable);
+        fetchJoins.append(".");
+        fetchJoins.append(relationInfo.fieldName);
+        fetchJoins.append(").fetchJoin()");
+      }
+    }
+    return fetchJoins.toString();
+  }
+
   /**
    * Constructor
    *
@@ -153,6 +211,9 @@ public class RepositoryJpaCustomImplMetadata extends AbstractItdTypeDetailsProvi
 
     this.importResolver = builder.getImportRegistrationResolver();
     this.entity = domainType;
+    this.instrumentation =
+        annotationValues.isInstrumentation() ? new MicrometerInstrumentation(identifier,
+            "roo.repository", domainType, importResolver) : null;
     this.entityMetadata = entityMetadata;
     this.typesFieldMaps = typesFieldMaps;
     this.typesFieldsMetadata = typesFieldsMetadata;
@@ -209,6 +270,13 @@ public class RepositoryJpaCustomImplMetadata extends AbstractItdTypeDetailsProvi
       ensureGovernorHasMethod(new MethodMetadataBuilder(getCustomCountImpl(methodInfo)));
     }
 
+    // Add the meters of the instrumented methods
+    if (instrumentation != null) {
+      for (FieldMetadata meter : instrumentation.getFields()) {
+        ensureGovernorHasField(new FieldMetadataBuilder(meter));
+      }
+    }
+
     // Build the ITD
     itdTypeDetails = builder.build();
   }
@@ -315,12 +383,27 @@ public class RepositoryJpaCustomImplMetadata extends AbstractItdTypeDetailsProvi
     buildQueryResult(bodyBuilder, pageable, entityVariable, projection, this.defaultReturnType);
 
     // Sets body to generated method
-    methodBuilder.setBodyBuilder(bodyBuilder);
+    methodBuilder.setBodyBuilder(instrument(methodName, bodyBuilder));
 
     return methodBuilder.build(); // Build and return a MethodMetadata
     // instance
   }
 
+  /**
+   * Wraps the given body to record Micrometer metrics, if the instrumentation
+   * was requested
+   *
+   * @param methodName the name of the generated method
+   * @param bodyBuilder the body of the generated method
+   * @return the body to use
+   */
+  private InvocableMemberBodyBuilder instrument(JavaSymbolName methodName,
+      InvocableMemberBodyBuilder bodyBuilder) {
+    if (instrumentation == null) {
+      return bodyBuilder;
+    }
+    return instrumentation.instrument(methodName, bodyBuilder);
+  }
 
   /**
    * This method returns the associated constant to the provided
@@ -390,20 +473,11 @@ public class RepositoryJpaCustomImplMetadata extends AbstractItdTypeDetailsProvi
       List<Pair<String, String>> projectionFields = this.typesFieldMaps.get(returnType);
 
       // return loadPage(query, pageable, Projection.constructor(MyProjection.class,
-      //                    myEntity.field1, myEntity.field2);
-      bodyBuilder.appendFormalLine(String.format(
-          "return loadPage(query, %s, %s.constructor(%s.class, %s ));", pageable,
-          getNameOfJavaType(projection), getNameOfJavaType(returnType),
-          StringUtils.join(getListRightValueOfPair(projectionFields), ", ")));
-    }
-  }
-
-  private List<String> getListRightValueOfPair(List<Pair<String, String>> projectionFields) {
-    List<String> result = new ArrayList<String>(projectionFields.size());
-    for (Pair<String, String> item : projectionFields) {
-      result.add(item.getRight());
+      //                    myEntity.field1, myEntity.field2));
+      bodyBuilder.appendFormalLine(String.format("return loadPage(query, %s, %s);", pageable,
+          getConstructorExpression(getNameOfJavaType(projection), getNameOfJavaType(returnType),
+              projectionFields)));
     }
-    return result;
   }
 
   private List<String> getListLeftValueOfPair(List<Pair<String, String>> projectionFields) {
@@ -518,7 +592,7 @@ public class RepositoryJpaCustomImplMetadata extends AbstractItdTypeDetailsProvi
     buildQueryResult(bodyBuilder, pageable, entityVariable, projection, this.defaultReturnType);
 
     // Sets body to generated method
-    methodBuilder.setBodyBuilder(bodyBuilder);
+    methodBuilder.setBodyBuilder(instrument(methodName, bodyBuilder));
 
     return methodBuilder.build(); // Build and return a MethodMetadata
     // instance
@@ -623,7 +697,7 @@ public class RepositoryJpaCustomImplMetadata extends AbstractItdTypeDetailsProvi
     // Use provided finder method to generate its implementation
     MethodMetadataBuilder methodBuilder =
         new MethodMetadataBuilder(getId(), Modifier.PUBLIC, methodName, methodInfo.getLeft()
-            .getReturnType(), parameterTypes, parameterNames, bodyBuilder);
+            .getReturnType(), parameterTypes, parameterNames, instrument(methodName, bodyBuilder));
 
     return methodBuilder.build();
   }
@@ -722,7 +796,7 @@ public class RepositoryJpaCustomImplMetadata extends AbstractItdTypeDetailsProvi
     // Use provided finder method to generate its implementation
     MethodMetadataBuilder methodBuilder =
         new MethodMetadataBuilder(getId(), Modifier.PUBLIC, methodName, method.getReturnType(),
-            parameterTypes, parameterNames, bodyBuilder);
+            parameterTypes, parameterNames, instrument(methodName, bodyBuilder));
 
     return methodBuilder.build();
   }
@@ -762,17 +836,9 @@ public class RepositoryJpaCustomImplMetadata extends AbstractItdTypeDetailsProvi
       JavaSymbolName finderName, PartTree partTree) {
 
     // Prepare leftJoin for compositions oneToOne
-    StringBuilder fetchJoins = new StringBuilder();
-    for (RelationInfo relationInfo : entityMetadata.getRelationInfos().values()) {
-      if (relationInfo.type == JpaRelationType.COMPOSITION
-          && relationInfo.cardinality == Cardinality.ONE_TO_ONE) {
-        fetchJoins.append(".leftJoin(");
-        fetchJoins.append(entityVariable);
-        fetchJoins.append(".");
-        fetchJoins.append(relationInfo.fieldName);
-        fetchJoins.append(").fetchJoin()");
-      }
-    }
+    String fetchJoins =
+        getFetchJoins(entityVariable, entityMetadata.getRelationInfos().values(),
+            this.typesAreProjections.get(returnType));
 
     //JPQLQuery query = from(qEntity);
     bodyBuilder.appendFormalLine(String.format("%s query = from(%s)%s;",
@@ -19,12 +19,17 @@ import org.springframework.roo.classpath.details.FieldMetadata;
 import org.springframework.roo.classpath.details.MethodMetadata;
 import org.springframework.roo.classpath.details.MethodMetadataBuilder;
 import org.springframework.roo.classpath.details.annotations.AnnotatedJavaType;
+import org.springframework.roo.classpath.details.annotations.AnnotationAttributeValue;
 import org.springframework.roo.classpath.details.annotations.AnnotationMetadataBuilder;
+import org.springframework.roo.classpath.details.annotations.ArrayAttributeValue;
+import org.springframework.roo.classpath.details.annotations.NestedAnnotationAttributeValue;
 import org.springframework.roo.classpath.itd.AbstractItdTypeDetailsProvidingMetadataItem;
 import org.springframework.roo.classpath.operations.Cardinality;
 import org.springframework.roo.metadata.MetadataIdentificationUtils;
 import org.springframework.roo.model.JavaSymbolName;
 import org.springframework.roo.model.JavaType;
+import org.springframework.roo.model.JdkJavaType;
+import org.springframework.roo.model.JpaJavaType;
 import org.springframework.roo.model.SpringJavaType;
 import org.springframework.roo.project.LogicalPath;
 
@@ -47,6 +52,14 @@ public class RepositoryJpaMetadata extends AbstractItdTypeDetailsProvidingMetada
   private static final JavaSymbolName SAVE_METHOD_NAME = new JavaSymbolName("save");
   private static final JavaSymbolName FIND_ONE_METHOD_NAME = new JavaSymbolName("findOne");
   private static final JavaSymbolName FIND_ALL_ITERATOR_METHOD_NAME = new JavaSymbolName("findAll");
+  private static final JavaSymbolName STREAM_ALL_METHOD_NAME = new JavaSymbolName("streamAll");
+  private static final JavaSymbolName SUM_VERSIONS_METHOD_NAME = new JavaSymbolName("sumVersions");
+
+  /**
+   * Number of rows the JDBC driver fetches per round trip while streaming
+   */
+  public static final int STREAM_FETCH_SIZE = 500;
+
   private static final String PROVIDES_TYPE_STRING = RepositoryJpaMetadata.class.getName();
   private static final String PROVIDES_TYPE = MetadataIdentificationUtils
       .create(PROVIDES_TYPE_STRING);
@@ -55,6 +68,8 @@ public class RepositoryJpaMetadata extends AbstractItdTypeDetailsProvidingMetada
   private final FieldMetadata compositionField;
   private final RelationInfo compositionInfo;
   private final MethodMetadata compositionCountMethod;
+  private final MethodMetadata streamAllMethod;
+  private final MethodMetadata sumVersionsMethod;
   private final JavaType customRepository;
   private final JavaType entity;
   private final JavaType defaultReturnType;
@@ -186,6 +201,25 @@ public class RepositoryJpaMetadata extends AbstractItdTypeDetailsProvidingMetada
     ensureGovernorExtends(JavaType.wrapperOf(interfaceType, annotationValues.getEntity(),
         identifierType));
 
+    // Entities which aren't composition children can be streamed
+    if (composition) {
+      this.streamAllMethod = null;
+    } else {
+      this.streamAllMethod = getStreamAllMethod(entity);
+      ensureGovernorHasMethod(new MethodMetadataBuilder(streamAllMethod));
+    }
+
+    // Every write increments a version, so along with the count, the sum of
+    // the versions changes whenever the entities do
+    final FieldMetadata versionField = entityMetadata.getCurrentVersionField();
+    if (composition || versionField == null
+        || !JdkJavaType.isIntegerType(versionField.getFieldType())) {
+      this.sumVersionsMethod = null;
+    } else {
+      this.sumVersionsMethod = getSumVersionsMethod(versionField);
+      ensureGovernorHasMethod(new MethodMetadataBuilder(sumVersionsMethod));
+    }
+
     // If has some RepositoryCustom associated, add extends
     ensureGovernorExtends(customRepository);
 
@@ -304,6 +338,92 @@ public class RepositoryJpaMetadata extends AbstractItdTypeDetailsProvidingMetada
         null).build();
   }
 
+  /**
+   * Method that generates the "streamAll" method, which reads all the
+   * entities through a read-only cursor instead of loading them in a list.
+   *
+   * @param entity
+   * @return public Stream<Entity> streamAll(); structure
+   */
+  private MethodMetadata getStreamAllMethod(JavaType entity) {
+    List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+    List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+
+    MethodMetadata existingMethod =
+        getGovernorMethod(STREAM_ALL_METHOD_NAME,
+            AnnotatedJavaType.convertFromAnnotatedJavaTypes(parameterTypes));
+    if (existingMethod != null) {
+      return existingMethod;
+    }
+
+    // @Query("select e from #{#entityName} e")
+    AnnotationMetadataBuilder queryAnnotation =
+        new AnnotationMetadataBuilder(SpringJavaType.SPRING_JPA_QUERY);
+    queryAnnotation.addStringAttribute("value", "select e from #{#entityName} e");
+
+    // @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+    //   @QueryHint(name = "org.hibernate.readOnly", value = "true")})
+    List<AnnotationAttributeValue<?>> hints = new ArrayList<AnnotationAttributeValue<?>>();
+    hints.add(getQueryHint("org.hibernate.fetchSize", String.valueOf(STREAM_FETCH_SIZE)));
+    hints.add(getQueryHint("org.hibernate.readOnly", "true"));
+    List<AnnotationAttributeValue<?>> queryHintsAttributes =
+        new ArrayList<AnnotationAttributeValue<?>>();
+    queryHintsAttributes.add(new ArrayAttributeValue<AnnotationAttributeValue<?>>(
+        new JavaSymbolName("value"), hints));
+
+    // Use the MethodMetadataBuilder for easy creation of MethodMetadata
+    MethodMetadataBuilder methodBuilder =
+        new MethodMetadataBuilder(getId(), Modifier.PUBLIC + Modifier.ABSTRACT,
+            STREAM_ALL_METHOD_NAME, JavaType.wrapperOf(JdkJavaType.STREAM, entity),
+            parameterTypes, parameterNames, null);
+    methodBuilder.addAnnotation(queryAnnotation);
+    methodBuilder.addAnnotation(new AnnotationMetadataBuilder(
+        SpringJavaType.SPRING_JPA_QUERY_HINTS, queryHintsAttributes));
+    return methodBuilder.build();
+  }
+
+  /**
+   * Method that generates the "sumVersions" method, which returns the sum of
+   * the version field of all the entities, or null if there are no entities.
+   *
+   * @param versionField
+   * @return public Long sumVersions(); structure
+   */
+  private MethodMetadata getSumVersionsMethod(FieldMetadata versionField) {
+    List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+    List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+
+    MethodMetadata existingMethod =
+        getGovernorMethod(SUM_VERSIONS_METHOD_NAME,
+            AnnotatedJavaType.convertFromAnnotatedJavaTypes(parameterTypes));
+    if (existingMethod != null) {
+      return existingMethod;
+    }
+
+    // @Query("select sum(e.version) from #{#entityName} e")
+    AnnotationMetadataBuilder queryAnnotation =
+        new AnnotationMetadataBuilder(SpringJavaType.SPRING_JPA_QUERY);
+    queryAnnotation.addStringAttribute("value", String.format(
+        "select sum(e.%s) from #{#entityName} e", versionField.getFieldName()));
+
+    // JPQL sums integral values as a Long, which is null without entities
+    JavaType returnType = JavaType.LONG_OBJECT;
+
+    // Use the MethodMetadataBuilder for easy creation of MethodMetadata
+    MethodMetadataBuilder methodBuilder =
+        new MethodMetadataBuilder(getId(), Modifier.PUBLIC + Modifier.ABSTRACT,
+            SUM_VERSIONS_METHOD_NAME, returnType, parameterTypes, parameterNames, null);
+    methodBuilder.addAnnotation(queryAnnotation);
+    return methodBuilder.build();
+  }
+
+  private NestedAnnotationAttributeValue getQueryHint(String name, String value) {
+    AnnotationMetadataBuilder queryHint = new AnnotationMetadataBuilder(JpaJavaType.QUERY_HINT);
+    queryHint.addStringAttribute("name", name);
+    queryHint.addStringAttribute("value", value);
+    return new NestedAnnotationAttributeValue(new JavaSymbolName("value"), queryHint.build());
+  }
+
   /**
    * Method that generates method "countByField" method.
    *
@@ -476,6 +596,22 @@ public class RepositoryJpaMetadata extends AbstractItdTypeDetailsProvidingMetada
     return findersToAddInCustom;
   }
 
+  /**
+   * @return the "streamAll" method, or null if the entity is a composition
+   *         child
+   */
+  public MethodMetadata getStreamAllMethod() {
+    return streamAllMethod;
+  }
+
+  /**
+   * @return the "sumVersions" method, or null if the entity has no numeric
+   *         version field or is a composition child
+   */
+  public MethodMetadata getSumVersionsMethod() {
+    return sumVersionsMethod;
+  }
+
   /**
    * @return all countMethods declared in repository
    */
@@ -18,6 +18,7 @@ import org.springframework.roo.addon.layers.repository.jpa.addon.finder.parser.F
 import org.springframework.roo.addon.layers.repository.jpa.addon.finder.parser.FinderMethod;
 import org.springframework.roo.addon.layers.repository.jpa.addon.finder.parser.FinderParameter;
 import org.springframework.roo.addon.layers.repository.jpa.addon.finder.parser.PartTree;
+import org.springframework.roo.addon.layers.repository.jpa.addon.finder.parser.PartTreeCache;
 import org.springframework.roo.addon.layers.repository.jpa.annotations.RooFinder;
 import org.springframework.roo.addon.layers.repository.jpa.annotations.RooJpaRepository;
 import org.springframework.roo.classpath.PhysicalTypeIdentifier;
@@ -81,6 +82,9 @@ public class RepositoryJpaMetadataProviderImpl extends AbstractMemberDiscovering
   //Map where entity details will be cached
   private Map<JavaType, MemberDetails> entitiesDetails = new HashMap<JavaType, MemberDetails>();
 
+  // Finders parsed while building previous metadata
+  private final PartTreeCache partTrees = new PartTreeCache(this);
+
 
   /**
    * This service is being activated so setup it:
@@ -348,7 +352,7 @@ public class RepositoryJpaMetadataProviderImpl extends AbstractMemberDiscovering
           }
 
           // Create FinderMethods
-          PartTree finder = new PartTree(finderName, entityMemberDetails, this, finderReturnType);
+          PartTree finder = partTrees.get(finderName, entityMemberDetails, finderReturnType);
 
           Validate
               .notNull(
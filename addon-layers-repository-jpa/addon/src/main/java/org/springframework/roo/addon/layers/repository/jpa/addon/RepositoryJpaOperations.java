@@ -26,16 +26,18 @@ public interface RepositoryJpaOperations {
    * @param domainType the JavaType representing the domain entity this repository should expose.
    * @param defaultReturnType the JavaType of the findAll search results.
    * @param failOnComposition whatever should fail if a should-not-generate-repository-entity is received as parameter
+   * @param instrumentation whether the generated finders should record Micrometer metrics
    */
   void addRepository(JavaType interfaceType, JavaType domainType, JavaType defaultReturnType,
-      boolean failOnComposition);
+      boolean failOnComposition, boolean instrumentation);
 
   /**
    * Add new repository for all existing entities.
    *
    * @param repositoriesPackage package where repositories will be generated
+   * @param instrumentation whether the generated finders should record Micrometer metrics
    */
-  void generateAllRepositories(JavaPackage repositoriesPackage);
+  void generateAllRepositories(JavaPackage repositoriesPackage, boolean instrumentation);
 
   /**
    * Informs a DomainType (entity) should or shouldn't has a repository.
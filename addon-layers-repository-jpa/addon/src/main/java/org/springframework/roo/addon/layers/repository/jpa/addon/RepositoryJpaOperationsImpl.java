@@ -9,6 +9,7 @@ import org.osgi.framework.BundleContext;
 import org.osgi.service.component.ComponentContext;
 import org.springframework.roo.addon.jpa.addon.JpaOperations;
 import org.springframework.roo.addon.jpa.addon.entity.JpaEntityMetadata.RelationInfo;
+import org.springframework.roo.addon.layers.repository.jpa.annotations.RooJpaRepositoryCustomImpl;
 import org.springframework.roo.classpath.PhysicalTypeCategory;
 import org.springframework.roo.classpath.PhysicalTypeIdentifier;
 import org.springframework.roo.classpath.TypeLocationService;
@@ -82,7 +83,7 @@ public class RepositoryJpaOperationsImpl implements RepositoryJpaOperations {
   }
 
   @Override
-  public void generateAllRepositories(JavaPackage repositoriesPackage) {
+  public void generateAllRepositories(JavaPackage repositoriesPackage, boolean instrumentation) {
     // Getting all project entities
     Set<ClassOrInterfaceTypeDetails> entities =
         getTypeLocationService().findClassesOrInterfaceDetailsWithAnnotation(
@@ -103,14 +104,14 @@ public class RepositoryJpaOperationsImpl implements RepositoryJpaOperations {
               repositoriesPackage.getModule());
 
       // Delegate on simple add repository method
-      addRepository(interfaceType, entity.getType(), null, false);
+      addRepository(interfaceType, entity.getType(), null, false, instrumentation);
     }
 
   }
 
   @Override
   public void addRepository(JavaType interfaceType, final JavaType domainType,
-      JavaType defaultReturnType, boolean failOnComposition) {
+      JavaType defaultReturnType, boolean failOnComposition, boolean instrumentation) {
     Validate.notNull(domainType, "ERROR: You must specify a valid Entity. ");
 
     if (getProjectOperations().isMultimoduleProject()) {
@@ -209,11 +210,18 @@ public class RepositoryJpaOperationsImpl implements RepositoryJpaOperations {
     // By default, generate RepositoryCustom interface and its
     // implementation that allow developers to include its dynamic queries
     // using QueryDSL
-    addRepositoryCustom(domainType, interfaceType, interfaceType.getPackage());
+    addRepositoryCustom(domainType, interfaceType, interfaceType.getPackage(), instrumentation);
 
     // Add dependencies between modules
     getProjectOperations().addModuleDependency(interfaceType.getModule(), domainType.getModule());
 
+    // The instrumented finders register their meters with Micrometer
+    if (instrumentation) {
+      getProjectOperations().addProperty("", MicrometerInstrumentation.VERSION_PROPERTY);
+      getProjectOperations().addDependency(interfaceType.getModule(),
+          MicrometerInstrumentation.DEPENDENCY);
+    }
+
     // Add dependencies and plugins
     generateConfiguration(interfaceType, domainType);
 
@@ -406,10 +414,11 @@ public class RepositoryJpaOperationsImpl implements RepositoryJpaOperations {
    * @param interfaceType
    * @param repository
    * @param entity
+   * @param instrumentation
    * @return JavaType with existing or new RepositoryCustom implementation
    */
   private JavaType generateRepositoryCustomImpl(JavaType interfaceType, JavaType repository,
-      JavaType entity) {
+      JavaType entity, boolean instrumentation) {
 
     // Getting RepositoryCustomImpl JavaType
     JavaType implType =
@@ -466,6 +475,11 @@ public class RepositoryJpaOperationsImpl implements RepositoryJpaOperations {
       // Replacing interface .class
       input = input.replace("__REPOSITORY_CUSTOM_INTERFACE__", interfaceType.getSimpleTypeName());
 
+      // Replacing optional annotation attributes
+      input =
+          input.replace("__INSTRUMENTATION__", instrumentation ? ", "
+              + RooJpaRepositoryCustomImpl.INSTRUMENTATION_ATTRIBUTE + " = true" : "");
+
       // Replacing class name
       input = input.replaceAll("__REPOSITORY_CUSTOM_IMPL__", implType.getSimpleTypeName());
 
@@ -491,12 +505,12 @@ public class RepositoryJpaOperationsImpl implements RepositoryJpaOperations {
    * @param domainType
    * @param repositoryType
    * @param repositoryPackage
-   * @param defaultReturnType
+   * @param instrumentation
    *
    * @return JavaType with new RepositoryCustom interface.
    */
   private JavaType addRepositoryCustom(JavaType domainType, JavaType repositoryType,
-      JavaPackage repositoryPackage) {
+      JavaPackage repositoryPackage, boolean instrumentation) {
 
     // Getting RepositoryCustom interface JavaTYpe
     JavaType interfaceType =
@@ -532,7 +546,7 @@ public class RepositoryJpaOperationsImpl implements RepositoryJpaOperations {
     // Save RepositoryCustom interface and its implementation on disk
     getTypeManagementService().createOrUpdateTypeOnDisk(interfaceBuilder.build());
 
-    generateRepositoryCustomImpl(interfaceType, repositoryType, domainType);
+    generateRepositoryCustomImpl(interfaceType, repositoryType, domainType, instrumentation);
 
     return interfaceType;
 
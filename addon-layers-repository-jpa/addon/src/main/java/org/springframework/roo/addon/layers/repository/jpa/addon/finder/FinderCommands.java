@@ -20,6 +20,7 @@ import org.springframework.roo.addon.layers.repository.jpa.addon.RepositoryJpaLo
 import org.springframework.roo.addon.layers.repository.jpa.addon.RepositoryJpaMetadata;
 import org.springframework.roo.addon.layers.repository.jpa.addon.finder.parser.FinderAutocomplete;
 import org.springframework.roo.addon.layers.repository.jpa.addon.finder.parser.PartTree;
+import org.springframework.roo.addon.layers.repository.jpa.addon.finder.parser.PartTreeCache;
 import org.springframework.roo.classpath.TypeLocationService;
 import org.springframework.roo.classpath.TypeManagementService;
 import org.springframework.roo.classpath.details.ClassOrInterfaceTypeDetails;
@@ -76,10 +77,14 @@ public class FinderCommands implements CommandMarker, FinderAutocomplete {
   // Map where entity details will be cached
   private Map<JavaType, MemberDetails> entitiesDetails;
 
+  // Finder names parsed during autocomplete
+  private PartTreeCache partTrees;
+
 
   protected void activate(final ComponentContext context) {
     this.context = context.getBundleContext();
     this.entitiesDetails = new HashMap<JavaType, MemberDetails>();
+    this.partTrees = new PartTreeCache(this);
     serviceInstaceManager.activate(this.context);
   }
 
@@ -163,7 +168,7 @@ public class FinderCommands implements CommandMarker, FinderAutocomplete {
     try {
 
       // Use PartTree class to obtain all possible values
-      PartTree part = new PartTree(name, getEntityDetails(contextParameters.get("entity")), this);
+      PartTree part = partTrees.get(name, getEntityDetails(contextParameters.get("entity")), null);
 
       // Check if part has value
       if (part != null) {
@@ -373,7 +378,7 @@ public class FinderCommands implements CommandMarker, FinderAutocomplete {
               + " creation.") JavaType returnType) {
 
     // Check if specified finderName follows Spring Data nomenclature
-    PartTree partTree = new PartTree(finderName.getSymbolName(), getEntityDetails(entity), this);
+    PartTree partTree = partTrees.get(finderName.getSymbolName(), getEntityDetails(entity), null);
 
     // If generated partTree is not valid, shows an exception
     Validate
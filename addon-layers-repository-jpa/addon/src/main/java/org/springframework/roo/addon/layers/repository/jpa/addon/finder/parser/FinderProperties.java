@@ -0,0 +1,197 @@
+package org.springframework.roo.addon.layers.repository.jpa.addon.finder.parser;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.commons.lang3.Validate;
+import org.springframework.roo.classpath.details.FieldMetadata;
+import org.springframework.roo.classpath.details.MemberHoldingTypeDetails;
+import org.springframework.roo.classpath.scanner.MemberDetails;
+import org.springframework.roo.model.JpaJavaType;
+
+/**
+ * The entity properties that can be used to build Spring Data finders,
+ * indexed by a prefix trie of their names.
+ *
+ * Finder names are parsed by looking for the longest property name that
+ * prefixes each of their fragments, which walks the trie along the fragment
+ * instead of comparing it with every property of the entity.
+ *
+ * Instances are immutable and shared: they are built once per
+ * {@link MemberDetails} of an entity, which Roo creates again whenever the
+ * entity changes, so a changed entity gets a new index.
+ *
+ * @since 2.0
+ */
+public class FinderProperties {
+
+  /**
+   * A node of the trie, i.e. a prefix of one or more property names.
+   */
+  private static class Node {
+
+    final Map<Character, Node> children = new HashMap<Character, Node>();
+
+    // The property whose name is this prefix, if any
+    FieldMetadata field;
+  }
+
+  private static final Map<MemberDetails, FinderProperties> CACHE =
+      new WeakHashMap<MemberDetails, FinderProperties>();
+
+  /**
+   * Returns the finder properties of the given entity.
+   *
+   * @param memberDetails the member details of the entity (required)
+   * @return a cached instance if these member details were already indexed
+   */
+  public static FinderProperties of(final MemberDetails memberDetails) {
+    Validate.notNull(memberDetails, "MemberDetails must not be null");
+    synchronized (CACHE) {
+      FinderProperties properties = CACHE.get(memberDetails);
+      if (properties == null) {
+        properties = new FinderProperties(memberDetails);
+        CACHE.put(memberDetails, properties);
+      }
+      return properties;
+    }
+  }
+
+  /**
+   * Indicates whether the given property can be used to build Spring Data
+   * expressions.
+   *
+   * Persistence version property, multivalued properties, static fields and
+   * transient fields are excluded since Spring Data does not support
+   * operations with them.
+   *
+   * @param field
+   * @return true if its type is supported by Spring Data
+   */
+  private static boolean isValid(final FieldMetadata field) {
+
+    // Check if its type is List/Map/etc
+    if (field.getFieldType().isMultiValued()) {
+      return false;
+    }
+
+    // Check if it is annotated with @Version
+    if (field.getAnnotation(JpaJavaType.VERSION) != null) {
+      return false;
+    }
+
+    // Exclude static fields
+    int staticFinal = Modifier.STATIC + Modifier.FINAL;
+    int publicStatic = Modifier.PUBLIC + Modifier.STATIC;
+    int publicStaticFinal = Modifier.PUBLIC + Modifier.STATIC + Modifier.FINAL;
+    int privateStatic = Modifier.PRIVATE + Modifier.STATIC;
+    int privateStaticFinal = Modifier.PRIVATE + Modifier.STATIC + Modifier.FINAL;
+
+    if (field.getModifier() == Modifier.STATIC || field.getModifier() == staticFinal
+        || field.getModifier() == publicStatic || field.getModifier() == publicStaticFinal
+        || field.getModifier() == privateStatic || field.getModifier() == privateStaticFinal) {
+      return false;
+    }
+
+    // Exclude transient fields and the fields annotated with @Transient
+    int transientFinal = Modifier.TRANSIENT + Modifier.FINAL;
+    int publicTransient = Modifier.PUBLIC + Modifier.TRANSIENT;
+    int publicTransientFinal = Modifier.PUBLIC + Modifier.TRANSIENT + Modifier.FINAL;
+    int privateTransient = Modifier.PRIVATE + Modifier.TRANSIENT;
+    int privateTransientFinal = Modifier.PRIVATE + Modifier.TRANSIENT + Modifier.FINAL;
+    return field.getAnnotation(JpaJavaType.TRANSIENT) == null
+        && field.getModifier() != Modifier.TRANSIENT && field.getModifier() != transientFinal
+        && field.getModifier() != publicTransient && field.getModifier() != publicTransientFinal
+        && field.getModifier() != privateTransient
+        && field.getModifier() != privateTransientFinal;
+  }
+
+  private final List<FieldMetadata> fields;
+  private final Node root = new Node();
+  private final String signature;
+
+  /**
+   * Constructor
+   *
+   * @param memberDetails the member details of the entity (required)
+   */
+  FinderProperties(final MemberDetails memberDetails) {
+    final List<FieldMetadata> validFields = new ArrayList<FieldMetadata>();
+    final StringBuilder signatureBuilder = new StringBuilder();
+    for (final MemberHoldingTypeDetails details : memberDetails.getDetails()) {
+      signatureBuilder.append(details.getType().getFullyQualifiedTypeName()).append(';');
+    }
+    for (final FieldMetadata field : memberDetails.getFields()) {
+      if (!isValid(field)) {
+        continue;
+      }
+      validFields.add(field);
+      final String fieldName = field.getFieldName().toString();
+      signatureBuilder.append(fieldName).append(':')
+          .append(field.getFieldType().getNameIncludingTypeParameters()).append(';');
+
+      Node node = root;
+      for (int i = 0; i < fieldName.length(); i++) {
+        Node child = node.children.get(fieldName.charAt(i));
+        if (child == null) {
+          child = new Node();
+          node.children.put(fieldName.charAt(i), child);
+        }
+        node = child;
+      }
+      // As before, the first of several properties with the same name wins
+      if (node.field == null) {
+        node.field = field;
+      }
+    }
+    this.fields = Collections.unmodifiableList(validFields);
+    this.signature = signatureBuilder.toString();
+  }
+
+  /**
+   * Returns the properties that can be used in finders, in declaration order.
+   *
+   * @return an unmodifiable list
+   */
+  public List<FieldMetadata> getFields() {
+    return fields;
+  }
+
+  /**
+   * Returns the property with the longest name that prefixes the given text,
+   * e.g. the "name" property for "nameIgnoreCase".
+   *
+   * @param text the text starting with a property name (required)
+   * @return null if no property name prefixes it
+   */
+  public FieldMetadata getLongestPrefix(final String text) {
+    FieldMetadata longest = null;
+    Node node = root;
+    for (int i = 0; i < text.length(); i++) {
+      node = node.children.get(text.charAt(i));
+      if (node == null) {
+        break;
+      }
+      if (node.field != null) {
+        longest = node.field;
+      }
+    }
+    return longest;
+  }
+
+  /**
+   * Returns the entity type and the names and types of the properties, which
+   * identify them: two versions of an entity with the same signature parse
+   * finders the same way.
+   *
+   * @return a non-null String
+   */
+  public String getSignature() {
+    return signature;
+  }
+}
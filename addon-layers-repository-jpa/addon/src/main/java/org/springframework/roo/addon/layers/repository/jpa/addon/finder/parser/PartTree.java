@@ -1,10 +1,12 @@
 package org.springframework.roo.addon.layers.repository.jpa.addon.finder.parser;
 
-import java.lang.reflect.Modifier;
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Stack;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -16,7 +18,6 @@ import org.springframework.roo.classpath.details.MemberHoldingTypeDetails;
 import org.springframework.roo.classpath.scanner.MemberDetails;
 import org.springframework.roo.model.DataType;
 import org.springframework.roo.model.JavaType;
-import org.springframework.roo.model.JpaJavaType;
 
 /**
  * This class is based on PartTree.java class from Spring Data commons project.
@@ -44,6 +45,12 @@ public class PartTree {
   private static final Pattern PREFIX_TEMPLATE = Pattern.compile("^(" + Subject.QUERY_PATTERN + "|"
       + Subject.COUNT_PATTERN + ")((\\p{Lu}.*?))??By");
 
+  /**
+   * Compiled patterns of the keywords used by {@link #split(String, String, int)}
+   */
+  private static final Map<String, Pattern> KEYWORD_PATTERNS =
+      new ConcurrentHashMap<String, Pattern>();
+
   /**
    * Subject is delimited by a prefix (find, read , query or count) and {@literal By} delimiter, for
    * example "findDistinctUserByNameOrderByAge" would have the subject
@@ -82,6 +89,19 @@ public class PartTree {
    */
   List<FinderParameter> finderParameters;
 
+  /**
+   * Properties of the entities whose property lists have been handed out, by
+   * list, so that property lookups can use their index
+   */
+  private final Map<List<FieldMetadata>, FinderProperties> properties = Collections
+      .synchronizedMap(new IdentityHashMap<List<FieldMetadata>, FinderProperties>());
+
+  /**
+   * Signatures of the related entities whose properties have been used, or an
+   * empty String for the types that are not entities
+   */
+  private final Map<JavaType, String> relatedSignatures = new ConcurrentHashMap<JavaType, String>();
+
   /**
    * Creates a new {@link PartTree} by parsing the given {@link String}.
    *
@@ -103,7 +123,7 @@ public class PartTree {
 
     // Extracts entity fields removing persistence fields and list type
     // fields
-    List<FieldMetadata> fields = getValidProperties(memberDetails.getFields());
+    List<FieldMetadata> fields = getFields(FinderProperties.of(memberDetails));
 
     Matcher matcher = PREFIX_TEMPLATE.matcher(source);
 
@@ -199,66 +219,6 @@ public class PartTree {
 
 
 
-  /**
-   * Filters the entity properties that can be used to build Spring Data
-   * expressions. 
-   * 
-   * Persistence version property, multivalued properties, static fields and 
-   * transient fields are excluded since Spring Data does not support 
-   * operations with them.
-   *
-   * @param memberDetails
-   * @return entity properties which type is supported  by SpringData
-   */
-  private List<FieldMetadata> getValidProperties(List<FieldMetadata> fields) {
-
-    List<FieldMetadata> validProperties = new ArrayList<FieldMetadata>();
-
-    for (FieldMetadata field : fields) {
-
-      // Check if its type is List/Map/etc
-      if (field.getFieldType().isMultiValued()) {
-        continue;
-      }
-
-      // Check if it is annotated with @Version
-      if (field.getAnnotation(new JavaType("javax.persistence.Version")) != null) {
-        continue;
-      }
-
-      // Exclude static fields
-      int staticFinal = Modifier.STATIC + Modifier.FINAL;
-      int publicStatic = Modifier.PUBLIC + Modifier.STATIC;
-      int publicStaticFinal = Modifier.PUBLIC + Modifier.STATIC + Modifier.FINAL;
-      int privateStatic = Modifier.PRIVATE + Modifier.STATIC;
-      int privateStaticFinal = Modifier.PRIVATE + Modifier.STATIC + Modifier.FINAL;
-
-      if (field.getModifier() == Modifier.STATIC || field.getModifier() == staticFinal
-          || field.getModifier() == publicStatic || field.getModifier() == publicStaticFinal
-          || field.getModifier() == privateStatic || field.getModifier() == privateStaticFinal) {
-        continue;
-      }
-
-      // Exclude transient fields and the fields annotated with @Transient
-      int transientFinal = Modifier.TRANSIENT + Modifier.FINAL;
-      int publicTransient = Modifier.PUBLIC + Modifier.TRANSIENT;
-      int publicTransientFinal = Modifier.PUBLIC + Modifier.TRANSIENT + Modifier.FINAL;
-      int privateTransient = Modifier.PRIVATE + Modifier.TRANSIENT;
-      int privateTransientFinal = Modifier.PRIVATE + Modifier.TRANSIENT + Modifier.FINAL;
-      if (field.getAnnotation(JpaJavaType.TRANSIENT) != null
-          || field.getModifier() == Modifier.TRANSIENT || field.getModifier() == transientFinal
-          || field.getModifier() == publicTransient || field.getModifier() == publicTransientFinal
-          || field.getModifier() == privateTransient
-          || field.getModifier() == privateTransientFinal) {
-        continue;
-      }
-
-      validProperties.add(field);
-    }
-
-    return validProperties;
-  }
-
   /**
    * Filters the entity properties of a javaType that can be used to build Spring Data
    * expressions. Persistence version field is excluded, and multivalued fields
@@ -274,14 +234,37 @@ public class PartTree {
       final MemberDetails entityDetails = finderAutocomplete.getEntityDetails(javaType);
 
       if (entityDetails != null) {
-        return getValidProperties((List<FieldMetadata>) entityDetails.getFields());
+        final FinderProperties entityProperties = FinderProperties.of(entityDetails);
+        relatedSignatures.put(javaType, entityProperties.getSignature());
+        return getFields(entityProperties);
       }
+      relatedSignatures.put(javaType, "");
 
     }
 
     return null;
   }
 
+  /**
+   * Returns the properties of the given entity, remembering their index for
+   * later property lookups
+   */
+  private List<FieldMetadata> getFields(FinderProperties entityProperties) {
+    properties.put(entityProperties.getFields(), entityProperties);
+    return entityProperties.getFields();
+  }
+
+  /**
+   * Returns the signatures of the related entities whose properties were used
+   * while parsing this query or computing its options, by entity type. The
+   * value is an empty String for the types that were not entities.
+   *
+   * @return an unmodifiable map
+   */
+  public Map<JavaType, String> getRelatedSignatures() {
+    return Collections.unmodifiableMap(relatedSignatures);
+  }
+
   /**
    * Extract entity property name from raw property and returns the property metadata and the property name.
    * If raw property references a property of a related entity, returns a Pair with the related entity property metadata and
@@ -322,16 +305,21 @@ public class PartTree {
     rawProperty = StringUtils.uncapitalize(rawProperty);
 
     // ExtractProperty can contain other information after property name. For that reason, it is necessary find the property that matches more letters with the property contained into extractProperty
-    for (FieldMetadata field : fields) {
-      if (field.getFieldName().toString().compareTo(rawProperty) == 0) {
-        tempField = field;
-        break;
-      }
-      if (rawProperty.startsWith(field.getFieldName().toString())) {
-        if (tempField == null
-            || tempField.getFieldName().toString().length() < field.getFieldName().toString()
-                .length())
+    final FinderProperties fieldsProperties = properties.get(fields);
+    if (fieldsProperties != null) {
+      tempField = fieldsProperties.getLongestPrefix(rawProperty);
+    } else {
+      for (FieldMetadata field : fields) {
+        if (field.getFieldName().toString().compareTo(rawProperty) == 0) {
           tempField = field;
+          break;
+        }
+        if (rawProperty.startsWith(field.getFieldName().toString())) {
+          if (tempField == null
+              || tempField.getFieldName().toString().length() < field.getFieldName().toString()
+                  .length())
+            tempField = field;
+        }
       }
     }
 
@@ -437,7 +425,11 @@ public class PartTree {
    */
   static String[] split(String text, String keyword, int limit) {
 
-    Pattern pattern = Pattern.compile(String.format(KEYWORD_TEMPLATE, keyword));
+    Pattern pattern = KEYWORD_PATTERNS.get(keyword);
+    if (pattern == null) {
+      pattern = Pattern.compile(String.format(KEYWORD_TEMPLATE, keyword));
+      KEYWORD_PATTERNS.put(keyword, pattern);
+    }
     return pattern.split(text, limit);
   }
 
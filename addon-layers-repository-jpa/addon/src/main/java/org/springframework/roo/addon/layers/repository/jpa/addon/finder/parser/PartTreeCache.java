@@ -0,0 +1,103 @@
+package org.springframework.roo.addon.layers.repository.jpa.addon.finder.parser;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.commons.lang3.Validate;
+import org.springframework.roo.classpath.scanner.MemberDetails;
+import org.springframework.roo.model.JavaType;
+
+/**
+ * Caches the {@link PartTree}s of the finders parsed by a
+ * {@link FinderAutocomplete}, so that finder metadata rebuilds and repeated
+ * autocomplete requests don't parse the same finder names again.
+ *
+ * Parsed finders are keyed by the {@link FinderProperties#getSignature()} of
+ * their entity, their name and their return type. A cached finder is parsed
+ * again if any related entity whose properties it used has changed since.
+ * The least recently used finders are evicted once the cache is full.
+ *
+ * @since 2.0
+ */
+public class PartTreeCache {
+
+  private static final int DEFAULT_MAX_SIZE = 512;
+
+  private final FinderAutocomplete finderAutocomplete;
+  private final Map<String, PartTree> partTrees;
+
+  /**
+   * Constructor
+   *
+   * @param finderAutocomplete the provider of the entity details used while
+   *            parsing (can be null)
+   */
+  public PartTreeCache(final FinderAutocomplete finderAutocomplete) {
+    this(finderAutocomplete, DEFAULT_MAX_SIZE);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param finderAutocomplete the provider of the entity details used while
+   *            parsing (can be null)
+   * @param maxSize the maximum number of finders to keep
+   */
+  PartTreeCache(final FinderAutocomplete finderAutocomplete, final int maxSize) {
+    this.finderAutocomplete = finderAutocomplete;
+    this.partTrees = new LinkedHashMap<String, PartTree>(16, 0.75f, true) {
+
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(final Entry<String, PartTree> eldest) {
+        return size() > maxSize;
+      }
+    };
+  }
+
+  /**
+   * Returns the {@link PartTree} of the given finder, parsing it only if it
+   * is not cached yet.
+   *
+   * @param source the finder name (required)
+   * @param memberDetails the member details of the entity (required)
+   * @param providedReturnType the return type of the finder when it is
+   *            different from the entity (can be null)
+   * @return a PartTree that must not be modified
+   */
+  public synchronized PartTree get(final String source, final MemberDetails memberDetails,
+      final JavaType providedReturnType) {
+    Validate.notNull(source, "Source must not be null");
+    final String returnType =
+        providedReturnType == null ? "" : providedReturnType.getNameIncludingTypeParameters();
+    final String key =
+        FinderProperties.of(memberDetails).getSignature() + "#" + source + "#" + returnType;
+    PartTree partTree = partTrees.get(key);
+    if (partTree == null || !isUpToDate(partTree)) {
+      partTree = new PartTree(source, memberDetails, finderAutocomplete, providedReturnType);
+      partTrees.put(key, partTree);
+    }
+    return partTree;
+  }
+
+  /**
+   * Removes all the cached finders.
+   */
+  public synchronized void clear() {
+    partTrees.clear();
+  }
+
+  private boolean isUpToDate(final PartTree partTree) {
+    for (final Entry<JavaType, String> related : partTree.getRelatedSignatures().entrySet()) {
+      final MemberDetails relatedDetails = finderAutocomplete.getEntityDetails(related.getKey());
+      final String signature =
+          relatedDetails == null ? "" : FinderProperties.of(relatedDetails).getSignature();
+      if (!signature.equals(related.getValue())) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
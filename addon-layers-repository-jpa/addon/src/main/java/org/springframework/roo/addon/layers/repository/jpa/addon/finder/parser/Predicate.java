@@ -37,6 +37,7 @@ import org.springframework.roo.model.JavaType;
 public class Predicate {
 
   private static final Pattern ALL_IGNORE_CASE = Pattern.compile("AllIgnor(ing|e)Case");
+  private static final Pattern LAST_INT = Pattern.compile("[^0-9]+([0-9]+)$");
   private static final String ORDER_BY = "OrderBy";
 
   private final List<OrPart> nodes = new ArrayList<OrPart>();
@@ -302,7 +303,6 @@ public class Predicate {
 
     // Tracks number of times a property name is used as parameter
     Map<FieldMetadata, Integer> parametersCount = new HashMap<FieldMetadata, Integer>();
-    final Pattern lastIntPattern = Pattern.compile("[^0-9]+([0-9]+)$");
 
     for (OrPart orPart : nodes) {
       for (Part part : orPart.getChildren()) {
@@ -319,7 +319,7 @@ public class Predicate {
 
             // If a property has already been used as parameter name, we need to include a suffix to avoid duplicates
             String name = parameter.getName().toString();
-            Matcher matcher = lastIntPattern.matcher(name);
+            Matcher matcher = LAST_INT.matcher(name);
             if (matcher.find()) {
               // Removes suffix if it already has one
               name = StringUtils.removeEnd(name, matcher.group(1));
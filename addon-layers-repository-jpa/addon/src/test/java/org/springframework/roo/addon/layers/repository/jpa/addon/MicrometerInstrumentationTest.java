@@ -0,0 +1,111 @@
+package org.springframework.roo.addon.layers.repository.jpa.addon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Modifier;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.roo.classpath.details.FieldMetadata;
+import org.springframework.roo.classpath.itd.InvocableMemberBodyBuilder;
+import org.springframework.roo.model.ImportRegistrationResolver;
+import org.springframework.roo.model.ImportRegistrationResolverImpl;
+import org.springframework.roo.model.JavaPackage;
+import org.springframework.roo.model.JavaSymbolName;
+import org.springframework.roo.model.JavaType;
+import org.springframework.roo.model.MicrometerJavaType;
+
+/**
+ * Unit test of {@link MicrometerInstrumentation}
+ *
+ * @since 2.0
+ */
+public class MicrometerInstrumentationTest {
+
+  private static final String METADATA_ID =
+      "MID:org.example.RepositoryMetadata#SRC_MAIN_JAVA?PersonRepositoryImpl";
+  private static final JavaSymbolName FIND_BY_NAME = new JavaSymbolName("findByName");
+
+  private ImportRegistrationResolver importResolver;
+  private MicrometerInstrumentation instrumentation;
+
+  @Before
+  public void setUp() {
+    importResolver = new ImportRegistrationResolverImpl(new JavaPackage("org.example"));
+    instrumentation =
+        new MicrometerInstrumentation(METADATA_ID, "roo.repository", new JavaType(
+            "org.example.Person"), importResolver);
+  }
+
+  private InvocableMemberBodyBuilder getBody() {
+    final InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+    bodyBuilder.appendFormalLine("if (name == null) {");
+    bodyBuilder.indent();
+    bodyBuilder.appendFormalLine("return null;");
+    bodyBuilder.indentRemove();
+    bodyBuilder.appendFormalLine("}");
+    bodyBuilder.newLine();
+    bodyBuilder.appendFormalLine("return query.fetchOne();");
+    return bodyBuilder;
+  }
+
+  @Test
+  public void testConstantName() {
+    assertEquals("FIND_BY_NAME_TIMER",
+        MicrometerInstrumentation.getConstantName(FIND_BY_NAME, "TIMER"));
+    assertEquals("COUNT_ERRORS",
+        MicrometerInstrumentation.getConstantName(new JavaSymbolName("count"), "ERRORS"));
+  }
+
+  @Test
+  public void testNoFieldsUntilAMethodIsInstrumented() {
+    assertTrue(instrumentation.getFields().isEmpty());
+  }
+
+  @Test
+  public void testInstrumentWrapsTheBody() {
+    final String body = instrumentation.instrument(FIND_BY_NAME, getBody()).getOutput();
+
+    final String expected =
+        "        long instrumentationStart = System.nanoTime();\n"
+            + "        try {\n"
+            + "            if (name == null) {\n"
+            + "                return null;\n"
+            + "            }\n"
+            + "            \n"
+            + "            return query.fetchOne();\n"
+            + "        } catch (RuntimeException instrumentationException) {\n"
+            + "            FIND_BY_NAME_ERRORS.increment();\n"
+            + "            throw instrumentationException;\n"
+            + "        } finally {\n"
+            + "            FIND_BY_NAME_TIMER.record(System.nanoTime() - instrumentationStart, "
+            + "TimeUnit.NANOSECONDS);\n" + "        }\n";
+    assertEquals(expected, body);
+  }
+
+  @Test
+  public void testOverloadedMethodsShareTheirMeters() {
+    instrumentation.instrument(FIND_BY_NAME, getBody());
+    instrumentation.instrument(FIND_BY_NAME, getBody());
+
+    final List<FieldMetadata> fields = instrumentation.getFields();
+    assertEquals(2, fields.size());
+
+    final FieldMetadata timer = fields.get(0);
+    assertEquals("FIND_BY_NAME_TIMER", timer.getFieldName().getSymbolName());
+    assertEquals(MicrometerJavaType.TIMER, timer.getFieldType());
+    assertEquals(Modifier.PRIVATE | Modifier.STATIC | Modifier.FINAL, timer.getModifier());
+    assertEquals("Timer.builder(\"roo.repository\").tag(\"entity\", \"Person\")"
+        + ".tag(\"method\", \"findByName\").register(Metrics.globalRegistry)",
+        timer.getFieldInitializer());
+
+    final FieldMetadata errors = fields.get(1);
+    assertEquals("FIND_BY_NAME_ERRORS", errors.getFieldName().getSymbolName());
+    assertEquals(MicrometerJavaType.COUNTER, errors.getFieldType());
+    assertEquals("Counter.builder(\"roo.repository.errors\").tag(\"entity\", \"Person\")"
+        + ".tag(\"method\", \"findByName\").register(Metrics.globalRegistry)",
+        errors.getFieldInitializer());
+  }
+}
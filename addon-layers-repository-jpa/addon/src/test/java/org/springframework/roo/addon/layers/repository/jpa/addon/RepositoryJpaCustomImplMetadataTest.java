@@ -0,0 +1,59 @@
+package org.springframework.roo.addon.layers.repository.jpa.addon;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+import org.springframework.roo.addon.jpa.addon.entity.JpaEntityMetadata.RelationInfo;
+import org.springframework.roo.addon.jpa.annotations.entity.JpaRelationType;
+import org.springframework.roo.classpath.operations.Cardinality;
+import org.springframework.roo.model.JavaType;
+
+/**
+ * Unit test of the query building of {@link RepositoryJpaCustomImplMetadata}
+ *
+ * @since 2.0
+ */
+public class RepositoryJpaCustomImplMetadataTest {
+
+  private static final JavaType CUSTOMER = new JavaType("org.example.Customer");
+
+  private static RelationInfo getRelation(final String fieldName, final Cardinality cardinality,
+      final JpaRelationType type) {
+    return new RelationInfo(CUSTOMER, fieldName, null, null, cardinality, new JavaType(
+        "org.example.Child"), null, "customer", type) {};
+  }
+
+  private final Collection<RelationInfo> relations = Arrays.asList(
+      getRelation("address", Cardinality.ONE_TO_ONE, JpaRelationType.COMPOSITION),
+      getRelation("orders", Cardinality.ONE_TO_MANY, JpaRelationType.COMPOSITION),
+      getRelation("seller", Cardinality.ONE_TO_ONE, JpaRelationType.AGGREGATION));
+
+  @Test
+  public void testEntityQueriesFetchTheirOneToOneCompositions() {
+    assertEquals(".leftJoin(customer.address).fetchJoin()",
+        RepositoryJpaCustomImplMetadata.getFetchJoins("customer", relations, false));
+  }
+
+  @Test
+  public void testProjectionQueriesDontFetchAnyEntity() {
+    assertEquals("", RepositoryJpaCustomImplMetadata.getFetchJoins("customer", relations, true));
+  }
+
+  @Test
+  public void testProjectionQueriesSelectOnlyTheProjectedColumns() {
+    final List<Pair<String, String>> fields =
+        Arrays.asList(Pair.of("id", "customer.id"), Pair.of("name", "customer.name"),
+            Pair.of("addressCity", "customer.address.city"));
+
+    assertEquals(
+        "Projections.constructor(CustomerInfo.class, customer.id, customer.name, "
+            + "customer.address.city)",
+        RepositoryJpaCustomImplMetadata.getConstructorExpression("Projections", "CustomerInfo",
+            fields));
+  }
+}
@@ -0,0 +1,95 @@
+package org.springframework.roo.addon.layers.repository.jpa.addon.finder.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.roo.classpath.PhysicalTypeCategory;
+import org.springframework.roo.classpath.details.DefaultClassOrInterfaceTypeDetails;
+import org.springframework.roo.classpath.details.DefaultFieldMetadata;
+import org.springframework.roo.classpath.details.FieldMetadata;
+import org.springframework.roo.classpath.details.MemberHoldingTypeDetails;
+import org.springframework.roo.classpath.scanner.MemberDetails;
+import org.springframework.roo.classpath.scanner.MemberDetailsImpl;
+import org.springframework.roo.model.CustomDataImpl;
+import org.springframework.roo.model.JavaSymbolName;
+import org.springframework.roo.model.JavaType;
+
+/**
+ * Unit tests for {@link FinderProperties}.
+ *
+ * @since 2.0
+ */
+public class FinderPropertiesTest {
+
+  static FieldMetadata getField(final String name, final JavaType type, final int modifier) {
+    return new DefaultFieldMetadata(new CustomDataImpl(new HashMap<Object, Object>()), name,
+        modifier, null, new JavaSymbolName(name), type, null);
+  }
+
+  static MemberDetails getMemberDetails(final String entity, final FieldMetadata... fields) {
+    final List<MemberHoldingTypeDetails> memberHoldingTypeDetails =
+        new ArrayList<MemberHoldingTypeDetails>();
+    memberHoldingTypeDetails.add(new DefaultClassOrInterfaceTypeDetails(new CustomDataImpl(
+        new HashMap<Object, Object>()), entity, 0, null, new JavaType(entity),
+        PhysicalTypeCategory.CLASS, null, Arrays.asList(fields), null, null, null, null, null,
+        null, null, null));
+    return new MemberDetailsImpl(memberHoldingTypeDetails);
+  }
+
+  private final FieldMetadata name = getField("name", JavaType.STRING, Modifier.PRIVATE);
+  private final FieldMetadata nameAlias = getField("nameAlias", JavaType.STRING, Modifier.PRIVATE);
+  private final FieldMetadata number = getField("number", JavaType.INT_OBJECT, Modifier.PRIVATE);
+
+  @Test
+  public void testInvalidFieldsAreExcluded() {
+    final FinderProperties properties =
+        FinderProperties.of(getMemberDetails("org.example.Owner", name, getField("COUNT",
+            JavaType.INT_PRIMITIVE, Modifier.PRIVATE | Modifier.STATIC | Modifier.FINAL),
+            getField("cached", JavaType.STRING, Modifier.PRIVATE | Modifier.TRANSIENT), number));
+
+    assertEquals(Arrays.asList(name, number), properties.getFields());
+    assertEquals(properties.getFields(), properties.getFields());
+  }
+
+  @Test
+  public void testLongestPrefix() {
+    final FinderProperties properties =
+        FinderProperties.of(getMemberDetails("org.example.Owner", name, nameAlias, number));
+
+    assertSame(name, properties.getLongestPrefix("name"));
+    assertSame(name, properties.getLongestPrefix("nameIgnoreCase"));
+    assertSame(nameAlias, properties.getLongestPrefix("nameAliasContaining"));
+    assertSame(number, properties.getLongestPrefix("numberGreaterThan"));
+    assertNull(properties.getLongestPrefix("nam"));
+    assertNull(properties.getLongestPrefix("age"));
+  }
+
+  @Test
+  public void testInstancesAreSharedByMemberDetails() {
+    final MemberDetails memberDetails = getMemberDetails("org.example.Owner", name, number);
+
+    assertSame(FinderProperties.of(memberDetails), FinderProperties.of(memberDetails));
+  }
+
+  @Test
+  public void testSignatureChangesWithTheProperties() {
+    final String signature =
+        FinderProperties.of(getMemberDetails("org.example.Owner", name, number)).getSignature();
+
+    assertEquals(signature, FinderProperties.of(getMemberDetails("org.example.Owner", name, number))
+        .getSignature());
+    assertFalse(signature.equals(FinderProperties.of(
+        getMemberDetails("org.example.Owner", name, nameAlias, number)).getSignature()));
+    assertFalse(signature.equals(FinderProperties.of(
+        getMemberDetails("org.example.Pet", name, number)).getSignature()));
+  }
+}
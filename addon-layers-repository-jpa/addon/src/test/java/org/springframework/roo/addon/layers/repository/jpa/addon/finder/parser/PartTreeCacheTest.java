@@ -0,0 +1,103 @@
+package org.springframework.roo.addon.layers.repository.jpa.addon.finder.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.springframework.roo.addon.layers.repository.jpa.addon.finder.parser.FinderPropertiesTest.getField;
+import static org.springframework.roo.addon.layers.repository.jpa.addon.finder.parser.FinderPropertiesTest.getMemberDetails;
+
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.roo.classpath.scanner.MemberDetails;
+import org.springframework.roo.model.JavaType;
+
+/**
+ * Unit tests for {@link PartTreeCache}.
+ *
+ * @since 2.0
+ */
+public class PartTreeCacheTest {
+
+  private static final JavaType OWNER = new JavaType("org.example.Owner");
+  private static final JavaType PET = new JavaType("org.example.Pet");
+
+  private final Map<JavaType, MemberDetails> entities = new HashMap<JavaType, MemberDetails>();
+  private PartTreeCache cache;
+  private MemberDetails pet;
+
+  @Before
+  public void setUp() {
+    entities.put(OWNER, getMemberDetails("org.example.Owner",
+        getField("name", JavaType.STRING, Modifier.PRIVATE)));
+    pet =
+        getMemberDetails("org.example.Pet", getField("name", JavaType.STRING, Modifier.PRIVATE),
+            getField("owner", OWNER, Modifier.PRIVATE));
+    entities.put(PET, pet);
+    cache = new PartTreeCache(new FinderAutocomplete() {
+      public MemberDetails getEntityDetails(final JavaType entity) {
+        return entities.get(entity);
+      }
+    }, 2);
+  }
+
+  @Test
+  public void testFindersAreParsedOnce() {
+    final PartTree partTree = cache.get("findByOwnerName", pet, null);
+
+    assertEquals("findByOwnerName", partTree.toString());
+    assertSame(partTree, cache.get("findByOwnerName", pet, null));
+  }
+
+  @Test
+  public void testEquivalentEntitiesShareTheirFinders() {
+    final PartTree partTree = cache.get("findByName", pet, null);
+
+    // Roo scans the entity again whenever it changes
+    final MemberDetails rescannedPet =
+        getMemberDetails("org.example.Pet", getField("name", JavaType.STRING, Modifier.PRIVATE),
+            getField("owner", OWNER, Modifier.PRIVATE));
+    assertSame(partTree, cache.get("findByName", rescannedPet, null));
+  }
+
+  @Test
+  public void testFindersAreParsedAgainWhenTheirEntityChanges() {
+    final PartTree partTree = cache.get("findByName", pet, null);
+
+    final MemberDetails changedPet =
+        getMemberDetails("org.example.Pet", getField("name", JavaType.STRING, Modifier.PRIVATE),
+            getField("age", JavaType.INT_OBJECT, Modifier.PRIVATE));
+    assertNotSame(partTree, cache.get("findByName", changedPet, null));
+  }
+
+  @Test
+  public void testFindersAreParsedAgainWhenARelatedEntityChanges() {
+    final PartTree partTree = cache.get("findByOwnerName", pet, null);
+
+    entities.put(OWNER, getMemberDetails("org.example.Owner",
+        getField("name", JavaType.STRING, Modifier.PRIVATE),
+        getField("address", JavaType.STRING, Modifier.PRIVATE)));
+    assertNotSame(partTree, cache.get("findByOwnerName", pet, null));
+  }
+
+  @Test
+  public void testReturnTypeIsPartOfTheKey() {
+    final PartTree partTree = cache.get("findByName", pet, null);
+
+    assertNotSame(partTree, cache.get("findByName", pet, new JavaType("org.example.PetInfo")));
+  }
+
+  @Test
+  public void testLeastRecentlyUsedFindersAreEvicted() {
+    final PartTree byName = cache.get("findByName", pet, null);
+    final PartTree byOwner = cache.get("findByOwner", pet, null);
+    cache.get("findByName", pet, null);
+    cache.get("findByOwnerName", pet, null);
+
+    assertSame(byName, cache.get("findByName", pet, null));
+    assertNotSame(byOwner, cache.get("findByOwner", pet, null));
+  }
+}
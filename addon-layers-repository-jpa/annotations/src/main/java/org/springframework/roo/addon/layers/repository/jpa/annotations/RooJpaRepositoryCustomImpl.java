@@ -22,6 +22,12 @@ public @interface RooJpaRepositoryCustomImpl {
    */
   String REPOSITORY_ATTRIBUTE = "repository";
 
+  /**
+   * The name of this annotation's attribute that specifies whether the
+   * generated methods are instrumented
+   */
+  String INSTRUMENTATION_ATTRIBUTE = "instrumentation";
+
   /**
    * The interface implemented by the annotated type
    * 
@@ -29,4 +35,12 @@ public @interface RooJpaRepositoryCustomImpl {
    */
   Class<?> repository(); // No default => mandatory
 
+  /**
+   * Indicates whether the generated methods record a Micrometer timer and
+   * error counter, tagged with the entity and finder names
+   * 
+   * @return <code>false</code> by default, so that nothing is generated
+   */
+  boolean instrumentation() default false;
+
 }
@@ -386,7 +386,17 @@ public class ServiceCommands implements CommandMarker {
               + "focused module will be used."
               + "This option is available only when `--all` parameter has been specified."
               + "Default value if not present: `~.service.impl` package, or 'service-impl:~.' if "
-              + "multi-module project.") JavaPackage implPackage) {
+              + "multi-module project.") JavaPackage implPackage,
+      @CliOption(
+          key = "instrumentation",
+          mandatory = false,
+          unspecifiedDefaultValue = "false",
+          specifiedDefaultValue = "true",
+          help = "Whether the generated service methods, including the relation ones, should "
+              + "record a Micrometer timer and error counter, tagged with the entity and method "
+              + "names, in the global meter registry. Adds the `micrometer-core` dependency to "
+              + "the project. Default if option present: `true`; default if option not "
+              + "present: `false`.") boolean instrumentation) {
 
     if (all) {
 
@@ -446,9 +456,10 @@ public class ServiceCommands implements CommandMarker {
         }
       }
 
-      serviceOperations.addAllServices(apiPackage, implPackage);
+      serviceOperations.addAllServices(apiPackage, implPackage, instrumentation);
     } else {
-      serviceOperations.addService(domainType, repositoryType, interfaceType, implType);
+      serviceOperations.addService(domainType, repositoryType, interfaceType, implType,
+          instrumentation);
     }
   }
 
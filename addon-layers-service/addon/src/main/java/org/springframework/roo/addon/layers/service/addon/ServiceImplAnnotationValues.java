@@ -19,6 +19,9 @@ public class ServiceImplAnnotationValues extends AbstractAnnotationValues {
   @AutoPopulate
   private JavaType service;
 
+  @AutoPopulate
+  private boolean instrumentation = false;
+
   /**
    * Constructor
    * 
@@ -33,4 +36,8 @@ public class ServiceImplAnnotationValues extends AbstractAnnotationValues {
     return service;
   }
 
+  public boolean isInstrumentation() {
+    return instrumentation;
+  }
+
 }
@@ -6,6 +6,7 @@ import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.roo.addon.jpa.addon.entity.JpaEntityMetadata;
 import org.springframework.roo.addon.jpa.addon.entity.JpaEntityMetadata.RelationInfo;
+import org.springframework.roo.addon.layers.repository.jpa.addon.MicrometerInstrumentation;
 import org.springframework.roo.addon.layers.repository.jpa.addon.RepositoryJpaMetadata;
 import org.springframework.roo.addon.layers.service.annotations.RooServiceImpl;
 import org.springframework.roo.classpath.PhysicalTypeIdentifierNamingUtils;
@@ -67,6 +68,7 @@ public class ServiceImplMetadata extends AbstractItdTypeDetailsProvidingMetadata
   private final ServiceMetadata serviceMetadata;
   private final JpaEntityMetadata entityMetadata;
   private final List<Pair<FieldMetadata, RelationInfo>> childRelationsInfo;
+  private final MicrometerInstrumentation instrumentation;
 
   // Temporal arrays don't share
   private ArrayList<MethodMetadata> pendingTransactionalMethodToAdd;
@@ -112,16 +114,21 @@ public class ServiceImplMetadata extends AbstractItdTypeDetailsProvidingMetadata
    * @param serviceMetadata
    * @param requiredServicesByEntity
    * @param childRelationsInfo
+   * @param instrumentation
+   *            whether the generated methods record Micrometer metrics
    */
   public ServiceImplMetadata(final String identifier, final JavaType aspectName,
       final PhysicalTypeMetadata governorPhysicalTypeMetadata, final JavaType serviceInterface,
       final JavaType repository, RepositoryJpaMetadata repositoryMetadata, final JavaType entity,
       JpaEntityMetadata entityMetadata, ServiceMetadata serviceMetadata,
       Map<JavaType, ServiceMetadata> requiredServicesByEntity,
-      List<Pair<FieldMetadata, RelationInfo>> childRelationsInfo) {
+      List<Pair<FieldMetadata, RelationInfo>> childRelationsInfo, boolean instrumentation) {
     super(identifier, aspectName, governorPhysicalTypeMetadata);
 
     this.importResolver = builder.getImportRegistrationResolver();
+    this.instrumentation =
+        instrumentation ? new MicrometerInstrumentation(identifier, "roo.service", entity,
+            importResolver) : null;
     this.entity = entity;
     this.repository = repository;
     this.findAllIterableMethod = serviceMetadata.getCurrentFindAllIterableMethod();
@@ -208,6 +215,13 @@ public class ServiceImplMetadata extends AbstractItdTypeDetailsProvidingMetadata
       ensureGovernorHasMethod(new MethodMetadataBuilder(getMethod(method)));
     }
 
+    // Add the meters of the instrumented methods
+    if (this.instrumentation != null) {
+      for (FieldMetadata meter : this.instrumentation.getFields()) {
+        ensureGovernorHasField(new FieldMetadataBuilder(meter));
+      }
+    }
+
     // Build the ITD
     itdTypeDetails = builder.build();
   }
@@ -523,6 +537,11 @@ public class ServiceImplMetadata extends AbstractItdTypeDetailsProvidingMetadata
       return existingMethod;
     }
 
+    // Every generated method, including the relation ones, gets here
+    if (instrumentation != null) {
+      bodyBuilder = instrumentation.instrument(methodToBeImplemented.getMethodName(), bodyBuilder);
+    }
+
     // Use the MethodMetadataBuilder for easy creation of MethodMetadata
     MethodMetadataBuilder methodBuilder =
         new MethodMetadataBuilder(getId(), Modifier.PUBLIC, methodToBeImplemented.getMethodName(),
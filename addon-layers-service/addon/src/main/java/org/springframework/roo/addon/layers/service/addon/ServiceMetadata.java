@@ -21,6 +21,7 @@ import org.springframework.roo.classpath.operations.Cardinality;
 import org.springframework.roo.metadata.MetadataIdentificationUtils;
 import org.springframework.roo.model.JavaSymbolName;
 import org.springframework.roo.model.JavaType;
+import org.springframework.roo.model.JdkJavaType;
 import org.springframework.roo.project.LogicalPath;
 
 import java.lang.reflect.Modifier;
@@ -68,6 +69,8 @@ public class ServiceMetadata extends AbstractItdTypeDetailsProvidingMetadataItem
   private final MethodMetadata findAllIterableMethod;
   private final MethodMetadata countMethod;
   private final MethodMetadata findAllWithGlobalSearchMethod;
+  private final MethodMetadata streamAllMethod;
+  private final MethodMetadata sumVersionsMethod;
   private final Map<JavaType, JpaEntityMetadata> relatedEntitiesMetadata;
   private final Set<MethodMetadata> allMethods;
   private final Map<RelationInfo, MethodMetadata> addToRelationMethods;
@@ -205,6 +208,8 @@ public class ServiceMetadata extends AbstractItdTypeDetailsProvidingMetadataItem
       this.findAllMethod = null;
       this.countMethod = null;
       this.findAllWithGlobalSearchMethod = null;
+      this.streamAllMethod = null;
+      this.sumVersionsMethod = null;
 
     } else {
       // Add standard finders methods
@@ -220,6 +225,19 @@ public class ServiceMetadata extends AbstractItdTypeDetailsProvidingMetadataItem
       this.findAllWithGlobalSearchMethod = getFindAllGlobalSearchMethod();
       notTransactionalDefinedMethod.add(findAllWithGlobalSearchMethod);
       ensureGovernorHasMethod(new MethodMetadataBuilder(findAllWithGlobalSearchMethod));
+
+      this.streamAllMethod = getStreamAllMethod();
+      notTransactionalDefinedMethod.add(streamAllMethod);
+      ensureGovernorHasMethod(new MethodMetadataBuilder(streamAllMethod));
+
+      if (entityMetadata.getCurrentVersionField() == null
+          || !JdkJavaType.isIntegerType(entityMetadata.getCurrentVersionField().getFieldType())) {
+        this.sumVersionsMethod = null;
+      } else {
+        this.sumVersionsMethod = getSumVersionsMethod();
+        notTransactionalDefinedMethod.add(sumVersionsMethod);
+        ensureGovernorHasMethod(new MethodMetadataBuilder(sumVersionsMethod));
+      }
     }
 
     // Add relation management methods
@@ -554,6 +572,70 @@ public class ServiceMetadata extends AbstractItdTypeDetailsProvidingMetadataItem
     // instance
   }
 
+  /**
+   * Method that generates method "streamAll" method. The returned stream
+   * must be consumed and closed within a transaction.
+   *
+   * @return MethodMetadataBuilder with public Stream <Entity> streamAll();
+   *         structure
+   */
+  private MethodMetadata getStreamAllMethod() {
+    // Define method name
+    JavaSymbolName methodName = new JavaSymbolName("streamAll");
+
+    // Define method parameter types
+    List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+
+    // Define method parameter names
+    List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+
+    MethodMetadata existingMethod =
+        getGovernorMethod(methodName,
+            AnnotatedJavaType.convertFromAnnotatedJavaTypes(parameterTypes));
+    if (existingMethod != null) {
+      return existingMethod;
+    }
+
+    // Use the MethodMetadataBuilder for easy creation of MethodMetadata
+    MethodMetadataBuilder methodBuilder =
+        new MethodMetadataBuilder(getId(), Modifier.PUBLIC + Modifier.ABSTRACT, methodName,
+            JavaType.wrapperOf(JdkJavaType.STREAM, entity), parameterTypes, parameterNames, null);
+
+    return methodBuilder.build(); // Build and return a MethodMetadata
+    // instance
+  }
+
+  /**
+   * Method that generates method "sumVersions" method.
+   *
+   * @return MethodMetadataBuilder with public Long sumVersions(); structure
+   */
+  private MethodMetadata getSumVersionsMethod() {
+    // Define method name
+    JavaSymbolName methodName = new JavaSymbolName("sumVersions");
+
+    // Define method parameter types
+    List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+
+    // Define method parameter names
+    List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+
+    MethodMetadata existingMethod =
+        getGovernorMethod(methodName,
+            AnnotatedJavaType.convertFromAnnotatedJavaTypes(parameterTypes));
+    if (existingMethod != null) {
+      return existingMethod;
+    }
+
+    // Use the MethodMetadataBuilder for easy creation of MethodMetadata
+    MethodMetadataBuilder methodBuilder =
+        new MethodMetadataBuilder(getId(), Modifier.PUBLIC + Modifier.ABSTRACT, methodName,
+            JavaType.LONG_OBJECT, parameterTypes, parameterNames, null);
+
+    return methodBuilder.build(); // Build and return a MethodMetadata
+    // instance
+  }
+
   /**
    * Method that generates method "findAll" with iterable parameter.
    *
@@ -1061,6 +1143,21 @@ public class ServiceMetadata extends AbstractItdTypeDetailsProvidingMetadataItem
     return this.findAllWithGlobalSearchMethod;
   }
 
+  /**
+   * @return method streamAll() implemented in service
+   */
+  public MethodMetadata getCurrentStreamAllMethod() {
+    return this.streamAllMethod;
+  }
+
+  /**
+   * @return method sumVersions() implemented in service, or null if the
+   *         entity has no numeric version field
+   */
+  public MethodMetadata getCurrentSumVersionsMethod() {
+    return this.sumVersionsMethod;
+  }
+
   /**
    * @return methods addToRelation generated in service
    */
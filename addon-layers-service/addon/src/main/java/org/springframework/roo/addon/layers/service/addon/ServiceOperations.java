@@ -27,9 +27,11 @@ public interface ServiceOperations {
    * @param repositoryType repository related with service
    * @param interfaceType service interface to generate
    * @param implType service implementation to generate. 
+   * @param instrumentation whether the generated methods should record
+   *            Micrometer metrics
    */
   void addService(JavaType domainType, JavaType repositoryType, JavaType interfaceType,
-      JavaType implType);
+      JavaType implType, boolean instrumentation);
 
   /**
    * Generates new service interface and its implementation for some specific
@@ -47,7 +49,9 @@ public interface ServiceOperations {
    * 
    * @param apiPackage
    * @param implPackage
+   * @param instrumentation whether the generated methods should record
+   *            Micrometer metrics
    */
-  void addAllServices(JavaPackage apiPackage, JavaPackage implPackage);
+  void addAllServices(JavaPackage apiPackage, JavaPackage implPackage, boolean instrumentation);
 
 }
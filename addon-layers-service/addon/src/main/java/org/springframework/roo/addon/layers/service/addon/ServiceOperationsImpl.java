@@ -9,7 +9,9 @@ import org.apache.commons.lang3.Validate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.Service;
+import org.springframework.roo.addon.layers.repository.jpa.addon.MicrometerInstrumentation;
 import org.springframework.roo.addon.layers.repository.jpa.addon.RepositoryJpaLocator;
+import org.springframework.roo.addon.layers.service.annotations.RooServiceImpl;
 import org.springframework.roo.classpath.PhysicalTypeCategory;
 import org.springframework.roo.classpath.PhysicalTypeIdentifier;
 import org.springframework.roo.classpath.TypeLocationService;
@@ -68,7 +70,8 @@ public class ServiceOperationsImpl implements ServiceOperations {
   }
 
   @Override
-  public void addAllServices(JavaPackage apiPackage, JavaPackage implPackage) {
+  public void addAllServices(JavaPackage apiPackage, JavaPackage implPackage,
+      boolean instrumentation) {
     Validate.notNull(apiPackage.getModule(), "ApiPackage module is required");
     Validate.notNull(implPackage.getModule(), "ImplPackage module is required");
 
@@ -95,7 +98,8 @@ public class ServiceOperationsImpl implements ServiceOperations {
                   implPackage.getModule());
 
           // Delegates on individual service creator
-          addService(domainType.getType(), repository.getName(), interfaceType, implType);
+          addService(domainType.getType(), repository.getName(), interfaceType, implType,
+              instrumentation);
         }
       }
     }
@@ -144,12 +148,12 @@ public class ServiceOperationsImpl implements ServiceOperations {
       return;
     }
 
-    addService(domainType, repository.getName(), interfaceType, implType);
+    addService(domainType, repository.getName(), interfaceType, implType, false);
   }
 
   @Override
   public void addService(final JavaType domainType, JavaType repositoryType,
-      JavaType interfaceType, JavaType implType) {
+      JavaType interfaceType, JavaType implType, boolean instrumentation) {
     Validate.notNull(domainType, "ERROR: Domain type required to be able to generate service.");
     if (projectOperations.isMultimoduleProject()) {
       Validate
@@ -198,7 +202,7 @@ public class ServiceOperationsImpl implements ServiceOperations {
     createServiceInterface(domainType, interfaceType);
 
     // Generating service implementation
-    createServiceImplementation(interfaceType, implType, repository, domainType);
+    createServiceImplementation(interfaceType, implType, repository, domainType, instrumentation);
   }
 
   /**
@@ -257,9 +261,10 @@ public class ServiceOperationsImpl implements ServiceOperations {
    * @param interfaceType
    * @param implType
    * @param domainType
+   * @param instrumentation
    */
   private void createServiceImplementation(final JavaType interfaceType, JavaType implType,
-      ClassOrInterfaceTypeDetails repository, JavaType domainType) {
+      ClassOrInterfaceTypeDetails repository, JavaType domainType, boolean instrumentation) {
     Validate.notNull(interfaceType,
         "ERROR: Interface should be provided to be able to generate its implementation");
     Validate.notNull(interfaceType.getModule(), "ERROR: Interface module is required");
@@ -286,6 +291,9 @@ public class ServiceOperationsImpl implements ServiceOperations {
         new AnnotationMetadataBuilder(ROO_SERVICE_IMPL);
     implAnnotationMetadata.addAttribute(new ClassAttributeValue(new JavaSymbolName("service"),
         interfaceType));
+    if (instrumentation) {
+      implAnnotationMetadata.addBooleanAttribute(RooServiceImpl.INSTRUMENTATION_ATTRIBUTE, true);
+    }
 
     // Creating class builder
     final String implMid =
@@ -314,5 +322,11 @@ public class ServiceOperationsImpl implements ServiceOperations {
           "spring-tx", "", DependencyType.JAR, DependencyScope.COMPILE));
     }
 
+    // The instrumented methods register their meters with Micrometer
+    if (instrumentation) {
+      projectOperations.addProperty("", MicrometerInstrumentation.VERSION_PROPERTY);
+      projectOperations.addDependency(implType.getModule(), MicrometerInstrumentation.DEPENDENCY);
+    }
+
   }
 }
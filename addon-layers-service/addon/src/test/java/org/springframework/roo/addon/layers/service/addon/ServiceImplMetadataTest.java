@@ -0,0 +1,181 @@
+package org.springframework.roo.addon.layers.service.addon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.roo.addon.jpa.addon.entity.JpaEntityMetadata;
+import org.springframework.roo.addon.jpa.addon.entity.JpaEntityMetadata.RelationInfo;
+import org.springframework.roo.addon.jpa.annotations.entity.JpaRelationType;
+import org.springframework.roo.classpath.PhysicalTypeCategory;
+import org.springframework.roo.classpath.PhysicalTypeIdentifier;
+import org.springframework.roo.classpath.PhysicalTypeMetadata;
+import org.springframework.roo.classpath.details.ClassOrInterfaceTypeDetails;
+import org.springframework.roo.classpath.details.ClassOrInterfaceTypeDetailsBuilder;
+import org.springframework.roo.classpath.details.FieldMetadata;
+import org.springframework.roo.classpath.details.FieldMetadataBuilder;
+import org.springframework.roo.classpath.details.MethodMetadata;
+import org.springframework.roo.classpath.details.MethodMetadataBuilder;
+import org.springframework.roo.classpath.details.annotations.AnnotatedJavaType;
+import org.springframework.roo.classpath.itd.InvocableMemberBodyBuilder;
+import org.springframework.roo.classpath.operations.Cardinality;
+import org.springframework.roo.model.DataType;
+import org.springframework.roo.model.JavaSymbolName;
+import org.springframework.roo.model.JavaType;
+import org.springframework.roo.project.LogicalPath;
+import org.springframework.roo.project.Path;
+
+/**
+ * Unit test of the instrumentation of the relation methods generated by
+ * {@link ServiceImplMetadata}
+ *
+ * @since 2.0
+ */
+public class ServiceImplMetadataTest {
+
+  private static final JavaType CUSTOMER = new JavaType("org.example.Customer");
+  private static final JavaType CUSTOMER_REPOSITORY = new JavaType(
+      "org.example.CustomerRepository");
+  private static final JavaType CUSTOMER_SERVICE = new JavaType("org.example.CustomerService");
+  private static final JavaType CUSTOMER_SERVICE_IMPL = new JavaType(
+      "org.example.CustomerServiceImpl");
+  private static final JavaType ORDER = new JavaType("org.example.Order");
+  private static final JavaType ORDER_SERVICE = new JavaType("org.example.OrderService");
+  private static final LogicalPath PATH = LogicalPath.getInstance(Path.SRC_MAIN_JAVA, "");
+  private static final String METADATA_ID = ServiceImplMetadata.createIdentifier(
+      CUSTOMER_SERVICE_IMPL, PATH);
+
+  private static MethodMetadata getMethod(final String name, final JavaType returnType,
+      final JavaType... parameterTypes) {
+    final List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+    for (int i = 0; i < parameterTypes.length; i++) {
+      parameterNames.add(new JavaSymbolName("param" + i));
+    }
+    return new MethodMetadataBuilder(METADATA_ID, Modifier.PUBLIC, new JavaSymbolName(name),
+        returnType, AnnotatedJavaType.convertFromJavaTypes(parameterTypes), parameterNames,
+        new InvocableMemberBodyBuilder()).build();
+  }
+
+  private PhysicalTypeMetadata mockGovernorPhysicalType;
+  private ServiceMetadata mockOrderServiceMetadata;
+  private ServiceMetadata mockServiceMetadata;
+
+  @Before
+  public void setUp() {
+    final ClassOrInterfaceTypeDetails governor =
+        new ClassOrInterfaceTypeDetailsBuilder(PhysicalTypeIdentifier.createIdentifier(
+            CUSTOMER_SERVICE_IMPL, PATH), Modifier.PUBLIC, CUSTOMER_SERVICE_IMPL,
+            PhysicalTypeCategory.CLASS).build();
+    mockGovernorPhysicalType = mock(PhysicalTypeMetadata.class);
+    when(mockGovernorPhysicalType.getMemberHoldingTypeDetails()).thenReturn(governor);
+    mockOrderServiceMetadata = mock(ServiceMetadata.class);
+    when(mockOrderServiceMetadata.getDestination()).thenReturn(ORDER_SERVICE);
+
+    final JavaType orderIds =
+        new JavaType(Iterable.class.getName(), 0, DataType.TYPE, null,
+            Arrays.asList(JavaType.LONG_OBJECT));
+    final FieldMetadata ordersField =
+        new FieldMetadataBuilder(METADATA_ID, Modifier.PRIVATE, new JavaSymbolName("orders"),
+            new JavaType(List.class.getName(), 0, DataType.TYPE, null, Arrays.asList(ORDER)),
+            null).build();
+    final RelationInfo orders =
+        new RelationInfo(CUSTOMER, "orders", getMethod("addToOrders", JavaType.VOID_PRIMITIVE,
+            orderIds), getMethod("removeFromOrders", JavaType.VOID_PRIMITIVE, orderIds),
+            Cardinality.ONE_TO_MANY, ORDER, ordersField, "customer",
+            JpaRelationType.AGGREGATION) {};
+
+    mockServiceMetadata = mock(ServiceMetadata.class);
+    when(mockServiceMetadata.getCurrentSaveMethod()).thenReturn(
+        getMethod("save", CUSTOMER, CUSTOMER));
+    when(mockServiceMetadata.getCountByReferenceFieldDefinedMethod()).thenReturn(
+        new HashMap<FieldMetadata, MethodMetadata>());
+    when(mockServiceMetadata.getReferencedFieldsFindAllDefinedMethods()).thenReturn(
+        new HashMap<FieldMetadata, MethodMetadata>());
+    when(mockServiceMetadata.getTransactionalDefinedMethods()).thenReturn(
+        new ArrayList<MethodMetadata>());
+    when(mockServiceMetadata.getNotTransactionalDefinedMethods()).thenReturn(
+        new ArrayList<MethodMetadata>());
+    when(mockServiceMetadata.getAddToRelationMethods()).thenReturn(
+        Collections.singletonMap(orders, getMethod("addToOrders", CUSTOMER, CUSTOMER, orderIds)));
+    when(mockServiceMetadata.getRemoveFromRelationMethods()).thenReturn(
+        Collections.singletonMap(orders,
+            getMethod("removeFromOrders", CUSTOMER, CUSTOMER, orderIds)));
+    when(mockServiceMetadata.getSetRelationMethods()).thenReturn(
+        Collections.singletonMap(orders, getMethod("setOrders", CUSTOMER, CUSTOMER, orderIds)));
+  }
+
+  private ServiceImplMetadata getMetadata(final boolean instrumentation) {
+    final Map<JavaType, ServiceMetadata> requiredServicesByEntity =
+        Collections.singletonMap(ORDER, mockOrderServiceMetadata);
+    return new ServiceImplMetadata(METADATA_ID, new JavaType(
+        "org.example.CustomerServiceImpl_Roo_Service_Impl"), mockGovernorPhysicalType,
+        CUSTOMER_SERVICE, CUSTOMER_REPOSITORY, null, CUSTOMER, mock(JpaEntityMetadata.class),
+        mockServiceMetadata, requiredServicesByEntity,
+        new ArrayList<Pair<FieldMetadata, RelationInfo>>(), instrumentation);
+  }
+
+  private MethodMetadata getDeclaredMethod(final ServiceImplMetadata metadata, final String name) {
+    for (final MethodMetadata method : metadata.getMemberHoldingTypeDetails()
+        .getDeclaredMethods()) {
+      if (method.getMethodName().getSymbolName().equals(name)) {
+        return method;
+      }
+    }
+    return null;
+  }
+
+  private List<String> getDeclaredFieldNames(final ServiceImplMetadata metadata) {
+    final List<String> fieldNames = new ArrayList<String>();
+    for (final FieldMetadata field : metadata.getMemberHoldingTypeDetails().getDeclaredFields()) {
+      fieldNames.add(field.getFieldName().getSymbolName());
+    }
+    return fieldNames;
+  }
+
+  @Test
+  public void testRelationMethodsAreInstrumented() {
+    // Invoke
+    final ServiceImplMetadata metadata = getMetadata(true);
+
+    // Check
+    final Map<String, String> constantPrefixes = new HashMap<String, String>();
+    constantPrefixes.put("addToOrders", "ADD_TO_ORDERS_");
+    constantPrefixes.put("removeFromOrders", "REMOVE_FROM_ORDERS_");
+    constantPrefixes.put("setOrders", "SET_ORDERS_");
+    for (final Map.Entry<String, String> entry : constantPrefixes.entrySet()) {
+      final MethodMetadata method = getDeclaredMethod(metadata, entry.getKey());
+      assertNotNull(entry.getKey(), method);
+      final String constantPrefix = entry.getValue();
+      assertTrue(method.getBody(), method.getBody().contains(constantPrefix + "TIMER.record("));
+      assertTrue(method.getBody(),
+          method.getBody().contains(constantPrefix + "ERRORS.increment()"));
+      assertTrue(getDeclaredFieldNames(metadata).contains(constantPrefix + "TIMER"));
+      assertTrue(getDeclaredFieldNames(metadata).contains(constantPrefix + "ERRORS"));
+    }
+  }
+
+  @Test
+  public void testRelationMethodsAreNotInstrumentedByDefault() {
+    // Invoke
+    final ServiceImplMetadata metadata = getMetadata(false);
+
+    // Check
+    final MethodMetadata method = getDeclaredMethod(metadata, "setOrders");
+    assertEquals(false, method.getBody().contains("TIMER"));
+    assertEquals(Arrays.asList("customerRepository", "orderService"),
+        getDeclaredFieldNames(metadata));
+  }
+}
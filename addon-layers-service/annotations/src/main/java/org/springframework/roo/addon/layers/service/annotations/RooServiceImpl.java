@@ -21,6 +21,11 @@ public @interface RooServiceImpl {
    */
   String SERVICE_ATTRIBUTE = "service";
 
+  /**
+   * The name of this annotation's "instrumentation" attribute
+   */
+  String INSTRUMENTATION_ATTRIBUTE = "instrumentation";
+
   /**
    * Returns the service implemented by current class
    * 
@@ -28,4 +33,13 @@ public @interface RooServiceImpl {
    */
   Class<?> service();
 
+  /**
+   * Indicates whether the generated methods, including the addTo, removeFrom
+   * and set relation methods, record a Micrometer timer and error counter,
+   * tagged with the entity and method names
+   * 
+   * @return <code>false</code> by default, so that nothing is generated
+   */
+  boolean instrumentation() default false;
+
 }
@@ -9,6 +9,7 @@ import org.springframework.roo.classpath.PhysicalTypeCategory;
 import org.springframework.roo.classpath.PhysicalTypeIdentifier;
 import org.springframework.roo.classpath.TypeLocationService;
 import org.springframework.roo.classpath.TypeManagementService;
+import org.springframework.roo.classpath.TypeParsingService;
 import org.springframework.roo.classpath.details.ClassOrInterfaceTypeDetails;
 import org.springframework.roo.classpath.details.ClassOrInterfaceTypeDetailsBuilder;
 import org.springframework.roo.classpath.details.ConstructorMetadata;
@@ -34,10 +35,19 @@ import org.springframework.roo.project.ProjectOperations;
 import org.springframework.roo.support.logging.HandlerUtils;
 import org.springframework.roo.support.osgi.ServiceInstaceManager;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
@@ -75,6 +85,7 @@ public class PushInOperationsImpl implements PushInOperations {
 
     List<Object> pushedElements = new ArrayList<Object>();
     List<JavaPackage> projectPackages = new ArrayList<JavaPackage>();
+    List<JavaType> typesToPushIn = new ArrayList<JavaType>();
 
     // Getting all JavaTypes on current project
     for (String moduleName : getProjectOperations().getModuleNames()) {
@@ -100,13 +111,18 @@ public class PushInOperationsImpl implements PushInOperations {
         }
       } else {
         for (JavaPackage modulePackage : packagesForModule) {
-          pushIn(modulePackage, null, null, writeOnDisk);
-          getFileManager().scan();
+          for (JavaType declaredType : allDeclaredTypes) {
+            if (declaredType.getPackage().equals(modulePackage)) {
+              typesToPushIn.add(declaredType);
+            }
+          }
         }
       }
     }
 
-    if (!force) {
+    if (force) {
+      pushedElements.addAll(pushInTypes(typesToPushIn, writeOnDisk));
+    } else {
       LOGGER
           .log(
               Level.INFO,
@@ -239,6 +255,121 @@ public class PushInOperationsImpl implements PushInOperations {
 
     List<Object> pushedElements = new ArrayList<Object>();
 
+    // String builder where changes will be registered
+    StringBuilder changesToApply = new StringBuilder();
+
+    ClassOrInterfaceTypeDetails pushedInDetails =
+        getPushedInDetails(klass, pushedElements, changesToApply);
+    if (pushedInDetails == null) {
+      return pushedElements;
+    }
+
+    // Updating .java file
+    if (!force) {
+      // Show message to be able to know which changes will be applied
+      if (changesToApply.length() > 0) {
+        LOGGER.log(Level.INFO, changesToApply.toString());
+      }
+    } else if (writeOnDisk) {
+      getTypeManagementService().createOrUpdateTypeOnDisk(pushedInDetails);
+    }
+
+    return pushedElements;
+  }
+
+  /**
+   * Makes push-in of all items defined on the provided classes at once,
+   * which is much faster than pushing them in one by one: the details of
+   * every class are obtained before anything is written, the new .java
+   * contents are computed in parallel, and the files are written together
+   * and scanned once.
+   * 
+   * @param types
+   *            classes to make the push-in operation
+   * @param writeOnDisk
+   *            indicates if pushed elements should be writed on .java files
+   * 
+   * @return list of objects with all the pushed elements.
+   */
+  private List<Object> pushInTypes(List<JavaType> types, boolean writeOnDisk) {
+
+    List<Object> pushedElements = new ArrayList<Object>();
+
+    // Metadata is not thread-safe, so all the details are obtained here,
+    // before any .java file changes
+    final Map<String, ClassOrInterfaceTypeDetails> detailsToWrite =
+        new LinkedHashMap<String, ClassOrInterfaceTypeDetails>();
+    for (JavaType type : types) {
+      ClassOrInterfaceTypeDetails pushedInDetails =
+          getPushedInDetails(type, pushedElements, new StringBuilder());
+      if (pushedInDetails != null) {
+        detailsToWrite.put(getTypeLocationService().getPhysicalTypeCanonicalPath(
+            pushedInDetails.getDeclaredByMetadataId()), pushedInDetails);
+      }
+    }
+
+    if (!writeOnDisk || detailsToWrite.isEmpty()) {
+      return pushedElements;
+    }
+
+    // Merging the details into the existing compilation units only involves
+    // parsing and printing Java sources, so it can be done in parallel
+    final TypeParsingService typeParsingService = getTypeParsingService();
+    final ExecutorService executor =
+        Executors.newFixedThreadPool(Math.min(detailsToWrite.size(), Runtime.getRuntime()
+            .availableProcessors()));
+    try {
+      final Map<String, Future<String>> newContents = new LinkedHashMap<String, Future<String>>();
+      for (final Entry<String, ClassOrInterfaceTypeDetails> entry : detailsToWrite.entrySet()) {
+        newContents.put(entry.getKey(), executor.submit(new Callable<String>() {
+          public String call() {
+            final File file = new File(entry.getKey());
+            if (file.isFile()) {
+              return typeParsingService.updateAndGetCompilationUnitContents(entry.getKey(),
+                  entry.getValue());
+            }
+            return typeParsingService.getCompilationUnitContents(entry.getValue());
+          }
+        }));
+      }
+
+      // Deferred writes, so that all of them are committed together
+      for (final Entry<String, Future<String>> entry : newContents.entrySet()) {
+        getFileManager().createOrUpdateTextFileIfRequired(entry.getKey(),
+            entry.getValue().get(), false);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Push-in was interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+
+    getFileManager().commit();
+    getFileManager().scan();
+
+    return pushedElements;
+  }
+
+  /**
+   * Obtains the details of a provided class including all items defined on
+   * its ITDs
+   * 
+   * @param klass
+   *            class to make the push-in operation
+   * @param pushedElements
+   *            list where the pushed elements are added
+   * @param changesToApply
+   *            where a description of the changes is appended
+   * 
+   * @return the details to write on the .java file, or null if the class has
+   *         not associated ITDs
+   */
+  private ClassOrInterfaceTypeDetails getPushedInDetails(JavaType klass,
+      List<Object> pushedElements, StringBuilder changesToApply) {
+
     // Check if current klass exists
     Validate
         .notNull(klass, "ERROR: You must specify a valid class to continue with push-in action");
@@ -248,9 +379,6 @@ public class PushInOperationsImpl implements PushInOperations {
     Validate
         .notNull(klass, "ERROR: You must specify a valid class to continue with push-in action");
 
-    // String builder where changes will be registered
-    StringBuilder changesToApply = new StringBuilder();
-
     // Getting member details
     MemberDetails memberDetails =
         getMemberDetailsScanner().getMemberDetails(getClass().getName(), classDetails);
@@ -259,7 +387,7 @@ public class PushInOperationsImpl implements PushInOperations {
     // Return if the class has not associated ITD's
     if (memberHoldingTypes.size() == 1
         && memberHoldingTypes.get(0).getPhysicalTypeCategory() != PhysicalTypeCategory.ITD) {
-      return pushedElements;
+      return null;
     }
 
     // Check if the provided class is a test to be able to select valid
@@ -337,8 +465,6 @@ public class PushInOperationsImpl implements PushInOperations {
       // constructors
       for (ConstructorMetadata constructor : allDeclaredConstructors) {
         // Check if current constructor exists on .java file
-        classDetails = getTypeLocationService().getTypeDetails(detailsBuilder.build().getType());
-
         List<JavaType> parameterTypes = new ArrayList<JavaType>();
         for (AnnotatedJavaType type : constructor.getParameterTypes()) {
           parameterTypes.add(type.getJavaType());
@@ -371,7 +497,6 @@ public class PushInOperationsImpl implements PushInOperations {
       List<AnnotationMetadata> allDeclaredAnnotations = memberHoldingTypeDetails.getAnnotations();
       for (AnnotationMetadata annotation : allDeclaredAnnotations) {
         // Check if current annotation exists on .java file
-        classDetails = getTypeLocationService().getTypeDetails(detailsBuilder.build().getType());
         List<AnnotationMetadata> javaDeclaredAnnotations = classDetails.getAnnotations();
         boolean annotationExists = false;
         for (AnnotationMetadata javaAnnotation : javaDeclaredAnnotations) {
@@ -429,17 +554,7 @@ public class PushInOperationsImpl implements PushInOperations {
 
     }
 
-    // Updating .java file
-    if (!force) {
-      // Show message to be able to know which changes will be applied
-      if (changesToApply.length() > 0) {
-        LOGGER.log(Level.INFO, changesToApply.toString());
-      }
-    } else if (writeOnDisk) {
-      getTypeManagementService().createOrUpdateTypeOnDisk(detailsBuilder.build());
-    }
-
-    return pushedElements;
+    return detailsBuilder.build();
   }
 
   /**
@@ -661,6 +776,15 @@ public class PushInOperationsImpl implements PushInOperations {
     return serviceManager.getServiceInstance(this, TypeManagementService.class);
   }
 
+  /**
+   * Method to obtain TypeParsingService service implementation
+   * 
+   * @return
+   */
+  public TypeParsingService getTypeParsingService() {
+    return serviceManager.getServiceInstance(this, TypeParsingService.class);
+  }
+
   /**
    * Method to obtain PathResolver service implementation
    * 
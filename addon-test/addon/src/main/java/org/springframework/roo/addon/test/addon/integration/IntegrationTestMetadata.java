@@ -1,6 +1,9 @@
 package org.springframework.roo.addon.test.addon.integration;
 
+import static org.springframework.roo.model.JpaJavaType.ENTITY_MANAGER;
+import static org.springframework.roo.model.JpaJavaType.PERSISTENCE_CONTEXT;
 import static org.springframework.roo.model.SpringJavaType.AUTOWIRED;
+import static org.springframework.roo.model.SpringJavaType.PLATFORM_TRANSACTION_MANAGER;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
@@ -72,6 +75,11 @@ public class IntegrationTestMetadata extends AbstractItdTypeDetailsProvidingMeta
         metadataIdentificationString);
   }
 
+  private static final JavaSymbolName ENTITY_MANAGER_FIELD = new JavaSymbolName("entityManager");
+  private static final JavaSymbolName TRANSACTION_MANAGER_FIELD = new JavaSymbolName(
+      "transactionManager");
+
+  private boolean batchedDataOnDemand;
   private JavaType dataOnDemandType;
   private List<MethodMetadata> methods = new ArrayList<MethodMetadata>();
   private JavaType repository;
@@ -84,13 +92,16 @@ public class IntegrationTestMetadata extends AbstractItdTypeDetailsProvidingMeta
    * @param governorPhysicalTypeMetadata
    * @param repository
    * @param dataOnDemandType
+   * @param batchedDataOnDemand whether the DoD seeds in batches, so is also
+   *            created with the entity manager and the transaction manager
    * @param methods
    */
   public IntegrationTestMetadata(String identifier, JavaType aspectName,
       PhysicalTypeMetadata governorPhysicalTypeMetadata, JavaType repository,
-      JavaType dataOnDemandType, List<MethodMetadata> methods) {
+      JavaType dataOnDemandType, boolean batchedDataOnDemand, List<MethodMetadata> methods) {
     super(identifier, aspectName, governorPhysicalTypeMetadata);
 
+    this.batchedDataOnDemand = batchedDataOnDemand;
     this.dataOnDemandType = dataOnDemandType;
     this.methods = methods;
     this.repository = repository;
@@ -152,11 +163,14 @@ public class IntegrationTestMetadata extends AbstractItdTypeDetailsProvidingMeta
 
     final InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
 
-    // dod = new [ENTITY]DataOnDemand();
+    // dod = new [ENTITY]DataOnDemand(repository[, entityManager, transactionManager]);
+    String arguments = StringUtils.uncapitalize(repository.getSimpleTypeName());
+    if (batchedDataOnDemand) {
+      arguments += ", " + ENTITY_MANAGER_FIELD + ", " + TRANSACTION_MANAGER_FIELD;
+    }
     bodyBuilder.newLine();
     bodyBuilder.appendFormalLine(String.format("dod = new %s(%s);",
-        dataOnDemandType.getSimpleTypeName(),
-        StringUtils.uncapitalize(repository.getSimpleTypeName())));
+        dataOnDemandType.getSimpleTypeName(), arguments));
 
     bodyBuilder.newLine();
     bodyBuilder.appendFormalLine("// Setup needed before executing each test method");
@@ -265,9 +279,40 @@ public class IntegrationTestMetadata extends AbstractItdTypeDetailsProvidingMeta
       builder.addField(fieldBuilderRepo);
     }
 
+    // Add the fields a DoD seeding in batches is created with, if the user
+    // did not define them on the governor directly
+    if (batchedDataOnDemand) {
+      ensureGovernorHasInjectedField(ENTITY_MANAGER_FIELD, ENTITY_MANAGER, PERSISTENCE_CONTEXT);
+      ensureGovernorHasInjectedField(TRANSACTION_MANAGER_FIELD, PLATFORM_TRANSACTION_MANAGER,
+          AUTOWIRED);
+    }
+
     builder.getImportRegistrationResolver().addImport(ASSERT);
   }
 
+  /**
+   * Adds the given field, injected with the given annotation, via the ITD
+   * unless the governor already declares a field of the given type with that
+   * name.
+   *
+   * @param fieldName the name of the field
+   * @param fieldType the type of the field
+   * @param injectionAnnotation the annotation injecting the field
+   */
+  private void ensureGovernorHasInjectedField(JavaSymbolName fieldName, JavaType fieldType,
+      JavaType injectionAnnotation) {
+    final FieldMetadata field = governorTypeDetails.getField(fieldName);
+    if (field != null) {
+      Validate.isTrue(field.getFieldType().equals(fieldType),
+          "Field '%s' on '%s' must be of type '%s'", fieldName,
+          destination.getFullyQualifiedTypeName(), fieldType.getFullyQualifiedTypeName());
+      return;
+    }
+    final List<AnnotationMetadataBuilder> annotations = new ArrayList<AnnotationMetadataBuilder>();
+    annotations.add(new AnnotationMetadataBuilder(injectionAnnotation));
+    builder.addField(new FieldMetadataBuilder(getId(), 0, annotations, fieldName, fieldType));
+  }
+
   private MethodMetadataBuilder getMethod(MethodMetadata method) {
     final InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
     bodyBuilder.newLine();
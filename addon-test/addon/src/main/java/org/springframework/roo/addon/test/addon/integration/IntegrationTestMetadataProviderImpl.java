@@ -128,15 +128,26 @@ public class IntegrationTestMetadataProviderImpl extends AbstractItdMetadataProv
     JavaType entity = (JavaType) entityAttribute.getValue();
 
     // Get DataOnDemand
-    final JavaType dataOnDemandType = getDataOnDemandType(entity, governorPhysicalTypeMetadata);
+    final ClassOrInterfaceTypeDetails dataOnDemandDetails =
+        getDataOnDemandDetails(entity, governorPhysicalTypeMetadata);
 
-    Validate.notNull(dataOnDemandType, "DataOnDemand of entity %s is necessary.",
+    Validate.notNull(dataOnDemandDetails, "DataOnDemand of entity %s is necessary.",
         entity.getSimpleTypeName());
 
+    // A DoD seeding in batches is created with more arguments, so follow its
+    // batch size
+    getMetadataDependencyRegistry().registerDependency(
+        dataOnDemandDetails.getDeclaredByMetadataId(), metadataIdentificationString);
+    final AnnotationAttributeValue<?> batchSizeAttribute =
+        dataOnDemandDetails.getAnnotation(ROO_DATA_ON_DEMAND).getAttribute("batchSize");
+    final boolean batchedDataOnDemand =
+        batchSizeAttribute != null && (Integer) batchSizeAttribute.getValue() > 0;
+
     List<MethodMetadata> methods = getAllMethods(repository);
 
     return new IntegrationTestMetadata(metadataIdentificationString, aspectName,
-        governorPhysicalTypeMetadata, repository, dataOnDemandType, methods);
+        governorPhysicalTypeMetadata, repository, dataOnDemandDetails.getName(),
+        batchedDataOnDemand, methods);
   }
 
   /**
@@ -177,14 +188,14 @@ public class IntegrationTestMetadataProviderImpl extends AbstractItdMetadataProv
   }
 
   /**
-   * Returns the {@link JavaType} for the given entity's "data on demand"
-   * class.
+   * Returns the details of the given entity's "data on demand" class.
    *
    * @param entity
    *            the entity for which to get the DoD type
-   * @return a non-<code>null</code> type (which may or may not exist yet)
+   * @return the details of the DoD type in the governor's module, or
+   *         <code>null</code> if there is none
    */
-  private JavaType getDataOnDemandType(final JavaType entity,
+  private ClassOrInterfaceTypeDetails getDataOnDemandDetails(final JavaType entity,
       final PhysicalTypeMetadata governorPhysicalTypeMetadata) {
 
     for (final ClassOrInterfaceTypeDetails dodType : getTypeLocationService()
@@ -195,7 +206,7 @@ public class IntegrationTestMetadataProviderImpl extends AbstractItdMetadataProv
           && dodAnnotation.getAttribute("entity").getValue().equals(entity)
           && governorPhysicalTypeMetadata.getType().getModule()
               .equals(dodType.getType().getModule())) {
-        return dodType.getName();
+        return dodType;
       }
     }
     return null;
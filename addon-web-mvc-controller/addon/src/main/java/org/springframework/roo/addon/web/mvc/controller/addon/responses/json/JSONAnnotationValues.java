@@ -0,0 +1,30 @@
+package org.springframework.roo.addon.web.mvc.controller.addon.responses.json;
+
+import org.springframework.roo.addon.web.mvc.controller.annotations.responses.json.RooJSON;
+import org.springframework.roo.classpath.PhysicalTypeMetadata;
+import org.springframework.roo.classpath.details.annotations.populator.AbstractAnnotationValues;
+import org.springframework.roo.classpath.details.annotations.populator.AutoPopulate;
+import org.springframework.roo.classpath.details.annotations.populator.AutoPopulationUtils;
+import org.springframework.roo.model.RooJavaType;
+
+/**
+ * = _JSONAnnotationValues_
+ *
+ * Maps values of {@link RooJSON} annotation
+ *
+ * @since 2.0.0
+ */
+public class JSONAnnotationValues extends AbstractAnnotationValues {
+
+  @AutoPopulate
+  private boolean stream = false;
+
+  public JSONAnnotationValues(final PhysicalTypeMetadata governorPhysicalTypeMetadata) {
+    super(governorPhysicalTypeMetadata, RooJavaType.ROO_JSON);
+    AutoPopulationUtils.populate(this, annotationMetadata);
+  }
+
+  public boolean isStream() {
+    return stream;
+  }
+}
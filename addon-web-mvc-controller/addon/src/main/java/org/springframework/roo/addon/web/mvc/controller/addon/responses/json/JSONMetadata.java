@@ -13,6 +13,7 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.roo.addon.jpa.addon.entity.JpaEntityMetadata;
 import org.springframework.roo.addon.jpa.addon.entity.JpaEntityMetadata.RelationInfo;
 import org.springframework.roo.addon.jpa.annotations.entity.JpaRelationType;
+import org.springframework.roo.addon.layers.repository.jpa.addon.RepositoryJpaMetadata;
 import org.springframework.roo.addon.layers.service.addon.ServiceMetadata;
 import org.springframework.roo.addon.web.mvc.controller.addon.ControllerMetadata;
 import org.springframework.roo.addon.web.mvc.controller.addon.RelationInfoExtended;
@@ -25,6 +26,7 @@ import org.springframework.roo.classpath.details.ClassOrInterfaceTypeDetails;
 import org.springframework.roo.classpath.details.ConstructorMetadata;
 import org.springframework.roo.classpath.details.ConstructorMetadataBuilder;
 import org.springframework.roo.classpath.details.FieldMetadata;
+import org.springframework.roo.classpath.details.FieldMetadataBuilder;
 import org.springframework.roo.classpath.details.MethodMetadata;
 import org.springframework.roo.classpath.details.MethodMetadataBuilder;
 import org.springframework.roo.classpath.details.annotations.AnnotatedJavaType;
@@ -35,6 +37,7 @@ import org.springframework.roo.classpath.itd.InvocableMemberBodyBuilder;
 import org.springframework.roo.metadata.MetadataIdentificationUtils;
 import org.springframework.roo.model.JavaSymbolName;
 import org.springframework.roo.model.JavaType;
+import org.springframework.roo.model.JpaJavaType;
 import org.springframework.roo.model.Jsr303JavaType;
 import org.springframework.roo.model.SpringEnumDetails;
 import org.springframework.roo.model.SpringJavaType;
@@ -86,6 +89,21 @@ public class JSONMetadata extends AbstractItdTypeDetailsProvidingMetadataItem {
   private static final AnnotationMetadataBuilder RESPONSE_BODY_ANNOTATION =
       new AnnotationMetadataBuilder(SpringJavaType.RESPONSE_BODY);
 
+  private static final JavaType HTTP_SERVLET_RESPONSE = new JavaType(
+      "javax.servlet.http.HttpServletResponse");
+  private static final JavaType IO_EXCEPTION = new JavaType("java.io.IOException");
+  private static final JavaType JSON_GENERATOR = new JavaType(
+      "com.fasterxml.jackson.core.JsonGenerator");
+  private static final JavaType OBJECT_MAPPER = new JavaType(
+      "com.fasterxml.jackson.databind.ObjectMapper");
+  private static final JavaType OBJECT_WRITER = new JavaType(
+      "com.fasterxml.jackson.databind.ObjectWriter");
+  private static final JavaType SERIALIZATION_FEATURE = new JavaType(
+      "com.fasterxml.jackson.databind.SerializationFeature");
+  private static final JavaSymbolName RESPONSE_PARAM_NAME = new JavaSymbolName("response");
+  private static final JavaSymbolName REQUEST_PARAM_NAME = new JavaSymbolName("request");
+  private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
   private final boolean readOnly;
   private final ControllerMetadata controllerMetadata;
   private final Map<String, MethodMetadata> finderMethods;
@@ -122,6 +140,9 @@ public class JSONMetadata extends AbstractItdTypeDetailsProvidingMetadataItem {
   private final MethodMetadata deleteDetailMethod;
   private final MethodMetadata showURIMethod;
   private final MethodMetadata listURIMethod;
+  private final MethodMetadata streamMethod;
+  private JavaSymbolName entityManagerFieldName;
+  private JavaSymbolName objectMapperFieldName;
 
   public static String createIdentifier(final JavaType javaType, final LogicalPath path) {
     return PhysicalTypeIdentifierNamingUtils.createIdentifier(PROVIDES_TYPE_STRING, javaType, path);
@@ -171,13 +192,17 @@ public class JSONMetadata extends AbstractItdTypeDetailsProvidingMetadataItem {
    *            list with pairs of {@link RelationInfo} and related child entity {@link JpaEntityMetadata}
    * @param itemController
    * @param findersToAdd
+   * @param stream
+   *            whether a collection controller should provide the "stream"
+   *            method, if the service supports it
    */
   public JSONMetadata(final String identifier, final JavaType aspectName,
       final PhysicalTypeMetadata governorPhysicalTypeMetadata,
       ControllerMetadata controllerMetadata, ServiceMetadata serviceMetadata,
       JpaEntityMetadata entityMetadata, String entityPlural, String entityIdentifierPlural,
       final List<Pair<RelationInfo, JpaEntityMetadata>> compositionRelationOneToOne,
-      final JavaType itemController, final Map<String, MethodMetadata> findersToAdd) {
+      final JavaType itemController, final Map<String, MethodMetadata> findersToAdd,
+      final boolean stream) {
     super(identifier, aspectName, governorPhysicalTypeMetadata);
 
     this.readOnly = entityMetadata.isReadOnly();
@@ -200,7 +225,15 @@ public class JSONMetadata extends AbstractItdTypeDetailsProvidingMetadataItem {
     ensureGovernorIsAnnotated(getRequestMappingAnnotation());
 
 
-    this.constructor = getConstructor();
+    final boolean addStream =
+        stream && this.type == ControllerType.COLLECTION
+            && serviceMetadata.getCurrentStreamAllMethod() != null;
+    if (addStream) {
+      ensureGovernorHasField(getObjectMapperField());
+      ensureGovernorHasField(getEntityManagerField());
+    }
+
+    this.constructor = getConstructor(addStream);
     ensureGovernorHasConstructor(new ConstructorMetadataBuilder(constructor));
 
     List<MethodMetadata> allMethods = new ArrayList<MethodMetadata>();
@@ -209,6 +242,11 @@ public class JSONMetadata extends AbstractItdTypeDetailsProvidingMetadataItem {
       case COLLECTION: {
         this.listMethod = addAndGet(getListMethod(), allMethods);
         this.listURIMethod = addAndGet(getListURIMethod(), allMethods);
+        if (addStream) {
+          this.streamMethod = addAndGet(getStreamMethod(), allMethods);
+        } else {
+          this.streamMethod = null;
+        }
 
         if (readOnly) {
           this.createMethod = null;
@@ -254,6 +292,7 @@ public class JSONMetadata extends AbstractItdTypeDetailsProvidingMetadataItem {
 
         this.listMethod = null;
         this.listURIMethod = null;
+        this.streamMethod = null;
         this.createMethod = null;
         this.createBatchMethod = null;
         this.updateBatchMethod = null;
@@ -282,6 +321,7 @@ public class JSONMetadata extends AbstractItdTypeDetailsProvidingMetadataItem {
 
         this.listMethod = null;
         this.listURIMethod = null;
+        this.streamMethod = null;
         this.createMethod = null;
         this.createBatchMethod = null;
         this.updateBatchMethod = null;
@@ -330,6 +370,7 @@ public class JSONMetadata extends AbstractItdTypeDetailsProvidingMetadataItem {
 
         this.listMethod = null;
         this.listURIMethod = null;
+        this.streamMethod = null;
         this.createMethod = null;
         this.createBatchMethod = null;
         this.updateBatchMethod = null;
@@ -369,6 +410,7 @@ public class JSONMetadata extends AbstractItdTypeDetailsProvidingMetadataItem {
         this.removeFromDetailsBatchMethod = null;
         this.listMethod = null;
         this.listURIMethod = null;
+        this.streamMethod = null;
         this.createMethod = null;
         this.createBatchMethod = null;
         this.updateBatchMethod = null;
@@ -968,9 +1010,10 @@ public class JSONMetadata extends AbstractItdTypeDetailsProvidingMetadataItem {
     body.indent();
     body.appendFormalLine(".fromMethodCall(");
     body.indent();
-    body.appendFormalLine("%s.on(%s.class).%s(null, null))",
+    body.appendFormalLine("%s.on(%s.class).%s(%s))",
         getNameOfJavaType(SpringJavaType.MVC_URI_COMPONENTS_BUILDER),
-        getNameOfJavaType(getDestination()), this.listMethod.getMethodName());
+        getNameOfJavaType(getDestination()), this.listMethod.getMethodName(),
+        StringUtils.repeat("null", ", ", this.listMethod.getParameterTypes().size()));
     body.indentRemove();
     body.appendFormalLine(".build().encode();");
     body.reset();
@@ -1012,9 +1055,11 @@ public class JSONMetadata extends AbstractItdTypeDetailsProvidingMetadataItem {
     body.indent();
     body.appendFormalLine(".fromMethodCall(");
     body.indent();
+    // (the parameters after the entity, like the WebRequest, aren't needed)
     body.appendFormalLine("%s.on(%s.class).%s(%s))",
         getNameOfJavaType(SpringJavaType.MVC_URI_COMPONENTS_BUILDER),
-        getNameOfJavaType(getDestination()), this.showMethod.getMethodName(), entityItemName);
+        getNameOfJavaType(getDestination()), this.showMethod.getMethodName(), entityItemName
+            + StringUtils.repeat(", null", this.showMethod.getParameterTypes().size() - 1));
     body.indentRemove();
     body.appendFormalLine(".buildAndExpand(%s.get%s()).encode();", entityItemName,
         StringUtils.capitalize(entityIdentifier));
@@ -1046,7 +1091,7 @@ public class JSONMetadata extends AbstractItdTypeDetailsProvidingMetadataItem {
     return annotationBuilder;
   }
 
-  private ConstructorMetadata getConstructor() {
+  private ConstructorMetadata getConstructor(final boolean addStream) {
     InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
 
     // Generating constructor
@@ -1062,6 +1107,13 @@ public class JSONMetadata extends AbstractItdTypeDetailsProvidingMetadataItem {
     bodyBuilder
         .appendFormalLine(String.format("this.%s = %s;", serviceFieldName, serviceFieldName));
 
+    if (addStream) {
+
+      // Adding ObjectMapper, required to stream the entities
+      constructor.addParameter(objectMapperFieldName.getSymbolName(), OBJECT_MAPPER);
+      bodyBuilder.appendFormalLine("this.%1$s = %1$s;", objectMapperFieldName);
+    }
+
     if (this.type == ControllerType.DETAIL || this.type == ControllerType.DETAIL_ITEM) {
 
       for (FieldMetadata serviceField : controllerMetadata.getDetailsServiceFields().values()) {
@@ -1218,6 +1270,10 @@ public class JSONMetadata extends AbstractItdTypeDetailsProvidingMetadataItem {
     parameterTypes.add(new AnnotatedJavaType(this.entity, ANN_METADATA_VALID,
         ANN_METADATA_REQUEST_BODY));
     parameterTypes.add(new AnnotatedJavaType(SpringJavaType.BINDING_RESULT));
+    final MethodMetadata versionAccessor = entityMetadata.getCurrentVersionAccessor();
+    if (versionAccessor != null) {
+      parameterTypes.add(new AnnotatedJavaType(SpringJavaType.WEB_REQUEST));
+    }
 
     MethodMetadata existingMethod =
         getGovernorMethod(methodName,
@@ -1232,6 +1288,9 @@ public class JSONMetadata extends AbstractItdTypeDetailsProvidingMetadataItem {
     parameterNames.add(new JavaSymbolName(storedName));
     parameterNames.add(new JavaSymbolName(entityItemName));
     parameterNames.add(new JavaSymbolName("result"));
+    if (versionAccessor != null) {
+      parameterNames.add(REQUEST_PARAM_NAME);
+    }
 
     // Adding annotations
     final List<AnnotationMetadataBuilder> annotations = new ArrayList<AnnotationMetadataBuilder>();
@@ -1244,6 +1303,11 @@ public class JSONMetadata extends AbstractItdTypeDetailsProvidingMetadataItem {
     // Generate body
     InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
 
+    if (versionAccessor != null) {
+      appendIfMatchCheck(bodyBuilder, storedName, versionAccessor.getMethodName(),
+          getNameOfJavaType(RESPONSE_ENTITY), getNameOfJavaType(SpringJavaType.HTTP_STATUS));
+    }
+
     // if (result.hasErrors()) {
     // return new ResponseEntity.status(HttpStatus.CONFLICT).body(result);
     // }
@@ -1270,12 +1334,24 @@ public class JSONMetadata extends AbstractItdTypeDetailsProvidingMetadataItem {
           entityItemName, relationField.getSymbolNameCapitalisedFirstLetter(),
           relatedEntityIdentifier.getSymbolNameCapitalisedFirstLetter(), storedName);
     }
-    // customerService.save(customer);
-    bodyBuilder.appendFormalLine("%s.save(%s);", controllerMetadata.getServiceField()
-        .getFieldName(), entityItemName);
+    if (versionAccessor == null) {
+      // customerService.save(customer);
+      bodyBuilder.appendFormalLine("%s.save(%s);", controllerMetadata.getServiceField()
+          .getFieldName(), entityItemName);
 
-    // return ResponseEntity.ok().build();
-    bodyBuilder.appendFormalLine("return %s.ok().build();", getNameOfJavaType(RESPONSE_ENTITY));
+      // return ResponseEntity.ok().build();
+      bodyBuilder.appendFormalLine("return %s.ok().build();", getNameOfJavaType(RESPONSE_ENTITY));
+    } else {
+      // Customer savedCustomer = customerService.save(customer);
+      final String savedName = "saved".concat(this.entity.getSimpleTypeName());
+      bodyBuilder.appendFormalLine("%s %s = %s.save(%s);", getNameOfJavaType(this.entity),
+          savedName, controllerMetadata.getServiceField().getFieldName(), entityItemName);
+
+      // return ResponseEntity.ok().eTag("\"" + savedCustomer.getVersion() + "\"").build();
+      bodyBuilder.appendFormalLine("return %s.ok().eTag(%s).build();",
+          getNameOfJavaType(RESPONSE_ENTITY),
+          getETagExpression(savedName, versionAccessor.getMethodName()));
+    }
 
     MethodMetadataBuilder methodBuilder =
         new MethodMetadataBuilder(getId(), Modifier.PUBLIC, methodName,
@@ -1350,6 +1426,10 @@ public class JSONMetadata extends AbstractItdTypeDetailsProvidingMetadataItem {
     List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
     parameterTypes.add(new AnnotatedJavaType(SpringletsJavaType.SPRINGLETS_GLOBAL_SEARCH));
     parameterTypes.add(new AnnotatedJavaType(SpringJavaType.PAGEABLE));
+    final MethodMetadata sumVersionsMethod = serviceMetadata.getCurrentSumVersionsMethod();
+    if (sumVersionsMethod != null) {
+      parameterTypes.add(new AnnotatedJavaType(SpringJavaType.WEB_REQUEST));
+    }
 
     MethodMetadata existingMethod =
         getGovernorMethod(methodName,
@@ -1361,6 +1441,9 @@ public class JSONMetadata extends AbstractItdTypeDetailsProvidingMetadataItem {
     final List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
     parameterNames.add(GLOBAL_SEARCH_NAME);
     parameterNames.add(PAGEABLE_PARAM_NAME);
+    if (sumVersionsMethod != null) {
+      parameterNames.add(REQUEST_PARAM_NAME);
+    }
 
     // Adding annotations
     final List<AnnotationMetadataBuilder> annotations = new ArrayList<AnnotationMetadataBuilder>();
@@ -1386,6 +1469,12 @@ public class JSONMetadata extends AbstractItdTypeDetailsProvidingMetadataItem {
 
     final String itemNames = StringUtils.uncapitalize(this.entityPlural);
 
+    if (sumVersionsMethod != null) {
+      appendListNotModifiedCheck(bodyBuilder, controllerMetadata.getServiceField()
+          .getFieldName(), serviceMetadata.getCurrentCountMethod().getMethodName(),
+          sumVersionsMethod.getMethodName());
+    }
+
     // Page<Customer> customers = customerService.findAll(globalSearch, pageable);
     bodyBuilder.newLine();
     bodyBuilder.appendFormalLine("%s %s = %s.%s(%s, %s);", getNameOfJavaType(serviceReturnType),
@@ -1406,6 +1495,309 @@ public class JSONMetadata extends AbstractItdTypeDetailsProvidingMetadataItem {
     return methodBuilder.build();
   }
 
+  /**
+   * This method provides the "stream" method, which writes all the entities
+   * as newline-delimited JSON, one entity per line, as they are read from the
+   * database. Unlike "list", it never holds more than one fetch of entities in
+   * memory, so it is suitable for large exports.
+   *
+   * @return MethodMetadata
+   */
+  private MethodMetadata getStreamMethod() {
+
+    // Define methodName
+    final JavaSymbolName methodName = new JavaSymbolName("stream");
+
+    List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+    parameterTypes.add(new AnnotatedJavaType(HTTP_SERVLET_RESPONSE));
+
+    MethodMetadata existingMethod =
+        getGovernorMethod(methodName,
+            AnnotatedJavaType.convertFromAnnotatedJavaTypes(parameterTypes));
+    if (existingMethod != null) {
+      return existingMethod;
+    }
+
+    final List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+    parameterNames.add(RESPONSE_PARAM_NAME);
+
+    // Adding annotations
+    final List<AnnotationMetadataBuilder> annotations = new ArrayList<AnnotationMetadataBuilder>();
+
+    // Adding @GetMapping annotation. A path of its own avoids an ambiguous
+    // mapping with "list" when the client accepts any media type
+    AnnotationMetadataBuilder getMappingAnnotation = new AnnotationMetadataBuilder(GET_MAPPING);
+    getMappingAnnotation.addStringAttribute("value", "/stream");
+    getMappingAnnotation.addStringAttribute("name", methodName.getSymbolName());
+    getMappingAnnotation.addStringAttribute("produces", NDJSON_MEDIA_TYPE);
+    annotations.add(getMappingAnnotation);
+
+    // Adding @Transactional(readOnly = true), as the stream must be consumed
+    // within the transaction that opened it
+    AnnotationMetadataBuilder transactionalAnnotation =
+        new AnnotationMetadataBuilder(SpringJavaType.TRANSACTIONAL);
+    transactionalAnnotation.addBooleanAttribute("readOnly", true);
+    annotations.add(transactionalAnnotation);
+
+    final MethodMetadata streamAllMethod = serviceMetadata.getCurrentStreamAllMethod();
+    final String itemNames = StringUtils.uncapitalize(this.entityPlural);
+
+    // Generate body
+    InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+
+    // response.setContentType("application/x-ndjson");
+    bodyBuilder.appendFormalLine("%s.setContentType(\"%s\");", RESPONSE_PARAM_NAME,
+        NDJSON_MEDIA_TYPE);
+
+    // // Flush once per fetch instead of once per entity
+    // ObjectWriter writer = objectMapper.writerFor(Customer.class)
+    //     .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    bodyBuilder.appendFormalLine("// Flush once per fetch instead of once per entity");
+    bodyBuilder.appendFormalLine("%s writer = %s.writerFor(%s.class)",
+        getNameOfJavaType(OBJECT_WRITER), objectMapperFieldName, getNameOfJavaType(entity));
+    bodyBuilder.indent();
+    bodyBuilder.appendFormalLine(".without(%s.FLUSH_AFTER_WRITE_VALUE);",
+        getNameOfJavaType(SERIALIZATION_FEATURE));
+    bodyBuilder.indentRemove();
+
+    // JsonGenerator generator =
+    //     objectMapper.getFactory().createGenerator(response.getOutputStream());
+    bodyBuilder.appendFormalLine("%s generator =", getNameOfJavaType(JSON_GENERATOR));
+    bodyBuilder.indent();
+    bodyBuilder.appendFormalLine("%s.getFactory().createGenerator(%s.getOutputStream());",
+        objectMapperFieldName, RESPONSE_PARAM_NAME);
+    bodyBuilder.indentRemove();
+
+    // // Write each entity on its own line
+    bodyBuilder.appendFormalLine("// Write each entity on its own line");
+    bodyBuilder.appendFormalLine("generator.setRootValueSeparator(null);");
+
+    // try (Stream<Customer> customers = customerService.streamAll()) {
+    bodyBuilder.appendFormalLine("try (%s %s = %s.%s()) {",
+        getNameOfJavaType(streamAllMethod.getReturnType()), itemNames, controllerMetadata
+            .getServiceField().getFieldName(), streamAllMethod.getMethodName());
+    bodyBuilder.indent();
+
+    // Iterator<Customer> iterator = customers.iterator();
+    bodyBuilder.appendFormalLine("%s iterator = %s.iterator();",
+        getNameOfJavaType(JavaType.wrapperOf(JavaType.ITERATOR, entity)), itemNames);
+    bodyBuilder.appendFormalLine("int count = 0;");
+
+    // while (iterator.hasNext()) {
+    bodyBuilder.appendFormalLine("while (iterator.hasNext()) {");
+    bodyBuilder.indent();
+    bodyBuilder.appendFormalLine("writer.writeValue(generator, iterator.next());");
+    bodyBuilder.appendFormalLine("generator.writeRaw('\\n');");
+
+    // // Send the written entities and evict them from the persistence
+    // // context once per fetch, so memory use doesn't grow with the rows
+    bodyBuilder
+        .appendFormalLine("// Send the written entities and evict them from the persistence");
+    bodyBuilder
+        .appendFormalLine("// context once per fetch, so memory use doesn't grow with the rows");
+    bodyBuilder.appendFormalLine("if (++count %% %s == 0) {",
+        RepositoryJpaMetadata.STREAM_FETCH_SIZE);
+    bodyBuilder.indent();
+    bodyBuilder.appendFormalLine("generator.flush();");
+    bodyBuilder.appendFormalLine("%s.clear();", entityManagerFieldName);
+    bodyBuilder.indentRemove();
+    bodyBuilder.appendFormalLine("}");
+    bodyBuilder.indentRemove();
+    bodyBuilder.appendFormalLine("}");
+    bodyBuilder.indentRemove();
+
+    // } finally {
+    //   generator.close();
+    // }
+    bodyBuilder.appendFormalLine("} finally {");
+    bodyBuilder.indent();
+    bodyBuilder.appendFormalLine("generator.close();");
+    bodyBuilder.indentRemove();
+    bodyBuilder.appendFormalLine("}");
+
+    MethodMetadataBuilder methodBuilder =
+        new MethodMetadataBuilder(getId(), Modifier.PUBLIC, methodName, JavaType.VOID_PRIMITIVE,
+            parameterTypes, parameterNames, bodyBuilder);
+    methodBuilder.setAnnotations(annotations);
+    methodBuilder.addThrowsType(IO_EXCEPTION);
+
+    return methodBuilder.build();
+  }
+
+  /**
+   * @return the "objectMapper" field used to stream the entities, which is
+   *         either provided by the user or produced on demand and set by the
+   *         constructor (never returns null)
+   */
+  private FieldMetadataBuilder getObjectMapperField() {
+    final FieldMetadataBuilder fieldBuilder = getPrivateField("objectMapper", OBJECT_MAPPER);
+    objectMapperFieldName = fieldBuilder.getFieldName();
+    return fieldBuilder;
+  }
+
+  /**
+   * @return the "entityManager" field used to clear the persistence context
+   *         while streaming, which is either provided by the user or produced
+   *         on demand (never returns null)
+   */
+  private FieldMetadataBuilder getEntityManagerField() {
+    final FieldMetadataBuilder fieldBuilder =
+        getPrivateField("entityManager", JpaJavaType.ENTITY_MANAGER);
+    if (getId().equals(fieldBuilder.getDeclaredByMetadataId())) {
+      fieldBuilder.addAnnotation(new AnnotationMetadataBuilder(JpaJavaType.PERSISTENCE_CONTEXT));
+    }
+    entityManagerFieldName = fieldBuilder.getFieldName();
+    return fieldBuilder;
+  }
+
+  /**
+   * Returns the user's private field of the given type named after the given
+   * name, or a new one with the first name that is still free, obtained by
+   * appending "_" to it as often as needed.
+   *
+   * @param name the preferred name of the field
+   * @param fieldType the type of the field
+   * @return a non-<code>null</code> field
+   */
+  private FieldMetadataBuilder getPrivateField(final String name, final JavaType fieldType) {
+    int index = -1;
+    while (true) {
+      // Compute the required field name
+      index++;
+      final JavaSymbolName fieldName = new JavaSymbolName(name + StringUtils.repeat("_", index));
+      final FieldMetadata candidate = governorTypeDetails.getField(fieldName);
+      if (candidate != null) {
+        // Verify if candidate is suitable
+        if (!Modifier.isPrivate(candidate.getModifier())
+            || !candidate.getFieldType().equals(fieldType)) {
+          // Candidate might clash with a subclass or isn't of the right
+          // type, so go onto the next possible name
+          continue;
+        }
+        // If we got this far, we found a valid candidate
+        return new FieldMetadataBuilder(candidate);
+      }
+
+      // Candidate not found, so let's create one
+      return new FieldMetadataBuilder(getId(), Modifier.PRIVATE,
+          new ArrayList<AnnotationMetadataBuilder>(), fieldName, fieldType);
+    }
+  }
+
+  /**
+   * Returns the expression of the strong ETag of the given entity, derived
+   * from its version: <code>"\"" + customer.getVersion() + "\""</code>
+   *
+   * @param entityVariable the name of the variable holding the entity
+   * @param versionAccessor the name of the version accessor of the entity
+   * @return String
+   */
+  static String getETagExpression(String entityVariable, JavaSymbolName versionAccessor) {
+    return String.format("\"\\\"\" + %s.%s() + \"\\\"\"", entityVariable, versionAccessor);
+  }
+
+  /**
+   * Appends the lines of the "show" method that end the request with 304 Not
+   * Modified when the client already has the current version of the entity.
+   *
+   * @param bodyBuilder
+   * @param entityVariable the name of the variable holding the entity
+   * @param versionAccessor the name of the version accessor of the entity
+   */
+  static void appendShowNotModifiedCheck(InvocableMemberBodyBuilder bodyBuilder,
+      String entityVariable, JavaSymbolName versionAccessor) {
+    // // Answer 304 Not Modified without serializing the entity if the
+    // // client already has its current version
+    // String etag = "\"" + customer.getVersion() + "\"";
+    bodyBuilder
+        .appendFormalLine("// Answer 304 Not Modified without serializing the entity if the");
+    bodyBuilder.appendFormalLine("// client already has its current version");
+    bodyBuilder.appendFormalLine("String etag = %s;",
+        getETagExpression(entityVariable, versionAccessor));
+    appendNotModifiedCheck(bodyBuilder);
+  }
+
+  /**
+   * Appends the lines of the "list" method that end the request with 304 Not
+   * Modified when no entity changed since the client got the list. Any write
+   * changes either the number of entities or the sum of their versions.
+   *
+   * @param bodyBuilder
+   * @param serviceField the name of the service field of the controller
+   * @param countMethod the name of the "count" method of the service
+   * @param sumVersionsMethod the name of the "sumVersions" method of the
+   *            service
+   */
+  static void appendListNotModifiedCheck(InvocableMemberBodyBuilder bodyBuilder,
+      JavaSymbolName serviceField, JavaSymbolName countMethod, JavaSymbolName sumVersionsMethod) {
+    // // Answer 304 Not Modified without searching if no entity changed
+    // // since the client got the list
+    // String etag = "W/\"" + customerService.count() + "-" + customerService.sumVersions() + "\"";
+    bodyBuilder.newLine();
+    bodyBuilder
+        .appendFormalLine("// Answer 304 Not Modified without searching if no entity changed");
+    bodyBuilder.appendFormalLine("// since the client got the list");
+    bodyBuilder.appendFormalLine(
+        "String etag = \"W/\\\"\" + %1$s.%2$s() + \"-\" + %1$s.%3$s() + \"\\\"\";",
+        serviceField, countMethod, sumVersionsMethod);
+    appendNotModifiedCheck(bodyBuilder);
+  }
+
+  /**
+   * Appends the lines of the "update" method that end the request with 412
+   * Precondition Failed when the If-Match header of the request doesn't
+   * contain the ETag of the stored entity.
+   *
+   * @param bodyBuilder
+   * @param storedVariable the name of the variable holding the stored entity
+   * @param versionAccessor the name of the version accessor of the entity
+   * @param responseEntity the name to use for the ResponseEntity type
+   * @param httpStatus the name to use for the HttpStatus type
+   */
+  static void appendIfMatchCheck(InvocableMemberBodyBuilder bodyBuilder, String storedVariable,
+      JavaSymbolName versionAccessor, String responseEntity, String httpStatus) {
+    // // Answer 412 Precondition Failed if the client didn't edit the
+    // // current version
+    // String ifMatch = request.getHeader("If-Match");
+    // if (ifMatch != null && !"*".equals(ifMatch.trim())
+    //     && !ifMatch.contains("\"" + storedCustomer.getVersion() + "\"")) {
+    //   return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+    // }
+    bodyBuilder.newLine();
+    bodyBuilder
+        .appendFormalLine("// Answer 412 Precondition Failed if the client didn't edit the");
+    bodyBuilder.appendFormalLine("// current version");
+    bodyBuilder.appendFormalLine("String ifMatch = %s.getHeader(\"If-Match\");",
+        REQUEST_PARAM_NAME);
+    bodyBuilder.appendFormalLine("if (ifMatch != null && !\"*\".equals(ifMatch.trim())");
+    bodyBuilder.indent();
+    bodyBuilder.appendFormalLine("&& !ifMatch.contains(%s)) {",
+        getETagExpression(storedVariable, versionAccessor));
+    bodyBuilder.appendFormalLine("return %s.status(%s.PRECONDITION_FAILED).build();",
+        responseEntity, httpStatus);
+    bodyBuilder.indentRemove();
+    bodyBuilder.appendFormalLine("}");
+  }
+
+  /**
+   * Appends the lines that end the request with 304 Not Modified when the
+   * If-None-Match header of the request matches the <code>etag</code>
+   * variable. Otherwise, <code>WebRequest.checkNotModified</code> adds the
+   * ETag header to the response.
+   *
+   * @param bodyBuilder
+   */
+  private static void appendNotModifiedCheck(InvocableMemberBodyBuilder bodyBuilder) {
+    // if (request.checkNotModified(etag)) {
+    //   return null;
+    // }
+    bodyBuilder.appendFormalLine("if (%s.checkNotModified(etag)) {", REQUEST_PARAM_NAME);
+    bodyBuilder.indent();
+    bodyBuilder.appendFormalLine("return null;");
+    bodyBuilder.indentRemove();
+    bodyBuilder.appendFormalLine("}");
+  }
+
   /**
    * This method provides the "show" method using JSON response type
    *
@@ -1418,9 +1810,16 @@ public class JSONMetadata extends AbstractItdTypeDetailsProvidingMetadataItem {
     // Define parameters
     List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
     parameterTypes.add(new AnnotatedJavaType(entity, ANN_MODEL_ATTRIBUTE));
+    final MethodMetadata versionAccessor = entityMetadata.getCurrentVersionAccessor();
+    if (versionAccessor != null) {
+      parameterTypes.add(new AnnotatedJavaType(SpringJavaType.WEB_REQUEST));
+    }
 
     final List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
     parameterNames.add(new JavaSymbolName(entityItemName));
+    if (versionAccessor != null) {
+      parameterNames.add(REQUEST_PARAM_NAME);
+    }
 
     MethodMetadata existingMethod =
         getGovernorMethod(methodName,
@@ -1440,6 +1839,10 @@ public class JSONMetadata extends AbstractItdTypeDetailsProvidingMetadataItem {
     // Generate body
     InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
 
+    if (versionAccessor != null) {
+      appendShowNotModifiedCheck(bodyBuilder, entityItemName, versionAccessor.getMethodName());
+    }
+
     // return ResponseEntity.status(HttpStatus.FOUND).body(customer);
     bodyBuilder.appendFormalLine("return %s.status(%s.FOUND).body(%s);",
         getNameOfJavaType(RESPONSE_ENTITY), getNameOfJavaType(SpringJavaType.HTTP_STATUS),
@@ -1820,6 +2223,15 @@ public class JSONMetadata extends AbstractItdTypeDetailsProvidingMetadataItem {
     return this.listMethod;
   }
 
+  /**
+   * Method that returns stream JSON method
+   *
+   * @return {@link MethodMetadata}
+   */
+  public MethodMetadata getCurrentStreamMethod() {
+    return this.streamMethod;
+  }
+
   /**
    * Method that returns create JSON method
    *
@@ -288,9 +288,12 @@ public class JSONMetadataProviderImpl extends AbstractMemberDiscoveringItdMetada
       }
     }
 
+    // The stream method is opt-in, as it needs an extra constructor argument
+    final boolean stream = new JSONAnnotationValues(governorPhysicalTypeMetadata).isStream();
+
     return new JSONMetadata(metadataIdentificationString, aspectName, governorPhysicalTypeMetadata,
         controllerMetadata, serviceMetadata, entityMetadata, entityPlural, entityIdentifierPlural,
-        compositionRelationOneToOne, itemController, findersToAdd);
+        compositionRelationOneToOne, itemController, findersToAdd, stream);
 
   }
 
@@ -0,0 +1,80 @@
+package org.springframework.roo.addon.web.mvc.controller.addon.responses.json;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.roo.classpath.itd.InvocableMemberBodyBuilder;
+import org.springframework.roo.model.JavaSymbolName;
+
+/**
+ * Unit tests of the conditional request handling generated by
+ * {@link JSONMetadata}
+ *
+ * @since 2.0
+ */
+public class JSONMetadataTest {
+
+  private static final JavaSymbolName GET_VERSION = new JavaSymbolName("getVersion");
+
+  private static List<String> getLines(final InvocableMemberBodyBuilder bodyBuilder) {
+    final List<String> lines = new ArrayList<String>();
+    for (final String line : bodyBuilder.getOutput().split("\n")) {
+      if (!line.trim().isEmpty()) {
+        lines.add(line.trim());
+      }
+    }
+    return lines;
+  }
+
+  @Test
+  public void testETagIsTheQuotedVersion() {
+    assertEquals("\"\\\"\" + customer.getVersion() + \"\\\"\"",
+        JSONMetadata.getETagExpression("customer", GET_VERSION));
+  }
+
+  @Test
+  public void testShowAnswersNotModifiedForTheCurrentVersion() {
+    final InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+    JSONMetadata.appendShowNotModifiedCheck(bodyBuilder, "customer", GET_VERSION);
+
+    assertEquals(Arrays.asList(
+        "// Answer 304 Not Modified without serializing the entity if the",
+        "// client already has its current version",
+        "String etag = \"\\\"\" + customer.getVersion() + \"\\\"\";",
+        "if (request.checkNotModified(etag)) {", "return null;", "}"), getLines(bodyBuilder));
+  }
+
+  @Test
+  public void testListETagChangesWithTheCountAndTheSumOfTheVersions() {
+    final InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+    JSONMetadata.appendListNotModifiedCheck(bodyBuilder, new JavaSymbolName("customerService"),
+        new JavaSymbolName("count"), new JavaSymbolName("sumVersions"));
+
+    assertEquals(Arrays.asList(
+        "// Answer 304 Not Modified without searching if no entity changed",
+        "// since the client got the list",
+        "String etag = \"W/\\\"\" + customerService.count() + \"-\""
+            + " + customerService.sumVersions() + \"\\\"\";",
+        "if (request.checkNotModified(etag)) {", "return null;", "}"), getLines(bodyBuilder));
+  }
+
+  @Test
+  public void testUpdateRequiresTheCurrentVersionInIfMatch() {
+    final InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+    JSONMetadata.appendIfMatchCheck(bodyBuilder, "storedCustomer", GET_VERSION,
+        "ResponseEntity", "HttpStatus");
+
+    assertEquals(Arrays.asList(
+        "// Answer 412 Precondition Failed if the client didn't edit the",
+        "// current version",
+        "String ifMatch = request.getHeader(\"If-Match\");",
+        "if (ifMatch != null && !\"*\".equals(ifMatch.trim())",
+        "&& !ifMatch.contains(\"\\\"\" + storedCustomer.getVersion() + \"\\\"\")) {",
+        "return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();", "}"),
+        getLines(bodyBuilder));
+  }
+}
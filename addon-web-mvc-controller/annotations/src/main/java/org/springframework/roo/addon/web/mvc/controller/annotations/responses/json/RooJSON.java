@@ -18,4 +18,14 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.SOURCE)
 @Target(ElementType.TYPE)
 public @interface RooJSON {
+
+  /**
+   * Whether a collection controller also provides a "stream" method, which
+   * writes every entity as newline-delimited JSON as it is read from the
+   * database. The controller then gets the application's ObjectMapper as an
+   * additional constructor argument.
+   *
+   * @return <code>false</code> by default
+   */
+  boolean stream() default false;
 }
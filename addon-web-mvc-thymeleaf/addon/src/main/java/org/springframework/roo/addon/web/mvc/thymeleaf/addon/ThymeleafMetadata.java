@@ -121,6 +121,7 @@ public class ThymeleafMetadata extends AbstractViewMetadata {
   private static final JavaSymbolName DATATABLES_COLUMNS_PARAM_NAME = new JavaSymbolName(
       "datatablesColumns");
   private static final JavaSymbolName RESPONSE_PARAM_NAME = new JavaSymbolName("response");
+  private static final JavaSymbolName REQUEST_PARAM_NAME = new JavaSymbolName("request");
   private static final AnnotatedJavaType STRING_PARAM = new AnnotatedJavaType(JavaType.STRING);
   private static final JavaSymbolName FILE_NAME_PARAM_NAME = new JavaSymbolName("fileName");
   private static final JavaSymbolName EXPORTER_PARAM_NAME = new JavaSymbolName("exporter");
@@ -3117,6 +3118,10 @@ public class ThymeleafMetadata extends AbstractViewMetadata {
     List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
     parameterTypes.add(new AnnotatedJavaType(this.entity, ANN_METADATA_MODEL_ATTRIBUTE));
     parameterTypes.add(MODEL_PARAM);
+    final MethodMetadata versionAccessor = entityMetadata.getCurrentVersionAccessor();
+    if (versionAccessor != null) {
+      parameterTypes.add(new AnnotatedJavaType(SpringJavaType.WEB_REQUEST));
+    }
 
     MethodMetadata existingMethod =
         getGovernorMethod(methodName,
@@ -3128,6 +3133,9 @@ public class ThymeleafMetadata extends AbstractViewMetadata {
     final List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
     parameterNames.add(new JavaSymbolName(entityItemName));
     parameterNames.add(MODEL_PARAM_NAME);
+    if (versionAccessor != null) {
+      parameterNames.add(REQUEST_PARAM_NAME);
+    }
 
     // Adding annotations
     final List<AnnotationMetadataBuilder> annotations = new ArrayList<AnnotationMetadataBuilder>();
@@ -3140,6 +3148,23 @@ public class ThymeleafMetadata extends AbstractViewMetadata {
     // Generate body
     InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
 
+    if (versionAccessor != null) {
+      // // Answer 304 Not Modified without rendering the view if the
+      // // client already has the page of the current version
+      // if (request.checkNotModified("W/\"" + customer.getVersion() + "\"")) {
+      //   return null;
+      // }
+      bodyBuilder.appendFormalLine("// Answer 304 Not Modified without rendering the view if the");
+      bodyBuilder.appendFormalLine("// client already has the page of the current version");
+      bodyBuilder.appendFormalLine(
+          "if (%s.checkNotModified(\"W/\\\"\" + %s.%s() + \"\\\"\")) {",
+          REQUEST_PARAM_NAME, entityItemName, versionAccessor.getMethodName());
+      bodyBuilder.indent();
+      bodyBuilder.appendFormalLine("return null;");
+      bodyBuilder.indentRemove();
+      bodyBuilder.appendFormalLine("}");
+    }
+
     // return new ModelAndView("customers/show");
     bodyBuilder.appendFormalLine("return new %s(\"%s/show\");",
         getNameOfJavaType(SpringJavaType.MODEL_AND_VIEW), viewsPath);
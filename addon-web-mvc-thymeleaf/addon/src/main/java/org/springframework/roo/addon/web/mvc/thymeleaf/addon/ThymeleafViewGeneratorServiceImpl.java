@@ -234,11 +234,16 @@ public class ThymeleafViewGeneratorServiceImpl extends
     return pathResolver.getIdentifier("", Path.ROOT_ROO_CONFIG, "templates/thymeleaf/default");
   }
 
+  @Override
+  public String serialize(Document document) {
+    return document.html();
+  }
+
   @Override
   public void writeDoc(Document document, String viewPath) {
     // Write doc on disk
     if (document != null && StringUtils.isNotBlank(viewPath)) {
-      getFileManager().createOrUpdateTextFileIfRequired(viewPath, document.html(), false);
+      getFileManager().createOrUpdateTextFileIfRequired(viewPath, serialize(document), false);
     }
   }
 
@@ -465,19 +470,16 @@ public class ThymeleafViewGeneratorServiceImpl extends
 
     // Getting entity fields that should be included on view
     List<FieldMetadata> formBeanFields = getPersistentFields(formBeanDetails.getFields());
-    List<FieldItem> fields =
+    final List<FieldItem> fields =
         getFieldViewItems(entityMetadata, formBeanFields, ctx.getEntityName(), true, ctx,
             TABLE_SUFFIX);
 
-    // Process elements to generate
-    Document newDoc = null;
-
     // Getting new viewName
     String viewName =
         getViewsFolder(moduleName).concat(ctx.getControllerPath()).concat("/").concat(finderName)
             .concat("Form").concat(getViewsExtension());
 
-    EntityItem entityItem = createEntityItem(entityMetadata, ctx, TABLE_SUFFIX);
+    final EntityItem entityItem = createEntityItem(entityMetadata, ctx, TABLE_SUFFIX);
 
     final JavaType searchController = viewMetadata.getDestination();
 
@@ -490,17 +492,14 @@ public class ThymeleafViewGeneratorServiceImpl extends
     ctx.addExtraParameter("entity", entityItem);
     ctx.addExtraParameter("fields", fields);
 
-    // Check if new view to generate exists or not
-    if (existsFile(viewName)) {
-      newDoc =
-          mergeListView("finderForm", loadExistingDoc(viewName), ctx, entityItem, fields,
-              new ArrayList<List<DetailEntityItem>>());
-    } else {
-      newDoc = process("finderForm", ctx);
-    }
-
-    // Write newDoc on disk
-    writeDoc(newDoc, viewName);
+    generateView("finderForm", viewName, ctx,
+        new ExistingViewMerger<Document, ThymeleafMetadata>() {
+          public Document mergeExisting(Document existingDoc,
+              ViewContext<ThymeleafMetadata> viewCtx) {
+            return mergeListView("finderForm", existingDoc, viewCtx, entityItem, fields,
+                new ArrayList<List<DetailEntityItem>>());
+          }
+        });
 
   }
 
@@ -515,7 +514,7 @@ public class ThymeleafViewGeneratorServiceImpl extends
 
     // Getting entity fields that should be included on view
     List<FieldMetadata> returnFields = getPersistentFields(returnTypeDetails.getFields());
-    List<FieldItem> fields =
+    final List<FieldItem> fields =
         getFieldViewItems(entityMetadata, returnFields, ctx.getEntityName(), true, ctx,
             TABLE_SUFFIX);
 
@@ -532,15 +531,12 @@ public class ThymeleafViewGeneratorServiceImpl extends
             TABLE_SUFFIX);
 
 
-    // Process elements to generate
-    Document newDoc = null;
-
     // Getting new viewName
     String viewName =
         getViewsFolder(moduleName).concat(ctx.getControllerPath()).concat("/").concat(finderName)
             .concat(getViewsExtension());
 
-    EntityItem entityItem = createEntityItem(entityMetadata, ctx, TABLE_SUFFIX);
+    final EntityItem entityItem = createEntityItem(entityMetadata, ctx, TABLE_SUFFIX);
 
     final JavaType searchController = viewMetadata.getDestination();
 
@@ -564,17 +560,14 @@ public class ThymeleafViewGeneratorServiceImpl extends
     // Adding formBean fields
     ctx.addExtraParameter("formbeanfields", formBeanFields);
 
-    // Check if new view to generate exists or not
-    if (existsFile(viewName)) {
-      newDoc =
-          mergeListView("finderList", loadExistingDoc(viewName), ctx, entityItem, fields,
-              new ArrayList<List<DetailEntityItem>>());
-    } else {
-      newDoc = process("finderList", ctx);
-    }
-
-    // Write newDoc on disk
-    writeDoc(newDoc, viewName);
+    generateView("finderList", viewName, ctx,
+        new ExistingViewMerger<Document, ThymeleafMetadata>() {
+          public Document mergeExisting(Document existingDoc,
+              ViewContext<ThymeleafMetadata> viewCtx) {
+            return mergeListView("finderList", existingDoc, viewCtx, entityItem, fields,
+                new ArrayList<List<DetailEntityItem>>());
+          }
+        });
   }
 
 
@@ -645,9 +638,6 @@ public class ThymeleafViewGeneratorServiceImpl extends
       MemberDetails entity, ControllerMetadata controllerMetadata, ThymeleafMetadata viewMetadata,
       ViewContext<ThymeleafMetadata> ctx) {
 
-    // Process elements to generate
-    Document newDoc = null;
-
     // Getting new viewName
     String viewName =
         getViewsFolder(moduleName).concat(ctx.getControllerPath()).concat("/")
@@ -655,9 +645,9 @@ public class ThymeleafViewGeneratorServiceImpl extends
             .concat(getViewsExtension());
 
     // Get root entity metadata
-    EntityItem entityItem = createEntityItem(entityMetadata, ctx, TABLE_SUFFIX);
+    final EntityItem entityItem = createEntityItem(entityMetadata, ctx, TABLE_SUFFIX);
 
-    DetailEntityItem detail =
+    final DetailEntityItem detail =
         createDetailEntityItem(viewMetadata, entity, entityMetadata, ctx.getEntityName(), ctx,
             DETAIL_SUFFIX, entityItem);
 
@@ -670,16 +660,13 @@ public class ThymeleafViewGeneratorServiceImpl extends
     ctx.addExtraParameter("select2_placeholder",
         getCreateDetailsSelect2PlaceholderLabelKey(controllerMetadata, ctx));
 
-    // Check if new view to generate exists or not
-    if (existsFile(viewName)) {
-      newDoc =
-          mergeCreateDetailsView("createDetail", loadExistingDoc(viewName), ctx, entityItem, detail);
-    } else {
-      newDoc = process("createDetail", ctx);
-    }
-
-    // Write newDoc on disk
-    writeDoc(newDoc, viewName);
+    generateView("createDetail", viewName, ctx,
+        new ExistingViewMerger<Document, ThymeleafMetadata>() {
+          public Document mergeExisting(Document existingDoc,
+              ViewContext<ThymeleafMetadata> viewCtx) {
+            return mergeCreateDetailsView("createDetail", existingDoc, viewCtx, entityItem, detail);
+          }
+        });
 
 
   }
@@ -688,8 +675,6 @@ public class ThymeleafViewGeneratorServiceImpl extends
       JpaEntityMetadata entityMetadata, MemberDetails entity,
       ControllerMetadata controllerMetadata, ThymeleafMetadata viewMetadata,
       ViewContext<ThymeleafMetadata> ctx) {
-    // Process elements to generate
-    Document newDoc = null;
 
     // Getting new viewName
     String viewName =
@@ -698,9 +683,9 @@ public class ThymeleafViewGeneratorServiceImpl extends
             .concat(getViewsExtension());
 
     // Get root entity metadata
-    EntityItem entityItem = createEntityItem(entityMetadata, ctx, TABLE_SUFFIX);
+    final EntityItem entityItem = createEntityItem(entityMetadata, ctx, TABLE_SUFFIX);
 
-    DetailEntityItem detail =
+    final DetailEntityItem detail =
         createDetailEntityItem(viewMetadata, entity, entityMetadata, ctx.getEntityName(), ctx,
             DETAIL_SUFFIX, entityItem);
 
@@ -714,19 +699,16 @@ public class ThymeleafViewGeneratorServiceImpl extends
     childCtx.addExtraParameter("entity", entityItem);
     childCtx.addExtraParameter("detail", detail);
 
-    // Check if new view to generate exists or not
-    if (existsFile(viewName)) {
-      newDoc =
-          mergeDetailsCompositionView("createDetailComposition", loadExistingDoc(viewName),
-              childCtx, entityItem, detail,
-              (List<FieldItem>) detail.getConfiguration().get("fields"));
-    } else {
-      childCtx.addExtraParameter("fields", detail.getConfiguration().get("fields"));
-      newDoc = process("createDetailComposition", childCtx);
-    }
+    childCtx.addExtraParameter("fields", detail.getConfiguration().get("fields"));
 
-    // Write newDoc on disk
-    writeDoc(newDoc, viewName);
+    generateView("createDetailComposition", viewName, childCtx,
+        new ExistingViewMerger<Document, ThymeleafMetadata>() {
+          public Document mergeExisting(Document existingDoc,
+              ViewContext<ThymeleafMetadata> viewCtx) {
+            return mergeDetailsCompositionView("createDetailComposition", existingDoc, viewCtx,
+                entityItem, detail, (List<FieldItem>) detail.getConfiguration().get("fields"));
+          }
+        });
   }
 
 
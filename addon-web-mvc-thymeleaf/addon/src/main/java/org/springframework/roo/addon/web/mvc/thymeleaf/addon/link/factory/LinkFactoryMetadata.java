@@ -629,13 +629,17 @@ public class LinkFactoryMetadata extends AbstractItdTypeDetailsProvidingMetadata
     bodyBuilder.appendFormalLine("if (%s.equals(SHOW)) {", METHOD_NAME_ARGUMENT_NAME);
 
     // return MvcUriComponentsBuilder.fromMethodCall(MvcUriComponentsBuilder.on(getControllerClass()).show(null, null)).buildAndExpand(PATH_VARIABLES_ARGUMENT_NAME);
+    // (show also receives the WebRequest when the entity has a version field)
     bodyBuilder.indent();
+    final boolean versioned =
+        this.controllerMetadata.getEntityMetadata().getCurrentVersionAccessor() != null;
+    final String showArguments = versioned ? "null, null, null" : "null, null";
     bodyBuilder
         .appendFormalLine(String
             .format(
-                "return %1$s.fromMethodCall(%1$s.on(getControllerClass()).show(null, null)).buildAndExpand(%2$s);",
+                "return %1$s.fromMethodCall(%1$s.on(getControllerClass()).show(%3$s)).buildAndExpand(%2$s);",
                 SpringJavaType.MVC_URI_COMPONENTS_BUILDER.getNameIncludingTypeParameters(false,
-                    this.importResolver), PATH_VARIABLES_ARGUMENT_NAME));
+                    this.importResolver), PATH_VARIABLES_ARGUMENT_NAME, showArguments));
     bodyBuilder.indentRemove();
 
     // }
@@ -32,6 +32,7 @@ import org.springframework.roo.classpath.details.FieldMetadata;
 import org.springframework.roo.classpath.details.annotations.AnnotationAttributeValue;
 import org.springframework.roo.classpath.details.annotations.AnnotationMetadata;
 import org.springframework.roo.classpath.details.annotations.StringAttributeValue;
+import org.springframework.roo.classpath.itd.ItdRegenerationScheduler;
 import org.springframework.roo.classpath.operations.Cardinality;
 import org.springframework.roo.classpath.persistence.PersistenceMemberLocator;
 import org.springframework.roo.classpath.scanner.MemberDetails;
@@ -69,6 +70,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
 import java.util.logging.Logger;
 
 /**
@@ -98,6 +100,21 @@ public abstract class AbstractViewGenerationService<DOC, T extends AbstractViewM
 
   private ServiceInstaceManager serviceInstaceManager = new ServiceInstaceManager();
 
+  private final GeneratedViewCache generatedViews = new GeneratedViewCache();
+
+  /**
+   * Merges the existing document of a view with its template.
+   */
+  protected interface ExistingViewMerger<DOC, T extends AbstractViewMetadata> {
+
+    /**
+     * @param existingDoc the parsed existing view
+     * @param ctx the context of the view, owned by this view
+     * @return the merged view
+     */
+    DOC mergeExisting(DOC existingDoc, ViewContext<T> ctx);
+  }
+
   // ------------ OSGi component attributes ----------------
   protected BundleContext context;
 
@@ -110,6 +127,8 @@ public abstract class AbstractViewGenerationService<DOC, T extends AbstractViewM
 
   protected abstract DOC parse(String content);
 
+  protected abstract String serialize(DOC document);
+
   protected abstract DOC merge(String templateName, DOC loadExistingDoc, ViewContext<T> ctx);
 
   protected abstract DOC merge(String templateName, DOC existingDoc, ViewContext<T> ctx,
@@ -166,21 +185,18 @@ public abstract class AbstractViewGenerationService<DOC, T extends AbstractViewM
 
     // Getting entity fields that should be included on view
     List<FieldMetadata> entityFields = getPersistentFields(defaultReturnTypeFields);
-    List<FieldItem> fields =
+    final List<FieldItem> fields =
         getFieldViewItems(entityMetadata, entityFields, ctx.getEntityName(), true, ctx,
             TABLE_SUFFIX);
 
-    // Process elements to generate
-    DOC newDoc = null;
-
     // Getting new viewName
     String viewName =
         getViewsFolder(moduleName).concat(ctx.getControllerPath()).concat("/").concat("/list")
             .concat(getViewsExtension());
 
-    EntityItem entityItem = createEntityItem(entityMetadata, ctx, TABLE_SUFFIX);
+    final EntityItem entityItem = createEntityItem(entityMetadata, ctx, TABLE_SUFFIX);
 
-    List<List<DetailEntityItem>> detailsLevels = new ArrayList<List<DetailEntityItem>>();
+    final List<List<DetailEntityItem>> detailsLevels = new ArrayList<List<DetailEntityItem>>();
     if (detailsControllers != null) {
       List<DetailEntityItem> details = new ArrayList<DetailEntityItem>();
       for (T detailController : detailsControllers) {
@@ -223,19 +239,15 @@ public abstract class AbstractViewGenerationService<DOC, T extends AbstractViewM
       }
     }
 
-    // Check if new view to generate exists or not
-    if (existsFile(viewName)) {
-      newDoc =
-          mergeListView("list", loadExistingDoc(viewName), ctx, entityItem, fields, detailsLevels);
-    } else {
-      ctx.addExtraParameter("entity", entityItem);
-      ctx.addExtraParameter("fields", fields);
-      ctx.addExtraParameter("detailsLevels", detailsLevels);
-      newDoc = process("list", ctx);
-    }
+    ctx.addExtraParameter("entity", entityItem);
+    ctx.addExtraParameter("fields", fields);
+    ctx.addExtraParameter("detailsLevels", detailsLevels);
 
-    // Write newDoc on disk
-    writeDoc(newDoc, viewName);
+    generateView("list", viewName, ctx, new ExistingViewMerger<DOC, T>() {
+      public DOC mergeExisting(DOC existingDoc, ViewContext<T> viewCtx) {
+        return mergeListView("list", existingDoc, viewCtx, entityItem, fields, detailsLevels);
+      }
+    });
 
   }
 
@@ -298,7 +310,7 @@ public abstract class AbstractViewGenerationService<DOC, T extends AbstractViewM
         entityFields.add(field);
       }
     }
-    List<FieldItem> fields =
+    final List<FieldItem> fields =
         getFieldViewItems(entityMetadata, entityFields, ctx.getEntityName(), false, ctx,
             FIELD_SUFFIX);
 
@@ -311,23 +323,16 @@ public abstract class AbstractViewGenerationService<DOC, T extends AbstractViewM
     ctx.addExtraParameter("entity", entityItem);
     ctx.addExtraParameter("compositeRelationFields", compositeRelationFields);
 
-    // Process elements to generate
-    DOC newDoc = null;
-
     // Getting new viewName
     String viewName =
         getViewsFolder(moduleName).concat(ctx.getControllerPath()).concat("/").concat("/show")
             .concat(getViewsExtension());
 
-    // Check if new view to generate exists or not
-    if (existsFile(viewName)) {
-      newDoc = merge("show", loadExistingDoc(viewName), ctx, fields);
-    } else {
-      newDoc = process("show", ctx);
-    }
-
-    // Write newDoc on disk
-    writeDoc(newDoc, viewName);
+    generateView("show", viewName, ctx, new ExistingViewMerger<DOC, T>() {
+      public DOC mergeExisting(DOC existingDoc, ViewContext<T> viewCtx) {
+        return merge("show", existingDoc, viewCtx, fields);
+      }
+    });
 
   }
 
@@ -340,9 +345,6 @@ public abstract class AbstractViewGenerationService<DOC, T extends AbstractViewM
 
     EntityItem entityItem = createEntityItem(entityMetadata, ctx, TABLE_SUFFIX);
 
-    // Process elements to generate
-    DOC newDoc = null;
-
     // Getting new viewName
     String viewName =
         getViewsFolder(moduleName).concat(ctx.getControllerPath()).concat("/").concat("/create")
@@ -360,7 +362,7 @@ public abstract class AbstractViewGenerationService<DOC, T extends AbstractViewM
       }
     }
 
-    List<FieldItem> fields =
+    final List<FieldItem> fields =
         getFieldViewItems(entityMetadata, entityFields, ctx.getEntityName(), false, ctx,
             FIELD_SUFFIX);
 
@@ -368,15 +370,11 @@ public abstract class AbstractViewGenerationService<DOC, T extends AbstractViewM
     ctx.addExtraParameter("entity", entityItem);
     ctx.addExtraParameter("compositeRelationFields", compositeRelationFields);
 
-    // Check if new view to generate exists or not
-    if (existsFile(viewName)) {
-      newDoc = merge("create", loadExistingDoc(viewName), ctx, fields);
-    } else {
-      newDoc = process("create", ctx);
-    }
-
-    // Write newDoc on disk
-    writeDoc(newDoc, viewName);
+    generateView("create", viewName, ctx, new ExistingViewMerger<DOC, T>() {
+      public DOC mergeExisting(DOC existingDoc, ViewContext<T> viewCtx) {
+        return merge("create", existingDoc, viewCtx, fields);
+      }
+    });
 
   }
 
@@ -387,9 +385,6 @@ public abstract class AbstractViewGenerationService<DOC, T extends AbstractViewM
     // Getting entity fields that should be included on view
     List<FieldMetadata> entityFields = new ArrayList<FieldMetadata>();
 
-    // Process elements to generate
-    DOC newDoc = null;
-
     // Getting new viewName
     String viewName =
         getViewsFolder(moduleName).concat(ctx.getControllerPath()).concat("/").concat("/edit")
@@ -408,7 +403,7 @@ public abstract class AbstractViewGenerationService<DOC, T extends AbstractViewM
       }
     }
 
-    List<FieldItem> fields =
+    final List<FieldItem> fields =
         getFieldViewItems(entityMetadata, entityFields, ctx.getEntityName(), false, ctx,
             FIELD_SUFFIX);
 
@@ -418,15 +413,11 @@ public abstract class AbstractViewGenerationService<DOC, T extends AbstractViewM
     ctx.addExtraParameter("entity", entityItem);
     ctx.addExtraParameter("compositeRelationFields", compositeRelationFields);
 
-    // Check if new view to generate exists or not
-    if (existsFile(viewName)) {
-      newDoc = merge("edit", loadExistingDoc(viewName), ctx, fields);
-    } else {
-      newDoc = process("edit", ctx);
-    }
-
-    // Write newDoc on disk
-    writeDoc(newDoc, viewName);
+    generateView("edit", viewName, ctx, new ExistingViewMerger<DOC, T>() {
+      public DOC mergeExisting(DOC existingDoc, ViewContext<T> viewCtx) {
+        return merge("edit", existingDoc, viewCtx, fields);
+      }
+    });
 
   }
 
@@ -1435,17 +1426,79 @@ public abstract class AbstractViewGenerationService<DOC, T extends AbstractViewM
    * @return
    */
   protected DOC loadExistingDoc(String path) {
-    String content = "";
+    // Parse String content to obtain the same type of object
+    return parse(readExistingContent(path));
+  }
+
+  private String readExistingContent(String path) {
     try {
       // Load file and get STRING content
-      content = FileUtils.readFileToString(new File(path));
+      return FileUtils.readFileToString(new File(path));
 
     } catch (IOException e) {
       throw new RuntimeException(String.format("ERROR: Error trying to load existing doc %s", path));
     }
+  }
 
-    // Parse String content to obtain the same type of object
-    return parse(content);
+  /**
+   * Generates the given view from its template, merging it with the existing
+   * view if there is one.
+   * <p>
+   * The view is skipped without parsing the existing file if the last time
+   * it was generated, with an equal context, it was left as it was and it has
+   * not changed since. Otherwise it is rendered by the
+   * {@link ItdRegenerationScheduler}, which renders the views and ITDs
+   * regenerated by the same change in parallel and writes them in the order
+   * they were requested.
+   * <p>
+   * As the view may be rendered on another thread, the merger gets its own
+   * copy of the context, and nothing that it modifies may be shared with
+   * other views.
+   *
+   * @param templateName the template of the view
+   * @param viewPath the path of the view
+   * @param ctx the context of the view, which is not modified
+   * @param merger merges the existing view, if any, with the template
+   */
+  protected void generateView(final String templateName, final String viewPath,
+      final ViewContext<T> ctx, final ExistingViewMerger<DOC, T> merger) {
+    final ViewContext<T> viewCtx = ctx.copy();
+    viewCtx.setTemplatesLocation(getTemplatesLocation());
+    final String fingerprint = GeneratedViewCache.getFingerprint(templateName, viewCtx);
+
+    final String existingContent;
+    if (existsFile(viewPath)) {
+      existingContent = readExistingContent(viewPath);
+      if (generatedViews.isUpToDate(viewPath, fingerprint, existingContent)) {
+        return;
+      }
+    } else {
+      existingContent = null;
+    }
+
+    final Callable<String> output = new Callable<String>() {
+      public String call() {
+        final DOC newDoc;
+        if (existingContent == null) {
+          newDoc = process(templateName, viewCtx);
+        } else {
+          newDoc = merger.mergeExisting(parse(existingContent), viewCtx);
+        }
+        final String content = serialize(newDoc);
+        generatedViews.put(viewPath, fingerprint, existingContent, content);
+        return content;
+      }
+    };
+
+    getItdRegenerationScheduler().render(viewPath, output);
+  }
+
+  /**
+   * Forgets how the views were generated, so that all of them are generated
+   * again, e.g. because their templates have changed.
+   */
+  protected void clearGeneratedViews() {
+    generatedViews.clear();
   }
 
   /**
@@ -1516,4 +1569,8 @@ public abstract class AbstractViewGenerationService<DOC, T extends AbstractViewM
   protected ProjectOperations getProjectOperations() {
     return serviceInstaceManager.getServiceInstance(this, ProjectOperations.class);
   }
+
+  protected ItdRegenerationScheduler getItdRegenerationScheduler() {
+    return serviceInstaceManager.getServiceInstance(this, ItdRegenerationScheduler.class);
+  }
 }
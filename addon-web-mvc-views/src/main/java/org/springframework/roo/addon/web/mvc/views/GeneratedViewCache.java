@@ -0,0 +1,232 @@
+package org.springframework.roo.addon.web.mvc.views;
+
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.roo.addon.web.mvc.views.components.FieldItem;
+
+/**
+ * Remembers how every view was last generated, so that a view can be skipped
+ * before its existing file is even parsed when generating it again would not
+ * change it.
+ * <p>
+ * A view is identified by its path, and a generation by the fingerprint of
+ * the template and the {@link ViewContext} used, plus the hashes of the
+ * existing file that was merged and of the resulting content. Generating a
+ * view again is only pointless if the last generation used an equal context
+ * and left the file as it was, and the file has not changed since.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @since 2.0
+ */
+public class GeneratedViewCache {
+
+  /**
+   * The last generation of a view.
+   */
+  private static class Generation {
+
+    final String fingerprint;
+    final String existingHash;
+    final String outputHash;
+
+    Generation(final String fingerprint, final String existingHash, final String outputHash) {
+      this.fingerprint = fingerprint;
+      this.existingHash = existingHash;
+      this.outputHash = outputHash;
+    }
+  }
+
+  // The components are beans; anything else is described by its toString()
+  private static final String COMPONENTS_PACKAGE = FieldItem.class.getPackage().getName();
+
+  private static final Comparator<Field> FIELD_NAME = new Comparator<Field>() {
+    public int compare(final Field field1, final Field field2) {
+      return field1.getName().compareTo(field2.getName());
+    }
+  };
+
+  /**
+   * Returns the fingerprint of the data that the given template will be
+   * processed with, i.e. everything in the context but its metadata.
+   * <p>
+   * Values are described by their contents, in a stable order. Those that
+   * don't describe their contents (e.g. using the default
+   * {@link Object#toString()}) give a different fingerprint every time,
+   * which only means that their views are never skipped.
+   *
+   * @param templateName the template of the view (required)
+   * @param ctx the context of the view (required)
+   * @return the fingerprint
+   */
+  public static String getFingerprint(final String templateName, final ViewContext<?> ctx) {
+    final StringBuilder description = new StringBuilder();
+    final IdentityHashMap<Object, Object> visiting = new IdentityHashMap<Object, Object>();
+    describe(description, templateName, visiting);
+    describe(description, ctx.getTemplatesLocation(), visiting);
+    describe(description, ctx.getProjectName(), visiting);
+    describe(description, ctx.getDescription(), visiting);
+    describe(description, ctx.getVersion(), visiting);
+    describe(description, ctx.getControllerPath(), visiting);
+    describe(description, ctx.getEntityName(), visiting);
+    describe(description, ctx.getIdentifierField(), visiting);
+    describe(description, ctx.getModelAttribute(), visiting);
+    describe(description, ctx.getModelAttributeName(), visiting);
+    describe(description, ctx.isSecurityEnabled(), visiting);
+    describe(description, ctx.getExtraInformation(), visiting);
+    return hash(description.toString());
+  }
+
+  /**
+   * Returns the hash of the given content.
+   *
+   * @param content the content to hash (can be null)
+   * @return a hexadecimal String, or "" for null content
+   */
+  public static String hash(final String content) {
+    if (content == null) {
+      return "";
+    }
+    try {
+      final byte[] digest =
+          MessageDigest.getInstance("SHA-256").digest(content.getBytes("UTF-8"));
+      final StringBuilder hex = new StringBuilder(digest.length * 2);
+      for (final byte b : digest) {
+        hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+        hex.append(Character.forDigit(b & 0xF, 16));
+      }
+      return hex.toString();
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    } catch (final UnsupportedEncodingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void describe(final StringBuilder description, final Object value,
+      final IdentityHashMap<Object, Object> visiting) {
+    if (value == null) {
+      description.append("null;");
+      return;
+    }
+    if (visiting.containsKey(value)) {
+      // A reference back to an enclosing value, e.g. a child's parent
+      description.append("^;");
+      return;
+    }
+    visiting.put(value, value);
+    try {
+      if (value instanceof Map) {
+        final List<Entry<?, ?>> entries =
+            new ArrayList<Entry<?, ?>>(((Map<?, ?>) value).entrySet());
+        Collections.sort(entries, new Comparator<Entry<?, ?>>() {
+          public int compare(final Entry<?, ?> entry1, final Entry<?, ?> entry2) {
+            return String.valueOf(entry1.getKey()).compareTo(String.valueOf(entry2.getKey()));
+          }
+        });
+        description.append('{');
+        for (final Entry<?, ?> entry : entries) {
+          describe(description, entry.getKey(), visiting);
+          describe(description, entry.getValue(), visiting);
+        }
+        description.append("};");
+      } else if (value instanceof Collection) {
+        description.append('[');
+        for (final Object element : (Collection<?>) value) {
+          describe(description, element, visiting);
+        }
+        description.append("];");
+      } else if (value instanceof Object[]) {
+        description.append('[');
+        for (final Object element : (Object[]) value) {
+          describe(description, element, visiting);
+        }
+        description.append("];");
+      } else if (value.getClass().getName().startsWith(COMPONENTS_PACKAGE)) {
+        description.append(value.getClass().getName()).append('{');
+        for (final Field field : getFields(value.getClass())) {
+          description.append(field.getName()).append('=');
+          describe(description, field.get(value), visiting);
+        }
+        description.append("};");
+      } else {
+        // Length-prefixed, so that values can't run into each other
+        final String string = value.toString();
+        description.append(string.length()).append(':').append(string).append(';');
+      }
+    } catch (final IllegalAccessException e) {
+      throw new IllegalStateException(e);
+    } finally {
+      visiting.remove(value);
+    }
+  }
+
+  private static List<Field> getFields(final Class<?> type) {
+    final List<Field> fields = new ArrayList<Field>();
+    for (Class<?> current = type; current != Object.class; current = current.getSuperclass()) {
+      for (final Field field : current.getDeclaredFields()) {
+        if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+          field.setAccessible(true);
+          fields.add(field);
+        }
+      }
+    }
+    Collections.sort(fields, FIELD_NAME);
+    return fields;
+  }
+
+  private final Map<String, Generation> generations = new ConcurrentHashMap<String, Generation>();
+
+  /**
+   * Removes every generation, e.g. because the templates have changed.
+   */
+  public void clear() {
+    generations.clear();
+  }
+
+  /**
+   * Indicates whether generating the given view again would leave it as it
+   * is.
+   *
+   * @param viewPath the path of the view (required)
+   * @param fingerprint the fingerprint of the new generation (required)
+   * @param existingContent the current content of the view (required)
+   * @return true if the view can be skipped
+   */
+  public boolean isUpToDate(final String viewPath, final String fingerprint,
+      final String existingContent) {
+    final Generation generation = generations.get(viewPath);
+    if (generation == null || !generation.fingerprint.equals(fingerprint)
+        || !generation.existingHash.equals(generation.outputHash)) {
+      return false;
+    }
+    return generation.outputHash.equals(hash(existingContent));
+  }
+
+  /**
+   * Records a generation of the given view.
+   *
+   * @param viewPath the path of the view (required)
+   * @param fingerprint the fingerprint of the generation (required)
+   * @param existingContent the content that was merged (null if the view is
+   *            new)
+   * @param output the generated content (required)
+   */
+  public void put(final String viewPath, final String fingerprint, final String existingContent,
+      final String output) {
+    generations.put(viewPath, new Generation(fingerprint, hash(existingContent), hash(output)));
+  }
+}
@@ -43,6 +43,32 @@ public class ViewContext<T extends AbstractViewMetadata> {
   // Security information
   private boolean securityEnabled;
 
+  // Templates location, when resolved before generating the view
+  private String templatesLocation;
+
+  /**
+   * Returns a copy of this context, with its own extra information, that can
+   * be modified without affecting this one.
+   *
+   * @return a new ViewContext
+   */
+  public ViewContext<T> copy() {
+    ViewContext<T> copy = new ViewContext<T>();
+    copy.viewMetadata = viewMetadata;
+    copy.controllerMetadata = controllerMetadata;
+    copy.projectName = projectName;
+    copy.description = description;
+    copy.version = version;
+    copy.controllerPath = controllerPath;
+    copy.identifierField = identifierField;
+    copy.modelAttribute = modelAttribute;
+    copy.modelAttributeName = modelAttributeName;
+    copy.entityName = entityName;
+    copy.extraInformation = new HashMap<String, Object>(extraInformation);
+    copy.securityEnabled = securityEnabled;
+    copy.templatesLocation = templatesLocation;
+    return copy;
+  }
 
   public String getControllerPath() {
     return controllerPath;
@@ -147,4 +173,12 @@ public class ViewContext<T extends AbstractViewMetadata> {
   public void setControllerMetadata(ControllerMetadata controllerMetadata) {
     this.controllerMetadata = controllerMetadata;
   }
+
+  public String getTemplatesLocation() {
+    return templatesLocation;
+  }
+
+  public void setTemplatesLocation(String templatesLocation) {
+    this.templatesLocation = templatesLocation;
+  }
 }
@@ -1,12 +1,16 @@
 package org.springframework.roo.addon.web.mvc.views.template.engines;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.output.StringBuilderWriter;
@@ -18,22 +22,58 @@ import org.springframework.roo.addon.web.mvc.views.AbstractViewGenerationService
 import org.springframework.roo.addon.web.mvc.views.AbstractViewMetadata;
 import org.springframework.roo.addon.web.mvc.views.ViewContext;
 import org.springframework.roo.addon.web.mvc.views.components.FieldItem;
+import org.springframework.roo.file.monitor.event.FileEvent;
+import org.springframework.roo.file.monitor.event.FileEventListener;
 import org.springframework.roo.process.manager.FileManager;
 import org.springframework.roo.support.osgi.OSGiUtils;
 import org.springframework.roo.support.util.FileUtils;
 
+import freemarker.cache.ClassTemplateLoader;
+import freemarker.cache.FileTemplateLoader;
+import freemarker.cache.MultiTemplateLoader;
+import freemarker.cache.TemplateLoader;
 import freemarker.template.Configuration;
 import freemarker.template.Template;
 import freemarker.template.TemplateExceptionHandler;
 import freemarker.template.Version;
 
+/**
+ * Generates views from FreeMarker templates, looking for them first in the
+ * templates location of the project and then in the classpath of the
+ * implementation.
+ * <p>
+ * FreeMarker configurations are expensive to create and cache the templates
+ * they parse, so there is one per templates location, shared by every view
+ * generated from it. As the templates are only checked for changes when the
+ * file monitor reports them, the configuration of a location is discarded
+ * when any file below it changes.
+ */
 @Component(componentAbstract = true)
 public abstract class AbstractFreeMarkerViewGenerationService<DOC, T extends AbstractViewMetadata>
-    extends AbstractViewGenerationService<DOC, T> {
+    extends AbstractViewGenerationService<DOC, T> implements FileEventListener {
+
+  /**
+   * The FreeMarker configuration of a templates location.
+   */
+  private static class TemplatesConfiguration {
+
+    final Configuration configuration;
+
+    // Whether the project has its own templates directory at that location
+    final boolean projectTemplates;
+
+    TemplatesConfiguration(final Configuration configuration, final boolean projectTemplates) {
+      this.configuration = configuration;
+      this.projectTemplates = projectTemplates;
+    }
+  }
 
   @Reference
   FileManager fileManager;
 
+  private final Map<String, TemplatesConfiguration> configurations =
+      new ConcurrentHashMap<String, TemplatesConfiguration>();
+
   protected abstract Class<?> getResourceLoaderClass();
 
   protected boolean checkTemplates(String location, String templateName) {
@@ -46,17 +86,10 @@ public abstract class AbstractFreeMarkerViewGenerationService<DOC, T extends Abs
 
     try {
 
-      Configuration cfg = new Configuration(new Version(2, 3, 23));
-      cfg.setTemplateExceptionHandler(TemplateExceptionHandler.RETHROW_HANDLER);
-
-      // Check if exists some template. If not, use classpath to locate the template
-      if (checkTemplates(getTemplatesLocation(), templateName)) {
-        // Process using FreeMarker and setDirectoryForTemplateLoading
-        cfg.setDirectoryForTemplateLoading(new File(getTemplatesLocation()));
-      } else {
-        // Process using FreeMarker and setClassForTemplateLoading
-        cfg.setClassForTemplateLoading(getResourceLoaderClass(), "templates");
-      }
+      // The location is resolved beforehand for the views rendered in parallel
+      Configuration cfg =
+          getConfiguration(ctx.getTemplatesLocation() != null ? ctx.getTemplatesLocation()
+              : getTemplatesLocation());
 
       // Prepare the template input:
       Map<String, Object> input = new HashMap<String, Object>();
@@ -113,6 +146,55 @@ public abstract class AbstractFreeMarkerViewGenerationService<DOC, T extends Abs
 
   }
 
+  /**
+   * Returns the shared configuration for the given templates location,
+   * creating it if needed.
+   *
+   * @param templatesLocation the templates location of the project
+   * @return a configuration that must not be modified, as other threads may
+   *         be using it
+   * @throws IOException if the templates directory cannot be read
+   */
+  private Configuration getConfiguration(final String templatesLocation) throws IOException {
+    final String location = FileUtils.getCanonicalPath(new File(templatesLocation));
+    final boolean projectTemplates = fileManager.exists(location);
+    TemplatesConfiguration templatesConfiguration = configurations.get(location);
+    if (templatesConfiguration == null
+        || templatesConfiguration.projectTemplates != projectTemplates) {
+
+      // Look for templates in the project first, then in the classpath
+      final List<TemplateLoader> loaders = new ArrayList<TemplateLoader>();
+      if (projectTemplates) {
+        loaders.add(new FileTemplateLoader(new File(location)));
+      }
+      loaders.add(new ClassTemplateLoader(getResourceLoaderClass(), "templates"));
+
+      final Configuration cfg = new Configuration(new Version(2, 3, 23));
+      cfg.setTemplateExceptionHandler(TemplateExceptionHandler.RETHROW_HANDLER);
+      cfg.setTemplateLoader(new MultiTemplateLoader(loaders.toArray(new TemplateLoader[loaders
+          .size()])));
+
+      // Changes are reported by the file monitor, see onFileEvent
+      cfg.setTemplateUpdateDelayMilliseconds(Long.MAX_VALUE);
+
+      templatesConfiguration = new TemplatesConfiguration(cfg, projectTemplates);
+      configurations.put(location, templatesConfiguration);
+    }
+    return templatesConfiguration.configuration;
+  }
+
+  public void onFileEvent(final FileEvent fileEvent) {
+    final String path = fileEvent.getFileDetails().getCanonicalPath();
+    for (final String location : configurations.keySet()) {
+      if (path.equals(location) || path.startsWith(FileUtils.ensureTrailingSeparator(location))) {
+        configurations.remove(location);
+
+        // Views generated from the old templates must be generated again
+        clearGeneratedViews();
+      }
+    }
+  }
+
   /**
    * This method will copy the contents of a directory to another if the
    * resource does not already exist in the target directory
@@ -0,0 +1,243 @@
+package org.springframework.roo.addon.web.mvc.views;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.roo.addon.web.mvc.views.components.FieldItem;
+
+/**
+ * Unit test of {@link GeneratedViewCache}
+ *
+ * @since 2.0
+ */
+public class GeneratedViewCacheTest {
+
+  private static final String TEMPLATE = "list";
+  private static final String VIEW_PATH = "src/main/resources/templates/people/list.html";
+
+  private GeneratedViewCache cache;
+
+  @Before
+  public void setUp() {
+    cache = new GeneratedViewCache();
+  }
+
+  private ViewContext<?> getContext() {
+    final ViewContext<?> ctx = new ViewContext<AbstractViewMetadata>();
+    ctx.setProjectName("petclinic");
+    ctx.setVersion("1.0");
+    ctx.setControllerPath("/people");
+    ctx.setEntityName("person");
+    ctx.setIdentifierField("id");
+    ctx.setModelAttribute("{person}");
+    ctx.setModelAttributeName("person");
+    ctx.setTemplatesLocation("templates");
+    ctx.addExtraParameter("fields", getFields("firstName", "lastName"));
+    return ctx;
+  }
+
+  private List<FieldItem> getFields(final String... fieldNames) {
+    final List<FieldItem> fields = new ArrayList<FieldItem>();
+    for (final String fieldName : fieldNames) {
+      fields.add(new FieldItem(fieldName, "person"));
+    }
+    return fields;
+  }
+
+  @Test
+  public void testEqualContextsHaveTheSameFingerprint() {
+    assertEquals(GeneratedViewCache.getFingerprint(TEMPLATE, getContext()),
+        GeneratedViewCache.getFingerprint(TEMPLATE, getContext()));
+    assertEquals(GeneratedViewCache.getFingerprint(TEMPLATE, getContext()),
+        GeneratedViewCache.getFingerprint(TEMPLATE, getContext().copy()));
+  }
+
+  @Test
+  public void testContextChangesChangeTheFingerprint() {
+    // Set up
+    final String fingerprint = GeneratedViewCache.getFingerprint(TEMPLATE, getContext());
+    final ViewContext<?> otherEntity = getContext();
+    otherEntity.setEntityName("owner");
+    final ViewContext<?> secured = getContext();
+    secured.setSecurityEnabled(true);
+    final ViewContext<?> otherLocation = getContext();
+    otherLocation.setTemplatesLocation("custom-templates");
+    final ViewContext<?> extraParameter = getContext();
+    extraParameter.addExtraParameter("readOnly", true);
+    final ViewContext<?> otherLabel = getContext();
+    final List<FieldItem> fields = getFields("firstName", "lastName");
+    fields.get(1).setLabel("label_surname");
+    otherLabel.addExtraParameter("fields", fields);
+
+    // Invoke and check
+    assertNotEquals(fingerprint, GeneratedViewCache.getFingerprint("show", getContext()));
+    assertNotEquals(fingerprint, GeneratedViewCache.getFingerprint(TEMPLATE, otherEntity));
+    assertNotEquals(fingerprint, GeneratedViewCache.getFingerprint(TEMPLATE, secured));
+    assertNotEquals(fingerprint, GeneratedViewCache.getFingerprint(TEMPLATE, otherLocation));
+    assertNotEquals(fingerprint, GeneratedViewCache.getFingerprint(TEMPLATE, extraParameter));
+    assertNotEquals(fingerprint, GeneratedViewCache.getFingerprint(TEMPLATE, otherLabel));
+  }
+
+  @Test
+  public void testValuesCannotRunIntoEachOther() {
+    // Set up
+    final ViewContext<?> ctx1 = getContext();
+    ctx1.setProjectName("pet");
+    ctx1.setDescription("clinic");
+    final ViewContext<?> ctx2 = getContext();
+    ctx2.setProjectName("petclinic");
+    ctx2.setDescription("");
+
+    // Invoke and check
+    assertNotEquals(GeneratedViewCache.getFingerprint(TEMPLATE, ctx1),
+        GeneratedViewCache.getFingerprint(TEMPLATE, ctx2));
+  }
+
+  @Test
+  public void testFieldOrderChangesTheFingerprint() {
+    // Set up
+    final ViewContext<?> reordered = getContext();
+    reordered.addExtraParameter("fields", getFields("lastName", "firstName"));
+
+    // Invoke and check
+    assertNotEquals(GeneratedViewCache.getFingerprint(TEMPLATE, getContext()),
+        GeneratedViewCache.getFingerprint(TEMPLATE, reordered));
+  }
+
+  @Test
+  public void testMapInsertionOrderDoesNotChangeTheFingerprint() {
+    // Set up
+    final Map<String, Object> details1 = new LinkedHashMap<String, Object>();
+    details1.put("pets", getFields("name"));
+    details1.put("visits", getFields("date"));
+    final Map<String, Object> details2 = new LinkedHashMap<String, Object>();
+    details2.put("visits", getFields("date"));
+    details2.put("pets", getFields("name"));
+    final ViewContext<?> ctx1 = getContext();
+    ctx1.addExtraParameter("details", details1);
+    final ViewContext<?> ctx2 = getContext();
+    ctx2.addExtraParameter("details", details2);
+
+    // Invoke and check
+    assertEquals(GeneratedViewCache.getFingerprint(TEMPLATE, ctx1),
+        GeneratedViewCache.getFingerprint(TEMPLATE, ctx2));
+  }
+
+  @Test
+  public void testCyclicParentReferencesAreDescribedOnce() {
+    // Set up
+    final FieldItem parent1 = new FieldItem("owner", "pet");
+    final FieldItem child1 = new FieldItem("pets", "owner");
+    parent1.addConfigurationElement("child", child1);
+    child1.addConfigurationElement("parent", parent1);
+    final FieldItem parent2 = new FieldItem("owner", "pet");
+    final FieldItem child2 = new FieldItem("pets", "owner");
+    parent2.addConfigurationElement("child", child2);
+    child2.addConfigurationElement("parent", parent2);
+    final ViewContext<?> ctx1 = getContext();
+    ctx1.addExtraParameter("fields", Arrays.asList(parent1));
+    final ViewContext<?> ctx2 = getContext();
+    ctx2.addExtraParameter("fields", Arrays.asList(parent2));
+
+    // Invoke and check
+    assertEquals(GeneratedViewCache.getFingerprint(TEMPLATE, ctx1),
+        GeneratedViewCache.getFingerprint(TEMPLATE, ctx2));
+  }
+
+  @Test
+  public void testSharedValuesAreNotMistakenForCycles() {
+    // Set up
+    final FieldItem shared = new FieldItem("name", "pet");
+    final ViewContext<?> sharing = getContext();
+    sharing.addExtraParameter("fields", Arrays.asList(shared, shared));
+    final ViewContext<?> copies = getContext();
+    copies.addExtraParameter("fields",
+        Arrays.asList(new FieldItem("name", "pet"), new FieldItem("name", "pet")));
+
+    // Invoke and check
+    assertEquals(GeneratedViewCache.getFingerprint(TEMPLATE, sharing),
+        GeneratedViewCache.getFingerprint(TEMPLATE, copies));
+  }
+
+  @Test
+  public void testUnknownViewIsNotUpToDate() {
+    assertFalse(cache.isUpToDate(VIEW_PATH, "fingerprint", "<html/>"));
+  }
+
+  @Test
+  public void testNewViewIsNotUpToDateUntilRegeneratedUnchanged() {
+    // Set up
+    final String fingerprint = GeneratedViewCache.getFingerprint(TEMPLATE, getContext());
+
+    // Invoke
+    cache.put(VIEW_PATH, fingerprint, null, "<html/>");
+
+    // Check
+    assertFalse(cache.isUpToDate(VIEW_PATH, fingerprint, "<html/>"));
+
+    // Invoke
+    cache.put(VIEW_PATH, fingerprint, "<html/>", "<html/>");
+
+    // Check
+    assertTrue(cache.isUpToDate(VIEW_PATH, fingerprint, "<html/>"));
+  }
+
+  @Test
+  public void testChangedOutputIsNotUpToDate() {
+    // Set up
+    final String fingerprint = GeneratedViewCache.getFingerprint(TEMPLATE, getContext());
+
+    // Invoke
+    cache.put(VIEW_PATH, fingerprint, "<html>old</html>", "<html>new</html>");
+
+    // Check
+    assertFalse(cache.isUpToDate(VIEW_PATH, fingerprint, "<html>new</html>"));
+  }
+
+  @Test
+  public void testViewEditedByHandIsNotUpToDate() {
+    // Set up
+    final String fingerprint = GeneratedViewCache.getFingerprint(TEMPLATE, getContext());
+    cache.put(VIEW_PATH, fingerprint, "<html/>", "<html/>");
+
+    // Invoke and check
+    assertFalse(cache.isUpToDate(VIEW_PATH, fingerprint, "<html><p>edited</p></html>"));
+  }
+
+  @Test
+  public void testOtherFingerprintIsNotUpToDate() {
+    // Set up
+    cache.put(VIEW_PATH, "fingerprint", "<html/>", "<html/>");
+
+    // Invoke and check
+    assertFalse(cache.isUpToDate(VIEW_PATH, "other", "<html/>"));
+  }
+
+  @Test
+  public void testClearForgetsEveryView() {
+    // Set up
+    cache.put(VIEW_PATH, "fingerprint", "<html/>", "<html/>");
+
+    // Invoke
+    cache.clear();
+
+    // Check
+    assertFalse(cache.isUpToDate(VIEW_PATH, "fingerprint", "<html/>"));
+  }
+
+  @Test
+  public void testHashOfNullContent() {
+    assertEquals("", GeneratedViewCache.hash(null));
+    assertEquals(64, GeneratedViewCache.hash("").length());
+  }
+}
@@ -7,8 +7,21 @@ rem echo Resolved ROO_HOME: "%ROO_HOME%"
 rem Build a classpath containing our two magical startup JARs
 for %%a in ("%ROO_HOME%\bin\*.jar") do set ROO_CP=!ROO_CP!%%a;
 
+rem "roo daemon" keeps a warmed Roo resident for the current directory; while it
+rem runs, invocations with arguments are sent to it instead of starting Roo again
+set ROO_ARGS=%*
+set ROO_DAEMON=false
+if "%~1"=="daemon" (
+    set ROO_ARGS=
+    set ROO_DAEMON=true
+) else if not "%~1"=="" if exist ".roo\daemon.properties" (
+    java -cp "%ROO_CP%" org.springframework.roo.bootstrap.DaemonClient %*
+    rem 98: no daemon is running for this directory
+    if !errorlevel! neq 98 exit /b !errorlevel!
+)
+
 rem Hop, hop, hop...
-java -Dflash.message.disabled=false -Djline.nobell=true %ROO_OPTS% -Droo.args="%*" -DdevelopmentMode=false -Dorg.osgi.framework.storage="%ROO_HOME%\cache" -Dorg.osgi.framework.system.packages.extra=org.w3c.dom.traversal -Dfelix.auto.deploy.dir="%ROO_HOME%\bundle" -Dfelix.config.properties="file:%ROO_HOME%\conf\config.properties" -Dorg.eclipse.jetty.util.log.class=org.eclipse.jetty.util.log.Slf4jLog -Dorg.apache.felix.http.log.jul=true -Djava.util.logging.config.file="%ROO_HOME%\conf\logging.properties" -Droo.console.ansi=true -cp "%ROO_CP%" org.springframework.roo.bootstrap.Main
+java -Dflash.message.disabled=false -Djline.nobell=true %ROO_OPTS% -Droo.args="%ROO_ARGS%" -Droo.daemon=%ROO_DAEMON% -DdevelopmentMode=false -Dorg.osgi.framework.storage="%ROO_HOME%\cache" -Dorg.osgi.framework.system.packages.extra=org.w3c.dom.traversal -Dfelix.auto.deploy.dir="%ROO_HOME%\bundle" -Dfelix.config.properties="file:%ROO_HOME%\conf\config.properties" -Dorg.eclipse.jetty.util.log.class=org.eclipse.jetty.util.log.Slf4jLog -Dorg.apache.felix.http.log.jul=true -Djava.util.logging.config.file="%ROO_HOME%\conf\logging.properties" -Droo.console.ansi=true -cp "%ROO_CP%" org.springframework.roo.bootstrap.Main
 rem echo Roo exited with code %errorlevel%
 
 :end
@@ -73,9 +73,25 @@ if [ "$TERM_PROGRAM" = "Apple_Terminal" ]; then
 	APPLE_TERMINAL=true
 fi
 
+# "roo.sh daemon" keeps a warmed Roo resident for the current directory; while it
+# runs, invocations with arguments are sent to it instead of starting Roo again
+ROO_ARGS="$*"
+ROO_DAEMON=false
+if [ "$1" = "daemon" ]; then
+    ROO_ARGS=""
+    ROO_DAEMON=true
+elif [ $# -gt 0 ] && [ -f ".roo/daemon.properties" ]; then
+    java -cp "$ROO_CP" org.springframework.roo.bootstrap.DaemonClient "$@"
+    EXITED=$?
+    # 98: no daemon is running for this directory
+    if [ $EXITED -ne 98 ]; then
+        exit $EXITED
+    fi
+fi
+
 ANSI="-Droo.console.ansi=true"
 LOG="-Dorg.eclipse.jetty.util.log.class=org.eclipse.jetty.util.log.Slf4jLog -Dorg.apache.felix.http.log.jul=true -Djava.util.logging.config.file=${LOG_CONFIG_FILE_PROPERTIES}"
 # Hop, hop, hop...
-java $LOG -Dis.apple.terminal=$APPLE_TERMINAL $ROO_OPTS $ANSI -Droo.args="$*" -DdevelopmentMode=$ROO_DEVELOPMENT_MODE -Dorg.osgi.framework.storage="$ROO_OSGI_FRAMEWORK_STORAGE" -Dorg.osgi.framework.system.packages.extra=org.w3c.dom.traversal -Dfelix.auto.deploy.dir="$ROO_AUTO_DEPLOY_DIRECTORY" -Dfelix.config.properties="file:$ROO_CONFIG_FILE_PROPERTIES" -cp "$ROO_CP" org.springframework.roo.bootstrap.Main
+java $LOG -Dis.apple.terminal=$APPLE_TERMINAL $ROO_OPTS $ANSI -Droo.args="$ROO_ARGS" -Droo.daemon=$ROO_DAEMON -DdevelopmentMode=$ROO_DEVELOPMENT_MODE -Dorg.osgi.framework.storage="$ROO_OSGI_FRAMEWORK_STORAGE" -Dorg.osgi.framework.system.packages.extra=org.w3c.dom.traversal -Dfelix.auto.deploy.dir="$ROO_AUTO_DEPLOY_DIRECTORY" -Dfelix.config.properties="file:$ROO_CONFIG_FILE_PROPERTIES" -cp "$ROO_CP" org.springframework.roo.bootstrap.Main
 EXITED=$?
 # echo Roo exited with code $EXITED
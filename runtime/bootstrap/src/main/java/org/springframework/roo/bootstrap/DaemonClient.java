@@ -0,0 +1,127 @@
+package org.springframework.roo.bootstrap;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Properties;
+
+/**
+ * Thin client of a Roo shell running in daemon mode (<code>-Droo.daemon=true</code>).
+ * <p>
+ * Sends the command given on the command line to the daemon serving the
+ * current directory (or the one given by the <code>roo.home</code> system
+ * property), prints the output as it arrives and exits with the command's exit
+ * code. If no daemon can be reached, exits with {@link #DAEMON_UNAVAILABLE} so
+ * that the launcher scripts can fall back to starting Roo normally.
+ * <p>
+ * This class deliberately has no dependencies, as it runs outside the OSGi
+ * container; the protocol is described by
+ * <code>org.springframework.roo.shell.jline.osgi.ShellDaemonComponent</code>.
+ *
+ * @since 2.0
+ */
+public class DaemonClient {
+
+  /** The exit code used when no daemon is available for the project */
+  public static final int DAEMON_UNAVAILABLE = 98;
+
+  private static final String DAEMON_FILE = ".roo/daemon.properties";
+  private static final String EXIT_PREFIX = "=";
+  private static final String OUTPUT_PREFIX = ">";
+
+  public static void main(final String[] args) {
+    final StringBuilder command = new StringBuilder();
+    for (final String arg : args) {
+      if (command.length() > 0) {
+        command.append(' ');
+      }
+      command.append(arg);
+    }
+    final String home = System.getProperty("roo.home", ".");
+    System.exit(new DaemonClient().execute(new File(home, DAEMON_FILE), command.toString()));
+  }
+
+  /**
+   * Executes the given command on the daemon described by the given file.
+   *
+   * @param daemonFile the properties file written by the daemon
+   * @param command the Roo command to execute
+   * @return the exit code of the command, or {@link #DAEMON_UNAVAILABLE}
+   */
+  int execute(final File daemonFile, final String command) {
+    final Properties properties = new Properties();
+    InputStream inputStream = null;
+    try {
+      inputStream = new FileInputStream(daemonFile);
+      properties.load(inputStream);
+    } catch (final IOException e) {
+      return DAEMON_UNAVAILABLE;
+    } finally {
+      closeQuietly(inputStream);
+    }
+
+    final int port;
+    try {
+      port = Integer.parseInt(properties.getProperty("port", ""));
+    } catch (final NumberFormatException e) {
+      return DAEMON_UNAVAILABLE;
+    }
+
+    Socket socket = null;
+    try {
+      try {
+        socket = new Socket(InetAddress.getByName(null), port);
+      } catch (final IOException e) {
+        // Stale file left behind by a daemon that did not shut down cleanly
+        return DAEMON_UNAVAILABLE;
+      }
+      final PrintWriter writer =
+          new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), "UTF-8"), true);
+      writer.println(properties.getProperty("token", ""));
+      writer.println(command.replace('\n', ' ').replace('\r', ' '));
+
+      final BufferedReader reader =
+          new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.startsWith(OUTPUT_PREFIX)) {
+          System.out.println(line.substring(OUTPUT_PREFIX.length()));
+        } else if (line.startsWith(EXIT_PREFIX)) {
+          return Integer.parseInt(line.substring(EXIT_PREFIX.length()));
+        }
+      }
+      System.err.println("The Roo daemon closed the connection unexpectedly");
+      return 1;
+    } catch (final IOException e) {
+      System.err.println("Could not talk to the Roo daemon: " + e.getMessage());
+      return 1;
+    } finally {
+      closeQuietly(socket);
+    }
+  }
+
+  private static void closeQuietly(final InputStream inputStream) {
+    if (inputStream != null) {
+      try {
+        inputStream.close();
+      } catch (final IOException ignored) {
+      }
+    }
+  }
+
+  private static void closeQuietly(final Socket socket) {
+    if (socket != null) {
+      try {
+        socket.close();
+      } catch (final IOException ignored) {
+      }
+    }
+  }
+}
@@ -0,0 +1,152 @@
+package org.springframework.roo.bootstrap;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test of {@link DaemonClient}, talking to a fake daemon over the
+ * loopback interface
+ *
+ * @since 2.0
+ */
+public class DaemonClientTest {
+
+  private static final String TOKEN = "0123456789abcdef";
+
+  private File daemonFile;
+  private ServerSocket serverSocket;
+
+  @Before
+  public void setUp() throws Exception {
+    daemonFile = File.createTempFile("daemon", ".properties");
+    serverSocket = new ServerSocket(0, 0, InetAddress.getByName(null));
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    serverSocket.close();
+    daemonFile.delete();
+  }
+
+  private void writeDaemonFile(final int port, final String token) throws IOException {
+    final Properties properties = new Properties();
+    properties.setProperty("port", String.valueOf(port));
+    properties.setProperty("token", token);
+    final OutputStream outputStream = new FileOutputStream(daemonFile);
+    try {
+      properties.store(outputStream, null);
+    } finally {
+      outputStream.close();
+    }
+  }
+
+  /**
+   * Serves one connection: records the lines the client sends and replies
+   * with the given lines, or with a failure if the token is wrong
+   */
+  private Thread serveOnce(final List<String> received, final String... reply) {
+    final Thread thread = new Thread() {
+      @Override
+      public void run() {
+        try {
+          final Socket socket = serverSocket.accept();
+          try {
+            final BufferedReader reader =
+                new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+            final PrintWriter writer =
+                new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), "UTF-8"), true);
+            received.add(reader.readLine());
+            if (!TOKEN.equals(received.get(0))) {
+              writer.println("=1");
+              return;
+            }
+            received.add(reader.readLine());
+            for (final String line : reply) {
+              writer.println(line);
+            }
+          } finally {
+            socket.close();
+          }
+        } catch (final IOException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+    };
+    thread.start();
+    return thread;
+  }
+
+  @Test
+  public void testCommandIsSentWithTheTokenAndItsExitCodeReturned() throws Exception {
+    // Set up
+    writeDaemonFile(serverSocket.getLocalPort(), TOKEN);
+    final List<String> received = new ArrayList<String>();
+    final Thread daemon = serveOnce(received, ">Created SRC_MAIN_JAVA", "=3");
+
+    // Invoke
+    final int exitCode = new DaemonClient().execute(daemonFile, "project\nsetup");
+    daemon.join();
+
+    // Check
+    assertEquals(3, exitCode);
+    assertEquals(Arrays.asList(TOKEN, "project setup"), received);
+  }
+
+  @Test
+  public void testWrongTokenFailsTheCommand() throws Exception {
+    // Set up
+    writeDaemonFile(serverSocket.getLocalPort(), "stale token");
+    final List<String> received = new ArrayList<String>();
+    final Thread daemon = serveOnce(received, "=0");
+
+    // Invoke
+    final int exitCode = new DaemonClient().execute(daemonFile, "hint");
+    daemon.join();
+
+    // Check
+    assertEquals(1, exitCode);
+    assertEquals(Arrays.asList("stale token"), received);
+  }
+
+  @Test
+  public void testDaemonIsUnavailableWithoutDaemonFile() {
+    // Invoke
+    final int exitCode =
+        new DaemonClient().execute(new File(daemonFile.getParentFile(), "missing"), "hint");
+
+    // Check
+    assertEquals(DaemonClient.DAEMON_UNAVAILABLE, exitCode);
+  }
+
+  @Test
+  public void testDaemonIsUnavailableWhenNothingListens() throws Exception {
+    // Set up
+    writeDaemonFile(serverSocket.getLocalPort(), TOKEN);
+    serverSocket.close();
+
+    // Invoke
+    final int exitCode = new DaemonClient().execute(daemonFile, "hint");
+
+    // Check
+    assertEquals(DaemonClient.DAEMON_UNAVAILABLE, exitCode);
+  }
+}
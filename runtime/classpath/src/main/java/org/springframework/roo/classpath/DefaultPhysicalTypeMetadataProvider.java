@@ -17,6 +17,7 @@ import org.apache.felix.scr.annotations.References;
 import org.apache.felix.scr.annotations.Service;
 import org.springframework.roo.classpath.details.ClassOrInterfaceTypeDetails;
 import org.springframework.roo.classpath.details.DefaultPhysicalTypeMetadata;
+import org.springframework.roo.classpath.itd.ItdRegenerationScheduler;
 import org.springframework.roo.classpath.scanner.MemberDetails;
 import org.springframework.roo.classpath.scanner.MemberDetailsBuilder;
 import org.springframework.roo.classpath.scanner.MemberDetailsDecorator;
@@ -228,9 +229,20 @@ public class DefaultPhysicalTypeMetadataProvider implements PhysicalTypeMetadata
         return;
       }
       // Now we've worked out the id, we can publish the event in case
-      // others were interested
-      metadataService.evictAndGet(id);
-      metadataDependencyRegistry.notifyDownstream(id);
+      // others were interested. The ITDs regenerated by the cascade are
+      // rendered in parallel and written once it has finished.
+      final ItdRegenerationScheduler itdRegenerationScheduler = getItdRegenerationScheduler();
+      if (itdRegenerationScheduler != null) {
+        itdRegenerationScheduler.beginBatch();
+      }
+      try {
+        metadataService.evictAndGet(id);
+        metadataDependencyRegistry.notifyDownstream(id);
+      } finally {
+        if (itdRegenerationScheduler != null) {
+          itdRegenerationScheduler.endBatch();
+        }
+      }
     }
   }
 
@@ -259,6 +271,29 @@ public class DefaultPhysicalTypeMetadataProvider implements PhysicalTypeMetadata
     }
   }
 
+  public ItdRegenerationScheduler getItdRegenerationScheduler() {
+    // Get all Services implement ItdRegenerationScheduler interface
+    try {
+      ServiceReference<?>[] references =
+          this.context.getAllServiceReferences(ItdRegenerationScheduler.class.getName(), null);
+
+      if (references != null) {
+        for (ServiceReference<?> ref : references) {
+          return (ItdRegenerationScheduler) this.context.getService(ref);
+        }
+      }
+
+      LOGGER
+          .warning("Cannot load ItdRegenerationScheduler on DefaultPhysicalTypeMetadataProvider.");
+      return null;
+
+    } catch (InvalidSyntaxException e) {
+      LOGGER
+          .warning("Cannot load ItdRegenerationScheduler on DefaultPhysicalTypeMetadataProvider.");
+      return null;
+    }
+  }
+
   public MetadataDependencyRegistry getMetadataDependencyRegistry() {
     // Get all Services implement MetadataDependencyRegistry interface
     try {
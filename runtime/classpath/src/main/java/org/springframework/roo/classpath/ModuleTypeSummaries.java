@@ -0,0 +1,261 @@
+package org.springframework.roo.classpath;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+import org.springframework.roo.model.JavaType;
+import org.springframework.roo.support.logging.HandlerUtils;
+
+/**
+ * Persistent summaries of the types contained in each module of a project,
+ * used by {@link TypeLocationServiceImpl} when modules are activated lazily.
+ * <p>
+ * For each module the summary records the fully qualified names of its types,
+ * the type-level annotations present on them, and a validity stamp made of the
+ * most recent modification time and the number of the module's Java files
+ * when the summary was last updated. A summary whose stamp no longer matches
+ * the module's files was taken before changes made while Roo was not running,
+ * and must not be used. The type names can always be kept up to date from the
+ * file paths alone; the annotations are only trustworthy until a file changes
+ * in a module that has not been activated, at which point the module is
+ * flagged as stale.
+ *
+ * @since 2.0
+ */
+class ModuleTypeSummaries {
+
+  private static final Logger LOGGER = HandlerUtils.getLogger(ModuleTypeSummaries.class);
+
+  private static final String ANNOTATIONS_SUFFIX = ".annotations";
+  private static final String FILE_COUNT_SUFFIX = ".files";
+  private static final String ROOT_MODULE_KEY = "[root]";
+  private static final String STALE_SUFFIX = ".stale";
+  private static final String TIMESTAMP_SUFFIX = ".timestamp";
+  private static final String TYPES_SUFFIX = ".types";
+
+  private static class Summary {
+    private final Set<String> annotations = new TreeSet<String>();
+    private int fileCount = -1;
+    private boolean stale;
+    private long timestamp;
+    private final Set<String> typeNames = new TreeSet<String>();
+  }
+
+  private boolean dirty;
+  private final File file;
+  private final Map<String, Summary> summaries = new HashMap<String, Summary>();
+
+  /**
+   * Constructor
+   *
+   * @param file the file in which the summaries are persisted (required)
+   */
+  ModuleTypeSummaries(final File file) {
+    Validate.notNull(file, "Summary file required");
+    this.file = file;
+  }
+
+  /**
+   * Records that a type has been removed from the given module.
+   */
+  void removeType(final String moduleName, final String typeName) {
+    if (getSummary(moduleName).typeNames.remove(typeName)) {
+      dirty = true;
+    }
+  }
+
+  /**
+   * Records a type discovered from its file path only, i.e. without parsing
+   * it. If the file changed after the summary was taken, the annotations
+   * recorded for the module can no longer be trusted.
+   */
+  void addUnparsedType(final String moduleName, final String typeName, final long lastModified) {
+    final Summary summary = getSummary(moduleName);
+    if (summary.typeNames.add(typeName)) {
+      dirty = true;
+    }
+    if (lastModified > summary.timestamp && !summary.stale) {
+      summary.stale = true;
+      dirty = true;
+    }
+  }
+
+  /**
+   * Replaces the summary of the given module with the parsed types of a full
+   * scan of that module.
+   *
+   * @param timestamp the latest modification time of the scanned files
+   * @param fileCount the number of scanned files
+   */
+  void update(final String moduleName, final Collection<String> typeNames,
+      final Collection<JavaType> annotations, final long timestamp, final int fileCount) {
+    final Summary summary = new Summary();
+    summary.typeNames.addAll(typeNames);
+    for (final JavaType annotation : annotations) {
+      summary.annotations.add(annotation.getFullyQualifiedTypeName());
+    }
+    summary.timestamp = timestamp;
+    summary.fileCount = fileCount;
+    summaries.put(getKey(moduleName), summary);
+    dirty = true;
+  }
+
+  /**
+   * Indicates whether the summary of the given module was taken from the
+   * module's files as they are now.
+   *
+   * @param timestamp the latest modification time of the module's files
+   * @param fileCount the number of the module's files
+   * @return <code>false</code> if there is no such summary
+   */
+  boolean isCurrent(final String moduleName, final long timestamp, final int fileCount) {
+    final Summary summary = summaries.get(getKey(moduleName));
+    return summary != null && summary.timestamp == timestamp && summary.fileCount == fileCount;
+  }
+
+  /**
+   * Forgets the summary of the given module, so that it is treated as unknown
+   */
+  void remove(final String moduleName) {
+    if (summaries.remove(getKey(moduleName)) != null) {
+      dirty = true;
+    }
+  }
+
+  /**
+   * Indicates whether the given module may contain a type annotated with any
+   * of the given annotations. Returns <code>true</code> whenever the summary
+   * is missing or stale.
+   */
+  boolean mayContainAnnotation(final String moduleName, final Collection<JavaType> annotations) {
+    final Summary summary = summaries.get(getKey(moduleName));
+    if (summary == null || summary.stale) {
+      return true;
+    }
+    for (final JavaType annotation : annotations) {
+      if (summary.annotations.contains(annotation.getFullyQualifiedTypeName())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the names of the types recorded for the given module.
+   *
+   * @return a non-<code>null</code> set (empty if the module is unknown)
+   */
+  Set<String> getTypeNames(final String moduleName) {
+    final Summary summary = summaries.get(getKey(moduleName));
+    if (summary == null) {
+      return Collections.emptySet();
+    }
+    return Collections.unmodifiableSet(summary.typeNames);
+  }
+
+  boolean hasSummary(final String moduleName) {
+    return summaries.containsKey(getKey(moduleName));
+  }
+
+  void load() {
+    summaries.clear();
+    dirty = false;
+    if (!file.isFile()) {
+      return;
+    }
+    final Properties properties = new Properties();
+    InputStream inputStream = null;
+    try {
+      inputStream = new FileInputStream(file);
+      properties.load(inputStream);
+    } catch (final IOException e) {
+      LOGGER.fine("Ignoring unreadable module summaries '" + file + "': " + e.getMessage());
+      return;
+    } finally {
+      IOUtils.closeQuietly(inputStream);
+    }
+    for (final String name : properties.stringPropertyNames()) {
+      if (!name.endsWith(TYPES_SUFFIX)) {
+        continue;
+      }
+      final String key = StringUtils.removeEnd(name, TYPES_SUFFIX);
+      final Summary summary = new Summary();
+      addAll(summary.typeNames, properties.getProperty(name));
+      addAll(summary.annotations, properties.getProperty(key + ANNOTATIONS_SUFFIX));
+      summary.stale = Boolean.parseBoolean(properties.getProperty(key + STALE_SUFFIX));
+      try {
+        summary.timestamp = Long.parseLong(properties.getProperty(key + TIMESTAMP_SUFFIX, "0"));
+        summary.fileCount =
+            Integer.parseInt(properties.getProperty(key + FILE_COUNT_SUFFIX, "-1"));
+      } catch (final NumberFormatException e) {
+        summary.stale = true;
+      }
+      summaries.put(key, summary);
+    }
+  }
+
+  void store() {
+    if (!dirty) {
+      return;
+    }
+    final Properties properties = new Properties();
+    for (final Map.Entry<String, Summary> entry : summaries.entrySet()) {
+      final String key = entry.getKey();
+      final Summary summary = entry.getValue();
+      properties.setProperty(key + TYPES_SUFFIX, StringUtils.join(summary.typeNames, ","));
+      properties
+          .setProperty(key + ANNOTATIONS_SUFFIX, StringUtils.join(summary.annotations, ","));
+      properties.setProperty(key + TIMESTAMP_SUFFIX, String.valueOf(summary.timestamp));
+      properties.setProperty(key + FILE_COUNT_SUFFIX, String.valueOf(summary.fileCount));
+      properties.setProperty(key + STALE_SUFFIX, String.valueOf(summary.stale));
+    }
+    OutputStream outputStream = null;
+    try {
+      file.getParentFile().mkdirs();
+      outputStream = new FileOutputStream(file);
+      properties.store(outputStream, "Spring Roo module type summaries - do not edit");
+      dirty = false;
+    } catch (final IOException e) {
+      LOGGER.fine("Could not store module summaries '" + file + "': " + e.getMessage());
+    } finally {
+      IOUtils.closeQuietly(outputStream);
+    }
+  }
+
+  private void addAll(final Set<String> target, final String commaSeparated) {
+    for (final String value : StringUtils.split(StringUtils.defaultString(commaSeparated), ',')) {
+      target.add(value.trim());
+    }
+  }
+
+  private String getKey(final String moduleName) {
+    return StringUtils.isBlank(moduleName) ? ROOT_MODULE_KEY : moduleName;
+  }
+
+  private Summary getSummary(final String moduleName) {
+    final String key = getKey(moduleName);
+    Summary summary = summaries.get(key);
+    if (summary == null) {
+      // Unknown until the module is scanned
+      summary = new Summary();
+      summary.stale = true;
+      summaries.put(key, summary);
+    }
+    return summary;
+  }
+}
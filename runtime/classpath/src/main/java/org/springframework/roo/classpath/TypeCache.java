@@ -25,4 +25,6 @@ public interface TypeCache {
   Set<String> getTypeNamesForModuleFilePath(String moduleFilePath);
 
   void removeType(String typeIdentifier);
+
+  void removeTypeFromModule(Pom pom, JavaType javaType);
 }
@@ -117,4 +117,15 @@ public class TypeCacheImpl implements TypeCache {
     }
 
   }
+
+  public void removeTypeFromModule(final Pom pom, final JavaType javaType) {
+    Validate.notNull(pom, "Pom cannot be null");
+    Validate.notNull(javaType, "Java type cannot be null");
+    typeNameToModuleFilePathMap.remove(javaType.getFullyQualifiedTypeName());
+    typeNameToModuleNameMap.remove(javaType.getFullyQualifiedTypeName());
+    final Set<String> typeNames = moduleFilePathToTypeNamesMap.get(pom.getPath());
+    if (typeNames != null) {
+      typeNames.remove(javaType.getFullyQualifiedTypeName());
+    }
+  }
 }
@@ -21,6 +21,7 @@ import org.springframework.roo.model.JavaType;
 import org.springframework.roo.process.manager.FileManager;
 import org.springframework.roo.project.Dependency;
 import org.springframework.roo.project.LogicalPath;
+import org.springframework.roo.project.Path;
 import org.springframework.roo.project.PhysicalPath;
 import org.springframework.roo.project.ProjectOperations;
 import org.springframework.roo.project.maven.Pom;
@@ -71,6 +72,13 @@ public class TypeLocationServiceImpl implements TypeLocationService {
 
   protected void activate(final ComponentContext cContext) {
     context = cContext.getBundleContext();
+    lazyModules = Boolean.parseBoolean(context.getProperty(LAZY_MODULES_PROPERTY));
+  }
+
+  protected void deactivate(final ComponentContext cContext) {
+    if (moduleTypeSummaries != null) {
+      moduleTypeSummaries.store();
+    }
   }
 
   private static final Comparator<String> LENGTH_COMPARATOR = new Comparator<String>() {
@@ -81,6 +89,16 @@ public class TypeLocationServiceImpl implements TypeLocationService {
 
   private static final String JAVA_FILES_ANT_PATH = "**" + File.separatorChar + "*.java";
 
+  /**
+   * Framework property which, when "true", makes types and metadata of each
+   * module be discovered only once the module is actually used (focused,
+   * resolved through a {@link ModuleFeature} or reached by a cross-module
+   * lookup) instead of for every module at startup.
+   */
+  static final String LAZY_MODULES_PROPERTY = "roo.modules.lazy";
+
+  private static final String MODULE_SUMMARIES_FILE = "cache/module-types.properties";
+
   /**
    * Returns all packages leading up to the given package, e.g. if the given
    * package is "com.foo.bar", returns ["com", "com.foo", "com.foo.bar"].
@@ -165,6 +183,13 @@ public class TypeLocationServiceImpl implements TypeLocationService {
   private final Map<Object, Set<String>> tagToMidMap = new HashMap<Object, Set<String>>();
   private final Map<String, Set<JavaType>> typeAnnotationMap = new HashMap<String, Set<JavaType>>();
 
+  // Lazy module activation
+  /** The paths of the module POMs whose types have been discovered */
+  private final Set<String> activatedModules = new HashSet<String>();
+  private boolean lazyModules;
+  private boolean lazyTypeMapInitialized;
+  private ModuleTypeSummaries moduleTypeSummaries;
+
   private void cacheType(final String fileCanonicalPath) {
     Validate.notBlank(fileCanonicalPath, "File canonical path required");
     if (doesPathIndicateJavaType(fileCanonicalPath)) {
@@ -497,10 +522,23 @@ public class TypeLocationServiceImpl implements TypeLocationService {
     Validate.isTrue(PhysicalTypeIdentifier.isValid(physicalTypeId),
         "Metadata id '%s' is not a valid physical type id", physicalTypeId);
     updateTypeCache();
-    final ClassOrInterfaceTypeDetails cachedDetails = getTypeCache().getTypeDetails(physicalTypeId);
+    ClassOrInterfaceTypeDetails cachedDetails = getTypeCache().getTypeDetails(physicalTypeId);
     if (cachedDetails != null) {
       return cachedDetails;
     }
+    if (lazyModules) {
+      // A cross-module lookup activates the module containing the type
+      final Pom module =
+          getProjectOperations().getPomFromModuleName(
+              PhysicalTypeIdentifier.getPath(physicalTypeId).getModule());
+      if (!isModuleActivated(module)) {
+        activateModule(module);
+        cachedDetails = getTypeCache().getTypeDetails(physicalTypeId);
+        if (cachedDetails != null) {
+          return cachedDetails;
+        }
+      }
+    }
     final PhysicalTypeMetadata physicalTypeMetadata =
         (PhysicalTypeMetadata) getMetadataService().get(physicalTypeId);
     if (physicalTypeMetadata == null) {
@@ -531,6 +569,17 @@ public class TypeLocationServiceImpl implements TypeLocationService {
 
   public Set<String> getTypesForModule(final String modulePath) {
     Validate.notNull(modulePath, "Module path required");
+    if (lazyModules && !activatedModules.contains(modulePath)) {
+      // Non-activated modules are answered from their summary, which is kept
+      // up to date from file paths without parsing any type
+      updateTypeCache();
+      for (final Pom module : getProjectOperations().getPoms()) {
+        if (module.getPath().equals(modulePath)
+            && !getModuleTypeSummaries().hasSummary(module.getModuleName())) {
+          activateModule(module);
+        }
+      }
+    }
     return getTypeCache().getTypeNamesForModuleFilePath(modulePath);
   }
 
@@ -558,15 +607,143 @@ public class TypeLocationServiceImpl implements TypeLocationService {
   }
 
   private void initTypeMap() {
+    if (lazyModules) {
+      // Only the focused module is discovered up front; the rest are
+      // described by their persisted summaries until they are needed
+      lazyTypeMapInitialized = true;
+      loadModuleTypeSummaries();
+      activateModule(getProjectOperations().getFocusedModule());
+      return;
+    }
     for (final Pom pom : getProjectOperations().getPoms()) {
-      for (final PhysicalPath path : pom.getPhysicalPaths()) {
-        if (path.isSource()) {
-          final String allJavaFiles =
-              FileUtils.ensureTrailingSeparator(path.getLocationPath()) + JAVA_FILES_ANT_PATH;
-          for (final FileDetails file : getFileManager().findMatchingAntPath(allJavaFiles)) {
-            cacheType(file.getCanonicalPath());
-          }
-        }
+      scanModule(pom);
+    }
+  }
+
+  /**
+   * Caches every Java type found in the source paths of the given module.
+   * 
+   * @param pom the module to scan (required)
+   * @return the scanned files
+   */
+  private List<FileDetails> scanModule(final Pom pom) {
+    final List<FileDetails> sourceFiles = getSourceFiles(pom);
+    for (final FileDetails file : sourceFiles) {
+      cacheType(file.getCanonicalPath());
+    }
+    return sourceFiles;
+  }
+
+  /**
+   * Returns the Java files in the source paths of the given module.
+   * 
+   * @param pom the module (required)
+   * @return a non-<code>null</code> list
+   */
+  private List<FileDetails> getSourceFiles(final Pom pom) {
+    final List<FileDetails> sourceFiles = new ArrayList<FileDetails>();
+    for (final PhysicalPath path : pom.getPhysicalPaths()) {
+      if (path.isSource()) {
+        final String allJavaFiles =
+            FileUtils.ensureTrailingSeparator(path.getLocationPath()) + JAVA_FILES_ANT_PATH;
+        sourceFiles.addAll(getFileManager().findMatchingAntPath(allJavaFiles));
+      }
+    }
+    return sourceFiles;
+  }
+
+  private static long getLatestModification(final Collection<FileDetails> files) {
+    long latestModification = 0;
+    for (final FileDetails file : files) {
+      if (file.getLastModified() != null) {
+        latestModification = Math.max(latestModification, file.getLastModified());
+      }
+    }
+    return latestModification;
+  }
+
+  /**
+   * In lazy mode, discovers the types of the given module if this has not
+   * been done yet. Does nothing otherwise.
+   * 
+   * @param pom the module to activate (can be <code>null</code>)
+   */
+  private void activateModule(final Pom pom) {
+    if (!lazyModules || pom == null || "pom".equals(pom.getPackaging())
+        || !activatedModules.add(pom.getPath())) {
+      return;
+    }
+    final List<FileDetails> sourceFiles = scanModule(pom);
+
+    // Refresh the module summary with what the scan actually found
+    final Set<JavaType> annotations = new HashSet<JavaType>();
+    final Set<String> typeNames = getTypeCache().getTypeNamesForModuleFilePath(pom.getPath());
+    for (final String typeName : typeNames) {
+      final String mid = getTypeCache().getPhysicalTypeIdentifier(new JavaType(typeName));
+      if (mid != null && typeAnnotationMap.containsKey(mid)) {
+        annotations.addAll(typeAnnotationMap.get(mid));
+      }
+    }
+    getModuleTypeSummaries().update(pom.getModuleName(), typeNames, annotations,
+        getLatestModification(sourceFiles), sourceFiles.size());
+    getModuleTypeSummaries().store();
+  }
+
+  private void activateAllModules() {
+    for (final Pom pom : getProjectOperations().getPoms()) {
+      activateModule(pom);
+    }
+  }
+
+  private boolean isModuleActivated(final Pom pom) {
+    return !lazyModules || pom == null || activatedModules.contains(pom.getPath());
+  }
+
+  /**
+   * Records a Java file of a module that has not been activated yet, deriving
+   * its type name from the file path instead of parsing it.
+   */
+  private void deferType(final Pom pom, final String fileCanonicalPath) {
+    final JavaType javaType =
+        new JavaType(getProposedJavaType(fileCanonicalPath), pom.getModuleName());
+    final File file = new File(fileCanonicalPath);
+    if (file.exists()) {
+      getTypeCache().cacheTypeAgainstModule(pom, javaType);
+      getModuleTypeSummaries().addUnparsedType(pom.getModuleName(),
+          javaType.getFullyQualifiedTypeName(), file.lastModified());
+    } else {
+      getTypeCache().removeTypeFromModule(pom, javaType);
+      getModuleTypeSummaries().removeType(pom.getModuleName(),
+          javaType.getFullyQualifiedTypeName());
+    }
+  }
+
+  private ModuleTypeSummaries getModuleTypeSummaries() {
+    if (moduleTypeSummaries == null) {
+      final String summariesPath =
+          getProjectOperations().getPathResolver().getIdentifier(
+              LogicalPath.getInstance(Path.ROOT_ROO_CONFIG, ""), MODULE_SUMMARIES_FILE);
+      moduleTypeSummaries = new ModuleTypeSummaries(new File(summariesPath));
+    }
+    return moduleTypeSummaries;
+  }
+
+  private void loadModuleTypeSummaries() {
+    getModuleTypeSummaries().load();
+    for (final Pom pom : getProjectOperations().getPoms()) {
+      if (!getModuleTypeSummaries().hasSummary(pom.getModuleName())) {
+        continue;
+      }
+      final List<FileDetails> sourceFiles = getSourceFiles(pom);
+      if (!getModuleTypeSummaries().isCurrent(pom.getModuleName(),
+          getLatestModification(sourceFiles), sourceFiles.size())) {
+        // The module changed while Roo was not running, so it will be scanned
+        // again when needed, as if it had never been summarised
+        getModuleTypeSummaries().remove(pom.getModuleName());
+        continue;
+      }
+      for (final String typeName : getModuleTypeSummaries().getTypeNames(pom.getModuleName())) {
+        getTypeCache().cacheTypeAgainstModule(pom, new JavaType(typeName, pom.getModuleName()));
       }
     }
   }
@@ -608,6 +785,17 @@ public class TypeLocationServiceImpl implements TypeLocationService {
     // processed and the cache updated accordingly
     updateTypeCache();
 
+    if (lazyModules) {
+      // Activate the modules that might contain any of the annotations
+      for (final Pom pom : getProjectOperations().getPoms()) {
+        if (!isModuleActivated(pom)
+            && getModuleTypeSummaries().mayContainAnnotation(pom.getModuleName(),
+                annotationsToDetect)) {
+          activateModule(pom);
+        }
+      }
+    }
+
     for (final JavaType annotationType : annotationsToDetect) {
       for (final String locatedMid : annotationToMidMap.get(annotationType)) {
         final ClassOrInterfaceTypeDetails located = getTypeCache().getTypeDetails(locatedMid);
@@ -628,6 +816,9 @@ public class TypeLocationServiceImpl implements TypeLocationService {
     // processed and the cache updated accordingly
     updateTypeCache();
 
+    // Tags are not recorded in module summaries, so every module is needed
+    activateAllModules();
+
     for (final String locatedMid : tagToMidMap.get(tag)) {
       final ClassOrInterfaceTypeDetails located = getTypeCache().getTypeDetails(locatedMid);
       callback.process(located);
@@ -687,15 +878,27 @@ public class TypeLocationServiceImpl implements TypeLocationService {
   }
 
   private void updateTypeCache() {
-    if (getTypeCache().getAllTypeIdentifiers().isEmpty()) {
+    if (lazyModules ? !lazyTypeMapInitialized : getTypeCache().getAllTypeIdentifiers()
+        .isEmpty()) {
       initTypeMap();
     }
     discoverTypes();
     // Update the type cache
+    boolean deferred = false;
     for (final String change : dirtyFiles) {
-      cacheType(change);
+      final Pom module =
+          lazyModules ? getProjectOperations().getModuleForFileIdentifier(change) : null;
+      if (isModuleActivated(module)) {
+        cacheType(change);
+      } else {
+        deferType(module, change);
+        deferred = true;
+      }
     }
     dirtyFiles.clear();
+    if (deferred) {
+      getModuleTypeSummaries().store();
+    }
   }
 
   public void addDependencies(ModuleFeatureName moduleFeatureName,
@@ -731,6 +934,9 @@ public class TypeLocationServiceImpl implements TypeLocationService {
     ModuleFeature moduleFeature = getModuleFeature(moduleFeatureName);
     if (moduleFeature != null) {
       modules = moduleFeature.getModules();
+      for (final Pom module : modules) {
+        activateModule(module);
+      }
     }
     return modules;
   }
@@ -162,6 +162,10 @@ public abstract class AbstractItdMetadataProvider extends AbstractHashCodeTracki
   private void deleteItd(final String metadataIdentificationString, final String itdFilename,
       final String reason, final boolean now) {
 
+    final ItdRegenerationScheduler itdRegenerationScheduler = getItdRegenerationScheduler();
+    if (itdRegenerationScheduler != null) {
+      itdRegenerationScheduler.discard(itdFilename);
+    }
     if (now) {
       getFileManager().delete(itdFilename, reason);
     } else {
@@ -280,19 +284,27 @@ public abstract class AbstractItdMetadataProvider extends AbstractHashCodeTracki
       if (!deleteItdFile) {
         // We have some members in the ITD, so decide if we're to write
         // something to disk
-        final ItdSourceFileComposer itdSourceFileComposer =
-            new ItdSourceFileComposer(metadata.getMemberHoldingTypeDetails());
-
-        // Decide whether the get an ITD on-disk based on whether there
-        // is physical content to write
-        if (itdSourceFileComposer.isContent()) {
-          // We have content to write
-          getItdDiscoveryService().addItdTypeDetails(itdTypeDetails);
-          final String itd = itdSourceFileComposer.getOutput();
-          getFileManager().createOrUpdateTextFileIfRequired(itdFilename, itd, false);
+        final ItdRegenerationScheduler itdRegenerationScheduler = getItdRegenerationScheduler();
+        if (itdRegenerationScheduler != null) {
+          // The scheduler renders the ITD (possibly on its worker pool) and
+          // deletes it if it turns out to have no physical content
+          itdRegenerationScheduler.render(metadataIdentificationString, itdFilename,
+              itdTypeDetails);
         } else {
-          // We don't have content to write
-          deleteItdFile = true;
+          final ItdSourceFileComposer itdSourceFileComposer =
+              new ItdSourceFileComposer(metadata.getMemberHoldingTypeDetails());
+
+          // Decide whether the get an ITD on-disk based on whether there
+          // is physical content to write
+          if (itdSourceFileComposer.isContent()) {
+            // We have content to write
+            getItdDiscoveryService().addItdTypeDetails(itdTypeDetails);
+            final String itd = itdSourceFileComposer.getOutput();
+            getFileManager().createOrUpdateTextFileIfRequired(itdFilename, itd, false);
+          } else {
+            // We don't have content to write
+            deleteItdFile = true;
+          }
         }
       }
 
@@ -674,6 +686,10 @@ public abstract class AbstractItdMetadataProvider extends AbstractHashCodeTracki
     return getServiceManager().getServiceInstance(this, ItdDiscoveryService.class);
   }
 
+  protected ItdRegenerationScheduler getItdRegenerationScheduler() {
+    return getServiceManager().getServiceInstance(this, ItdRegenerationScheduler.class);
+  }
+
   protected MemberDetailsScanner getMemberDetailsScanner() {
     return getServiceManager().getServiceInstance(this, MemberDetailsScanner.class);
   }
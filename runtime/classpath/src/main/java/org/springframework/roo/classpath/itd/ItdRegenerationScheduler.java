@@ -0,0 +1,78 @@
+package org.springframework.roo.classpath.itd;
+
+import java.util.concurrent.Callable;
+
+import org.springframework.roo.classpath.details.ItdTypeDetails;
+import org.springframework.roo.metadata.MetadataService;
+
+/**
+ * Schedules the regeneration of ITDs produced by
+ * {@link ItdTriggerBasedMetadataProvider}s.
+ * <p>
+ * Metadata is still built on the notifying thread, as required by the
+ * {@link MetadataService} contract, but the rendering of each ITD source file
+ * is handed to a bounded worker pool while a batch is open. When the outermost
+ * batch ends, the rendered files are handed to the file manager by a single
+ * committer, in the order they were requested, so the output stays
+ * deterministic.
+ * <p>
+ * Other files generated from metadata, such as views, can be rendered and
+ * written the same way through {@link #render(String, Callable)}.
+ *
+ * @since 2.0
+ */
+public interface ItdRegenerationScheduler {
+
+  /**
+   * Opens a regeneration batch. Batches can be nested; rendered ITDs are only
+   * written when the outermost batch is closed through {@link #endBatch()}.
+   */
+  void beginBatch();
+
+  /**
+   * Discards any pending render of the given ITD file, typically because the
+   * ITD is being deleted later in the same batch.
+   *
+   * @param itdFilename the canonical path of the ITD file
+   */
+  void discard(String itdFilename);
+
+  /**
+   * Closes the current regeneration batch. When the outermost batch is
+   * closed, waits for all pending renders and writes them through the file
+   * manager.
+   */
+  void endBatch();
+
+  /**
+   * Indicates whether a regeneration batch is currently open.
+   *
+   * @return true if renders are currently deferred to the worker pool
+   */
+  boolean isBatching();
+
+  /**
+   * Renders the ITD source file for the given {@link ItdTypeDetails} and
+   * writes it to the indicated file. If a batch is open, rendering happens on
+   * the worker pool and the write is deferred until the batch ends; otherwise
+   * both happen immediately on the calling thread.
+   *
+   * @param metadataIdentificationString the MID of the ITD (required)
+   * @param itdFilename the canonical path of the ITD file (required)
+   * @param itdTypeDetails the ITD to render (required)
+   */
+  void render(String metadataIdentificationString, String itdFilename,
+      ItdTypeDetails itdTypeDetails);
+
+  /**
+   * Renders the contents of a file other than an ITD and writes them to the
+   * indicated file, in the same way as ITDs: on the worker pool if a batch is
+   * open, otherwise immediately on the calling thread.
+   *
+   * @param filename the canonical path of the file (required)
+   * @param output computes the contents of the file; as it may run on a
+   *            worker thread, it must not use services that expect a single
+   *            thread (required)
+   */
+  void render(String filename, Callable<String> output);
+}
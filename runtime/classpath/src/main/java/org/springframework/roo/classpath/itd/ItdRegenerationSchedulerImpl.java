@@ -0,0 +1,208 @@
+package org.springframework.roo.classpath.itd;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.felix.scr.annotations.Component;
+import org.apache.felix.scr.annotations.Service;
+import org.osgi.service.component.ComponentContext;
+import org.springframework.roo.classpath.ItdDiscoveryService;
+import org.springframework.roo.classpath.details.ItdTypeDetails;
+import org.springframework.roo.process.manager.FileManager;
+import org.springframework.roo.support.osgi.ServiceInstaceManager;
+
+/**
+ * Default implementation of {@link ItdRegenerationScheduler}.
+ * <p>
+ * Like the rest of the metadata infrastructure, this class expects to be
+ * driven by a single thread at a time (enforced by the process manager
+ * semantics). Only the ITD rendering itself, which works on immutable
+ * {@link ItdTypeDetails}, is executed on the worker pool.
+ *
+ * @since 2.0
+ */
+@Component
+@Service
+public class ItdRegenerationSchedulerImpl implements ItdRegenerationScheduler {
+
+  private static final int MAX_WORKERS = 4;
+
+  /** key: ITD or other filename, value: the pending render (in request order) */
+  private final Map<String, PendingItd> pendingItds = new LinkedHashMap<String, PendingItd>();
+
+  private int batchDepth = 0;
+  private ExecutorService executor;
+
+  private ServiceInstaceManager serviceInstaceManager = new ServiceInstaceManager();
+
+  protected void activate(final ComponentContext context) {
+    serviceInstaceManager.activate(context.getBundleContext());
+    final int workers =
+        Math.max(1, Math.min(MAX_WORKERS, Runtime.getRuntime().availableProcessors()));
+    executor = Executors.newFixedThreadPool(workers, new RendererThreadFactory());
+  }
+
+  protected void deactivate(final ComponentContext context) {
+    if (executor != null) {
+      executor.shutdownNow();
+      executor = null;
+    }
+    pendingItds.clear();
+    batchDepth = 0;
+    serviceInstaceManager.deactivate();
+  }
+
+  public void beginBatch() {
+    batchDepth++;
+  }
+
+  public void discard(final String itdFilename) {
+    final PendingItd pendingItd = pendingItds.remove(itdFilename);
+    if (pendingItd != null) {
+      pendingItd.output.cancel(false);
+    }
+  }
+
+  public void endBatch() {
+    Validate.isTrue(batchDepth > 0, "No ITD regeneration batch is open");
+    batchDepth--;
+    if (batchDepth == 0) {
+      flush();
+    }
+  }
+
+  public boolean isBatching() {
+    return batchDepth > 0;
+  }
+
+  public void render(final String metadataIdentificationString, final String itdFilename,
+      final ItdTypeDetails itdTypeDetails) {
+    Validate.notBlank(itdFilename, "ITD filename required");
+    Validate.notNull(itdTypeDetails, "ITD type details required");
+
+    // Register the details straight away, as metadata built later in this
+    // batch may need to discover them
+    getItdDiscoveryService().addItdTypeDetails(itdTypeDetails);
+
+    if (!isBatching() || executor == null) {
+      write(metadataIdentificationString, itdFilename, compose(itdTypeDetails));
+      return;
+    }
+
+    final Future<String> output = executor.submit(new Callable<String>() {
+      public String call() {
+        return compose(itdTypeDetails);
+      }
+    });
+    schedule(metadataIdentificationString, itdFilename, output);
+  }
+
+  public void render(final String filename, final Callable<String> output) {
+    Validate.notBlank(filename, "Filename required");
+    Validate.notNull(output, "Output required");
+
+    if (!isBatching() || executor == null) {
+      final String contents;
+      try {
+        contents = output.call();
+      } catch (final RuntimeException e) {
+        throw e;
+      } catch (final Exception e) {
+        throw new IllegalStateException("Could not render '" + filename + "'", e);
+      }
+      write(null, filename, contents);
+      return;
+    }
+
+    schedule(null, filename, executor.submit(output));
+  }
+
+  private void schedule(final String metadataIdentificationString, final String filename,
+      final Future<String> output) {
+    final PendingItd previous =
+        pendingItds.put(filename, new PendingItd(metadataIdentificationString, output));
+    if (previous != null) {
+      // A later build of the same file supersedes the earlier one
+      previous.output.cancel(false);
+    }
+  }
+
+  private String compose(final ItdTypeDetails itdTypeDetails) {
+    final ItdSourceFileComposer itdSourceFileComposer = new ItdSourceFileComposer(itdTypeDetails);
+    if (itdSourceFileComposer.isContent()) {
+      return itdSourceFileComposer.getOutput();
+    }
+    return "";
+  }
+
+  /**
+   * Waits for every pending render and hands the results to the
+   * {@link FileManager}, in the order the ITDs were first requested.
+   */
+  private void flush() {
+    final Map<String, PendingItd> toWrite = new LinkedHashMap<String, PendingItd>(pendingItds);
+    pendingItds.clear();
+    for (final Map.Entry<String, PendingItd> entry : toWrite.entrySet()) {
+      final PendingItd pendingItd = entry.getValue();
+      final String output;
+      try {
+        output = pendingItd.output.get();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while rendering ITD '" + entry.getKey()
+            + "'", e);
+      } catch (final ExecutionException e) {
+        throw new IllegalStateException("Could not render '" + entry.getKey() + "'",
+            e.getCause());
+      }
+      write(pendingItd.metadataIdentificationString, entry.getKey(), output);
+    }
+  }
+
+  private void write(final String metadataIdentificationString, final String itdFilename,
+      final String output) {
+    if ("".equals(output) && metadataIdentificationString != null) {
+      // Nothing to introduce; an empty deferred write removes the file
+      getItdDiscoveryService().removeItdTypeDetails(metadataIdentificationString);
+    }
+    getFileManager().createOrUpdateTextFileIfRequired(itdFilename, output, false);
+  }
+
+  private FileManager getFileManager() {
+    return serviceInstaceManager.getServiceInstance(this, FileManager.class);
+  }
+
+  private ItdDiscoveryService getItdDiscoveryService() {
+    return serviceInstaceManager.getServiceInstance(this, ItdDiscoveryService.class);
+  }
+
+  private static class PendingItd {
+
+    private final String metadataIdentificationString;
+    private final Future<String> output;
+
+    PendingItd(final String metadataIdentificationString, final Future<String> output) {
+      this.metadataIdentificationString = metadataIdentificationString;
+      this.output = output;
+    }
+  }
+
+  private static class RendererThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    public Thread newThread(final Runnable runnable) {
+      final Thread thread = new Thread(runnable, "roo-itd-renderer-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
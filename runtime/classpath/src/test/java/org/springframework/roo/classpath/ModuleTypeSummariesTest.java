@@ -0,0 +1,132 @@
+package org.springframework.roo.classpath;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.roo.model.JavaType;
+
+/**
+ * Unit test of {@link ModuleTypeSummaries}
+ *
+ * @since 2.0
+ */
+public class ModuleTypeSummariesTest {
+
+  private static final JavaType ENTITY_ANNOTATION = new JavaType("com.example.Entity");
+  private static final JavaType SERVICE_ANNOTATION = new JavaType("com.example.Service");
+
+  private File file;
+
+  @Before
+  public void setUp() throws IOException {
+    file = File.createTempFile("module-types", ".properties");
+    file.delete();
+  }
+
+  @After
+  public void tearDown() {
+    file.delete();
+  }
+
+  @Test
+  public void testUnknownModuleMayContainAnyAnnotation() {
+    final ModuleTypeSummaries summaries = new ModuleTypeSummaries(file);
+
+    assertFalse(summaries.hasSummary("model"));
+    assertTrue(summaries.mayContainAnnotation("model", Arrays.asList(ENTITY_ANNOTATION)));
+    assertTrue(summaries.getTypeNames("model").isEmpty());
+  }
+
+  @Test
+  public void testSummariesSurviveStoreAndLoad() {
+    // Set up
+    final ModuleTypeSummaries summaries = new ModuleTypeSummaries(file);
+    summaries.update("model", Arrays.asList("com.example.Person", "com.example.Pet"),
+        Arrays.asList(ENTITY_ANNOTATION), 1000L, 2);
+    summaries.update("", Collections.<String>emptyList(), Collections.<JavaType>emptyList(),
+        1000L, 0);
+    summaries.store();
+
+    // Invoke
+    final ModuleTypeSummaries reloaded = new ModuleTypeSummaries(file);
+    reloaded.load();
+
+    // Check
+    assertTrue(reloaded.hasSummary("model"));
+    assertTrue(reloaded.hasSummary(""));
+    assertEquals(2, reloaded.getTypeNames("model").size());
+    assertTrue(reloaded.getTypeNames("model").contains("com.example.Pet"));
+    assertTrue(reloaded.mayContainAnnotation("model", Arrays.asList(ENTITY_ANNOTATION)));
+    assertFalse(reloaded.mayContainAnnotation("model", Arrays.asList(SERVICE_ANNOTATION)));
+  }
+
+  @Test
+  public void testSummaryIsOnlyCurrentForTheFilesItWasTakenFrom() {
+    // Set up
+    final ModuleTypeSummaries summaries = new ModuleTypeSummaries(file);
+    summaries.update("model", Arrays.asList("com.example.Person", "com.example.Pet"),
+        Arrays.asList(ENTITY_ANNOTATION), 1000L, 2);
+    summaries.store();
+
+    // Invoke
+    final ModuleTypeSummaries reloaded = new ModuleTypeSummaries(file);
+    reloaded.load();
+
+    // Check
+    assertTrue(reloaded.isCurrent("model", 1000L, 2));
+    assertFalse("A file was added or deleted", reloaded.isCurrent("model", 1000L, 3));
+    assertFalse("A file was modified", reloaded.isCurrent("model", 2000L, 2));
+    assertFalse(reloaded.isCurrent("web", 1000L, 2));
+  }
+
+  @Test
+  public void testRemovedSummaryIsUnknown() {
+    final ModuleTypeSummaries summaries = new ModuleTypeSummaries(file);
+    summaries.update("model", Arrays.asList("com.example.Person"),
+        Arrays.asList(ENTITY_ANNOTATION), 1000L, 1);
+
+    summaries.remove("model");
+
+    assertFalse(summaries.hasSummary("model"));
+    assertTrue(summaries.mayContainAnnotation("model", Arrays.asList(SERVICE_ANNOTATION)));
+  }
+
+  @Test
+  public void testChangedFileMakesAnnotationsStale() {
+    // Set up
+    final ModuleTypeSummaries summaries = new ModuleTypeSummaries(file);
+    summaries.update("model", Arrays.asList("com.example.Person"),
+        Arrays.asList(ENTITY_ANNOTATION), 1000L, 1);
+
+    // Invoke
+    summaries.addUnparsedType("model", "com.example.Person", 500L);
+    final boolean staleBeforeChange =
+        summaries.mayContainAnnotation("model", Arrays.asList(SERVICE_ANNOTATION));
+    summaries.addUnparsedType("model", "com.example.PersonService", 2000L);
+
+    // Check
+    assertFalse(staleBeforeChange);
+    assertTrue(summaries.mayContainAnnotation("model", Arrays.asList(SERVICE_ANNOTATION)));
+    assertTrue(summaries.getTypeNames("model").contains("com.example.PersonService"));
+  }
+
+  @Test
+  public void testRemovedTypeIsForgotten() {
+    final ModuleTypeSummaries summaries = new ModuleTypeSummaries(file);
+    summaries.update("model", Arrays.asList("com.example.Person"),
+        Collections.<JavaType>emptyList(), 1000L, 1);
+
+    summaries.removeType("model", "com.example.Person");
+
+    assertTrue(summaries.getTypeNames("model").isEmpty());
+  }
+}
@@ -1,13 +1,36 @@
 package org.springframework.roo.classpath;
 
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 import junit.framework.TestCase;
 
+import org.apache.commons.io.FileUtils;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceReference;
+import org.osgi.service.component.ComponentContext;
+import org.springframework.roo.file.monitor.FileMonitorService;
+import org.springframework.roo.file.monitor.event.FileDetails;
+import org.springframework.roo.model.JavaType;
+import org.springframework.roo.process.manager.FileManager;
+import org.springframework.roo.project.LogicalPath;
+import org.springframework.roo.project.Path;
+import org.springframework.roo.project.PathResolver;
+import org.springframework.roo.project.PhysicalPath;
+import org.springframework.roo.project.ProjectOperations;
+import org.springframework.roo.project.maven.Pom;
+
 /**
  * Unit test of {@link TypeLocationServiceImpl}.
  * 
@@ -59,4 +82,138 @@ public class TypeLocationServiceImplTest extends TestCase {
     // Check
     assertEquals("com.foo", lowestCommonPackage);
   }
+
+  public void testDeletingATypeOfANonActivatedModuleRemovesItFromTheModule() throws Exception {
+    // Set up
+    final File projectDirectory = createProjectDirectory();
+    try {
+      final File coreSources = new File(projectDirectory, "core/src/main/java");
+      final ModuleTypeSummaries summaries =
+          new ModuleTypeSummaries(getSummariesFile(projectDirectory));
+      summaries.update("core", Arrays.asList("com.foo.Deleted", "com.foo.Kept"),
+          Collections.<JavaType>emptySet(), 1, 1);
+      summaries.store();
+      final String deletedFile = new File(coreSources, "com/foo/Deleted.java").getPath();
+      final List<FileDetails> coreFiles =
+          Arrays.asList(new FileDetails(new File(coreSources, "com/foo/Kept.java"), 1L));
+      final TypeLocationServiceImpl typeLocationService =
+          getLazyTypeLocationService(projectDirectory, coreFiles, deletedFile);
+
+      // Invoke
+      final Set<String> types =
+          typeLocationService.getTypesForModule(getCorePomPath(projectDirectory));
+
+      // Check
+      assertEquals(Collections.singleton("com.foo.Kept"), types);
+    } finally {
+      FileUtils.deleteDirectory(projectDirectory);
+    }
+  }
+
+  public void testModuleChangedWhileRooWasNotRunningIsScannedAgain() throws Exception {
+    // Set up
+    final File projectDirectory = createProjectDirectory();
+    try {
+      final ModuleTypeSummaries summaries =
+          new ModuleTypeSummaries(getSummariesFile(projectDirectory));
+      summaries.update("core", Arrays.asList("com.foo.Gone"), Collections.<JavaType>emptySet(),
+          1, 1);
+      summaries.store();
+      final TypeLocationServiceImpl typeLocationService =
+          getLazyTypeLocationService(projectDirectory, Collections.<FileDetails>emptyList());
+
+      // Invoke
+      final Set<String> types =
+          typeLocationService.getTypesForModule(getCorePomPath(projectDirectory));
+
+      // Check
+      assertTrue(types.isEmpty());
+      final ModuleTypeSummaries storedSummaries =
+          new ModuleTypeSummaries(getSummariesFile(projectDirectory));
+      storedSummaries.load();
+      assertTrue(storedSummaries.isCurrent("core", 0, 0));
+    } finally {
+      FileUtils.deleteDirectory(projectDirectory);
+    }
+  }
+
+  private File createProjectDirectory() throws IOException {
+    final File projectDirectory = File.createTempFile("project", "").getCanonicalFile();
+    projectDirectory.delete();
+    projectDirectory.mkdirs();
+    return projectDirectory;
+  }
+
+  private String getCorePomPath(final File projectDirectory) {
+    return new File(projectDirectory, "core/pom.xml").getPath();
+  }
+
+  private File getSummariesFile(final File projectDirectory) {
+    return new File(projectDirectory, ".roo/cache/module-types.properties");
+  }
+
+  /**
+   * Returns an activated service in lazy mode for a project made of a root
+   * POM and a "core" module, whose focused module is the root
+   * 
+   * @param coreFiles the Java files of the core module
+   * @param dirtyFiles the files changed since the service started
+   */
+  private TypeLocationServiceImpl getLazyTypeLocationService(final File projectDirectory,
+      final List<FileDetails> coreFiles, final String... dirtyFiles) throws Exception {
+    final File summariesFile = getSummariesFile(projectDirectory);
+    final Pom mockRootPom = mock(Pom.class);
+    when(mockRootPom.getPackaging()).thenReturn("pom");
+    when(mockRootPom.getPath()).thenReturn(new File(projectDirectory, "pom.xml").getPath());
+    final File coreSources = new File(projectDirectory, "core/src/main/java");
+    final Pom mockCorePom = mock(Pom.class);
+    when(mockCorePom.getModuleName()).thenReturn("core");
+    when(mockCorePom.getPackaging()).thenReturn("jar");
+    when(mockCorePom.getPath()).thenReturn(getCorePomPath(projectDirectory));
+    when(mockCorePom.getPhysicalPaths()).thenReturn(
+        Arrays.asList(new PhysicalPath(LogicalPath.getInstance(Path.SRC_MAIN_JAVA, "core"),
+            coreSources)));
+
+    final PathResolver mockPathResolver = mock(PathResolver.class);
+    when(
+        mockPathResolver.getIdentifier(LogicalPath.getInstance(Path.ROOT_ROO_CONFIG, ""),
+            "cache/module-types.properties")).thenReturn(summariesFile.getPath());
+    final ProjectOperations mockProjectOperations = mock(ProjectOperations.class);
+    when(mockProjectOperations.getPathResolver()).thenReturn(mockPathResolver);
+    when(mockProjectOperations.getPoms()).thenReturn(Arrays.asList(mockRootPom, mockCorePom));
+    when(mockProjectOperations.getFocusedModule()).thenReturn(mockRootPom);
+    for (final String dirtyFile : dirtyFiles) {
+      when(mockProjectOperations.getModuleForFileIdentifier(dirtyFile)).thenReturn(mockCorePom);
+    }
+    final FileMonitorService mockFileMonitorService = mock(FileMonitorService.class);
+    when(mockFileMonitorService.getDirtyFiles(TypeLocationServiceImpl.class.getName()))
+        .thenReturn(Arrays.asList(dirtyFiles));
+    final FileManager mockFileManager = mock(FileManager.class);
+    when(
+        mockFileManager.findMatchingAntPath(coreSources.getPath() + File.separator + "**"
+            + File.separator + "*.java")).thenReturn(
+        new TreeSet<FileDetails>(coreFiles));
+
+    final BundleContext mockBundleContext = mock(BundleContext.class);
+    when(mockBundleContext.getProperty(TypeLocationServiceImpl.LAZY_MODULES_PROPERTY))
+        .thenReturn("true");
+    addService(mockBundleContext, ProjectOperations.class, mockProjectOperations);
+    addService(mockBundleContext, FileManager.class, mockFileManager);
+    addService(mockBundleContext, FileMonitorService.class, mockFileMonitorService);
+    addService(mockBundleContext, TypeCache.class, new TypeCacheImpl());
+    final ComponentContext mockComponentContext = mock(ComponentContext.class);
+    when(mockComponentContext.getBundleContext()).thenReturn(mockBundleContext);
+    final TypeLocationServiceImpl typeLocationService = new TypeLocationServiceImpl();
+    typeLocationService.activate(mockComponentContext);
+    return typeLocationService;
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> void addService(final BundleContext mockBundleContext, final Class<T> serviceClass,
+      final T service) throws Exception {
+    final ServiceReference<T> mockReference = mock(ServiceReference.class);
+    when(mockBundleContext.getAllServiceReferences(serviceClass.getName(), null)).thenReturn(
+        new ServiceReference<?>[] {mockReference});
+    when(mockBundleContext.getService(mockReference)).thenReturn(service);
+  }
 }
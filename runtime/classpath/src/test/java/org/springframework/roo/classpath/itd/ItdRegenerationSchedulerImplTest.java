@@ -0,0 +1,113 @@
+package org.springframework.roo.classpath.itd;
+
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.Callable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceReference;
+import org.osgi.service.component.ComponentContext;
+import org.springframework.roo.process.manager.FileManager;
+
+/**
+ * Unit test of {@link ItdRegenerationSchedulerImpl}
+ *
+ * @since 2.0
+ */
+public class ItdRegenerationSchedulerImplTest {
+
+  private ComponentContext mockComponentContext;
+  private FileManager mockFileManager;
+  private ItdRegenerationSchedulerImpl scheduler;
+
+  @Before
+  @SuppressWarnings("unchecked")
+  public void setUp() throws Exception {
+    mockFileManager = mock(FileManager.class);
+    final ServiceReference<FileManager> mockReference = mock(ServiceReference.class);
+    final BundleContext mockBundleContext = mock(BundleContext.class);
+    when(mockBundleContext.getAllServiceReferences(FileManager.class.getName(), null))
+        .thenReturn(new ServiceReference<?>[] {mockReference});
+    when(mockBundleContext.getService(mockReference)).thenReturn(mockFileManager);
+    mockComponentContext = mock(ComponentContext.class);
+    when(mockComponentContext.getBundleContext()).thenReturn(mockBundleContext);
+    scheduler = new ItdRegenerationSchedulerImpl();
+    scheduler.activate(mockComponentContext);
+  }
+
+  @After
+  public void tearDown() {
+    scheduler.deactivate(mockComponentContext);
+  }
+
+  private Callable<String> getOutput(final String contents, final long delay) {
+    return new Callable<String>() {
+      public String call() throws Exception {
+        Thread.sleep(delay);
+        return contents;
+      }
+    };
+  }
+
+  @Test
+  public void testRenderOutsideABatchWritesImmediately() {
+    // Invoke
+    scheduler.render("people/list.html", getOutput("<html/>", 0));
+
+    // Check
+    verify(mockFileManager).createOrUpdateTextFileIfRequired("people/list.html", "<html/>",
+        false);
+  }
+
+  @Test
+  public void testBatchedRendersAreWrittenInRequestOrder() {
+    // Set up
+    scheduler.beginBatch();
+
+    // Invoke
+    scheduler.render("people/list.html", getOutput("list", 200));
+    scheduler.render("people/show.html", getOutput("show", 100));
+    scheduler.render("people/edit.html", getOutput("edit", 0));
+
+    // Check
+    verifyZeroInteractions(mockFileManager);
+    scheduler.endBatch();
+    final InOrder inOrder = inOrder(mockFileManager);
+    inOrder.verify(mockFileManager).createOrUpdateTextFileIfRequired("people/list.html", "list",
+        false);
+    inOrder.verify(mockFileManager).createOrUpdateTextFileIfRequired("people/show.html", "show",
+        false);
+    inOrder.verify(mockFileManager).createOrUpdateTextFileIfRequired("people/edit.html", "edit",
+        false);
+  }
+
+  @Test
+  public void testLaterRenderOfTheSameFileKeepsItsFirstPosition() {
+    // Set up
+    scheduler.beginBatch();
+
+    // Invoke
+    scheduler.render("people/list.html", getOutput("first", 0));
+    scheduler.render("people/show.html", getOutput("show", 0));
+    scheduler.render("people/list.html", getOutput("second", 0));
+    scheduler.endBatch();
+
+    // Check
+    final InOrder inOrder = inOrder(mockFileManager);
+    inOrder.verify(mockFileManager).createOrUpdateTextFileIfRequired("people/list.html",
+        "second", false);
+    inOrder.verify(mockFileManager).createOrUpdateTextFileIfRequired("people/show.html", "show",
+        false);
+    verify(mockFileManager, never()).createOrUpdateTextFileIfRequired("people/list.html",
+        "first", false);
+  }
+}
@@ -0,0 +1,296 @@
+package org.springframework.roo.felix;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+import org.springframework.roo.url.stream.UrlInputStreamService;
+import org.springframework.roo.url.stream.UrlResponse;
+
+/**
+ * A content-addressed cache of downloaded resources.
+ * <p>
+ * Each download is stored once under the SHA-256 digest of its contents, and
+ * an index maps every URL to the digest of its latest contents together with
+ * the validators (<code>ETag</code> and <code>Last-Modified</code>) sent by
+ * the server, so that a cached URL is only downloaded again if a conditional
+ * request says it changed. If the server cannot be reached, the cached copy
+ * is used; an error response from the server is reported as such.
+ * <p>
+ * The cache also remembers which pairs of resource and signature digests
+ * have been verified, as both are immutable once stored.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @since 2.0
+ */
+public class DownloadCache {
+
+  private static final String ETAG_PREFIX = "etag.";
+  private static final String INDEX_FILE = "index.properties";
+  private static final String LAST_MODIFIED_PREFIX = "lastModified.";
+  private static final String SHA_PREFIX = "sha256.";
+  private static final String VERIFIED_PREFIX = "verified.";
+
+  private static String toHex(final byte[] bytes) {
+    final StringBuilder sb = new StringBuilder(bytes.length * 2);
+    for (final byte b : bytes) {
+      sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return sb.toString();
+  }
+
+  private final File directory;
+  private final Properties index = new Properties();
+  private final UrlInputStreamService urlInputStreamService;
+
+  /**
+   * Constructor
+   *
+   * @param directory the directory in which to store the downloads
+   *            (required); created if necessary
+   * @param urlInputStreamService the service performing the downloads
+   *            (required)
+   */
+  public DownloadCache(final File directory, final UrlInputStreamService urlInputStreamService) {
+    Validate.notNull(directory, "Directory required");
+    Validate.notNull(urlInputStreamService, "URL input stream service required");
+    this.directory = directory;
+    this.urlInputStreamService = urlInputStreamService;
+    loadIndex();
+  }
+
+  /**
+   * Returns the up-to-date contents of the given URL, downloading them only
+   * if they are not cached or changed since they were cached.
+   *
+   * @param url the HTTP URL to download (required)
+   * @return the cached file, named after the SHA-256 digest of its contents
+   * @throws IOException if the URL is neither available nor cached, or the
+   *             server responds with an error
+   */
+  public File get(final URL url) throws IOException {
+    Validate.notNull(url, "URL required");
+    final String key = url.toExternalForm();
+    final File cached = getCachedFile(key);
+    final String eTag;
+    final long lastModified;
+    synchronized (this) {
+      eTag = cached == null ? null : index.getProperty(ETAG_PREFIX + key);
+      lastModified =
+          cached == null ? 0 : Long.parseLong(index.getProperty(LAST_MODIFIED_PREFIX + key, "0"));
+    }
+
+    final UrlResponse response;
+    try {
+      response = urlInputStreamService.openConnection(url, eTag, lastModified);
+    } catch (final ConnectException e) {
+      return getIfCached(cached, e);
+    } catch (final SocketTimeoutException e) {
+      return getIfCached(cached, e);
+    } catch (final UnknownHostException e) {
+      return getIfCached(cached, e);
+    }
+    if (response.isNotModified() && cached != null) {
+      return cached;
+    }
+    if (response.isNotModified()) {
+      // We sent no validators, so this should not happen
+      throw new IOException("Unexpected 'Not Modified' response for '" + key + "'");
+    }
+
+    final String sha = store(response.getInputStream());
+    synchronized (this) {
+      final String previousSha = index.getProperty(SHA_PREFIX + key);
+      index.setProperty(SHA_PREFIX + key, sha);
+      setOrRemove(ETAG_PREFIX + key, response.getETag());
+      setOrRemove(LAST_MODIFIED_PREFIX + key,
+          response.getLastModified() > 0 ? String.valueOf(response.getLastModified()) : null);
+      if (previousSha != null && !previousSha.equals(sha)
+          && !index.containsValue(previousSha)) {
+        new File(directory, previousSha).delete();
+        removeVerifications(previousSha);
+      }
+      storeIndex();
+    }
+    return new File(directory, sha);
+  }
+
+  private synchronized File getCachedFile(final String key) {
+    final String sha = index.getProperty(SHA_PREFIX + key);
+    if (sha == null) {
+      return null;
+    }
+    final File file = new File(directory, sha);
+    if (file.isFile()) {
+      return file;
+    }
+    // Deleted behind our back
+    if (removeVerifications(sha)) {
+      storeIndex();
+    }
+    return null;
+  }
+
+  /**
+   * Returns the given cached file when the server could not be reached
+   *
+   * @param cached the cached file, if any
+   * @param e the reason the server could not be reached
+   * @return the cached file
+   * @throws IOException the given exception if nothing is cached
+   */
+  private File getIfCached(final File cached, final IOException e) throws IOException {
+    if (cached == null) {
+      throw e;
+    }
+    // Offline or the server is down; the last known contents will do
+    return cached;
+  }
+
+  /**
+   * Indicates whether the resource with the given cached file was already
+   * verified against the signature with the given cached file.
+   *
+   * @param resource a file returned by {@link #get(URL)} (required)
+   * @param signature a file returned by {@link #get(URL)} (required)
+   * @return see above
+   */
+  public synchronized boolean isVerified(final File resource, final File signature) {
+    return index.containsKey(VERIFIED_PREFIX + resource.getName() + "." + signature.getName());
+  }
+
+  private void loadIndex() {
+    final File file = new File(directory, INDEX_FILE);
+    if (!file.isFile()) {
+      return;
+    }
+    InputStream inputStream = null;
+    try {
+      inputStream = new FileInputStream(file);
+      index.load(inputStream);
+    } catch (final IOException e) {
+      // Start with an empty cache
+      index.clear();
+    } finally {
+      IOUtils.closeQuietly(inputStream);
+    }
+  }
+
+  /**
+   * Forgets the verifications involving the cached file with the given
+   * digest, as that file no longer exists
+   *
+   * @return whether any verification was forgotten
+   */
+  private boolean removeVerifications(final String sha) {
+    boolean removed = false;
+    for (final String key : index.stringPropertyNames()) {
+      if (key.startsWith(VERIFIED_PREFIX)
+          && Arrays.asList(StringUtils.split(key.substring(VERIFIED_PREFIX.length()), '.'))
+              .contains(sha)) {
+        index.remove(key);
+        removed = true;
+      }
+    }
+    return removed;
+  }
+
+  private void setOrRemove(final String key, final String value) {
+    if (StringUtils.isBlank(value)) {
+      index.remove(key);
+    } else {
+      index.setProperty(key, value);
+    }
+  }
+
+  /**
+   * Records that the resource with the given cached file was verified against
+   * the signature with the given cached file.
+   *
+   * @param resource a file returned by {@link #get(URL)} (required)
+   * @param signature a file returned by {@link #get(URL)} (required)
+   */
+  public synchronized void setVerified(final File resource, final File signature) {
+    index.setProperty(VERIFIED_PREFIX + resource.getName() + "." + signature.getName(), "true");
+    storeIndex();
+  }
+
+  /**
+   * Copies the given stream into the cache, returning the SHA-256 digest
+   * under which it was stored
+   */
+  private String store(final InputStream inputStream) throws IOException {
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      IOUtils.closeQuietly(inputStream);
+      throw new IOException("Unable to create download cache '" + directory + "'");
+    }
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (final NoSuchAlgorithmException e) {
+      IOUtils.closeQuietly(inputStream);
+      throw new IllegalStateException(e);
+    }
+
+    final File tempFile = File.createTempFile("roo_download", null, directory);
+    OutputStream outputStream = null;
+    try {
+      outputStream = new FileOutputStream(tempFile);
+      IOUtils.copy(new DigestInputStream(inputStream, digest), outputStream);
+    } catch (final IOException e) {
+      IOUtils.closeQuietly(outputStream);
+      tempFile.delete();
+      throw e;
+    } finally {
+      IOUtils.closeQuietly(inputStream);
+      IOUtils.closeQuietly(outputStream);
+    }
+
+    final String sha = toHex(digest.digest());
+    final File file = new File(directory, sha);
+    synchronized (this) {
+      if (file.isFile() || !tempFile.renameTo(file)) {
+        // Identical contents are already cached (or just were, by another
+        // thread)
+        tempFile.delete();
+      }
+    }
+    Validate.isTrue(file.isFile(), "Unable to cache download as '%s'", file);
+    return sha;
+  }
+
+  private void storeIndex() {
+    final File file = new File(directory, INDEX_FILE);
+    final File tempFile = new File(directory, INDEX_FILE + ".tmp");
+    OutputStream outputStream = null;
+    try {
+      outputStream = new FileOutputStream(tempFile);
+      index.store(outputStream, "Spring Roo download cache");
+      outputStream.close();
+      outputStream = null;
+      file.delete();
+      tempFile.renameTo(file);
+    } catch (final IOException e) {
+      // The cache is only an optimisation; the downloads remain usable
+      tempFile.delete();
+    } finally {
+      IOUtils.closeQuietly(outputStream);
+    }
+  }
+}
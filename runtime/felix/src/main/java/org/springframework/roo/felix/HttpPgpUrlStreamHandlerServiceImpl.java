@@ -2,12 +2,18 @@ package org.springframework.roo.felix;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.util.Hashtable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -37,6 +43,8 @@ import org.springframework.roo.url.stream.UrlInputStreamService;
  * verifies the signature and that the user trusts the signing key (the .asc
  * must be a detached armored signature, as produced via
  * "gpg --armor --detach-sign file_to_sign.ext")</li> </li>
+ * <li>It keeps the downloads in a {@link DownloadCache}, so that unchanged
+ * resources are neither downloaded nor verified again</li>
  * </ul>
  * <p>
  * As such this module simplifies security management and proxy server
@@ -58,12 +66,58 @@ public class HttpPgpUrlStreamHandlerServiceImpl extends AbstractURLStreamHandler
   @Reference
   private UrlInputStreamService urlInputStreamService;
 
+  private DownloadCache downloadCache;
+  private ExecutorService downloadExecutor;
+
   protected void activate(final ComponentContext context) {
+    File cacheDirectory = context.getBundleContext().getDataFile("httppgp-cache");
+    if (cacheDirectory == null) {
+      // The framework has no file system support
+      cacheDirectory = new File(System.getProperty("java.io.tmpdir"), "roo_httppgp_cache");
+    }
+    downloadCache = new DownloadCache(cacheDirectory, urlInputStreamService);
+    downloadExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+      public Thread newThread(final Runnable runnable) {
+        final Thread thread = new Thread(runnable, "Spring Roo Download");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+
     final Hashtable<String, String> dict = new Hashtable<String, String>();
     dict.put(URLConstants.URL_HANDLER_PROTOCOL, "httppgp");
     context.getBundleContext().registerService(URLStreamHandlerService.class.getName(), this, dict);
   }
 
+  protected void deactivate(final ComponentContext context) {
+    if (downloadExecutor != null) {
+      downloadExecutor.shutdownNow();
+      downloadExecutor = null;
+    }
+  }
+
+  private Future<File> download(final URL url) {
+    return downloadExecutor.submit(new Callable<File>() {
+      public File call() throws IOException {
+        return downloadCache.get(url);
+      }
+    });
+  }
+
+  private File getDownload(final Future<File> download) throws IOException {
+    try {
+      return download.get();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while downloading");
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
   @Override
   public URLConnection openConnection(final URL u) throws IOException {
     // Convert httppgp:// URL into a standard http:// URL
@@ -71,41 +125,40 @@ public class HttpPgpUrlStreamHandlerServiceImpl extends AbstractURLStreamHandler
     // Add .asc to the end of the standard resource URL
     final URL ascUrl = new URL(resourceUrl.toExternalForm() + ".asc");
 
-    // Start with the ASC file, as if this is for an untrusted key, there's
-    // no point download the larger resource
-    final File ascUrlFile = File.createTempFile("roo_asc", null);
-    ascUrlFile.deleteOnExit();
+    // Fetch the ASC file and the resource in parallel; both come from the
+    // download cache if the server says they did not change. If the key
+    // turns out to be untrusted, the resource download is abandoned.
+    final Future<File> ascDownload = download(ascUrl);
+    final Future<File> resourceDownload = download(resourceUrl);
 
-    InputStream inputStream = null;
-    FileOutputStream outputStream = null;
+    File ascUrlFile = null;
     try {
-      outputStream = new FileOutputStream(ascUrlFile);
-      inputStream = urlInputStreamService.openConnection(ascUrl);
-      IOUtils.copy(inputStream, outputStream);
+      ascUrlFile = getDownload(ascDownload);
     } catch (final IOException ioe) {
       // This is not considered fatal; it is likely the ASC isn't
       // available, so we will continue
-      ascUrlFile.delete();
-    } finally {
-      IOUtils.closeQuietly(inputStream);
-      IOUtils.closeQuietly(outputStream);
     }
 
     // Abort if a signature wasn't downloaded (this is a httppgp:// URL
     // after all, so it should be available)
+    if (ascUrlFile == null) {
+      resourceDownload.cancel(true);
+    }
     Validate
-        .isTrue(ascUrlFile.exists(),
+        .isTrue(ascUrlFile != null,
             "Signature verification file is not available at '%s'; continuing",
             ascUrl.toExternalForm());
 
     // Decide if this signature file is well-formed and of a key ID that is
-    // trusted by the user
+    // trusted by the user. This is checked even for verified downloads, as
+    // the user may have untrusted the key since.
     InputStream resource = null;
     InputStream signature = null;
     try {
       signature = new FileInputStream(ascUrlFile);
       final SignatureDecision decision = pgpService.isSignatureAcceptable(signature);
       if (!decision.isSignatureAcceptable()) {
+        resourceDownload.cancel(true);
         LOGGER.log(Level.SEVERE, "Download URL '" + resourceUrl.toExternalForm() + "' failed");
         LOGGER.log(Level.SEVERE,
             "This resource was signed with PGP key ID '" + decision.getSignatureAsHex()
@@ -117,31 +170,24 @@ public class HttpPgpUrlStreamHandlerServiceImpl extends AbstractURLStreamHandler
         throw new IOException("Download URL '" + resourceUrl.toExternalForm()
             + "' has untrusted PGP signature " + JdkDelegatingLogListener.DO_NOT_LOG);
       }
+      IOUtils.closeQuietly(signature);
 
       // So far so good. Next we need the actual resource to ensure the
-      // ASC file really did sign it
-      final File resourceFile = File.createTempFile("roo_resource", null);
-      resourceFile.deleteOnExit();
-
-      inputStream = urlInputStreamService.openConnection(resourceUrl);
-      outputStream = new FileOutputStream(resourceFile);
-      IOUtils.copy(inputStream, outputStream);
-
-      resource = new FileInputStream(resourceFile);
-      signature = new FileInputStream(ascUrlFile);
-      Validate.isTrue(pgpService.isResourceSignedBySignature(resource, signature),
-          "PGP signature illegal for URL '%s'", resourceUrl.toExternalForm());
-
-      // Excellent it worked! We don't need the ASC file anymore, so get
-      // rid of it
-      ascUrlFile.delete();
+      // ASC file really did sign it, unless these exact contents were
+      // already verified
+      final File resourceFile = getDownload(resourceDownload);
+      if (!downloadCache.isVerified(resourceFile, ascUrlFile)) {
+        resource = new FileInputStream(resourceFile);
+        signature = new FileInputStream(ascUrlFile);
+        Validate.isTrue(pgpService.isResourceSignedBySignature(resource, signature),
+            "PGP signature illegal for URL '%s'", resourceUrl.toExternalForm());
+        downloadCache.setVerified(resourceFile, ascUrlFile);
+      }
 
       return resourceFile.toURI().toURL().openConnection();
     } finally {
       IOUtils.closeQuietly(resource);
       IOUtils.closeQuietly(signature);
-      IOUtils.closeQuietly(inputStream);
-      IOUtils.closeQuietly(outputStream);
     }
   }
 }
@@ -1,5 +1,6 @@
 package org.springframework.roo.felix.pgp;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -8,12 +9,15 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.security.Security;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
@@ -63,6 +67,7 @@ import org.springframework.roo.url.stream.UrlInputStreamService;
 public class PgpServiceImpl implements PgpService {
 
   private static final int BUFFER_SIZE = 1024;
+  private static final int MAX_CACHED_DECISIONS = 64;
   private static String defaultKeyServerUrl =
       "http://keyserver.ubuntu.com/pks/lookup?op=get&search=";
   // private static String defaultKeyServerUrl =
@@ -76,8 +81,30 @@ public class PgpServiceImpl implements PgpService {
   }
 
   private boolean automaticTrust;
+  /**
+   * The acceptable decisions of recently presented signatures, by signature
+   * contents; cleared whenever the trusted keys change
+   */
+  private final Map<ByteBuffer, SignatureDecision> acceptedSignatures =
+      new LinkedHashMap<ByteBuffer, SignatureDecision>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<ByteBuffer, SignatureDecision> eldest) {
+          return size() > MAX_CACHED_DECISIONS;
+        }
+      };
   private BundleContext context;
   private final SortedSet<PgpKeyId> discoveredKeyIds = new TreeSet<PgpKeyId>();
+  /**
+   * The decoded contents of {@link #ROO_PGP_FILE} by key ID, along with the
+   * file's last modification time and length when it was read; reloaded
+   * when either changes
+   */
+  private List<PGPPublicKeyRing> trustedKeyRingList;
+  private Map<PgpKeyId, PGPPublicKeyRing> trustedKeyRings;
+  private long trustedKeyRingsLastModified;
+  private long trustedKeyRingsLength;
   @Reference
   private UrlInputStreamService urlInputStreamService;
 
@@ -139,29 +166,10 @@ public class PgpServiceImpl implements PgpService {
     }
   }
 
-  @SuppressWarnings("unchecked")
   public List<PGPPublicKeyRing> getTrustedKeys() {
-    if (!ROO_PGP_FILE.exists()) {
-      return new ArrayList<PGPPublicKeyRing>();
-    }
-    FileInputStream fis = null;
-    try {
-      fis = new FileInputStream(ROO_PGP_FILE);
-      final PGPPublicKeyRingCollection pubRings =
-          new PGPPublicKeyRingCollection(PGPUtil.getDecoderStream(fis));
-      final Iterator<PGPPublicKeyRing> rIt = pubRings.getKeyRings();
-      final List<PGPPublicKeyRing> result = new ArrayList<PGPPublicKeyRing>();
-      while (rIt.hasNext()) {
-        final PGPPublicKeyRing pgpPub = rIt.next();
-        rememberKey(pgpPub);
-        result.add(pgpPub);
-      }
-      return result;
-    } catch (final Exception e) {
-      throw new IllegalArgumentException("Unable to get trusted keys", ObjectUtils.defaultIfNull(
-          ExceptionUtils.getRootCause(e), e));
-    } finally {
-      IOUtils.closeQuietly(fis);
+    synchronized (this) {
+      getTrustedKeyRings();
+      return new ArrayList<PGPPublicKeyRing>(trustedKeyRingList);
     }
   }
 
@@ -179,26 +187,34 @@ public class PgpServiceImpl implements PgpService {
       }
 
       pgpSignature = isSignatureAcceptable(signature).getPgpSignature();
-      final PGPPublicKeyRing keyRing = getPublicKey(new PgpKeyId(pgpSignature));
+      // Only ask the key server for keys the user does not already trust
+      final PgpKeyId keyId = new PgpKeyId(pgpSignature);
+      PGPPublicKeyRing keyRing = getTrustedKeyRings().get(keyId);
+      if (keyRing == null) {
+        keyRing = getPublicKey(keyId);
+      }
       rememberKey(keyRing);
       publicKey = keyRing.getPublicKey();
 
       Validate.notNull(publicKey, "Could not obtain public key for signer key ID '%s'",
           pgpSignature);
 
-      pgpSignature.initVerify(publicKey, "BC");
-
-      // Now verify the signed content
-      final byte[] buff = new byte[BUFFER_SIZE];
-      int chunk;
-      do {
-        chunk = resource.read(buff);
-        if (chunk > 0) {
-          pgpSignature.update(buff, 0, chunk);
-        }
-      } while (chunk >= 0);
-
-      return pgpSignature.verify();
+      // The signature may be shared via a cached decision
+      synchronized (pgpSignature) {
+        pgpSignature.initVerify(publicKey, "BC");
+
+        // Now verify the signed content
+        final byte[] buff = new byte[BUFFER_SIZE];
+        int chunk;
+        do {
+          chunk = resource.read(buff);
+          if (chunk > 0) {
+            pgpSignature.update(buff, 0, chunk);
+          }
+        } while (chunk >= 0);
+
+        return pgpSignature.verify();
+      }
     } catch (final Exception e) {
       throw new IllegalStateException(e);
     }
@@ -206,7 +222,22 @@ public class PgpServiceImpl implements PgpService {
 
   public SignatureDecision isSignatureAcceptable(final InputStream signature) throws IOException {
     Validate.notNull(signature, "Signature input stream required");
-    PGPObjectFactory factory = new PGPObjectFactory(PGPUtil.getDecoderStream(signature));
+    // Signatures are small, and reading them whole lets us recognise those
+    // already accepted
+    final ByteBuffer signatureContents = ByteBuffer.wrap(IOUtils.toByteArray(signature));
+    // Reload the trusted keys first, which forgets the decisions made with
+    // keys that have been untrusted since
+    getTrustedKeyRings();
+    synchronized (acceptedSignatures) {
+      final SignatureDecision acceptedSignature = acceptedSignatures.get(signatureContents);
+      if (acceptedSignature != null) {
+        return acceptedSignature;
+      }
+    }
+
+    PGPObjectFactory factory =
+        new PGPObjectFactory(PGPUtil.getDecoderStream(new ByteArrayInputStream(signatureContents
+            .array())));
     final Object obj = factory.nextObject();
     Validate.notNull(obj, "Unable to retrieve signature from stream");
 
@@ -233,13 +264,9 @@ public class PgpServiceImpl implements PgpService {
 
     boolean signatureAcceptable = false;
 
-    // Loop to see if the user trusts this key
-    for (final PGPPublicKeyRing keyRing : getTrustedKeys()) {
-      final PgpKeyId candidate = new PgpKeyId(keyRing.getPublicKey());
-      if (candidate.equals(keyIdInHex)) {
-        signatureAcceptable = true;
-        break;
-      }
+    // See if the user trusts this key
+    if (getTrustedKeyRings().containsKey(keyIdInHex)) {
+      signatureAcceptable = true;
     }
 
     if (!signatureAcceptable && automaticTrust) {
@@ -249,7 +276,14 @@ public class PgpServiceImpl implements PgpService {
       signatureAcceptable = true;
     }
 
-    return new SignatureDecision(pgpSignature, keyIdInHex, signatureAcceptable);
+    final SignatureDecision decision =
+        new SignatureDecision(pgpSignature, keyIdInHex, signatureAcceptable);
+    if (signatureAcceptable) {
+      synchronized (acceptedSignatures) {
+        acceptedSignatures.put(signatureContents, decision);
+      }
+    }
+    return decision;
   }
 
   public SortedMap<PgpKeyId, String> refresh() {
@@ -285,16 +319,7 @@ public class PgpServiceImpl implements PgpService {
     }
 
     // Write back to disk
-    OutputStream fos = null;
-    try {
-      final PGPPublicKeyRingCollection newCollection = new PGPPublicKeyRingCollection(stillTrusted);
-      fos = new FileOutputStream(ROO_PGP_FILE);
-      newCollection.encode(fos);
-    } catch (final Exception e) {
-      throw new IllegalStateException(e);
-    } finally {
-      IOUtils.closeQuietly(fos);
-    }
+    writeTrustedKeys(stillTrusted);
 
     return result;
   }
@@ -342,16 +367,7 @@ public class PgpServiceImpl implements PgpService {
     Validate.notNull(removed, "The public key ID '%s' is not currently trusted", keyId);
 
     // Write back to disk
-    OutputStream fos = null;
-    try {
-      final PGPPublicKeyRingCollection newCollection = new PGPPublicKeyRingCollection(stillTrusted);
-      fos = new FileOutputStream(ROO_PGP_FILE);
-      newCollection.encode(fos);
-    } catch (final Exception e) {
-      throw new IllegalStateException(e);
-    } finally {
-      IOUtils.closeQuietly(fos);
-    }
+    writeTrustedKeys(stillTrusted);
     return removed;
   }
 
@@ -388,6 +404,61 @@ public class PgpServiceImpl implements PgpService {
     }
   }
 
+  /**
+   * Returns the keys presently trusted by the user, by the ID of their master
+   * key. The key store is only decoded again if it changed on disk since it
+   * was last read.
+   * 
+   * @return an unmodifiable map (never null)
+   */
+  @SuppressWarnings("unchecked")
+  private synchronized Map<PgpKeyId, PGPPublicKeyRing> getTrustedKeyRings() {
+    final long lastModified = ROO_PGP_FILE.lastModified();
+    final long length = ROO_PGP_FILE.length();
+    if (trustedKeyRings != null && lastModified == trustedKeyRingsLastModified
+        && length == trustedKeyRingsLength) {
+      return trustedKeyRings;
+    }
+
+    final List<PGPPublicKeyRing> list = new ArrayList<PGPPublicKeyRing>();
+    final Map<PgpKeyId, PGPPublicKeyRing> result = new LinkedHashMap<PgpKeyId, PGPPublicKeyRing>();
+    if (ROO_PGP_FILE.exists()) {
+      FileInputStream fis = null;
+      try {
+        fis = new FileInputStream(ROO_PGP_FILE);
+        final PGPPublicKeyRingCollection pubRings =
+            new PGPPublicKeyRingCollection(PGPUtil.getDecoderStream(fis));
+        final Iterator<PGPPublicKeyRing> rIt = pubRings.getKeyRings();
+        while (rIt.hasNext()) {
+          final PGPPublicKeyRing pgpPub = rIt.next();
+          rememberKey(pgpPub);
+          list.add(pgpPub);
+          final PgpKeyId keyId = new PgpKeyId(pgpPub.getPublicKey());
+          if (!result.containsKey(keyId)) {
+            result.put(keyId, pgpPub);
+          }
+        }
+      } catch (final Exception e) {
+        throw new IllegalArgumentException("Unable to get trusted keys", ObjectUtils.defaultIfNull(
+            ExceptionUtils.getRootCause(e), e));
+      } finally {
+        IOUtils.closeQuietly(fis);
+      }
+    }
+
+    if (trustedKeyRings != null && !trustedKeyRings.keySet().equals(result.keySet())) {
+      // Decisions made with keys that are no longer trusted must go
+      synchronized (acceptedSignatures) {
+        acceptedSignatures.clear();
+      }
+    }
+    trustedKeyRingList = list;
+    trustedKeyRings = Collections.unmodifiableMap(result);
+    trustedKeyRingsLastModified = lastModified;
+    trustedKeyRingsLength = length;
+    return trustedKeyRings;
+  }
+
   /**
    * Simply stores the key ID in {@link #discoveredKeyIds} for future
    * reference of all Key IDs we've come across. This method uses a
@@ -431,16 +502,7 @@ public class PgpServiceImpl implements PgpService {
 
     // trust it and write back to disk
     trusted.add(keyRing);
-    OutputStream fos = null;
-    try {
-      final PGPPublicKeyRingCollection newCollection = new PGPPublicKeyRingCollection(trusted);
-      fos = new FileOutputStream(ROO_PGP_FILE);
-      newCollection.encode(fos);
-    } catch (final Exception e) {
-      throw new IllegalStateException(e);
-    } finally {
-      IOUtils.closeQuietly(fos);
-    }
+    writeTrustedKeys(trusted);
     return keyRing;
   }
 
@@ -467,4 +529,28 @@ public class PgpServiceImpl implements PgpService {
       }
     }
   }
+
+  /**
+   * Replaces the contents of the key store with the given keys
+   * 
+   * @param keyRings the keys to trust from now on (required)
+   */
+  private synchronized void writeTrustedKeys(final List<PGPPublicKeyRing> keyRings) {
+    OutputStream fos = null;
+    try {
+      final PGPPublicKeyRingCollection newCollection = new PGPPublicKeyRingCollection(keyRings);
+      fos = new FileOutputStream(ROO_PGP_FILE);
+      newCollection.encode(fos);
+    } catch (final Exception e) {
+      throw new IllegalStateException(e);
+    } finally {
+      IOUtils.closeQuietly(fos);
+      // Decode the new contents on next use, even if the file's time stamp
+      // and length happen to be unchanged
+      trustedKeyRings = null;
+      synchronized (acceptedSignatures) {
+        acceptedSignatures.clear();
+      }
+    }
+  }
 }
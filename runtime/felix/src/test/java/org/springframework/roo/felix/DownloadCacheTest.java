@@ -0,0 +1,302 @@
+package org.springframework.roo.felix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.roo.url.stream.JdkUrlInputStreamService;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Unit test of {@link DownloadCache}, downloading from a local HTTP server.
+ *
+ * @since 2.0
+ */
+public class DownloadCacheTest {
+
+  /**
+   * A resource answering conditional requests like a real server would.
+   */
+  private static class Resource implements HttpHandler {
+
+    volatile byte[] contents;
+    volatile String eTag;
+    volatile long lastModified;
+    volatile int errorStatus;
+    final AtomicInteger notModified = new AtomicInteger();
+    final AtomicInteger requests = new AtomicInteger();
+
+    public void handle(final HttpExchange exchange) throws IOException {
+      requests.incrementAndGet();
+      if (errorStatus > 0) {
+        exchange.sendResponseHeaders(errorStatus, -1);
+        exchange.close();
+        return;
+      }
+      final String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+      final String ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+      final boolean current;
+      if (eTag != null) {
+        current = eTag.equals(ifNoneMatch);
+      } else {
+        current = ifModifiedSince != null && parseDate(ifModifiedSince) >= lastModified;
+      }
+      if (eTag != null) {
+        exchange.getResponseHeaders().set("ETag", eTag);
+      }
+      if (lastModified > 0) {
+        exchange.getResponseHeaders().set("Last-Modified", formatDate(lastModified));
+      }
+      if (current) {
+        notModified.incrementAndGet();
+        exchange.sendResponseHeaders(304, -1);
+      } else {
+        exchange.sendResponseHeaders(200, contents.length);
+        final OutputStream body = exchange.getResponseBody();
+        body.write(contents);
+        body.close();
+      }
+      exchange.close();
+    }
+
+    void setContents(final String text, final String eTag, final long lastModified) {
+      this.contents = text.getBytes();
+      this.eTag = eTag;
+      this.lastModified = lastModified;
+    }
+  }
+
+  private static final long LAST_MODIFIED = 1451649600000L;
+
+  private static SimpleDateFormat getDateFormat() {
+    final SimpleDateFormat format =
+        new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+    format.setTimeZone(TimeZone.getTimeZone("GMT"));
+    return format;
+  }
+
+  private static String formatDate(final long time) {
+    return getDateFormat().format(new Date(time));
+  }
+
+  private static long parseDate(final String date) {
+    try {
+      return getDateFormat().parse(date).getTime();
+    } catch (final ParseException e) {
+      return 0;
+    }
+  }
+
+  private File cacheDirectory;
+  private Resource resource;
+  private HttpServer server;
+  private URL url;
+
+  @Before
+  public void setUp() throws Exception {
+    cacheDirectory = File.createTempFile("downloads", "");
+    cacheDirectory.delete();
+    resource = new Resource();
+    resource.setContents("version 1", "\"v1\"", LAST_MODIFIED);
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/addon.jar", resource);
+    server.start();
+    url = new URL("http://localhost:" + server.getAddress().getPort() + "/addon.jar");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    server.stop(0);
+    FileUtils.deleteDirectory(cacheDirectory);
+  }
+
+  private DownloadCache getDownloadCache() {
+    return new DownloadCache(cacheDirectory, new JdkUrlInputStreamService());
+  }
+
+  @Test
+  public void testFirstDownloadIsCached() throws Exception {
+    // Invoke
+    final File file = getDownloadCache().get(url);
+
+    // Check
+    assertEquals("version 1", FileUtils.readFileToString(file));
+    assertEquals(cacheDirectory, file.getParentFile());
+    assertEquals(1, resource.requests.get());
+  }
+
+  @Test
+  public void testUnchangedResourceIsRevalidatedWithItsETag() throws Exception {
+    // Set up
+    final DownloadCache downloadCache = getDownloadCache();
+    final File first = downloadCache.get(url);
+
+    // Invoke
+    final File second = downloadCache.get(url);
+
+    // Check
+    assertEquals(first, second);
+    assertEquals("version 1", FileUtils.readFileToString(second));
+    assertEquals(2, resource.requests.get());
+    assertEquals(1, resource.notModified.get());
+  }
+
+  @Test
+  public void testUnchangedResourceIsRevalidatedWithItsLastModificationTime() throws Exception {
+    // Set up
+    resource.setContents("version 1", null, LAST_MODIFIED);
+    final DownloadCache downloadCache = getDownloadCache();
+    final File first = downloadCache.get(url);
+
+    // Invoke
+    final File second = downloadCache.get(url);
+
+    // Check
+    assertEquals(first, second);
+    assertEquals(1, resource.notModified.get());
+  }
+
+  @Test
+  public void testValidatorsSurviveARestart() throws Exception {
+    // Set up
+    final File first = getDownloadCache().get(url);
+
+    // Invoke
+    final File second = getDownloadCache().get(url);
+
+    // Check
+    assertEquals(first, second);
+    assertEquals(1, resource.notModified.get());
+  }
+
+  @Test
+  public void testChangedResourceIsDownloadedAgain() throws Exception {
+    // Set up
+    final DownloadCache downloadCache = getDownloadCache();
+    final File first = downloadCache.get(url);
+    resource.setContents("version 2", "\"v2\"", LAST_MODIFIED + 60000);
+
+    // Invoke
+    final File second = downloadCache.get(url);
+
+    // Check
+    assertEquals("version 2", FileUtils.readFileToString(second));
+    assertFalse(first.equals(second));
+    assertFalse("The previous contents should be evicted", first.exists());
+    assertEquals(0, resource.notModified.get());
+  }
+
+  @Test
+  public void testCachedCopyIsUsedWhenOffline() throws Exception {
+    // Set up
+    final File first = getDownloadCache().get(url);
+    server.stop(0);
+
+    // Invoke
+    final File second = getDownloadCache().get(url);
+
+    // Check
+    assertEquals(first, second);
+    assertEquals("version 1", FileUtils.readFileToString(second));
+  }
+
+  @Test
+  public void testUncachedResourceIsNotAvailableOffline() throws Exception {
+    // Set up
+    server.stop(0);
+
+    // Invoke
+    try {
+      getDownloadCache().get(url);
+      fail("Expected an IOException");
+    } catch (final IOException expected) {
+      // Check
+      assertFalse(new File(cacheDirectory, "index.properties").exists());
+    }
+  }
+
+  @Test
+  public void testErrorResponseIsNotMaskedByTheCachedCopy() throws Exception {
+    // Set up
+    final DownloadCache downloadCache = getDownloadCache();
+    downloadCache.get(url);
+    resource.errorStatus = 404;
+
+    // Invoke
+    try {
+      downloadCache.get(url);
+      fail("Expected an IOException");
+    } catch (final IOException expected) {
+      // Check
+      assertEquals(2, resource.requests.get());
+    }
+  }
+
+  @Test
+  public void testVerificationIsForgottenWhenTheResourceChanges() throws Exception {
+    // Set up
+    final DownloadCache downloadCache = getDownloadCache();
+    final File first = downloadCache.get(url);
+    final File signature = new File(cacheDirectory, "signature");
+    downloadCache.setVerified(first, signature);
+    resource.setContents("version 2", "\"v2\"", LAST_MODIFIED + 60000);
+
+    // Invoke
+    downloadCache.get(url);
+
+    // Check
+    assertFalse(getDownloadCache().isVerified(first, signature));
+    assertFalse(FileUtils.readFileToString(new File(cacheDirectory, "index.properties"))
+        .contains(first.getName()));
+  }
+
+  @Test
+  public void testVerificationIsForgottenWhenTheResourceIsDeleted() throws Exception {
+    // Set up
+    final File file = getDownloadCache().get(url);
+    final File signature = new File(cacheDirectory, "signature");
+    getDownloadCache().setVerified(file, signature);
+    file.delete();
+
+    // Invoke
+    final File downloaded = getDownloadCache().get(url);
+
+    // Check
+    assertEquals(file, downloaded);
+    assertFalse(getDownloadCache().isVerified(downloaded, signature));
+  }
+
+  @Test
+  public void testVerificationIsRemembered() throws Exception {
+    // Set up
+    final File file = getDownloadCache().get(url);
+    final File signature = new File(cacheDirectory, "signature");
+
+    // Invoke
+    getDownloadCache().setVerified(file, signature);
+
+    // Check
+    assertTrue(getDownloadCache().isVerified(file, signature));
+    assertFalse(getDownloadCache().isVerified(signature, file));
+  }
+}
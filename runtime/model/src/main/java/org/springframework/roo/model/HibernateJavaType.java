@@ -9,6 +9,17 @@ package org.springframework.roo.model;
  */
 public final class HibernateJavaType {
 
+  public static final JavaType GENERIC_GENERATOR = new JavaType(
+      "org.hibernate.annotations.GenericGenerator");
+
+  public static final JavaType PARAMETER = new JavaType("org.hibernate.annotations.Parameter");
+
+  public static final JavaType SEQUENCE_STYLE_GENERATOR = new JavaType(
+      "org.hibernate.id.enhanced.SequenceStyleGenerator");
+
+  public static final JavaType TABLE_GENERATOR = new JavaType(
+      "org.hibernate.id.enhanced.TableGenerator");
+
   public static final JavaType VALIDATOR_CONSTRAINTS_EMAIL = new JavaType(
       "org.hibernate.validator.constraints.Email");
 
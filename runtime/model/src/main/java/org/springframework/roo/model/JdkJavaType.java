@@ -39,6 +39,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.PostConstruct;
 
@@ -98,11 +99,15 @@ public final class JdkJavaType {
   public static final JavaType SERIALIZABLE = new JavaType(Serializable.class);
   public static final JavaType SET = new JavaType(Set.class);
   public static final JavaType SIMPLE_DATE_FORMAT = new JavaType(SimpleDateFormat.class);
+  // java.util.stream, referenced by name as Roo itself runs on Java 7
+  public static final JavaType STREAM = new JavaType("java.util.stream.Stream");
   public static final JavaType STRUCT = new JavaType(Struct.class);
   public static final JavaType SUPPRESS_WARNINGS = new JavaType(SuppressWarnings.class);
   // java.sql
   public static final JavaType TIMESTAMP = new JavaType(Timestamp.class);
 
+  public static final JavaType TIME_UNIT = new JavaType(TimeUnit.class);
+
   public static final JavaType UNSUPPORTED_ENCODING_EXCEPTION = new JavaType(
       UnsupportedEncodingException.class);
 
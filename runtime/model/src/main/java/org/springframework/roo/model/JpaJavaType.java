@@ -46,6 +46,7 @@ public final class JpaJavaType {
   public static final JavaType POST_UPDATE = new JavaType("javax.persistence.PostUpdate");
   public static final JavaType PRE_REMOVE = new JavaType("javax.persistence.PreRemove");
   public static final JavaType QUERY = new JavaType("javax.persistence.Query");
+  public static final JavaType QUERY_HINT = new JavaType("javax.persistence.QueryHint");
   public static final JavaType SEQUENCE_GENERATOR = new JavaType(
       "javax.persistence.SequenceGenerator");
   public static final JavaType TABLE = new JavaType("javax.persistence.Table");
@@ -0,0 +1,21 @@
+package org.springframework.roo.model;
+
+/**
+ * Constants for Micrometer {@link JavaType}s. Use them in preference to
+ * creating new instances of these types.
+ * 
+ * @since 2.0
+ */
+public final class MicrometerJavaType {
+
+  public static final JavaType COUNTER = new JavaType("io.micrometer.core.instrument.Counter");
+
+  public static final JavaType METRICS = new JavaType("io.micrometer.core.instrument.Metrics");
+
+  public static final JavaType TIMER = new JavaType("io.micrometer.core.instrument.Timer");
+
+  /**
+   * Constructor is private to prevent instantiation
+   */
+  private MicrometerJavaType() {}
+}
@@ -151,12 +151,18 @@ public final class SpringJavaType {
       "org.springframework.data.jpa.repository.JpaRepository");
   public static final JavaType SPRING_DATA_REPOSITORY = new JavaType(
       "org.springframework.data.repository.Repository");
+  public static final JavaType SPRING_JPA_QUERY = new JavaType(
+      "org.springframework.data.jpa.repository.Query");
+  public static final JavaType SPRING_JPA_QUERY_HINTS = new JavaType(
+      "org.springframework.data.jpa.repository.QueryHints");
   public static final JavaType PATH_VARIABLE = new JavaType(
       "org.springframework.web.bind.annotation.PathVariable");
   public static final JavaType PERMISSION_EVALUATOR = new JavaType(
       "org.springframework.security.access.PermissionEvaluator");
   public static final JavaType PERSISTENT = new JavaType(
       "org.springframework.data.annotation.Persistent");
+  public static final JavaType PLATFORM_TRANSACTION_MANAGER = new JavaType(
+      "org.springframework.transaction.PlatformTransactionManager");
   public static final JavaType PRE_AUTHORIZE = new JavaType(
       "org.springframework.security.access.prepost.PreAuthorize");
   public static final JavaType PRE_FILTER = new JavaType(
@@ -211,6 +217,12 @@ public final class SpringJavaType {
   public static final JavaType STRING_UTILS = new JavaType("org.springframework.util.StringUtils");
   public static final JavaType TRANSACTIONAL = new JavaType(
       "org.springframework.transaction.annotation.Transactional");
+  public static final JavaType TRANSACTION_CALLBACK_WITHOUT_RESULT = new JavaType(
+      "org.springframework.transaction.support.TransactionCallbackWithoutResult");
+  public static final JavaType TRANSACTION_STATUS = new JavaType(
+      "org.springframework.transaction.TransactionStatus");
+  public static final JavaType TRANSACTION_TEMPLATE = new JavaType(
+      "org.springframework.transaction.support.TransactionTemplate");
   public static final JavaType URI_UTILS = new JavaType("org.springframework.web.util.UriUtils");
   public static final JavaType URI_COMPONENTS = new JavaType(
       "org.springframework.web.util.UriComponents");
@@ -220,6 +232,8 @@ public final class SpringJavaType {
       "org.springframework.beans.factory.annotation.Value");
   public static final JavaType WEB_DATA_BINDER = new JavaType(
       "org.springframework.web.bind.WebDataBinder");
+  public static final JavaType WEB_REQUEST = new JavaType(
+      "org.springframework.web.context.request.WebRequest");
   public static final JavaType WEB_MVC_CONFIGURER_ADAPTER = new JavaType(
       "org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter");
   public static final JavaType WEB_UTILS = new JavaType("org.springframework.web.util.WebUtils");
@@ -1,5 +1,7 @@
 package org.springframework.roo.obr.addon.search;
 
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.Service;
@@ -62,10 +64,19 @@ public class ObrAddOnCommands implements CommandMarker {
   @CliCommand(value = "addon search",
       help = "Search all known Spring Roo Add-ons from installed repositories")
   public void search(
-      @CliOption(key = "requiresCommand", mandatory = true,
-          help = "Only display add-ons in search results that offer this command") final String requiresCommand) {
+      @CliOption(key = "requiresCommand", mandatory = false,
+          help = "Only display add-ons in search results that offer this command") final String requiresCommand,
+      @CliOption(
+          key = "text",
+          mandatory = false,
+          help = "Only display add-ons whose name, description or commands contain words starting with each of these words") final String text) {
 
-    operations.searchAddOns(requiresCommand, SearchType.ADDON);
+    if (StringUtils.isNotBlank(text)) {
+      operations.findAddonsByText(text);
+    } else {
+      Validate.notBlank(requiresCommand, "Either --requiresCommand or --text is required");
+      operations.searchAddOns(requiresCommand, SearchType.ADDON);
+    }
   }
 
 }
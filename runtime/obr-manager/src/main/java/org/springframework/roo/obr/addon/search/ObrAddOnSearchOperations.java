@@ -49,6 +49,19 @@ public interface ObrAddOnSearchOperations extends AddOnSearch {
    */
   List<ObrBundle> findAddons(String searchTerms, SearchType type);
 
+  /**
+   * Find the add-ons not installed yet whose symbolic name, presentation
+   * name, description or commands contain, for every given word, a word
+   * starting with it (ignoring case).
+   * <p>
+   * Information is emitted to the console via {@link Logger#info}.
+   * 
+   * @param text the words to search for (required)
+   * @return the matching add-ons
+   * @since 2.0.0
+   */
+  List<ObrBundle> findAddonsByText(String text);
+
   /**
    * Get a list of all cached addon bundles.
    * 
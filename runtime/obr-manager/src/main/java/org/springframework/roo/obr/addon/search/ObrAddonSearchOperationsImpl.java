@@ -1,20 +1,26 @@
 package org.springframework.roo.obr.addon.search;
 
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.apache.commons.lang3.Validate;
-import org.apache.felix.bundlerepository.Capability;
 import org.apache.felix.bundlerepository.Repository;
 import org.apache.felix.bundlerepository.RepositoryAdmin;
-import org.apache.felix.bundlerepository.Resource;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Service;
 import org.osgi.framework.Bundle;
@@ -41,9 +47,9 @@ import org.springframework.roo.support.logging.HandlerUtils;
 @Service
 public class ObrAddonSearchOperationsImpl implements ObrAddOnSearchOperations {
 
-  private static final String CAPABILITY_COMMANDS_NAME = "roo-addon";
-  private static final String CAPABILITY_JDBCDRIVER_NAME = "jdbcdriver";
-  private static final String CAPABILITY_LIBRARY_NAME = "library";
+  private static final int CONNECTION_TIMEOUT_MILLIS = 5000;
+  private static final String INDEX_FILE = "obr-index.properties";
+  private static final long REFRESH_INTERVAL_MILLIS = 5 * 60 * 1000;
   private BundleContext context;
   private static final Logger LOGGER = HandlerUtils.getLogger(ObrAddonSearchOperationsImpl.class);
 
@@ -53,21 +59,57 @@ public class ObrAddonSearchOperationsImpl implements ObrAddOnSearchOperations {
   private final Object mutex = new Object();
   private List<Repository> repositories;
   private List<ObrBundle> bundlesToInstall;
-  private Map<String, ObrBundle> bundleCache;
+  private ObrRepositoryIndex index;
   private Map<String, ObrBundle> searchResultCache;
 
+  private ExecutorService refreshExecutor;
+  private volatile long lastRefresh;
+
   protected void activate(final ComponentContext cContext) {
     context = cContext.getBundleContext();
     repositories = new ArrayList<Repository>();
     bundlesToInstall = new ArrayList<ObrBundle>();
-    bundleCache = new HashMap<String, ObrBundle>();
     searchResultCache = new HashMap<String, ObrBundle>();
     // Add default repositories
     addDefaultRepositories();
     // Populate Repositories
     populateRepositories();
-    // Populate Bundle Cache
-    populateBundleCache();
+    // Load the index persisted by previous runs and bring it up to date
+    index = new ObrRepositoryIndex(getIndexFile());
+    index.load();
+    updateIndex();
+    refreshExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+      public Thread newThread(final Runnable runnable) {
+        final Thread thread = new Thread(runnable, "Spring Roo OBR Refresh");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+  protected void deactivate(final ComponentContext cContext) {
+    if (refreshExecutor != null) {
+      refreshExecutor.shutdownNow();
+      refreshExecutor = null;
+    }
+  }
+
+  /**
+   * Method to obtain the file in which the index is persisted, in the Roo
+   * home directory
+   * 
+   * @return
+   */
+  private File getIndexFile() {
+    if (getShell() != null) {
+      return new File(getShell().getHome(), INDEX_FILE);
+    }
+    final File dataFile = context.getDataFile(INDEX_FILE);
+    if (dataFile != null) {
+      return dataFile;
+    }
+    // The framework has no file system support
+    return new File(System.getProperty("java.io.tmpdir"), "roo_" + INDEX_FILE);
   }
 
   @Override
@@ -79,6 +121,15 @@ public class ObrAddonSearchOperationsImpl implements ObrAddOnSearchOperations {
   }
 
   public List<ObrBundle> findAddons(final String searchTerms, final SearchType type) {
+    return findAddons(searchTerms, type, false);
+  }
+
+  public List<ObrBundle> findAddonsByText(final String text) {
+    return findAddons(text, SearchType.ADDON, true);
+  }
+
+  private List<ObrBundle> findAddons(final String searchTerms, final SearchType type,
+      final boolean fullText) {
     synchronized (mutex) {
 
       LOGGER
@@ -92,8 +143,11 @@ public class ObrAddonSearchOperationsImpl implements ObrAddOnSearchOperations {
         return bundlesToInstall;
       }
 
+      // Checking for changes on the repositories for the next searches
+      refreshRepositoriesIfRequired();
+
       // Loading bundles to install depending of search type
-      populateBundlesToInstall(searchTerms, type);
+      populateBundlesToInstall(searchTerms, type, fullText);
 
       // Showing info about matches found
       if (bundlesToInstall.isEmpty()) {
@@ -109,9 +163,6 @@ public class ObrAddonSearchOperationsImpl implements ObrAddOnSearchOperations {
 
       // Showing list about how to install bundles
       printResultList(bundlesToInstall);
-
-      // Refreshing available bundles
-      populateBundleCache();
     }
 
 
@@ -151,13 +202,15 @@ public class ObrAddonSearchOperationsImpl implements ObrAddOnSearchOperations {
    * Method to populate bundles to install. Depending of the search type, will be displayed 
    * different kinds of bundles.
 
-   * @param requiresCommand
+   * @param searchTerms
    * @param type
+   * @param fullText whether to match the search terms against the words of
+   *            the bundle names, descriptions and commands
    */
-  private void populateBundlesToInstall(String searchTerms, SearchType type) {
+  private void populateBundlesToInstall(String searchTerms, SearchType type, boolean fullText) {
 
-    // Refreshing Repositories
-    populateRepositories();
+    // Refreshing the index of the repositories
+    updateIndex();
 
     // Cleaning Bundles to install
     bundlesToInstall.clear();
@@ -165,149 +218,136 @@ public class ObrAddonSearchOperationsImpl implements ObrAddOnSearchOperations {
     // Cleaning previous search
     searchResultCache.clear();
 
-    int bundleId = 0;
-
-    for (Repository repo : repositories) {
-      // Getting all resources from every repo
-      Resource[] repoResources = repo.getResources();
-
-      for (Resource repoResource : repoResources) {
-        // Creating bundle of current resource
-        ObrBundle bundle =
-            new ObrBundle(repoResource.getSymbolicName(), repoResource.getPresentationName(),
-                repoResource.getSize(), repoResource.getVersion(), repoResource.getURI());
-
-        // If current bundle is installed, continue with the next one
-        if (checkIfBundleIsInstalled(bundle)) {
-          continue;
-        }
-
-        // Getting Resource Capabilites
-        Capability[] resourceCapabilities = repoResource.getCapabilities();
-
-        for (Capability capability : resourceCapabilities) {
-
-          // Depending of search type, is necessary to look for different
-          // capabilities
-          if (type.equals(SearchType.ADDON)) {
-
-            // Getting resource commands
-            if (capability.getName().equals(CAPABILITY_COMMANDS_NAME)) {
-              // Getting all resource properties
-              Map<String, Object> capabilityProperties = capability.getPropertiesAsMap();
-
-              boolean match = false;
-
-              for (Entry capabilityProperty : capabilityProperties.entrySet()) {
-                String capabilityCommand = (String) capabilityProperty.getValue();
-                bundle.addCommand(capabilityCommand);
-                if (capabilityCommand.startsWith(searchTerms)) {
-                  match = true;
-                }
-              }
-
-              if (match) {
-                bundleId++;
-                bundlesToInstall.add(bundle);
-                searchResultCache.put(String.format("%02d", bundleId), bundle);
-              }
-            }
-
-
-          } else if (type.equals(SearchType.JDBCDRIVER)) {
-
-            // Getting resource driver
-            if (capability.getName().equals(CAPABILITY_JDBCDRIVER_NAME)) {
-              // Getting all resource properties
-              Map<String, Object> capabilityProperties = capability.getPropertiesAsMap();
-
-              boolean match = false;
-
-              for (Entry capabilityProperty : capabilityProperties.entrySet()) {
-                String capabilityKey = (String) capabilityProperty.getKey();
-                // Getting driver class
-                if (capabilityKey.toLowerCase().equals("driver")) {
-                  String capabilityDriver = (String) capabilityProperty.getValue();
-                  if (capabilityDriver.startsWith(searchTerms)) {
-                    match = true;
-                  }
-                }
-              }
-
-              if (match) {
-                bundleId++;
-                bundlesToInstall.add(bundle);
-                searchResultCache.put(String.format("%02d", bundleId), bundle);
-              }
-            }
-
+    final Set<String> installedBundles = getInstalledSymbolicNames();
+    if (fullText) {
+      bundlesToInstall.addAll(index.findByText(searchTerms, installedBundles));
+    } else if (type.equals(SearchType.ADDON)) {
+      bundlesToInstall.addAll(index.findByCommand(searchTerms, installedBundles));
+    } else if (type.equals(SearchType.JDBCDRIVER)) {
+      bundlesToInstall.addAll(index.findByDriver(searchTerms, installedBundles));
+    } else if (type.equals(SearchType.LIBRARY)) {
+      // TODO: Implement library bundle search
+    }
 
-          } else if (type.equals(SearchType.LIBRARY)) {
-            // TODO: Implement library bundle search
-          }
-        }
-      }
+    int bundleId = 0;
+    for (final ObrBundle bundle : bundlesToInstall) {
+      bundleId++;
+      searchResultCache.put(String.format("%02d", bundleId), bundle);
     }
   }
 
   /**
-   * Method to check if some bundle is installed on OSGi
-   * @param bundle
+   * Method to obtain the symbolic names of the bundles installed on OSGi
    * @return
    */
-  private boolean checkIfBundleIsInstalled(ObrBundle bundle) {
-    // Refreshing installed bundles
-    Bundle[] allInstalledBundles = context.getBundles();
-    // Checking if bundles is installed
-    for (Bundle installedBundle : allInstalledBundles) {
-      if (installedBundle.getSymbolicName().equals(bundle.getSymbolicName())) {
-        return true;
-      }
+  private Set<String> getInstalledSymbolicNames() {
+    final Set<String> symbolicNames = new HashSet<String>();
+    for (Bundle installedBundle : context.getBundles()) {
+      symbolicNames.add(installedBundle.getSymbolicName());
     }
-    return false;
+    return symbolicNames;
   }
 
   /**
-   * Method to populate current Bundles on installed repositories
+   * Method to update the index with the current Repositories. Only the
+   * repositories added or modified since the last update are indexed again.
    */
-  private void populateBundleCache() {
-
-    // Refreshing Repositories
-    populateRepositories();
+  private void updateIndex() {
+    synchronized (mutex) {
+      // Validating that RepositoryAdmin exists
+      Validate.notNull(getRepositoryAdmin(), "RepositoryAdmin not found");
 
-    // Cleaning Bundle Cache
-    bundleCache.clear();
+      index.update(getRepositoryAdmin().listRepositories());
+      index.store();
+    }
+  }
 
+  /**
+   * Method to check, in the background, whether the installed repositories
+   * have changed since they were loaded, at most once every
+   * {@link #REFRESH_INTERVAL_MILLIS}. Remote repositories are checked with
+   * conditional HTTP requests, so unchanged ones are not downloaded again;
+   * changed ones are reloaded, which the index picks up on the next search.
+   */
+  private void refreshRepositoriesIfRequired() {
+    final long now = System.currentTimeMillis();
+    if (refreshExecutor == null || now - lastRefresh < REFRESH_INTERVAL_MILLIS) {
+      return;
+    }
+    lastRefresh = now;
+    final List<String> urls = new ArrayList<String>();
     for (Repository repo : repositories) {
-      Resource[] repoResources = repo.getResources();
-
-      for (Resource repoResource : repoResources) {
-        // Creating bundle of current resource
-        ObrBundle bundle =
-            new ObrBundle(repoResource.getSymbolicName(), repoResource.getPresentationName(),
-                repoResource.getSize(), repoResource.getVersion(), repoResource.getURI());
-
-        // Getting Resource Capabilites
-        Capability[] resourceCapabilities = repoResource.getCapabilities();
-
-        for (Capability capability : resourceCapabilities) {
-          // Getting resource commands
-          if (capability.getName().equals(CAPABILITY_COMMANDS_NAME)
-              || capability.getName().equals(CAPABILITY_JDBCDRIVER_NAME)
-              || capability.getName().equals(CAPABILITY_LIBRARY_NAME)) {
-            // Getting all resource properties
-            Map<String, Object> capabilityProperties = capability.getPropertiesAsMap();
-
-            for (Entry capabilityProperty : capabilityProperties.entrySet()) {
-              String capabilityCommand = (String) capabilityProperty.getValue();
-              bundle.addCommand(capabilityCommand);
+      urls.add(repo.getURI());
+    }
+    refreshExecutor.execute(new Runnable() {
+      public void run() {
+        for (final String url : urls) {
+          try {
+            if (hasRepositoryChanged(url)) {
+              getRepositoryAdmin().addRepository(url);
             }
-            bundleCache.put(bundle.getSymbolicName(), bundle);
+          } catch (Exception e) {
+            LOGGER.log(Level.FINE, "Could not refresh repository " + url, e);
           }
         }
+        synchronized (mutex) {
+          index.store();
+        }
+      }
+    });
+  }
 
+  /**
+   * Method to check whether the repository with the given URL has changed since
+   * it was last checked, in this run or a previous one. The first check of a
+   * repository never checked before only records its current state, as it was
+   * just loaded.
+   * 
+   * @param url
+   * @return
+   * @throws IOException
+   */
+  private boolean hasRepositoryChanged(final String url) throws IOException {
+    final URL repositoryUrl = new URL(url);
+    final String previousValidator;
+    synchronized (mutex) {
+      previousValidator = index.getValidator(url);
+    }
+    String validator = null;
+    if ("file".equals(repositoryUrl.getProtocol())) {
+      validator = String.valueOf(new File(URI.create(url)).lastModified());
+    } else if (repositoryUrl.getProtocol().startsWith("http")) {
+      final HttpURLConnection connection = (HttpURLConnection) repositoryUrl.openConnection();
+      try {
+        connection.setRequestMethod("HEAD");
+        connection.setConnectTimeout(CONNECTION_TIMEOUT_MILLIS);
+        connection.setReadTimeout(CONNECTION_TIMEOUT_MILLIS);
+        if (previousValidator != null) {
+          if (previousValidator.startsWith("\"") || previousValidator.startsWith("W/")) {
+            connection.setRequestProperty("If-None-Match", previousValidator);
+          } else {
+            connection.setRequestProperty("If-Modified-Since", previousValidator);
+          }
+        }
+        if (connection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+          return false;
+        }
+        validator = connection.getHeaderField("ETag");
+        if (validator == null) {
+          validator = connection.getHeaderField("Last-Modified");
+        }
+      } finally {
+        connection.disconnect();
       }
     }
+    if (validator == null) {
+      // Nothing to compare with, so leave the repository alone
+      return false;
+    }
+    synchronized (mutex) {
+      index.setValidator(url, validator);
+    }
+    return previousValidator != null && !previousValidator.equals(validator);
   }
 
   private void printResultList(List<ObrBundle> bundles) {
@@ -371,14 +411,14 @@ public class ObrAddonSearchOperationsImpl implements ObrAddOnSearchOperations {
     Validate.notNull(bsn, "A valid add-on bundle symbolic name is required");
 
     // Refreshing bundle cache
-    populateBundleCache();
+    updateIndex();
 
     synchronized (mutex) {
       String bsnString = bsn.getKey();
       if (bsnString.contains(";")) {
         bsnString = bsnString.split(";")[0];
       }
-      final ObrBundle bundle = bundleCache.get(bsnString);
+      final ObrBundle bundle = index.getBundles().get(bsnString);
       if (bundle == null) {
         LOGGER.warning("Unable to find specified bundle with symbolic name: " + bsn.getKey());
         return;
@@ -408,8 +448,8 @@ public class ObrAddonSearchOperationsImpl implements ObrAddOnSearchOperations {
   @Override
   public Map<String, ObrBundle> getAddOnCache() {
     synchronized (mutex) {
-      populateBundleCache();
-      return Collections.unmodifiableMap(bundleCache);
+      updateIndex();
+      return index.getBundles();
     }
   }
 
@@ -417,7 +457,7 @@ public class ObrAddonSearchOperationsImpl implements ObrAddOnSearchOperations {
   public InstallOrUpgradeStatus installAddOn(ObrAddOnBundleSymbolicName bsn) {
 
     // Refreshing bundle cache
-    populateBundleCache();
+    updateIndex();
 
     synchronized (mutex) {
       Validate.notNull(bsn, "A valid add-on bundle symbolic name is required");
@@ -425,7 +465,7 @@ public class ObrAddonSearchOperationsImpl implements ObrAddOnSearchOperations {
       if (bsnString.contains(";")) {
         bsnString = bsnString.split(";")[0];
       }
-      final ObrBundle bundle = bundleCache.get(bsnString);
+      final ObrBundle bundle = index.getBundles().get(bsnString);
       if (bundle == null) {
         LOGGER.warning("Could not find specified bundle with symbolic name: " + bsn.getKey());
         return InstallOrUpgradeStatus.FAILED;
@@ -0,0 +1,539 @@
+package org.springframework.roo.obr.addon.search;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+import org.apache.felix.bundlerepository.Capability;
+import org.apache.felix.bundlerepository.Repository;
+import org.apache.felix.bundlerepository.Resource;
+import org.osgi.framework.Version;
+import org.springframework.roo.obr.addon.search.model.ObrBundle;
+import org.springframework.roo.support.logging.HandlerUtils;
+
+/**
+ * Persistent index of the resources of the installed OBR repositories, so that
+ * add-on searches do not walk every resource and capability of every
+ * repository.
+ * <p>
+ * Each repository is indexed separately and only re-indexed when its last
+ * modification time changes, or dropped when it is no longer installed. On
+ * top of that, the index keeps:
+ * <ul>
+ * <li>the <code>roo-addon</code> commands and <code>jdbcdriver</code> driver
+ * classes in sorted maps, so that prefix searches are range lookups</li>
+ * <li>an inverted index of the lower-cased words of the symbolic names,
+ * presentation names, descriptions and commands, for full-text searches</li>
+ * </ul>
+ * Searches are answered from memory. The indexed resources are persisted
+ * along with the last modification time of each repository and the
+ * validator (ETag or Last-Modified header) it was last fetched with, so that
+ * a restarted shell neither re-indexes unchanged repositories nor loses the
+ * state its conditional HTTP requests rely on.
+ * <p>
+ * This class is not thread-safe; callers synchronize on their own lock.
+ *
+ * @since 2.0
+ */
+public class ObrRepositoryIndex {
+
+  static final String CAPABILITY_COMMANDS_NAME = "roo-addon";
+  static final String CAPABILITY_JDBCDRIVER_NAME = "jdbcdriver";
+  static final String CAPABILITY_LIBRARY_NAME = "library";
+
+  private static final Logger LOGGER = HandlerUtils.getLogger(ObrRepositoryIndex.class);
+
+  // Persisted properties; lists are stored one value per line
+  private static final String ADD_ON_COMMANDS = "addOnCommands";
+  private static final String ALL_COMMANDS = "allCommands";
+  private static final String DESCRIPTION = "description";
+  private static final String DRIVERS = "drivers";
+  private static final String HAS_CAPABILITY = "hasCapability";
+  private static final String LAST_MODIFIED = "lastModified";
+  private static final String PRESENTATION_NAME = "presentationName";
+  private static final String REPOSITORY_PREFIX = "repository.";
+  private static final String RESOURCE_PREFIX = ".resource.";
+  private static final String SIZE = "size";
+  private static final String SYMBOLIC_NAME = "symbolicName";
+  private static final String URI = "uri";
+  private static final String VALIDATOR_PREFIX = "validator.";
+  private static final String VERSION = "version";
+
+  /**
+   * The indexed information of one resource.
+   */
+  private static class Entry {
+
+    final List<String> addOnCommands = new ArrayList<String>();
+    final List<String> allCommands = new ArrayList<String>();
+    final String description;
+    final List<String> drivers = new ArrayList<String>();
+    boolean hasCapability;
+    final String presentationName;
+    final Long size;
+    final String symbolicName;
+    final String uri;
+    final Version version;
+
+    Entry(final Properties properties, final String prefix) {
+      symbolicName = properties.getProperty(prefix + SYMBOLIC_NAME);
+      presentationName = properties.getProperty(prefix + PRESENTATION_NAME);
+      final String sizeProperty = properties.getProperty(prefix + SIZE);
+      size = sizeProperty == null ? null : Long.valueOf(sizeProperty);
+      final String versionProperty = properties.getProperty(prefix + VERSION);
+      version = versionProperty == null ? null : Version.parseVersion(versionProperty);
+      uri = properties.getProperty(prefix + URI);
+      description = properties.getProperty(prefix + DESCRIPTION);
+      hasCapability = Boolean.parseBoolean(properties.getProperty(prefix + HAS_CAPABILITY));
+      addAll(addOnCommands, properties.getProperty(prefix + ADD_ON_COMMANDS));
+      addAll(allCommands, properties.getProperty(prefix + ALL_COMMANDS));
+      addAll(drivers, properties.getProperty(prefix + DRIVERS));
+    }
+
+    Entry(final Resource resource) {
+      symbolicName = resource.getSymbolicName();
+      presentationName = resource.getPresentationName();
+      size = resource.getSize();
+      version = resource.getVersion();
+      uri = resource.getURI();
+      final Object descriptionProperty =
+          resource.getProperties() == null ? null : resource.getProperties().get(
+              Resource.DESCRIPTION);
+      description = descriptionProperty == null ? null : descriptionProperty.toString();
+    }
+
+    void store(final Properties properties, final String prefix) {
+      setProperty(properties, prefix + SYMBOLIC_NAME, symbolicName);
+      setProperty(properties, prefix + PRESENTATION_NAME, presentationName);
+      setProperty(properties, prefix + SIZE, size);
+      setProperty(properties, prefix + VERSION, version);
+      setProperty(properties, prefix + URI, uri);
+      setProperty(properties, prefix + DESCRIPTION, description);
+      properties.setProperty(prefix + HAS_CAPABILITY, String.valueOf(hasCapability));
+      properties.setProperty(prefix + ADD_ON_COMMANDS, StringUtils.join(addOnCommands, '\n'));
+      properties.setProperty(prefix + ALL_COMMANDS, StringUtils.join(allCommands, '\n'));
+      properties.setProperty(prefix + DRIVERS, StringUtils.join(drivers, '\n'));
+    }
+
+    ObrBundle toBundle(final List<String> commands) {
+      return new ObrBundle(symbolicName, presentationName, size, version, uri,
+          new ArrayList<String>(commands));
+    }
+  }
+
+  private static void addAll(final List<String> values, final String lines) {
+    if (StringUtils.isNotEmpty(lines)) {
+      values.addAll(Arrays.asList(lines.split("\n")));
+    }
+  }
+
+  private static void addTokens(final Set<String> tokens, final String text) {
+    if (text == null) {
+      return;
+    }
+    for (final String token : text.toLowerCase(Locale.ENGLISH).split("[^\\p{L}\\p{N}]+")) {
+      if (token.length() > 0) {
+        tokens.add(token);
+      }
+    }
+  }
+
+  private static void setProperty(final Properties properties, final String key,
+      final Object value) {
+    if (value != null) {
+      properties.setProperty(key, value.toString());
+    }
+  }
+
+  private static <K> void put(final Map<K, Set<Entry>> index, final K key, final Entry entry) {
+    Set<Entry> entries = index.get(key);
+    if (entries == null) {
+      entries = new LinkedHashSet<Entry>();
+      index.put(key, entries);
+    }
+    entries.add(entry);
+  }
+
+  /** The entries of each indexed repository, by repository URI */
+  private final Map<String, List<Entry>> entriesByRepository =
+      new LinkedHashMap<String, List<Entry>>();
+  private final Map<String, Long> lastModifiedByRepository = new HashMap<String, Long>();
+  private final Map<String, String> validatorByRepository = new HashMap<String, String>();
+  private boolean dirty;
+  private final File file;
+
+  // Derived indexes, rebuilt whenever a repository is (re-)indexed or dropped
+  private final Map<String, ObrBundle> bundlesBySymbolicName = new HashMap<String, ObrBundle>();
+  private final TreeMap<String, Set<Entry>> entriesByCommand = new TreeMap<String, Set<Entry>>();
+  private final TreeMap<String, Set<Entry>> entriesByDriver = new TreeMap<String, Set<Entry>>();
+  private final TreeMap<String, Set<Entry>> entriesByToken = new TreeMap<String, Set<Entry>>();
+  private final Map<Entry, Integer> order = new HashMap<Entry, Integer>();
+
+  /**
+   * Constructor
+   *
+   * @param file the file in which the index is persisted (required)
+   */
+  public ObrRepositoryIndex(final File file) {
+    Validate.notNull(file, "Index file required");
+    this.file = file;
+  }
+
+  /**
+   * Returns the bundles offering add-on commands, JDBC drivers or libraries,
+   * by symbolic name; when several repositories offer the same symbolic name,
+   * the last one wins.
+   *
+   * @return an unmodifiable map
+   */
+  public Map<String, ObrBundle> getBundles() {
+    return Collections.unmodifiableMap(bundlesBySymbolicName);
+  }
+
+  /**
+   * Returns the validator the given repository was last fetched with, i.e.
+   * the value of its ETag or Last-Modified header, or its file's modification
+   * time for a local repository.
+   *
+   * @param repositoryUri the URI of the repository (required)
+   * @return <code>null</code> if unknown
+   */
+  public String getValidator(final String repositoryUri) {
+    return validatorByRepository.get(repositoryUri);
+  }
+
+  /**
+   * Records the validator the given repository was fetched with.
+   *
+   * @param repositoryUri the URI of the repository (required)
+   * @param validator the validator (required)
+   */
+  public void setValidator(final String repositoryUri, final String validator) {
+    if (!validator.equals(validatorByRepository.put(repositoryUri, validator))) {
+      dirty = true;
+    }
+  }
+
+  /**
+   * Finds the bundles offering a command starting with the given text.
+   *
+   * @param commandPrefix the beginning of the command (required)
+   * @param excludedSymbolicNames the symbolic names of bundles to leave out,
+   *            e.g. those already installed (required)
+   * @return the matching bundles in repository order, with their commands
+   */
+  public List<ObrBundle> findByCommand(final String commandPrefix,
+      final Set<String> excludedSymbolicNames) {
+    final List<ObrBundle> bundles = new ArrayList<ObrBundle>();
+    for (final Entry entry : getByPrefix(entriesByCommand, commandPrefix, excludedSymbolicNames)) {
+      bundles.add(entry.toBundle(entry.addOnCommands));
+    }
+    return bundles;
+  }
+
+  /**
+   * Finds the bundles offering a JDBC driver whose class starts with the given
+   * text.
+   *
+   * @param driverPrefix the beginning of the driver class name (required)
+   * @param excludedSymbolicNames the symbolic names of bundles to leave out
+   *            (required)
+   * @return the matching bundles in repository order
+   */
+  public List<ObrBundle> findByDriver(final String driverPrefix,
+      final Set<String> excludedSymbolicNames) {
+    final List<ObrBundle> bundles = new ArrayList<ObrBundle>();
+    for (final Entry entry : getByPrefix(entriesByDriver, driverPrefix, excludedSymbolicNames)) {
+      bundles.add(entry.toBundle(Collections.<String>emptyList()));
+    }
+    return bundles;
+  }
+
+  /**
+   * Finds the add-on bundles matching every word of the given text, where a
+   * word matches if it starts a word of the bundle's symbolic name,
+   * presentation name, description or commands, ignoring case.
+   *
+   * @param text the words to look for (required)
+   * @param excludedSymbolicNames the symbolic names of bundles to leave out
+   *            (required)
+   * @return the matching bundles in repository order, with their commands
+   */
+  public List<ObrBundle> findByText(final String text, final Set<String> excludedSymbolicNames) {
+    final Set<String> words = new LinkedHashSet<String>();
+    addTokens(words, text);
+    if (words.isEmpty()) {
+      return new ArrayList<ObrBundle>();
+    }
+
+    Set<Entry> matches = null;
+    for (final String word : words) {
+      final Set<Entry> wordMatches =
+          new HashSet<Entry>(getByPrefix(entriesByToken, word, excludedSymbolicNames));
+      if (matches == null) {
+        matches = wordMatches;
+      } else {
+        matches.retainAll(wordMatches);
+      }
+      if (matches.isEmpty()) {
+        break;
+      }
+    }
+
+    final List<ObrBundle> bundles = new ArrayList<ObrBundle>();
+    for (final Entry entry : sort(matches)) {
+      bundles.add(entry.toBundle(entry.addOnCommands));
+    }
+    return bundles;
+  }
+
+  private List<Entry> getByPrefix(final TreeMap<String, Set<Entry>> index, final String prefix,
+      final Set<String> excludedSymbolicNames) {
+    final SortedMap<String, Set<Entry>> range =
+        prefix.length() == 0 ? index : index.subMap(prefix, prefix + Character.MAX_VALUE);
+    final Set<Entry> entries = new HashSet<Entry>();
+    for (final Set<Entry> keyEntries : range.values()) {
+      for (final Entry entry : keyEntries) {
+        if (!excludedSymbolicNames.contains(entry.symbolicName)) {
+          entries.add(entry);
+        }
+      }
+    }
+    return sort(entries);
+  }
+
+  private Entry index(final Resource resource) {
+    final Entry entry = new Entry(resource);
+    final Capability[] capabilities = resource.getCapabilities();
+    if (capabilities == null) {
+      return entry;
+    }
+    for (final Capability capability : capabilities) {
+      final String name = capability.getName();
+      final boolean commands = CAPABILITY_COMMANDS_NAME.equals(name);
+      final boolean driver = CAPABILITY_JDBCDRIVER_NAME.equals(name);
+      if (!commands && !driver && !CAPABILITY_LIBRARY_NAME.equals(name)) {
+        continue;
+      }
+      entry.hasCapability = true;
+      final Map<?, ?> properties = capability.getPropertiesAsMap();
+      if (properties == null) {
+        continue;
+      }
+      for (final Map.Entry<?, ?> property : properties.entrySet()) {
+        if (!(property.getValue() instanceof String)) {
+          continue;
+        }
+        final String value = (String) property.getValue();
+        entry.allCommands.add(value);
+        if (commands) {
+          entry.addOnCommands.add(value);
+        } else if (driver && "driver".equalsIgnoreCase(String.valueOf(property.getKey()))) {
+          entry.drivers.add(value);
+        }
+      }
+    }
+    return entry;
+  }
+
+  /**
+   * Replaces the contents of this index with the persisted ones, if any; an
+   * unreadable file leaves the index empty, so that every repository is
+   * indexed again.
+   */
+  public void load() {
+    entriesByRepository.clear();
+    lastModifiedByRepository.clear();
+    validatorByRepository.clear();
+    dirty = false;
+    if (file.isFile()) {
+      final Properties properties = new Properties();
+      InputStream inputStream = null;
+      try {
+        inputStream = new FileInputStream(file);
+        properties.load(inputStream);
+        load(properties);
+      } catch (final IOException e) {
+        LOGGER.fine("Ignoring unreadable OBR index '" + file + "': " + e.getMessage());
+      } catch (final IllegalArgumentException e) {
+        LOGGER.fine("Ignoring invalid OBR index '" + file + "': " + e.getMessage());
+        entriesByRepository.clear();
+        lastModifiedByRepository.clear();
+        validatorByRepository.clear();
+      } finally {
+        IOUtils.closeQuietly(inputStream);
+      }
+    }
+    rebuildDerivedIndexes();
+  }
+
+  private void load(final Properties properties) {
+    for (int i = 0; properties.containsKey(REPOSITORY_PREFIX + i + "." + URI); i++) {
+      final String repositoryPrefix = REPOSITORY_PREFIX + i;
+      final String uri = properties.getProperty(repositoryPrefix + "." + URI);
+      final List<Entry> entries = new ArrayList<Entry>();
+      for (int j = 0; properties.containsKey(repositoryPrefix + RESOURCE_PREFIX + j + "."
+          + SYMBOLIC_NAME); j++) {
+        entries.add(new Entry(properties, repositoryPrefix + RESOURCE_PREFIX + j + "."));
+      }
+      entriesByRepository.put(uri, entries);
+      lastModifiedByRepository.put(uri,
+          Long.valueOf(properties.getProperty(repositoryPrefix + "." + LAST_MODIFIED)));
+    }
+    for (final String name : properties.stringPropertyNames()) {
+      if (name.startsWith(VALIDATOR_PREFIX)) {
+        validatorByRepository.put(StringUtils.removeStart(name, VALIDATOR_PREFIX),
+            properties.getProperty(name));
+      }
+    }
+  }
+
+  /**
+   * Persists this index if it changed since it was loaded or last stored.
+   */
+  public void store() {
+    if (!dirty) {
+      return;
+    }
+    final Properties properties = new Properties();
+    int i = 0;
+    for (final Map.Entry<String, List<Entry>> repository : entriesByRepository.entrySet()) {
+      final String repositoryPrefix = REPOSITORY_PREFIX + i++;
+      properties.setProperty(repositoryPrefix + "." + URI, repository.getKey());
+      properties.setProperty(repositoryPrefix + "." + LAST_MODIFIED,
+          String.valueOf(lastModifiedByRepository.get(repository.getKey())));
+      int j = 0;
+      for (final Entry entry : repository.getValue()) {
+        entry.store(properties, repositoryPrefix + RESOURCE_PREFIX + j++ + ".");
+      }
+    }
+    for (final Map.Entry<String, String> validator : validatorByRepository.entrySet()) {
+      properties.setProperty(VALIDATOR_PREFIX + validator.getKey(), validator.getValue());
+    }
+    OutputStream outputStream = null;
+    try {
+      file.getParentFile().mkdirs();
+      outputStream = new FileOutputStream(file);
+      properties.store(outputStream, "Spring Roo OBR index - do not edit");
+      dirty = false;
+    } catch (final IOException e) {
+      LOGGER.fine("Could not store OBR index '" + file + "': " + e.getMessage());
+    } finally {
+      IOUtils.closeQuietly(outputStream);
+    }
+  }
+
+  private void rebuildDerivedIndexes() {
+    bundlesBySymbolicName.clear();
+    entriesByCommand.clear();
+    entriesByDriver.clear();
+    entriesByToken.clear();
+    order.clear();
+
+    for (final List<Entry> entries : entriesByRepository.values()) {
+      for (final Entry entry : entries) {
+        order.put(entry, order.size());
+        if (entry.hasCapability) {
+          bundlesBySymbolicName.put(entry.symbolicName, entry.toBundle(entry.allCommands));
+        }
+        for (final String command : entry.addOnCommands) {
+          put(entriesByCommand, command, entry);
+        }
+        for (final String driver : entry.drivers) {
+          put(entriesByDriver, driver, entry);
+        }
+        if (!entry.addOnCommands.isEmpty()) {
+          final Set<String> tokens = new HashSet<String>();
+          addTokens(tokens, entry.symbolicName);
+          addTokens(tokens, entry.presentationName);
+          addTokens(tokens, entry.description);
+          for (final String command : entry.addOnCommands) {
+            addTokens(tokens, command);
+          }
+          for (final String token : tokens) {
+            put(entriesByToken, token, entry);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the given entries in repository order
+   */
+  private List<Entry> sort(final Collection<Entry> entries) {
+    final List<Entry> sorted = new ArrayList<Entry>(entries);
+    Collections.sort(sorted, new Comparator<Entry>() {
+      public int compare(final Entry o1, final Entry o2) {
+        return order.get(o1).compareTo(order.get(o2));
+      }
+    });
+    return sorted;
+  }
+
+  /**
+   * Brings the index up to date with the given repositories, re-indexing
+   * only those that are new or were modified since they were last indexed.
+   *
+   * @param repositories the installed repositories (required)
+   * @return <code>true</code> if anything changed
+   */
+  public boolean update(final Repository[] repositories) {
+    boolean changed = false;
+    final Set<String> installed = new HashSet<String>();
+    for (final Repository repository : repositories) {
+      final String uri = repository.getURI();
+      installed.add(uri);
+      final Long lastModified = repository.getLastModified();
+      if (entriesByRepository.containsKey(uri)
+          && lastModified.equals(lastModifiedByRepository.get(uri))) {
+        continue;
+      }
+      final List<Entry> entries = new ArrayList<Entry>();
+      final Resource[] resources = repository.getResources();
+      if (resources != null) {
+        for (final Resource resource : resources) {
+          entries.add(index(resource));
+        }
+      }
+      entriesByRepository.put(uri, entries);
+      lastModifiedByRepository.put(uri, lastModified);
+      changed = true;
+    }
+    if (entriesByRepository.keySet().retainAll(installed)) {
+      lastModifiedByRepository.keySet().retainAll(installed);
+      changed = true;
+    }
+    if (validatorByRepository.keySet().retainAll(installed)) {
+      dirty = true;
+    }
+    if (changed) {
+      dirty = true;
+      rebuildDerivedIndexes();
+    }
+    return changed;
+  }
+}
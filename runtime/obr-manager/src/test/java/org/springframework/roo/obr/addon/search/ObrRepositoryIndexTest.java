@@ -0,0 +1,213 @@
+package org.springframework.roo.obr.addon.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.felix.bundlerepository.Repository;
+import org.apache.felix.bundlerepository.impl.DataModelHelperImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.roo.obr.addon.search.model.ObrBundle;
+
+/**
+ * Unit test of {@link ObrRepositoryIndex}, over the repository.xml next to
+ * this class.
+ *
+ * @since 2.0
+ */
+public class ObrRepositoryIndexTest {
+
+  private static final Set<String> NONE_INSTALLED = Collections.emptySet();
+  private static final String MAIL = "org.example.roo.addon.mail";
+  private static final String PDF = "org.example.roo.addon.pdf";
+
+  private ObrRepositoryIndex index;
+  private File indexFile;
+  private File repositoryFile;
+  private File tempDirectory;
+
+  @Before
+  public void setUp() throws Exception {
+    tempDirectory = File.createTempFile("obr", "");
+    tempDirectory.delete();
+    tempDirectory.mkdirs();
+    repositoryFile = new File(tempDirectory, "repository.xml");
+    FileUtils.copyURLToFile(getClass().getResource("repository.xml"), repositoryFile);
+    indexFile = new File(tempDirectory, "obr-index.properties");
+    index = new ObrRepositoryIndex(indexFile);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    FileUtils.deleteDirectory(tempDirectory);
+  }
+
+  private Repository readRepository() throws Exception {
+    return new DataModelHelperImpl().repository(repositoryFile.toURI().toURL());
+  }
+
+  private List<String> getSymbolicNames(final List<ObrBundle> bundles) {
+    final List<String> symbolicNames = new ArrayList<String>();
+    for (final ObrBundle bundle : bundles) {
+      symbolicNames.add(bundle.getSymbolicName());
+    }
+    return symbolicNames;
+  }
+
+  @Test
+  public void testFindBySymbolicName() throws Exception {
+    // Set up
+    index.update(new Repository[] {readRepository()});
+
+    // Invoke and check
+    assertEquals(Arrays.asList(PDF), getSymbolicNames(index.findByText(PDF, NONE_INSTALLED)));
+    assertEquals(Arrays.asList(PDF, MAIL),
+        getSymbolicNames(index.findByText("org.example.roo", NONE_INSTALLED)));
+  }
+
+  @Test
+  public void testFindByDescriptionIgnoresCaseAndMatchesWordPrefixes() throws Exception {
+    // Set up
+    index.update(new Repository[] {readRepository()});
+
+    // Invoke and check
+    assertEquals(Arrays.asList(PDF),
+        getSymbolicNames(index.findByText("PRINTABLE entit", NONE_INSTALLED)));
+    assertEquals(Arrays.asList(MAIL),
+        getSymbolicNames(index.findByText("e-mails services", NONE_INSTALLED)));
+    assertTrue(index.findByText("printable mails", NONE_INSTALLED).isEmpty());
+  }
+
+  @Test
+  public void testBundlesWithoutAddOnCommandsAreNotFoundByText() throws Exception {
+    // Set up
+    index.update(new Repository[] {readRepository()});
+
+    // Invoke and check
+    assertEquals(Arrays.asList(PDF), getSymbolicNames(index.findByText("report", NONE_INSTALLED)));
+    assertTrue(index.findByText("h2", NONE_INSTALLED).isEmpty());
+    assertFalse(index.getBundles().containsKey("org.example.util"));
+  }
+
+  @Test
+  public void testFindByCommand() throws Exception {
+    // Set up
+    index.update(new Repository[] {readRepository()});
+
+    // Invoke
+    final List<ObrBundle> bundles = index.findByCommand("pdf", NONE_INSTALLED);
+
+    // Check
+    assertEquals(1, bundles.size());
+    assertEquals(PDF, bundles.get(0).getSymbolicName());
+    assertEquals(new HashSet<String>(Arrays.asList("pdf setup", "pdf report add")),
+        new HashSet<String>(bundles.get(0).getCommands()));
+    assertEquals(Arrays.asList(PDF, MAIL),
+        getSymbolicNames(index.findByCommand("", NONE_INSTALLED)));
+    assertTrue(index.findByCommand("pdf", Collections.singleton(PDF)).isEmpty());
+    assertTrue(index.findByCommand("jpa", NONE_INSTALLED).isEmpty());
+  }
+
+  @Test
+  public void testFindByDriver() throws Exception {
+    // Set up
+    index.update(new Repository[] {readRepository()});
+
+    // Invoke and check
+    assertEquals(Arrays.asList("org.example.jdbc.h2"),
+        getSymbolicNames(index.findByDriver("org.h2", NONE_INSTALLED)));
+    assertTrue(index.getBundles().containsKey("org.example.jdbc.h2"));
+  }
+
+  @Test
+  public void testUpdateOnlyReindexesModifiedRepositories() throws Exception {
+    // Set up
+    assertTrue(index.update(new Repository[] {readRepository()}));
+
+    // Invoke and check
+    assertFalse(index.update(new Repository[] {readRepository()}));
+
+    // Set up
+    final String contents = FileUtils.readFileToString(repositoryFile, "UTF-8");
+    FileUtils.writeStringToFile(repositoryFile,
+        contents.replace("20160101120000.000", "20160102120000.000")
+            .replace("mail sender add", "mail template add"), "UTF-8");
+
+    // Invoke and check
+    assertTrue(index.update(new Repository[] {readRepository()}));
+    assertEquals(Arrays.asList(MAIL),
+        getSymbolicNames(index.findByCommand("mail template", NONE_INSTALLED)));
+    assertTrue(index.findByCommand("mail sender", NONE_INSTALLED).isEmpty());
+    assertTrue(index.findByText("sender", NONE_INSTALLED).isEmpty());
+  }
+
+  @Test
+  public void testUpdateDropsRemovedRepositories() throws Exception {
+    // Set up
+    index.update(new Repository[] {readRepository()});
+
+    // Invoke
+    final boolean changed = index.update(new Repository[0]);
+
+    // Check
+    assertTrue(changed);
+    assertTrue(index.getBundles().isEmpty());
+    assertTrue(index.findByText("pdf", NONE_INSTALLED).isEmpty());
+  }
+
+  @Test
+  public void testStoredIndexIsLoadedWithoutReindexing() throws Exception {
+    // Set up
+    final Repository repository = readRepository();
+    index.update(new Repository[] {repository});
+    index.setValidator(repository.getURI(), "\"v1\"");
+    index.store();
+
+    // Invoke
+    final ObrRepositoryIndex loadedIndex = new ObrRepositoryIndex(indexFile);
+    loadedIndex.load();
+
+    // Check
+    assertEquals("\"v1\"", loadedIndex.getValidator(repository.getURI()));
+    assertEquals(Arrays.asList(PDF, MAIL),
+        getSymbolicNames(loadedIndex.findByText("org.example.roo", NONE_INSTALLED)));
+    assertEquals(new HashSet<String>(Arrays.asList("pdf setup", "pdf report add")),
+        new HashSet<String>(loadedIndex.findByCommand("pdf", NONE_INSTALLED).get(0)
+            .getCommands()));
+    assertEquals(Arrays.asList("org.example.jdbc.h2"),
+        getSymbolicNames(loadedIndex.findByDriver("org.h2", NONE_INSTALLED)));
+    final ObrBundle pdf = loadedIndex.getBundles().get(PDF);
+    assertEquals(index.getBundles().get(PDF).getVersion(), pdf.getVersion());
+    assertEquals(index.getBundles().get(PDF).getSize(), pdf.getSize());
+    assertEquals(index.getBundles().get(PDF).getUri(), pdf.getUri());
+    assertEquals(index.getBundles().keySet(), loadedIndex.getBundles().keySet());
+    assertFalse(loadedIndex.update(new Repository[] {readRepository()}));
+  }
+
+  @Test
+  public void testInvalidStoredIndexIsIgnored() throws Exception {
+    // Set up
+    FileUtils.writeStringToFile(indexFile, "repository.0.uri=file:/obr.xml\n"
+        + "repository.0.lastModified=yesterday\nvalidator.file\\:/obr.xml=1\n", "UTF-8");
+
+    // Invoke
+    index.load();
+
+    // Check
+    assertTrue(index.getBundles().isEmpty());
+    assertNull(index.getValidator("file:/obr.xml"));
+    assertTrue(index.update(new Repository[] {readRepository()}));
+  }
+}
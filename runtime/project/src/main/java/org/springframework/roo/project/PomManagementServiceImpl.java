@@ -1,7 +1,9 @@
 package org.springframework.roo.project;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -31,13 +33,12 @@ import org.springframework.roo.metadata.MetadataService;
 import org.springframework.roo.process.manager.FileManager;
 import org.springframework.roo.project.maven.Pom;
 import org.springframework.roo.project.maven.PomFactory;
+import org.springframework.roo.project.maven.PomStructureReader;
+import org.springframework.roo.project.maven.PomStructureReader.PomStructure;
 import org.springframework.roo.shell.Shell;
 import org.springframework.roo.support.logging.HandlerUtils;
 import org.springframework.roo.support.osgi.OSGiUtils;
 import org.springframework.roo.support.util.FileUtils;
-import org.springframework.roo.support.util.XmlUtils;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 
 @Component
 @Service
@@ -93,6 +94,7 @@ public class PomManagementServiceImpl implements PomManagementService {
   private final Map<String, Pom> pomMap = new LinkedHashMap<String, Pom>();
   private String projectRootDirectory;
   private final Set<String> toBeParsed = new HashSet<String>();
+  private final PomStructureReader pomStructureReader = new PomStructureReader();
 
   /**
    * For test cases to set up the state of this service
@@ -202,10 +204,10 @@ public class PomManagementServiceImpl implements PomManagementService {
         } catch (IOException ignored) {
         }
         if (StringUtils.isNotBlank(pomContents)) {
-          final Element rootElement = XmlUtils.stringToElement(pomContents);
-          resolvePoms(rootElement, pathToChangedPom, pomModuleMap);
+          final PomStructure pomStructure = readPomStructure(pomContents);
+          resolvePoms(pomStructure, pathToChangedPom, pomModuleMap);
           final String moduleName = getModuleName(FileUtils.getFirstDirectory(pathToChangedPom));
-          final Pom pom = getPomFactory().getInstance(rootElement, pathToChangedPom, moduleName);
+          final Pom pom = getPomFactory().getInstance(pomStructure, pathToChangedPom, moduleName);
           Validate.notNull(pom, "POM is null for module '%s' and path '%s'", moduleName,
               pathToChangedPom);
           pomMap.put(pathToChangedPom, pom);
@@ -217,51 +219,54 @@ public class PomManagementServiceImpl implements PomManagementService {
     return newPoms;
   }
 
-  private void resolveChildModulePoms(final Element pomRoot, final String pomPath,
+  private PomStructure readPomStructure(final String pomContents) {
+    try {
+      return pomStructureReader.read(new ByteArrayInputStream(pomContents.getBytes("UTF-8")));
+    } catch (final UnsupportedEncodingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private void resolveChildModulePoms(final PomStructure pomStructure, final String pomPath,
       final Map<String, String> pomSet) {
-    for (final Element module : XmlUtils.findElements("/project/modules/module", pomRoot)) {
-      final String moduleName = module.getTextContent();
-      if (StringUtils.isNotBlank(moduleName)) {
-        final String modulePath = resolveRelativePath(pomPath, moduleName);
-        final boolean alreadyDiscovered = pomSet.containsKey(modulePath);
-        pomSet.put(modulePath, moduleName);
-        if (!alreadyDiscovered) {
-          final Document pomDocument =
-              XmlUtils.readXml(getFileManager().getInputStream(modulePath));
-          final Element root = pomDocument.getDocumentElement();
-          resolvePoms(root, modulePath, pomSet);
-        }
+    for (final String moduleName : pomStructure.getModuleNames()) {
+      final String modulePath = resolveRelativePath(pomPath, moduleName);
+      final boolean alreadyDiscovered = pomSet.containsKey(modulePath);
+      pomSet.put(modulePath, moduleName);
+      if (!alreadyDiscovered) {
+        resolvePoms(pomStructureReader.read(getFileManager().getInputStream(modulePath)),
+            modulePath, pomSet);
       }
     }
   }
 
   private void resolveParentPom(final String pomPath, final Map<String, String> pomSet,
-      final Element parentElement) {
-    final String relativePath =
-        XmlUtils.getTextContent("/relativePath", parentElement, DEFAULT_RELATIVE_PATH);
+      final PomStructure pomStructure) {
+    final String relativePath = pomStructure.getParentRelativePath(DEFAULT_RELATIVE_PATH);
     final String parentPomPath = resolveRelativePath(pomPath, relativePath);
     final boolean alreadyDiscovered = pomSet.containsKey(parentPomPath);
     if (!alreadyDiscovered) {
       pomSet.put(parentPomPath, pomSet.get(parentPomPath));
       if (new File(parentPomPath).isFile()) {
-        final Document pomDocument =
-            XmlUtils.readXml(getFileManager().getInputStream(parentPomPath));
-        final Element root = pomDocument.getDocumentElement();
-        resolvePoms(root, parentPomPath, pomSet);
+        resolvePoms(pomStructureReader.read(getFileManager().getInputStream(parentPomPath)),
+            parentPomPath, pomSet);
       }
     }
   }
 
-  private void resolvePoms(final Element pomRoot, final String pomPath,
+  /**
+   * Discovers the parent and child POMs of the given POM, streaming them
+   * with a {@link PomStructureReader} rather than building a DOM for each.
+   */
+  private void resolvePoms(final PomStructure pomStructure, final String pomPath,
       final Map<String, String> pomSet) {
     pomSet.put(pomPath, pomSet.get(pomPath)); // ensures this key exists
 
-    final Element parentElement = XmlUtils.findFirstElement("/project/parent", pomRoot);
-    if (parentElement != null) {
-      resolveParentPom(pomPath, pomSet, parentElement);
+    if (pomStructure.hasParent()) {
+      resolveParentPom(pomPath, pomSet, pomStructure);
     }
 
-    resolveChildModulePoms(pomRoot, pomPath, pomSet);
+    resolveChildModulePoms(pomStructure, pomPath, pomSet);
   }
 
   private String resolveRelativePath(String relativeTo, final String relativePath) {
@@ -1,5 +1,6 @@
 package org.springframework.roo.project.maven;
 
+import org.springframework.roo.project.maven.PomStructureReader.PomStructure;
 import org.w3c.dom.Element;
 
 /**
@@ -20,4 +21,16 @@ public interface PomFactory {
    * @return a non-<code>null</code> instance
    */
   Pom getInstance(Element root, String pomPath, String moduleName);
+
+  /**
+   * Creates a {@link Pom} from the elements of a <code>pom.xml</code> file
+   * streamed by a {@link PomStructureReader}, without a DOM of the whole file
+   * 
+   * @param pomStructure the elements read from the XML file (required)
+   * @param pomPath the canonical path of the XML file (required)
+   * @param moduleName the name of the module to which the POM belongs (blank
+   *            means the root or only POM)
+   * @return a non-<code>null</code> instance
+   */
+  Pom getInstance(PomStructure pomStructure, String pomPath, String moduleName);
 }
@@ -19,6 +19,7 @@ import org.springframework.roo.project.Plugin;
 import org.springframework.roo.project.Property;
 import org.springframework.roo.project.Repository;
 import org.springframework.roo.project.Resource;
+import org.springframework.roo.project.maven.PomStructureReader.PomStructure;
 import org.springframework.roo.project.packaging.PackagingProvider;
 import org.springframework.roo.project.packaging.PackagingProviderRegistry;
 import org.springframework.roo.support.util.FileUtils;
@@ -29,31 +30,33 @@ import org.w3c.dom.Element;
 @Service
 public class PomFactoryImpl implements PomFactory {
 
-  private static final String ARTIFACT_ID_XPATH = "/project/artifactId";
-  private static final String DEFAULT_RELATIVE_PATH = "../pom.xml";
-  private static final String DEPENDENCY_XPATH = "/project/dependencies/dependency";
-  private static final String DEPENDENCY_IN_DEPENDENCY_MANAGEMENT_XPATH =
+  static final String ARTIFACT_ID_XPATH = "/project/artifactId";
+  static final String DEFAULT_RELATIVE_PATH = "../pom.xml";
+  static final String DEPENDENCY_XPATH = "/project/dependencies/dependency";
+  static final String DEPENDENCY_IN_DEPENDENCY_MANAGEMENT_XPATH =
       "/project/dependencyManagement/dependencies/dependency";
-  private static final String FILTER_XPATH = "/project/build/filters/filter";
-  private static final String GROUP_ID_XPATH = "/project/groupId";
-  private static final String MODULE_XPATH = "/project/modules/module";
-  private static final String NAME_XPATH = "/project/name";
-  private static final String PACKAGING_PROVIDER_PROPERTY_XPATH =
+  static final String FILTER_XPATH = "/project/build/filters/filter";
+  static final String GROUP_ID_XPATH = "/project/groupId";
+  static final String MODULE_XPATH = "/project/modules/module";
+  static final String NAME_XPATH = "/project/name";
+  static final String PACKAGING_PROVIDER_PROPERTY_XPATH =
       "/project/properties/roo.packaging.provider";
-  private static final String PACKAGING_XPATH = "/project/packaging";
-  private static final String PARENT_GROUP_ID_XPATH = "/project/parent/groupId";
-  private static final String PARENT_XPATH = "/project/parent";
-  private static final String PLUGIN_REPOSITORY_XPATH =
+  static final String PACKAGING_XPATH = "/project/packaging";
+  static final String PARENT_GROUP_ID_XPATH = "/project/parent/groupId";
+  static final String PARENT_VERSION_XPATH = "/project/parent/version";
+  static final String PARENT_XPATH = "/project/parent";
+  static final String PLUGIN_REPOSITORY_XPATH =
       "/project/pluginRepositories/pluginRepository";
-  private static final String PLUGIN_IN_DEPENDENCY_MANAGEMENT_XPATH =
+  static final String PLUGIN_IN_DEPENDENCY_MANAGEMENT_XPATH =
       "/project/build/pluginManagement/plugins/plugin";
-  private static final String PLUGIN_XPATH = "/project/build/plugins/plugin";
-  private static final String PROPERTY_XPATH = "/project/properties/*";
-  private static final String REPOSITORY_XPATH = "/project/repositories/repository";
-  private static final String RESOURCE_XPATH = "/project/build/resources/resource";
-  private static final String SOURCE_DIRECTORY_XPATH = "/project/build/sourceDirectory";
-  private static final String TEST_SOURCE_DIRECTORY_XPATH = "/project/build/testSourceDirectory";
-  private static final String VERSION_XPATH = "/project/version";
+  static final String PLUGIN_XPATH = "/project/build/plugins/plugin";
+  static final String PROPERTY_XPATH = "/project/properties/*";
+  static final String REPOSITORY_XPATH = "/project/repositories/repository";
+  static final String RELATIVE_PATH_XPATH = "/project/relativePath";
+  static final String RESOURCE_XPATH = "/project/build/resources/resource";
+  static final String SOURCE_DIRECTORY_XPATH = "/project/build/sourceDirectory";
+  static final String TEST_SOURCE_DIRECTORY_XPATH = "/project/build/testSourceDirectory";
+  static final String VERSION_XPATH = "/project/version";
 
   @Reference
   PackagingProviderRegistry packagingProviderRegistry;
@@ -96,7 +99,7 @@ public class PomFactoryImpl implements PomFactory {
         parseElements(Repository.class, PLUGIN_REPOSITORY_XPATH, root);
     final List<Repository> repositories = parseElements(Repository.class, REPOSITORY_XPATH, root);
     final List<Resource> resources = parseElements(Resource.class, RESOURCE_XPATH, root);
-    final String projectParentVersion = XmlUtils.getTextContent("/project/parent/version", root);
+    final String projectParentVersion = XmlUtils.getTextContent(PARENT_VERSION_XPATH, root);
     final Parent parent = getParent(pomPath, root);
     if (version == null) {
       version = projectParentVersion;
@@ -108,12 +111,74 @@ public class PomFactoryImpl implements PomFactory {
         resources, pomPath, moduleName, paths);
   }
 
+  public Pom getInstance(final PomStructure pomStructure, final String pomPath,
+      final String moduleName) {
+    Validate.notNull(pomStructure, "POM structure is required");
+    Validate.notBlank(pomPath, "POM's canonical path is required");
+    final String artifactId = pomStructure.getText(ARTIFACT_ID_XPATH, null);
+    String groupId = pomStructure.getText(GROUP_ID_XPATH, null);
+    if (StringUtils.isBlank(groupId)) {
+      // Fall back to the parent's group ID (ROO-1193)
+      groupId = pomStructure.getText(PARENT_GROUP_ID_XPATH, null);
+    }
+    final String name = pomStructure.getText(NAME_XPATH, null);
+    final String packaging = pomStructure.getText(PACKAGING_XPATH, DEFAULT_PACKAGING);
+    String version = pomStructure.getText(VERSION_XPATH, null);
+    if (version == null) {
+      version = pomStructure.getText(PARENT_VERSION_XPATH, null);
+    }
+    final String sourceDirectory = pomStructure.getText(SOURCE_DIRECTORY_XPATH, null);
+    final String testSourceDirectory = pomStructure.getText(TEST_SOURCE_DIRECTORY_XPATH, null);
+    final List<Dependency> dependenciesInDependencyManagement =
+        parseElements(Dependency.class,
+            pomStructure.getElements(DEPENDENCY_IN_DEPENDENCY_MANAGEMENT_XPATH));
+    final List<Dependency> dependencies =
+        parseElements(Dependency.class, pomStructure.getElements(DEPENDENCY_XPATH));
+    final List<Filter> filters =
+        parseElements(Filter.class, pomStructure.getElements(FILTER_XPATH));
+    final List<Module> modules =
+        getModules(pomStructure.getElements(MODULE_XPATH), pomPath, packaging);
+    final List<Plugin> pluginsInDependencyManagement =
+        parseElements(Plugin.class,
+            pomStructure.getElements(PLUGIN_IN_DEPENDENCY_MANAGEMENT_XPATH));
+    final List<Plugin> plugins =
+        parseElements(Plugin.class, pomStructure.getElements(PLUGIN_XPATH));
+    final List<Property> pomProperties =
+        parseElements(Property.class, pomStructure.getElements(PROPERTY_XPATH));
+    final List<Repository> pluginRepositories =
+        parseElements(Repository.class, pomStructure.getElements(PLUGIN_REPOSITORY_XPATH));
+    final List<Repository> repositories =
+        parseElements(Repository.class, pomStructure.getElements(REPOSITORY_XPATH));
+    final List<Resource> resources =
+        parseElements(Resource.class, pomStructure.getElements(RESOURCE_XPATH));
+    Parent parent = null;
+    if (pomStructure.hasParent()) {
+      // Same values as the ParentBuilder of getParent(String, Element) reads
+      parent =
+          new Parent(pomStructure.getText(GROUP_ID_XPATH, null), artifactId,
+              pomStructure.getText(VERSION_XPATH, null), pomStructure.getText(
+                  RELATIVE_PATH_XPATH, null), resolveRelativePath(pomPath,
+                  DEFAULT_RELATIVE_PATH));
+    }
+    final Collection<Path> paths =
+        getPaths(pomStructure.getText(PACKAGING_PROVIDER_PROPERTY_XPATH, packaging));
+    return new Pom(groupId, artifactId, version, packaging, dependenciesInDependencyManagement,
+        dependencies, parent, modules, pomProperties, name, repositories, pluginRepositories,
+        sourceDirectory, testSourceDirectory, filters, pluginsInDependencyManagement, plugins,
+        resources, pomPath, moduleName, paths);
+  }
+
   private List<Module> getModules(final Element root, final String pomPath, final String packaging) {
+    return getModules(XmlUtils.findElements(MODULE_XPATH, root), pomPath, packaging);
+  }
+
+  private List<Module> getModules(final List<Element> moduleElements, final String pomPath,
+      final String packaging) {
     if (!"pom".equalsIgnoreCase(packaging)) {
       return null;
     }
     final List<Module> modules = new ArrayList<Module>();
-    for (final Element module : XmlUtils.findElements(MODULE_XPATH, root)) {
+    for (final Element module : moduleElements) {
       final String moduleName = module.getTextContent();
       if (StringUtils.isNotBlank(moduleName)) {
         final String modulePath = resolveRelativePath(pomPath, moduleName);
@@ -135,8 +200,10 @@ public class PomFactoryImpl implements PomFactory {
   }
 
   private Collection<Path> getPaths(final Element root, final String packaging) {
-    final String packagingProviderId =
-        XmlUtils.getTextContent(PACKAGING_PROVIDER_PROPERTY_XPATH, root, packaging);
+    return getPaths(XmlUtils.getTextContent(PACKAGING_PROVIDER_PROPERTY_XPATH, root, packaging));
+  }
+
+  private Collection<Path> getPaths(final String packagingProviderId) {
     final PackagingProvider packagingProvider =
         packagingProviderRegistry.getPackagingProvider(packagingProviderId);
     Validate.notNull(packagingProvider, "No PackagingProvider found with the ID '%s'",
@@ -156,8 +223,21 @@ public class PomFactoryImpl implements PomFactory {
    * @return a non-<code>null</code> list
    */
   private <T> List<T> parseElements(final Class<T> type, final String xPath, final Element root) {
+    return parseElements(type, XmlUtils.findElements(xPath, root));
+  }
+
+  /**
+   * Parses the given elements into instances of the given type.
+   * 
+   * @param <T> the type of object to parse
+   * @param type the type of object to parse; must have a constructor that
+   *            accepts an {@link Element} as its sole argument
+   * @param elements the elements to parse (required)
+   * @return a non-<code>null</code> list
+   */
+  private <T> List<T> parseElements(final Class<T> type, final List<Element> elements) {
     final List<T> results = new ArrayList<T>();
-    for (final Element element : XmlUtils.findElements(xPath, root)) {
+    for (final Element element : elements) {
       try {
         results.add(type.getConstructor(Element.class).newInstance(element));
       } catch (final RuntimeException e) {
@@ -0,0 +1,277 @@
+package org.springframework.roo.project.maven;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+import org.springframework.roo.support.util.XmlUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Streams a <code>pom.xml</code> with StAX and keeps only the elements a
+ * {@link Pom} is made of: the text of the project's coordinates, packaging
+ * and source directories, and detached DOM elements for each dependency,
+ * plugin, property, repository, resource, filter and module. It also keeps
+ * the structural information needed to discover the other POMs of a
+ * multi-module project, i.e. the <code>/project/parent</code> declaration
+ * and the <code>/project/modules/module</code> entries.
+ * <p>
+ * Unlike building a DOM of the whole file, the rest of the POM (e.g.
+ * profiles, reporting or plugin management outside the paths above) is
+ * skipped, and no XPath evaluation is involved.
+ *
+ * @since 2.0
+ */
+public class PomStructureReader {
+
+  /** The paths of the elements whose text a {@link Pom} needs */
+  private static final Set<String> TEXT_PATHS = new HashSet<String>(Arrays.asList(
+      PomFactoryImpl.ARTIFACT_ID_XPATH, PomFactoryImpl.GROUP_ID_XPATH, PomFactoryImpl.NAME_XPATH,
+      PomFactoryImpl.PACKAGING_PROVIDER_PROPERTY_XPATH, PomFactoryImpl.PACKAGING_XPATH,
+      PomFactoryImpl.PARENT_GROUP_ID_XPATH, PomFactoryImpl.PARENT_VERSION_XPATH,
+      PomFactoryImpl.RELATIVE_PATH_XPATH, PomFactoryImpl.SOURCE_DIRECTORY_XPATH,
+      PomFactoryImpl.TEST_SOURCE_DIRECTORY_XPATH, PomFactoryImpl.VERSION_XPATH));
+
+  /**
+   * The paths of the elements a {@link Pom} is built from; a path ending
+   * with "/*" stands for every child of the given element
+   */
+  private static final Set<String> ELEMENT_PATHS = new HashSet<String>(Arrays.asList(
+      PomFactoryImpl.DEPENDENCY_IN_DEPENDENCY_MANAGEMENT_XPATH, PomFactoryImpl.DEPENDENCY_XPATH,
+      PomFactoryImpl.FILTER_XPATH, PomFactoryImpl.MODULE_XPATH,
+      PomFactoryImpl.PLUGIN_IN_DEPENDENCY_MANAGEMENT_XPATH, PomFactoryImpl.PLUGIN_REPOSITORY_XPATH,
+      PomFactoryImpl.PLUGIN_XPATH, PomFactoryImpl.PROPERTY_XPATH, PomFactoryImpl.REPOSITORY_XPATH,
+      PomFactoryImpl.RESOURCE_XPATH));
+
+  private static final String PARENT_RELATIVE_PATH_XPATH = PomFactoryImpl.PARENT_XPATH
+      + "/relativePath";
+
+  private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+  private static XMLInputFactory createInputFactory() {
+    final XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+    return factory;
+  }
+
+  /**
+   * The structure of a single POM.
+   */
+  public static class PomStructure {
+
+    private final Map<String, List<Element>> elements;
+    private final boolean hasParent;
+    private final List<String> moduleNames;
+    private final String parentRelativePath;
+    private final Map<String, String> texts;
+
+    PomStructure(final boolean hasParent, final String parentRelativePath,
+        final List<String> moduleNames, final Map<String, String> texts,
+        final Map<String, List<Element>> elements) {
+      this.elements = elements;
+      this.hasParent = hasParent;
+      this.parentRelativePath = parentRelativePath;
+      this.moduleNames = Collections.unmodifiableList(moduleNames);
+      this.texts = texts;
+    }
+
+    /**
+     * Returns the elements found at the given path, in document order
+     *
+     * @param path one of the element paths of {@link PomFactoryImpl}
+     * @return a non-<code>null</code> list
+     */
+    public List<Element> getElements(final String path) {
+      final List<Element> found = elements.get(path);
+      if (found == null) {
+        return Collections.emptyList();
+      }
+      return Collections.unmodifiableList(found);
+    }
+
+    /**
+     * Returns the names of the modules declared by the POM, in declaration
+     * order, excluding blank ones
+     *
+     * @return a non-<code>null</code> list
+     */
+    public List<String> getModuleNames() {
+      return moduleNames;
+    }
+
+    /**
+     * Returns the <code>relativePath</code> of the parent declaration
+     *
+     * @param defaultValue the value to return if the POM has no parent or the
+     *            parent has no relative path
+     * @return the relative path or the given default
+     */
+    public String getParentRelativePath(final String defaultValue) {
+      return parentRelativePath == null ? defaultValue : parentRelativePath;
+    }
+
+    /**
+     * Returns the untrimmed text of the first element at the given path, like
+     * {@link XmlUtils#getTextContent(String, Element, String)} would
+     *
+     * @param path one of the text paths of {@link PomFactoryImpl}
+     * @param valueIfNull the value to return if there is no such element
+     * @return the text or the given default
+     */
+    public String getText(final String path, final String valueIfNull) {
+      final String text = texts.get(path);
+      return text == null ? valueIfNull : text;
+    }
+
+    /**
+     * Indicates whether the POM declares a <code>parent</code>
+     */
+    public boolean hasParent() {
+      return hasParent;
+    }
+  }
+
+  /**
+   * Reads the structure of the given POM, closing the stream afterwards.
+   *
+   * @param inputStream the POM contents (required)
+   * @return a non-<code>null</code> structure
+   */
+  public PomStructure read(final InputStream inputStream) {
+    Validate.notNull(inputStream, "POM input stream required");
+    XMLStreamReader reader = null;
+    try {
+      reader = INPUT_FACTORY.createXMLStreamReader(inputStream);
+      final Document document = XmlUtils.getDocumentBuilder().newDocument();
+      final List<String> path = new ArrayList<String>();
+      final List<String> moduleNames = new ArrayList<String>();
+      final Map<String, String> texts = new HashMap<String, String>();
+      final Map<String, List<Element>> elements = new HashMap<String, List<Element>>();
+      boolean hasParent = false;
+      String parentRelativePath = null;
+      String currentPath = "";
+      while (reader.hasNext()) {
+        final int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          final String elementPath = currentPath + "/" + getName(reader);
+          String elementsKey = elementPath;
+          if (!ELEMENT_PATHS.contains(elementPath)) {
+            elementsKey = currentPath + "/*";
+          }
+          final boolean isElement = ELEMENT_PATHS.contains(elementsKey);
+          final boolean isText =
+              TEXT_PATHS.contains(elementPath) || PARENT_RELATIVE_PATH_XPATH.equals(elementPath);
+          if (!isElement && !isText) {
+            // Go down into this element
+            hasParent |= PomFactoryImpl.PARENT_XPATH.equals(elementPath);
+            path.add(currentPath);
+            currentPath = elementPath;
+            continue;
+          }
+          // Read the whole element, so the reader is now at its end
+          final Element element = readElement(reader, document);
+          if (isElement) {
+            List<Element> found = elements.get(elementsKey);
+            if (found == null) {
+              found = new ArrayList<Element>();
+              elements.put(elementsKey, found);
+            }
+            found.add(element);
+          }
+          if (isText && !texts.containsKey(elementPath)) {
+            texts.put(elementPath, element.getTextContent());
+          }
+          if (PomFactoryImpl.MODULE_XPATH.equals(elementPath)
+              && StringUtils.isNotBlank(element.getTextContent())) {
+            moduleNames.add(element.getTextContent().trim());
+          } else if (PARENT_RELATIVE_PATH_XPATH.equals(elementPath)) {
+            parentRelativePath = element.getTextContent().trim();
+          }
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          currentPath = path.remove(path.size() - 1);
+        }
+      }
+      return new PomStructure(hasParent, parentRelativePath, moduleNames, texts, elements);
+    } catch (final XMLStreamException e) {
+      throw new IllegalStateException("Could not read POM structure", e);
+    } finally {
+      if (reader != null) {
+        try {
+          reader.close();
+        } catch (final XMLStreamException ignored) {
+        }
+      }
+      IOUtils.closeQuietly(inputStream);
+    }
+  }
+
+  /**
+   * Returns the name of the current element or of the given attribute as a
+   * DOM built without namespace awareness would, i.e. including any prefix
+   */
+  private String getName(final String prefix, final String localName) {
+    if (StringUtils.isEmpty(prefix)) {
+      return localName;
+    }
+    return prefix + ":" + localName;
+  }
+
+  private String getName(final XMLStreamReader reader) {
+    return getName(reader.getPrefix(), reader.getLocalName());
+  }
+
+  /**
+   * Reads the current element, its attributes and its content into a DOM
+   * element of the given document, leaving the reader at its end.
+   */
+  private Element readElement(final XMLStreamReader reader, final Document document)
+      throws XMLStreamException {
+    final Element element = document.createElement(getName(reader));
+    for (int i = 0; i < reader.getNamespaceCount(); i++) {
+      final String prefix = reader.getNamespacePrefix(i);
+      element.setAttribute(StringUtils.isEmpty(prefix) ? "xmlns" : "xmlns:" + prefix,
+          reader.getNamespaceURI(i));
+    }
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      element.setAttribute(getName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)),
+          reader.getAttributeValue(i));
+    }
+    while (true) {
+      final int event = reader.next();
+      switch (event) {
+        case XMLStreamConstants.START_ELEMENT:
+          element.appendChild(readElement(reader, document));
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+        case XMLStreamConstants.SPACE:
+          element.appendChild(document.createTextNode(reader.getText()));
+          break;
+        case XMLStreamConstants.COMMENT:
+          element.appendChild(document.createComment(reader.getText()));
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          return element;
+        default:
+          break;
+      }
+    }
+  }
+}
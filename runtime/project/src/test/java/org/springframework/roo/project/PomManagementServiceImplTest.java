@@ -29,10 +29,10 @@ import org.springframework.roo.metadata.MetadataService;
 import org.springframework.roo.process.manager.FileManager;
 import org.springframework.roo.project.maven.Pom;
 import org.springframework.roo.project.maven.PomFactory;
+import org.springframework.roo.project.maven.PomStructureReader.PomStructure;
 import org.springframework.roo.shell.Shell;
 import org.springframework.roo.support.osgi.OSGiUtils;
 import org.springframework.roo.support.util.FileUtils;
-import org.w3c.dom.Element;
 
 /**
  * Unit test of {@link PomManagementServiceImpl}
@@ -75,7 +75,7 @@ public class PomManagementServiceImplTest {
     final Pom mockPom = mock(Pom.class);
     when(mockPom.getModuleName()).thenReturn(moduleName);
     when(mockPom.getPath()).thenReturn(canonicalPath);
-    when(mockPomFactory.getInstance(any(Element.class), eq(canonicalPath), eq(moduleName)))
+    when(mockPomFactory.getInstance(any(PomStructure.class), eq(canonicalPath), eq(moduleName)))
         .thenReturn(mockPom);
     return mockPom;
   }
@@ -0,0 +1,144 @@
+package org.springframework.roo.project.maven;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.roo.project.Path;
+import org.springframework.roo.project.Plugin;
+import org.springframework.roo.project.packaging.PackagingProvider;
+import org.springframework.roo.project.packaging.PackagingProviderRegistry;
+import org.springframework.roo.support.util.FileUtils;
+import org.springframework.roo.support.util.XmlUtils;
+
+/**
+ * Unit test of {@link PomFactoryImpl}
+ *
+ * @since 2.0
+ */
+public class PomFactoryImplTest {
+
+  private static final String POM_PATH = File.separator
+      + FileUtils.getSystemDependentPath("users", "jbloggs", "projects", "clinic", "core",
+          "pom.xml");
+
+  private static final String MODULE_POM =
+      "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+          + "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">"
+          + "<modelVersion>4.0.0</modelVersion>"
+          + "<parent><groupId>com.example</groupId><artifactId>clinic</artifactId>"
+          + "<version>1.0.0</version><relativePath>../pom.xml</relativePath></parent>"
+          + "<artifactId>core</artifactId><name>Clinic core</name><packaging>pom</packaging>"
+          + "<modules><module>model</module><module> </module><module>web</module></modules>"
+          + "<properties><java.version>1.6</java.version><!-- comment -->"
+          + "<roo.packaging.provider>custom</roo.packaging.provider></properties>"
+          + "<repositories><repository><id>central</id>"
+          + "<url>http://repo1.maven.org/maven2</url><name>Central</name></repository>"
+          + "</repositories>"
+          + "<pluginRepositories><pluginRepository><id>plugins</id>"
+          + "<url>http://example.com/plugins</url></pluginRepository></pluginRepositories>"
+          + "<dependencyManagement><dependencies><dependency><groupId>org.slf4j</groupId>"
+          + "<artifactId>slf4j-api</artifactId><version>1.7.5</version></dependency>"
+          + "</dependencies></dependencyManagement>"
+          + "<dependencies><dependency><groupId>junit</groupId><artifactId>junit</artifactId>"
+          + "<version>4.11</version><scope>test</scope></dependency>"
+          + "<dependency><groupId>org.hibernate</groupId><artifactId>hibernate-core</artifactId>"
+          + "<version>${hibernate.version}</version><exclusions><exclusion>"
+          + "<groupId>cglib</groupId><artifactId>cglib</artifactId></exclusion></exclusions>"
+          + "</dependency></dependencies>"
+          + "<build><sourceDirectory>src/main/java</sourceDirectory>"
+          + "<testSourceDirectory>src/test/java</testSourceDirectory>"
+          + "<resources><resource><directory>src/main/resources</directory>"
+          + "<filtering>true</filtering><includes><include>**/*.xml</include></includes>"
+          + "</resource></resources>"
+          + "<filters><filter>src/main/filters/dev.properties</filter></filters>"
+          + "<pluginManagement><plugins><plugin><groupId>org.apache.maven.plugins</groupId>"
+          + "<artifactId>maven-surefire-plugin</artifactId><version>2.12</version></plugin>"
+          + "</plugins></pluginManagement>"
+          + "<plugins><plugin><groupId>org.apache.maven.plugins</groupId>"
+          + "<artifactId>maven-compiler-plugin</artifactId><version>3.1</version>"
+          + "<configuration><source>1.6</source><target>1.6</target></configuration>"
+          + "<executions><execution><id>compile</id><phase>compile</phase>"
+          + "<goals><goal>compile</goal></goals></execution></executions>"
+          + "<dependencies><dependency><groupId>org.ow2.asm</groupId><artifactId>asm</artifactId>"
+          + "<version>4.1</version></dependency></dependencies></plugin></plugins></build>"
+          + "<profiles><profile><id>extra</id><dependencies><dependency>"
+          + "<groupId>ignored</groupId><artifactId>ignored</artifactId></dependency>"
+          + "</dependencies></profile></profiles>" + "</project>";
+
+  private PomFactoryImpl pomFactory;
+
+  @Before
+  public void setUp() {
+    final PackagingProvider packagingProvider = mock(PackagingProvider.class);
+    when(packagingProvider.getPaths()).thenReturn(Arrays.asList(Path.ROOT, Path.SRC_MAIN_JAVA));
+    final PackagingProviderRegistry packagingProviderRegistry =
+        mock(PackagingProviderRegistry.class);
+    when(packagingProviderRegistry.getPackagingProvider("custom")).thenReturn(packagingProvider);
+    pomFactory = new PomFactoryImpl();
+    pomFactory.packagingProviderRegistry = packagingProviderRegistry;
+  }
+
+  private void assertSamePom(final Pom expected, final Pom actual) {
+    assertEquals(expected.getGroupId(), actual.getGroupId());
+    assertEquals(expected.getArtifactId(), actual.getArtifactId());
+    assertEquals(expected.getVersion(), actual.getVersion());
+    assertEquals(expected.getName(), actual.getName());
+    assertEquals(expected.getPackaging(), actual.getPackaging());
+    assertEquals(expected.getSourceDirectory(), actual.getSourceDirectory());
+    assertEquals(expected.getTestSourceDirectory(), actual.getTestSourceDirectory());
+    assertEquals(expected.getDependencies(), actual.getDependencies());
+    // Plugin configurations hash by identity, so compare the plugins in order
+    assertEquals(expected.getBuildPlugins().size(), actual.getBuildPlugins().size());
+    final Iterator<Plugin> actualPlugins = actual.getBuildPlugins().iterator();
+    for (final Plugin expectedPlugin : expected.getBuildPlugins()) {
+      assertEquals(expectedPlugin, actualPlugins.next());
+    }
+    assertEquals(expected.getPomProperties(), actual.getPomProperties());
+    assertEquals(expected.getRepositories(), actual.getRepositories());
+    assertEquals(expected.getPluginRepositories(), actual.getPluginRepositories());
+    assertEquals(expected.getResources(), actual.getResources());
+    assertEquals(expected.getFilters(), actual.getFilters());
+    assertEquals(expected.getModules().size(), actual.getModules().size());
+    final Iterator<Module> actualModules = actual.getModules().iterator();
+    for (final Module expectedModule : expected.getModules()) {
+      final Module actualModule = actualModules.next();
+      assertEquals(expectedModule.getName(), actualModule.getName());
+      assertEquals(expectedModule.getPomPath(), actualModule.getPomPath());
+    }
+    assertEquals(expected.getPhysicalPaths().size(), actual.getPhysicalPaths().size());
+    assertNotNull(actual.getParent());
+    assertEquals(expected.getParent().getGroupId(), actual.getParent().getGroupId());
+    assertEquals(expected.getParent().getArtifactId(), actual.getParent().getArtifactId());
+    assertEquals(expected.getParent().getVersion(), actual.getParent().getVersion());
+    assertEquals(expected.getParent().getRelativePath(), actual.getParent().getRelativePath());
+    assertEquals(expected.getParent().getPomPath(), actual.getParent().getPomPath());
+  }
+
+  @Test
+  public void testPomFromStructureMatchesPomFromDocument() throws Exception {
+    // Set up
+    final Pom expected =
+        pomFactory.getInstance(XmlUtils.stringToElement(MODULE_POM), POM_PATH, "core");
+
+    // Invoke
+    final Pom actual =
+        pomFactory.getInstance(
+            new PomStructureReader().read(new ByteArrayInputStream(MODULE_POM.getBytes("UTF-8"))),
+            POM_PATH, "core");
+
+    // Check
+    assertSamePom(expected, actual);
+    assertEquals(2, actual.getModules().size());
+    assertEquals(2, actual.getDependencies().size());
+    assertEquals(1, actual.getBuildPlugins().size());
+  }
+}
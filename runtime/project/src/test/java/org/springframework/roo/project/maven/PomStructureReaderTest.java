@@ -0,0 +1,50 @@
+package org.springframework.roo.project.maven;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.springframework.roo.project.maven.PomStructureReader.PomStructure;
+
+/**
+ * Unit test of {@link PomStructureReader}
+ *
+ * @since 2.0
+ */
+public class PomStructureReaderTest {
+
+  private final PomStructureReader reader = new PomStructureReader();
+
+  private PomStructure read(final String pom) throws UnsupportedEncodingException {
+    return reader.read(new ByteArrayInputStream(pom.getBytes("UTF-8")));
+  }
+
+  @Test
+  public void testStandalonePom() throws Exception {
+    final PomStructure structure =
+        read("<project><groupId>com.example</groupId><artifactId>app</artifactId></project>");
+
+    assertFalse(structure.hasParent());
+    assertEquals("../pom.xml", structure.getParentRelativePath("../pom.xml"));
+    assertTrue(structure.getModuleNames().isEmpty());
+  }
+
+  @Test
+  public void testParentAndModules() throws Exception {
+    final PomStructure structure =
+        read("<?xml version=\"1.0\"?><project xmlns=\"http://maven.apache.org/POM/4.0.0\">"
+            + "<parent><artifactId>root</artifactId><relativePath> ../root </relativePath></parent>"
+            + "<modules><module>model</module><module> </module><module>web</module></modules>"
+            + "<profiles><profile><modules><module>ignored</module></modules></profile></profiles>"
+            + "</project>");
+
+    assertTrue(structure.hasParent());
+    assertEquals("../root", structure.getParentRelativePath("../pom.xml"));
+    assertEquals(Arrays.asList("model", "web"), structure.getModuleNames());
+  }
+}
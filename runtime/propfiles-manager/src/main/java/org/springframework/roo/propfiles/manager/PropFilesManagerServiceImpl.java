@@ -1,22 +1,16 @@
 package org.springframework.roo.propfiles.manager;
 
-import java.io.BufferedInputStream;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
-import java.util.Date;
-import java.util.Enumeration;
 import java.util.HashMap;
-import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -29,8 +23,12 @@ import org.osgi.framework.BundleContext;
 import org.osgi.framework.InvalidSyntaxException;
 import org.osgi.framework.ServiceReference;
 import org.osgi.service.component.ComponentContext;
+import org.springframework.roo.file.monitor.event.FileEvent;
+import org.springframework.roo.file.monitor.event.FileEventListener;
+import org.springframework.roo.file.undo.UndoEvent;
+import org.springframework.roo.file.undo.UndoListener;
+import org.springframework.roo.file.undo.UndoManager;
 import org.springframework.roo.process.manager.FileManager;
-import org.springframework.roo.process.manager.MutableFile;
 import org.springframework.roo.project.LogicalPath;
 import org.springframework.roo.project.ProjectOperations;
 import org.springframework.roo.support.logging.HandlerUtils;
@@ -39,20 +37,36 @@ import org.springframework.roo.support.util.FileUtils;
 /**
  * Provides service that could be used to manage all necessary .properties files
  * located on project.
+ * <p>
+ * Each file is parsed once into a {@link PropertyFile}, which is kept until the
+ * file changes on disk or the current operation is undone. Edits update that
+ * model and hand the new contents to the {@link FileManager} as a deferred
+ * write, so all the edits made to a file by one command result in a single
+ * rewrite when the command completes. Comments and the order of the
+ * properties are preserved.
  * 
  * @author Juan Carlos García
  * @since 2.0
  */
 @Component
 @Service
-public class PropFilesManagerServiceImpl implements PropFilesManagerService {
+public class PropFilesManagerServiceImpl implements PropFilesManagerService, FileEventListener,
+    UndoListener {
 
   protected final static Logger LOGGER = HandlerUtils.getLogger(PropFilesManagerServiceImpl.class);
 
   private static final boolean SORTED = true;
 
+  /**
+   * key: canonical file path, value: the parsed file including pending edits;
+   * concurrent, as file events may arrive on the background scanning thread
+   */
+  private final Map<String, PropertyFile> propertyFiles =
+      new ConcurrentHashMap<String, PropertyFile>();
+
   private FileManager fileManager;
   private ProjectOperations projectOperations;
+  private UndoManager undoManager;
 
   // ------------ OSGi component attributes ----------------
   private BundleContext context;
@@ -61,6 +75,26 @@ public class PropFilesManagerServiceImpl implements PropFilesManagerService {
     this.context = context.getBundleContext();
   }
 
+  protected void deactivate(final ComponentContext context) {
+    if (undoManager != null) {
+      undoManager.removeUndoListener(this);
+    }
+    propertyFiles.clear();
+  }
+
+  public void onFileEvent(final FileEvent fileEvent) {
+    // The file was changed, possibly by someone else, so parse it again on
+    // next use; pending edits are safe, as the file manager holds them
+    propertyFiles.remove(fileEvent.getFileDetails().getCanonicalPath());
+  }
+
+  public void onUndoEvent(final UndoEvent event) {
+    if (event.isUndoing()) {
+      // The pending edits have been discarded
+      propertyFiles.clear();
+    }
+  }
+
   @Override
   public void addProperties(final LogicalPath propertyFilePath, final String propertyFilename,
       final Map<String, String> properties, final boolean sorted, final boolean force) {
@@ -154,24 +188,13 @@ public class PropFilesManagerServiceImpl implements PropFilesManagerService {
 
     final String filePath =
         getProjectOperations().getPathResolver().getIdentifier(propertyFilePath, propertyFilename);
-    final Properties props = new Properties();
-
-    try {
-      if (getFileManager().exists(filePath)) {
-        loadProperties(props, new BufferedInputStream(new FileInputStream(filePath)));
-      } else {
-        throw new IllegalStateException(String.format(
-            "ERROR: '%s' properties file doesn't exists.", filePath));
-      }
-    } catch (final IOException ioe) {
-      throw new IllegalStateException(ioe);
+    final PropertyFile propertyFile = getPropertyFile(filePath);
+    if (propertyFile == null) {
+      throw new IllegalStateException(String.format("ERROR: '%s' properties file doesn't exists.",
+          filePath));
     }
 
-    final Map<String, String> result = new HashMap<String, String>();
-    for (final Object key : props.keySet()) {
-      result.put(key.toString(), props.getProperty(key.toString()));
-    }
-    return Collections.unmodifiableMap(result);
+    return Collections.unmodifiableMap(propertyFile.getProperties());
   }
 
   @Override
@@ -190,13 +213,8 @@ public class PropFilesManagerServiceImpl implements PropFilesManagerService {
 
     final String filePath =
         getProjectOperations().getPathResolver().getIdentifier(propertyFilePath, propertyFilename);
-    MutableFile mutableFile = null;
-    final Properties props = new Properties();
-
-    if (getFileManager().exists(filePath)) {
-      mutableFile = getFileManager().updateFile(filePath);
-      loadProperties(props, mutableFile.getInputStream());
-    } else {
+    final PropertyFile propertyFile = getPropertyFile(filePath);
+    if (propertyFile == null) {
       return null;
     }
 
@@ -205,7 +223,7 @@ public class PropFilesManagerServiceImpl implements PropFilesManagerService {
       key = prefix.concat(".").concat(key);
     }
 
-    return props.getProperty(key);
+    return propertyFile.getProperty(key);
   }
 
   @Override
@@ -223,30 +241,22 @@ public class PropFilesManagerServiceImpl implements PropFilesManagerService {
 
     final String filePath =
         getProjectOperations().getPathResolver().getIdentifier(propertyFilePath, propertyFilename);
-    final Properties props = new Properties();
-
-    try {
-      if (getFileManager().exists(filePath)) {
-        loadProperties(props, new BufferedInputStream(new FileInputStream(filePath)));
-      } else {
-        throw new IllegalStateException(String.format(
-            "ERROR: '%s' properties file doesn't exists.", filePath));
-      }
-    } catch (final IOException ioe) {
-      throw new IllegalStateException(ioe);
+    final PropertyFile propertyFile = getPropertyFile(filePath);
+    if (propertyFile == null) {
+      throw new IllegalStateException(String.format("ERROR: '%s' properties file doesn't exists.",
+          filePath));
     }
 
     final SortedSet<String> result = new TreeSet<String>();
-    for (final Object key : props.keySet()) {
-      String info = key.toString();
+    for (final Entry<String, String> property : propertyFile.getProperties().entrySet()) {
+      String info = property.getKey();
       if (StringUtils.isNotBlank(prefix)) {
         if (info.startsWith(prefix)) {
-          result.add(includeValues ? info.concat(" = ").concat(props.getProperty(key.toString()))
-              : info);
+          result.add(includeValues ? info.concat(" = ").concat(property.getValue()) : info);
         }
       } else {
         if (includeValues) {
-          info += " = " + props.getProperty(key.toString());
+          info += " = " + property.getValue();
         }
         result.add(info);
       }
@@ -284,13 +294,8 @@ public class PropFilesManagerServiceImpl implements PropFilesManagerService {
 
     final String filePath =
         getProjectOperations().getPathResolver().getIdentifier(propertyFilePath, propertyFilename);
-    MutableFile mutableFile = null;
-    final Properties props = new Properties();
-
-    if (getFileManager().exists(filePath)) {
-      mutableFile = getFileManager().updateFile(filePath);
-      loadProperties(props, mutableFile.getInputStream());
-    } else {
+    final PropertyFile propertyFile = getPropertyFile(filePath);
+    if (propertyFile == null) {
       throw new IllegalStateException(String.format("ERROR: '%s' properties file doesn't exists.",
           filePath));
     }
@@ -300,9 +305,8 @@ public class PropFilesManagerServiceImpl implements PropFilesManagerService {
       key = prefix.concat(".").concat(key);
     }
 
-    if (props.containsKey(key)) {
-      props.remove(key);
-      storeProps(props, mutableFile.getOutputStream(), "Updated at " + new Date());
+    if (propertyFile.removeProperty(key)) {
+      writePropertyFile(filePath, propertyFile);
     }
 
   }
@@ -316,25 +320,22 @@ public class PropFilesManagerServiceImpl implements PropFilesManagerService {
 
     final String filePath =
         getProjectOperations().getPathResolver().getIdentifier(propertyFilePath, propertyFilename);
-    MutableFile mutableFile = null;
-    final Properties props = new Properties();
-
-    if (getFileManager().exists(filePath)) {
-      mutableFile = getFileManager().updateFile(filePath);
-      loadProperties(props, mutableFile.getInputStream());
-    } else {
+    final PropertyFile propertyFile = getPropertyFile(filePath);
+    if (propertyFile == null) {
       throw new IllegalStateException(String.format("ERROR: '%s' properties file doesn't exists.",
           filePath));
     }
 
-    for (Entry property : props.entrySet()) {
-      String key = (String) property.getKey();
-      if (key != null && key.startsWith(prefix)) {
-        props.remove(key);
+    boolean saveNeeded = false;
+    for (final String key : propertyFile.getProperties().keySet()) {
+      if (key.startsWith(prefix)) {
+        saveNeeded |= propertyFile.removeProperty(key);
       }
     }
 
-    storeProps(props, mutableFile.getOutputStream(), "Updated at " + new Date());
+    if (saveNeeded) {
+      writePropertyFile(filePath, propertyFile);
+    }
 
   }
 
@@ -366,44 +367,14 @@ public class PropFilesManagerServiceImpl implements PropFilesManagerService {
 
     final String filePath =
         getProjectOperations().getPathResolver().getIdentifier(propertyFilePath, propertyFilename);
-    MutableFile mutableFile = null;
-
-    Properties props;
-    if (sorted) {
-      props = new Properties() {
-        private static final long serialVersionUID = 1L;
-
-        // Override the keys() method to order the keys alphabetically
-        @SuppressWarnings("all")
-        public synchronized Enumeration keys() {
-          final Object[] keys = keySet().toArray();
-          Arrays.sort(keys);
-          return new Enumeration() {
-            int i = 0;
-
-            public boolean hasMoreElements() {
-              return i < keys.length;
-            }
-
-            public Object nextElement() {
-              return keys[i++];
-            }
-          };
-        }
-      };
-    } else {
-      props = new Properties();
+    PropertyFile propertyFile = getPropertyFile(filePath);
+    if (propertyFile == null) {
+      // Unable to find the file, so it will be created
+      propertyFile = PropertyFile.parse("");
+      propertyFiles.put(filePath, propertyFile);
     }
 
-    if (getFileManager().exists(filePath)) {
-      mutableFile = getFileManager().updateFile(filePath);
-      loadProperties(props, mutableFile.getInputStream());
-    } else {
-      // Unable to find the file, so let's create it
-      mutableFile = getFileManager().createFile(filePath);
-    }
-
-    boolean saveNeeded = false;
+    final Map<String, String> pendingProperties = new LinkedHashMap<String, String>();
     boolean needForce = false;
     Map<String, String> overwriteProperties = new HashMap<String, String>();
 
@@ -416,10 +387,9 @@ public class PropFilesManagerServiceImpl implements PropFilesManagerService {
       }
 
       final String newValue = entry.getValue();
-      final String existingValue = props.getProperty(key);
+      final String existingValue = propertyFile.getProperty(key);
       if (existingValue == null || !existingValue.equals(newValue) && force) {
-        props.setProperty(key, newValue);
-        saveNeeded = true;
+        pendingProperties.put(key, newValue);
       } else if (!existingValue.equals(newValue) && !force) {
         // ROO-3702: Show error when tries to update some properties that
         // already exists and --force global param is false. 
@@ -448,33 +418,62 @@ public class PropFilesManagerServiceImpl implements PropFilesManagerService {
       throw new RuntimeException(msg);
     }
 
-    if (saveNeeded) {
-      storeProps(props, mutableFile.getOutputStream(), "Updated at " + new Date());
-
-      String propertyCount = props.size() > 1 ? "Properties" : "Property";
-      String haveCount = props.size() > 1 ? "have" : "has";
-      String propertyLists = "";
-      for (Entry<Object, Object> property : props.entrySet()) {
-        String key = (String) property.getKey();
-        String value = (String) property.getValue();
+    // Only apply the changes once we know the whole batch is acceptable
+    boolean saveNeeded = false;
+    for (final Entry<String, String> property : pendingProperties.entrySet()) {
+      saveNeeded |= propertyFile.setProperty(property.getKey(), property.getValue());
+    }
+    if (saveNeeded && sorted) {
+      propertyFile.sort();
+    }
+    if (saveNeeded || !getFileManager().exists(filePath)) {
+      writePropertyFile(filePath, propertyFile);
+    }
+  }
 
-        propertyLists =
-            propertyLists.concat("'").concat(key).concat(" = ").concat(value).concat("', ");
+  /**
+   * Returns the parsed contents of the given file, including any pending
+   * edits.
+   * 
+   * @param filePath the canonical path of the file
+   * @return <code>null</code> if the file does not exist and has no pending
+   *         edits
+   */
+  private PropertyFile getPropertyFile(final String filePath) {
+    if (undoManager == null) {
+      // Registered lazily, as the undo manager may start after us
+      undoManager = getUndoManager();
+      if (undoManager != null) {
+        undoManager.addUndoListener(this);
       }
+    }
 
+    PropertyFile propertyFile = propertyFiles.get(filePath);
+    if (propertyFile == null && getFileManager().exists(filePath)) {
+      // The file manager returns the pending contents, if any
+      final InputStream inputStream = getFileManager().getInputStream(filePath);
+      try {
+        propertyFile = PropertyFile.parse(IOUtils.toString(inputStream, PropertyFile.ENCODING));
+      } catch (final IOException e) {
+        throw new IllegalStateException("Could not load properties", e);
+      } finally {
+        IOUtils.closeQuietly(inputStream);
+      }
+      propertyFiles.put(filePath, propertyFile);
     }
+    return propertyFile;
   }
 
-  private void storeProps(final Properties props, final OutputStream outputStream,
-      final String comment) {
-    Validate.notNull(outputStream, "OutputStream required");
-    try {
-      props.store(outputStream, comment);
-    } catch (final IOException e) {
-      throw new IllegalStateException("Could not store properties", e);
-    } finally {
-      IOUtils.closeQuietly(outputStream);
-    }
+  /**
+   * Hands the contents of the given file to the file manager, which writes
+   * them once the current command completes
+   */
+  private void writePropertyFile(final String filePath, final PropertyFile propertyFile) {
+    final String contents = propertyFile.getContents();
+    // The file manager deletes files whose deferred contents are blank, so
+    // files left without lines are written straight away instead
+    getFileManager().createOrUpdateTextFileIfRequired(filePath, contents, "",
+        StringUtils.isBlank(contents));
   }
 
   public FileManager getFileManager() {
@@ -524,4 +523,26 @@ public class PropFilesManagerServiceImpl implements PropFilesManagerService {
     }
 
   }
+
+  public UndoManager getUndoManager() {
+    if (undoManager == null) {
+      // Get all Services implement UndoManager interface
+      try {
+        ServiceReference<?>[] references =
+            this.context.getAllServiceReferences(UndoManager.class.getName(), null);
+
+        for (ServiceReference<?> ref : references) {
+          return (UndoManager) this.context.getService(ref);
+        }
+
+        return null;
+
+      } catch (InvalidSyntaxException e) {
+        LOGGER.warning("Cannot load UndoManager on PropFilesManagerServiceImpl.");
+        return null;
+      }
+    } else {
+      return undoManager;
+    }
+  }
 }
@@ -0,0 +1,321 @@
+package org.springframework.roo.propfiles.manager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * The parsed contents of a .properties file that, unlike {@link Properties},
+ * keeps its comments, blank lines and the order of its entries, so that it
+ * can be edited and written back with only the edited lines changed.
+ * <p>
+ * Lines are read and written using the same rules as
+ * {@link Properties#load(java.io.InputStream)} and
+ * {@link Properties#store(java.io.OutputStream, String)}, so the contents are
+ * expected to be ISO-8859-1 text.
+ *
+ * @since 2.0
+ */
+public class PropertyFile {
+
+  /**
+   * A logical line of the file: a comment, a blank line or a property,
+   * possibly spanning several physical lines.
+   */
+  private static class Line {
+
+    final String key;
+    final String text;
+    final String value;
+
+    Line(final String text, final String key, final String value) {
+      this.text = text;
+      this.key = key;
+      this.value = value;
+    }
+  }
+
+  static final String ENCODING = "ISO-8859-1";
+
+  /**
+   * Escapes the non-ASCII characters of the given line as
+   * {@link Properties#store} does, so that the contents read the same
+   * whatever encoding they are written with
+   */
+  private static String escapeNonAscii(final String text) {
+    StringBuilder sb = null;
+    for (int i = 0; i < text.length(); i++) {
+      final char c = text.charAt(i);
+      if (c > 0x7e && sb == null) {
+        sb = new StringBuilder(text.length() + 16).append(text, 0, i);
+      }
+      if (sb == null) {
+        continue;
+      }
+      if (c > 0x7e) {
+        sb.append("\\u").append(String.format("%04X", (int) c));
+      } else {
+        sb.append(c);
+      }
+    }
+    return sb == null ? text : sb.toString();
+  }
+
+  private static boolean isContinued(final String physicalLine) {
+    int backslashes = 0;
+    for (int i = physicalLine.length() - 1; i >= 0 && physicalLine.charAt(i) == '\\'; i--) {
+      backslashes++;
+    }
+    return backslashes % 2 == 1;
+  }
+
+  private static boolean isCommentOrBlank(final String physicalLine) {
+    final String trimmed = StringUtils.stripStart(physicalLine, " \t\f");
+    return trimmed.length() == 0 || trimmed.charAt(0) == '#' || trimmed.charAt(0) == '!';
+  }
+
+  /**
+   * Parses the given contents.
+   *
+   * @param contents the contents of a .properties file (can be blank)
+   * @return a new instance
+   */
+  public static PropertyFile parse(final String contents) {
+    final PropertyFile propertyFile = new PropertyFile(getLineSeparator(contents));
+    if (StringUtils.isEmpty(contents)) {
+      return propertyFile;
+    }
+    final String[] physicalLines = contents.split("\r\n|\r|\n", -1);
+    // A trailing line terminator does not start another line
+    final int count =
+        physicalLines[physicalLines.length - 1].length() == 0 ? physicalLines.length - 1
+            : physicalLines.length;
+    int i = 0;
+    while (i < count) {
+      final StringBuilder text = new StringBuilder(physicalLines[i]);
+      if (isCommentOrBlank(physicalLines[i])) {
+        propertyFile.lines.add(new Line(escapeNonAscii(text.toString()), null, null));
+        i++;
+        continue;
+      }
+      while (isContinued(physicalLines[i]) && i + 1 < count) {
+        i++;
+        text.append(propertyFile.lineSeparator).append(physicalLines[i]);
+      }
+      i++;
+      final Properties properties = new Properties();
+      try {
+        properties.load(new StringReader(text.toString()));
+      } catch (final IOException e) {
+        throw new IllegalStateException("Could not load properties", e);
+      } catch (final IllegalArgumentException e) {
+        throw new IllegalStateException("Could not load properties", e);
+      }
+      if (properties.isEmpty()) {
+        // e.g. a dangling line continuation
+        propertyFile.lines.add(new Line(escapeNonAscii(text.toString()), null, null));
+        continue;
+      }
+      final String key = properties.stringPropertyNames().iterator().next();
+      propertyFile.lines.add(new Line(escapeNonAscii(text.toString()), key, properties
+          .getProperty(key)));
+    }
+    return propertyFile;
+  }
+
+  private static String getLineSeparator(final String contents) {
+    if (contents != null) {
+      final int newLine = contents.indexOf('\n');
+      final int carriageReturn = contents.indexOf('\r');
+      if (carriageReturn >= 0 && newLine == carriageReturn + 1) {
+        return "\r\n";
+      }
+      if (newLine >= 0) {
+        return "\n";
+      }
+      if (carriageReturn >= 0) {
+        return "\r";
+      }
+    }
+    return System.getProperty("line.separator");
+  }
+
+  private final String lineSeparator;
+  private final List<Line> lines = new ArrayList<Line>();
+
+  private PropertyFile(final String lineSeparator) {
+    this.lineSeparator = lineSeparator;
+  }
+
+  /**
+   * Returns the contents of this file, with a line separator after every
+   * line.
+   *
+   * @return an empty string if there are no lines
+   */
+  public String getContents() {
+    final StringBuilder sb = new StringBuilder();
+    for (final Line line : lines) {
+      sb.append(line.text).append(lineSeparator);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Returns the properties in the order they appear, where a repeated key
+   * has its last value, as with {@link Properties}.
+   *
+   * @return a new modifiable map
+   */
+  public Map<String, String> getProperties() {
+    final Map<String, String> properties = new LinkedHashMap<String, String>();
+    for (final Line line : lines) {
+      if (line.key != null) {
+        properties.put(line.key, line.value);
+      }
+    }
+    return properties;
+  }
+
+  /**
+   * @param key the property key (required)
+   * @return the value of the last occurrence of the key, or <code>null</code>
+   */
+  public String getProperty(final String key) {
+    final int index = lastIndexOf(key);
+    return index < 0 ? null : lines.get(index).value;
+  }
+
+  private int lastIndexOf(final String key) {
+    for (int i = lines.size() - 1; i >= 0; i--) {
+      if (key.equals(lines.get(i).key)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Removes every occurrence of the given key.
+   *
+   * @param key the property key (required)
+   * @return <code>true</code> if the key was present
+   */
+  public boolean removeProperty(final String key) {
+    boolean removed = false;
+    for (int i = lines.size() - 1; i >= 0; i--) {
+      if (key.equals(lines.get(i).key)) {
+        lines.remove(i);
+        removed = true;
+      }
+    }
+    return removed;
+  }
+
+  /**
+   * Sets the value of the given key, replacing its last occurrence in place
+   * or adding it after the last property of the file.
+   *
+   * @param key the property key (required)
+   * @param value the property value (required)
+   * @return <code>true</code> if the file changed
+   */
+  public boolean setProperty(final String key, final String value) {
+    Validate.notNull(key, "Key required");
+    Validate.notNull(value, "Value required");
+    final int index = lastIndexOf(key);
+    if (index >= 0 && value.equals(lines.get(index).value)) {
+      return false;
+    }
+    final Line line = new Line(toText(key, value), key, value);
+    if (index >= 0) {
+      lines.set(index, line);
+      return true;
+    }
+    // Keep any comments at the end of the file last
+    int position = lines.size();
+    while (position > 0 && lines.get(position - 1).key == null) {
+      position--;
+    }
+    lines.add(position == 0 ? lines.size() : position, line);
+    return true;
+  }
+
+  /**
+   * Sorts the properties alphabetically by key. Each property keeps the
+   * comments directly above it; the lines before the last blank line above
+   * the first property, typically a header comment, stay at the start and
+   * those after the last property stay at the end.
+   *
+   * @return <code>true</code> if the order changed
+   */
+  public boolean sort() {
+    int headerSize = 0;
+    for (int i = 0; i < lines.size() && lines.get(i).key == null; i++) {
+      if (StringUtils.isBlank(lines.get(i).text)) {
+        headerSize = i + 1;
+      }
+    }
+
+    final List<List<Line>> blocks = new ArrayList<List<Line>>();
+    List<Line> block = new ArrayList<Line>();
+    for (final Line line : lines.subList(headerSize, lines.size())) {
+      block.add(line);
+      if (line.key != null) {
+        blocks.add(block);
+        block = new ArrayList<Line>();
+      }
+    }
+    final List<List<Line>> sortedBlocks = new ArrayList<List<Line>>(blocks);
+    Collections.sort(sortedBlocks, new Comparator<List<Line>>() {
+      public int compare(final List<Line> o1, final List<Line> o2) {
+        return o1.get(o1.size() - 1).key.compareTo(o2.get(o2.size() - 1).key);
+      }
+    });
+    if (sortedBlocks.equals(blocks)) {
+      return false;
+    }
+    final List<Line> header = new ArrayList<Line>(lines.subList(0, headerSize));
+    lines.clear();
+    lines.addAll(header);
+    for (final List<Line> sortedBlock : sortedBlocks) {
+      lines.addAll(sortedBlock);
+    }
+    lines.addAll(block);
+    return true;
+  }
+
+  /**
+   * Returns the given property as written by {@link Properties#store}
+   */
+  private String toText(final String key, final String value) {
+    final Properties properties = new Properties();
+    properties.setProperty(key, value);
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    try {
+      properties.store(outputStream, null);
+      final StringBuilder text = new StringBuilder();
+      for (final String line : outputStream.toString(ENCODING).split("\r\n|\r|\n")) {
+        if (!line.startsWith("#")) {
+          text.append(line);
+        }
+      }
+      return text.toString();
+    } catch (final UnsupportedEncodingException e) {
+      throw new IllegalStateException(e);
+    } catch (final IOException e) {
+      throw new IllegalStateException("Could not store properties", e);
+    }
+  }
+}
@@ -0,0 +1,176 @@
+package org.springframework.roo.propfiles.manager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Unit test of {@link PropertyFile}
+ *
+ * @since 2.0
+ */
+public class PropertyFileTest {
+
+  private static final String CONTENTS = "# Header comment\n" + "\n" + "! Bang comment\n"
+      + "z.key=1\n" + "\n" + "# About a.key\n" + "a.key = 2\n" + "m.key:3\n" + "\n"
+      + "# Trailing comment\n";
+
+  @Test
+  public void testRoundTripKeepsCommentsBlankLinesAndOrder() {
+    // Invoke
+    final PropertyFile propertyFile = PropertyFile.parse(CONTENTS);
+
+    // Check
+    assertEquals(CONTENTS, propertyFile.getContents());
+    assertEquals(Arrays.asList("z.key", "a.key", "m.key"), new ArrayList<String>(propertyFile
+        .getProperties().keySet()));
+  }
+
+  @Test
+  public void testRoundTripKeepsLineSeparators() {
+    // Set up
+    final String contents = "# Comment\r\na=1\r\n\r\nb=2\r\n";
+
+    // Invoke
+    final PropertyFile propertyFile = PropertyFile.parse(contents);
+    propertyFile.setProperty("c", "3");
+
+    // Check
+    assertEquals("# Comment\r\na=1\r\n\r\nb=2\r\nc=3\r\n", propertyFile.getContents());
+  }
+
+  @Test
+  public void testParseEmptyContents() {
+    // Invoke
+    final PropertyFile propertyFile = PropertyFile.parse("");
+
+    // Check
+    assertEquals("", propertyFile.getContents());
+    assertTrue(propertyFile.getProperties().isEmpty());
+  }
+
+  @Test
+  public void testContinuationLines() {
+    // Set up
+    final String contents =
+        "list=one, \\\n" + "    two, \\\n" + "    three\n" + "path=C:\\\\\n" + "next=4\n";
+
+    // Invoke
+    final PropertyFile propertyFile = PropertyFile.parse(contents);
+
+    // Check
+    assertEquals(contents, propertyFile.getContents());
+    assertEquals("one, two, three", propertyFile.getProperty("list"));
+    // An escaped backslash does not continue the line
+    assertEquals("C:\\", propertyFile.getProperty("path"));
+    assertEquals("4", propertyFile.getProperty("next"));
+  }
+
+  @Test
+  public void testSeparators() {
+    // Set up
+    final String contents = "equals=1\n" + "colon:2\n" + "space 3\n" + "tab\t4\n"
+        + "  spaced  =  5\n" + "escaped\\=key=6\n";
+
+    // Invoke
+    final PropertyFile propertyFile = PropertyFile.parse(contents);
+
+    // Check
+    assertEquals(contents, propertyFile.getContents());
+    assertEquals("1", propertyFile.getProperty("equals"));
+    assertEquals("2", propertyFile.getProperty("colon"));
+    assertEquals("3", propertyFile.getProperty("space"));
+    assertEquals("4", propertyFile.getProperty("tab"));
+    assertEquals("5", propertyFile.getProperty("spaced"));
+    assertEquals("6", propertyFile.getProperty("escaped=key"));
+  }
+
+  @Test
+  public void testNonAsciiCharactersAreEscapedOnWrite() {
+    // Set up
+    final PropertyFile propertyFile = PropertyFile.parse("# Caf\u00e9\nname=caf\u00e9\n");
+
+    // Invoke
+    propertyFile.setProperty("greeting", "h\u00e9llo \u4e16\u754c");
+
+    // Check
+    final String contents = propertyFile.getContents();
+    assertEquals("# Caf\\u00E9\nname=caf\\u00E9\ngreeting=h\\u00E9llo \\u4E16\\u754C\n",
+        contents);
+    assertEquals("caf\u00e9", PropertyFile.parse(contents).getProperty("name"));
+    assertEquals("h\u00e9llo \u4e16\u754c", PropertyFile.parse(contents).getProperty("greeting"));
+  }
+
+  @Test
+  public void testSetExistingPropertyReplacesItInPlace() {
+    // Set up
+    final PropertyFile propertyFile = PropertyFile.parse(CONTENTS);
+
+    // Invoke
+    final boolean changed = propertyFile.setProperty("a.key", "two");
+
+    // Check
+    assertTrue(changed);
+    assertEquals(CONTENTS.replace("a.key = 2", "a.key=two"), propertyFile.getContents());
+  }
+
+  @Test
+  public void testSetExistingPropertyToTheSameValueChangesNothing() {
+    // Set up
+    final PropertyFile propertyFile = PropertyFile.parse(CONTENTS);
+
+    // Invoke
+    final boolean changed = propertyFile.setProperty("a.key", "2");
+
+    // Check
+    assertFalse(changed);
+    assertEquals(CONTENTS, propertyFile.getContents());
+  }
+
+  @Test
+  public void testSetNewPropertyAddsItAfterTheLastProperty() {
+    // Set up
+    final PropertyFile propertyFile = PropertyFile.parse(CONTENTS);
+
+    // Invoke
+    final boolean changed = propertyFile.setProperty("b.key", "4");
+
+    // Check
+    assertTrue(changed);
+    assertEquals(CONTENTS.replace("m.key:3\n", "m.key:3\nb.key=4\n"),
+        propertyFile.getContents());
+    assertEquals(Arrays.asList("z.key", "a.key", "m.key", "b.key"), new ArrayList<String>(
+        propertyFile.getProperties().keySet()));
+  }
+
+  @Test
+  public void testSetNewPropertyInAFileWithOnlyComments() {
+    // Set up
+    final PropertyFile propertyFile = PropertyFile.parse("# Only a comment\n");
+
+    // Invoke
+    propertyFile.setProperty("key", "value");
+
+    // Check
+    assertEquals("# Only a comment\nkey=value\n", propertyFile.getContents());
+  }
+
+  @Test
+  public void testRemoveProperty() {
+    // Set up
+    final PropertyFile propertyFile = PropertyFile.parse(CONTENTS);
+
+    // Invoke
+    final boolean removed = propertyFile.removeProperty("z.key");
+
+    // Check
+    assertTrue(removed);
+    assertEquals(CONTENTS.replace("z.key=1\n", ""), propertyFile.getContents());
+    assertFalse(propertyFile.removeProperty("z.key"));
+  }
+}
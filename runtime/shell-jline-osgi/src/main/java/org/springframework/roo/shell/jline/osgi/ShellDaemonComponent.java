@@ -0,0 +1,269 @@
+package org.springframework.roo.shell.jline.osgi;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.AclEntry;
+import java.nio.file.attribute.AclEntryPermission;
+import java.nio.file.attribute.AclEntryType;
+import java.nio.file.attribute.AclFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.SecureRandom;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Properties;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.felix.scr.annotations.Component;
+import org.apache.felix.scr.annotations.Reference;
+import org.osgi.service.component.ComponentContext;
+import org.springframework.roo.shell.Shell;
+import org.springframework.roo.support.logging.HandlerUtils;
+
+/**
+ * Serves Roo commands to thin clients when the shell is started in daemon mode
+ * (<code>-Droo.daemon=true</code>), so that scripted and CI invocations can
+ * reuse a warmed runtime instead of booting Felix and scanning the project
+ * every time.
+ * <p>
+ * The server only listens on the loopback interface. Its port and a random
+ * access token are published in <code>.roo/daemon.properties</code> under the
+ * shell's home directory, which is where
+ * <code>org.springframework.roo.bootstrap.DaemonClient</code> looks for them.
+ * That file is created readable by its owner only; if that can't be ensured,
+ * the daemon doesn't start.
+ * <p>
+ * The protocol is line based and UTF-8 encoded: the client sends the token and
+ * then one command; the server streams back each log message the command
+ * produces on the daemon thread, one line per message line prefixed with
+ * {@value #OUTPUT_PREFIX}, followed by a single {@value #EXIT_PREFIX} line
+ * holding the exit code. Connections are served one at a time, as commands
+ * must never run concurrently.
+ *
+ * @since 2.0
+ */
+@Component
+public class ShellDaemonComponent implements Runnable {
+
+  static final String DAEMON_FILE = ".roo/daemon.properties";
+  static final String EXIT_PREFIX = "=";
+  static final String OUTPUT_PREFIX = ">";
+  static final String PORT_PROPERTY = "port";
+  static final String TOKEN_PROPERTY = "token";
+
+  private static final Logger LOGGER = HandlerUtils.getLogger(ShellDaemonComponent.class);
+
+  @Reference
+  Shell shell;
+
+  private File daemonFile;
+  private ServerSocket serverSocket;
+  private String token;
+
+  protected void activate(final ComponentContext context) {
+    if (!Boolean.getBoolean("roo.daemon")) {
+      return;
+    }
+    try {
+      serverSocket =
+          new ServerSocket(Integer.getInteger("roo.daemon.port", 0), 0,
+              InetAddress.getByName(null));
+      token = createToken();
+      daemonFile = new File(shell.getHome(), DAEMON_FILE);
+      writeDaemonFile(serverSocket.getLocalPort());
+    } catch (final IOException e) {
+      LOGGER.severe("Could not start the Roo daemon: " + e.getMessage());
+      closeServerSocket();
+      daemonFile = null;
+      return;
+    }
+    final Thread thread = new Thread(this, "Spring Roo Daemon");
+    thread.setDaemon(true);
+    thread.start();
+    LOGGER.info("Roo daemon listening on port " + serverSocket.getLocalPort() + " for "
+        + shell.getHome().getAbsolutePath());
+  }
+
+  protected void deactivate(final ComponentContext context) {
+    closeServerSocket();
+    if (daemonFile != null) {
+      daemonFile.delete();
+      daemonFile = null;
+    }
+  }
+
+  public void run() {
+    while (serverSocket != null && !serverSocket.isClosed()) {
+      Socket socket = null;
+      try {
+        socket = serverSocket.accept();
+        serve(socket);
+      } catch (final SocketException e) {
+        // The server socket was closed on deactivation
+      } catch (final IOException e) {
+        LOGGER.warning("Roo daemon client failed: " + e.getMessage());
+      } finally {
+        IOUtils.closeQuietly(socket);
+      }
+      if (shell.getExitShellRequest() != null) {
+        closeServerSocket();
+      }
+    }
+  }
+
+  private void serve(final Socket socket) throws IOException {
+    final BufferedReader reader =
+        new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+    final PrintWriter writer =
+        new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), "UTF-8"), true);
+    if (!token.equals(reader.readLine())) {
+      writer.println(EXIT_PREFIX + "1");
+      return;
+    }
+    final String command = reader.readLine();
+    if (StringUtils.isBlank(command)) {
+      writer.println(EXIT_PREFIX + "0");
+      return;
+    }
+
+    // Commands run on this thread, so the handler only relays its records
+    final Handler handler = new ClientHandler(writer, Thread.currentThread());
+    final Logger rootLogger = Logger.getLogger("");
+    rootLogger.addHandler(handler);
+    boolean success = false;
+    try {
+      success = shell.executeCommand(command);
+    } finally {
+      rootLogger.removeHandler(handler);
+    }
+    writer.println(EXIT_PREFIX + (success ? "0" : "1"));
+  }
+
+  private void closeServerSocket() {
+    if (serverSocket != null) {
+      try {
+        serverSocket.close();
+      } catch (final IOException ignored) {
+      }
+      serverSocket = null;
+    }
+  }
+
+  private String createToken() {
+    final byte[] bytes = new byte[16];
+    new SecureRandom().nextBytes(bytes);
+    final StringBuilder sb = new StringBuilder();
+    for (final byte b : bytes) {
+      sb.append(String.format("%02x", b));
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Creates the given file so that only its owner can access it, before
+   * anything is written to it; fails rather than leave the token readable by
+   * others.
+   */
+  static void createOwnerOnlyFile(final Path path) throws IOException {
+    Files.deleteIfExists(path);
+    if (path.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+      Files.createFile(path,
+          PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+      return;
+    }
+    Files.createFile(path);
+    try {
+      final AclFileAttributeView view =
+          Files.getFileAttributeView(path, AclFileAttributeView.class);
+      if (view == null) {
+        throw new IOException("Cannot restrict access to " + path);
+      }
+      final AclEntry ownerOnly =
+          AclEntry.newBuilder().setType(AclEntryType.ALLOW).setPrincipal(Files.getOwner(path))
+              .setPermissions(EnumSet.allOf(AclEntryPermission.class)).build();
+      view.setAcl(Collections.singletonList(ownerOnly));
+    } catch (final IOException e) {
+      Files.deleteIfExists(path);
+      throw e;
+    }
+  }
+
+  private void writeDaemonFile(final int port) throws IOException {
+    final Path path = daemonFile.toPath();
+    Files.createDirectories(path.getParent());
+    createOwnerOnlyFile(path);
+    final Properties properties = new Properties();
+    properties.setProperty(PORT_PROPERTY, String.valueOf(port));
+    properties.setProperty(TOKEN_PROPERTY, token);
+    OutputStream outputStream = null;
+    try {
+      outputStream = Files.newOutputStream(path);
+      properties.store(outputStream, "Spring Roo daemon - do not edit");
+    } finally {
+      IOUtils.closeQuietly(outputStream);
+    }
+  }
+
+  /**
+   * Streams the log messages published by the thread running a command to the
+   * client; messages published concurrently by other threads are not the
+   * client's business.
+   */
+  private static class ClientHandler extends Handler {
+
+    private final Thread commandThread;
+    private final PrintWriter writer;
+
+    ClientHandler(final PrintWriter writer, final Thread commandThread) {
+      this.commandThread = commandThread;
+      this.writer = writer;
+      setFormatter(new Formatter() {
+        @Override
+        public String format(final LogRecord record) {
+          final StringBuilder sb = new StringBuilder(formatMessage(record));
+          if (record.getThrown() != null) {
+            final StringWriter stackTrace = new StringWriter();
+            record.getThrown().printStackTrace(new PrintWriter(stackTrace));
+            sb.append(IOUtils.LINE_SEPARATOR).append(stackTrace);
+          }
+          return sb.toString();
+        }
+      });
+    }
+
+    @Override
+    public void close() {}
+
+    @Override
+    public void flush() {
+      writer.flush();
+    }
+
+    @Override
+    public synchronized void publish(final LogRecord record) {
+      if (Thread.currentThread() != commandThread || !isLoggable(record)) {
+        return;
+      }
+      for (final String line : StringUtils.splitPreserveAllTokens(
+          getFormatter().format(record).replace("\r\n", "\n"), '\n')) {
+        writer.println(OUTPUT_PREFIX + line);
+      }
+    }
+  }
+}
@@ -0,0 +1,166 @@
+package org.springframework.roo.shell.jline.osgi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.roo.shell.Shell;
+
+/**
+ * Unit test of {@link ShellDaemonComponent}
+ *
+ * @since 2.0
+ */
+public class ShellDaemonComponentTest {
+
+  private static final String COMMAND = "project scan now";
+  private static final Logger LOGGER = Logger.getLogger(ShellDaemonComponentTest.class.getName());
+
+  private ShellDaemonComponent daemon;
+  private File home;
+  private Shell mockShell;
+
+  @Before
+  public void setUp() throws Exception {
+    home = Files.createTempDirectory("roo-daemon").toFile();
+    mockShell = mock(Shell.class);
+    when(mockShell.getHome()).thenReturn(home);
+    daemon = new ShellDaemonComponent();
+    daemon.shell = mockShell;
+  }
+
+  @After
+  public void tearDown() {
+    daemon.deactivate(null);
+    System.clearProperty("roo.daemon");
+    FileUtils.deleteQuietly(home);
+  }
+
+  private Properties activate() throws Exception {
+    System.setProperty("roo.daemon", "true");
+    daemon.activate(null);
+    final Properties properties = new Properties();
+    final InputStream inputStream =
+        new FileInputStream(new File(home, ShellDaemonComponent.DAEMON_FILE));
+    try {
+      properties.load(inputStream);
+    } finally {
+      IOUtils.closeQuietly(inputStream);
+    }
+    return properties;
+  }
+
+  /**
+   * Sends the given token and command to the daemon and returns the lines it
+   * replies with
+   */
+  private List<String> send(final Properties daemonProperties, final String token,
+      final String command) throws Exception {
+    final Socket socket =
+        new Socket(InetAddress.getByName(null), Integer.parseInt(daemonProperties
+            .getProperty(ShellDaemonComponent.PORT_PROPERTY)));
+    try {
+      final PrintWriter writer =
+          new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), "UTF-8"), true);
+      writer.println(token);
+      writer.println(command);
+      final BufferedReader reader =
+          new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+      final List<String> lines = new ArrayList<String>();
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lines.add(line);
+        if (line.startsWith(ShellDaemonComponent.EXIT_PREFIX)) {
+          break;
+        }
+      }
+      return lines;
+    } finally {
+      IOUtils.closeQuietly(socket);
+    }
+  }
+
+  @Test
+  public void testDaemonFileIsCreatedForItsOwnerOnly() throws Exception {
+    // Set up
+    final Path path = new File(home, "daemon.properties").toPath();
+    assumeTrue(path.getFileSystem().supportedFileAttributeViews().contains("posix"));
+    Files.createFile(path,
+        PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-r--r--")));
+
+    // Invoke
+    ShellDaemonComponent.createOwnerOnlyFile(path);
+
+    // Check
+    assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(path)));
+  }
+
+  @Test
+  public void testCommandOutputIsStreamedToTheClient() throws Exception {
+    // Set up
+    when(mockShell.executeCommand(COMMAND)).thenAnswer(new Answer<Boolean>() {
+      public Boolean answer(final InvocationOnMock invocation) throws Throwable {
+        LOGGER.info("Scanned\nthe project");
+        final Thread otherThread = new Thread() {
+          @Override
+          public void run() {
+            LOGGER.info("Unrelated message");
+          }
+        };
+        otherThread.start();
+        otherThread.join();
+        return true;
+      }
+    });
+    final Properties daemonProperties = activate();
+
+    // Invoke
+    final List<String> reply =
+        send(daemonProperties, daemonProperties.getProperty(ShellDaemonComponent.TOKEN_PROPERTY),
+            COMMAND);
+
+    // Check
+    assertEquals(Arrays.asList(">Scanned", ">the project", "=0"), reply);
+  }
+
+  @Test
+  public void testWrongTokenIsRejected() throws Exception {
+    // Set up
+    final Properties daemonProperties = activate();
+
+    // Invoke
+    final List<String> reply = send(daemonProperties, "not the token", COMMAND);
+
+    // Check
+    assertEquals(Arrays.asList("=1"), reply);
+    verify(mockShell, never()).executeCommand(COMMAND);
+  }
+}
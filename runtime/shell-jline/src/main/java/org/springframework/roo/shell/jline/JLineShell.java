@@ -423,6 +423,23 @@ public abstract class JLineShell extends AbstractShell implements CommandMarker,
     setShellStatus(Status.SHUTTING_DOWN);
   }
 
+  /**
+   * Keeps the shell running without reading the console, so that commands
+   * can be submitted by daemon clients until one of them exits the shell.
+   */
+  private void daemonLoop() {
+    setShellStatus(Status.USER_INPUT);
+    while (exitShellRequest == null) {
+      try {
+        Thread.sleep(250);
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    setShellStatus(Status.SHUTTING_DOWN);
+  }
+
   private void removeHandlers(final Logger l) {
     final Handler[] handlers = l.getHandlers();
     if (handlers != null && handlers.length > 0) {
@@ -518,6 +535,8 @@ public abstract class JLineShell extends AbstractShell implements CommandMarker,
         exitShellRequest = success ? ExitShellRequest.NORMAL_EXIT : ExitShellRequest.FATAL_EXIT;
       }
       setShellStatus(Status.SHUTTING_DOWN);
+    } else if (Boolean.getBoolean("roo.daemon")) {
+      daemonLoop();
     } else {
 
       // ROO-3622: Validate if version change
@@ -193,7 +193,7 @@ public abstract class AbstractShell extends AbstractShellStatusPublisher impleme
 
   protected final Logger logger = HandlerUtils.getLogger(getClass());
   protected boolean inBlockComment;
-  protected ExitShellRequest exitShellRequest;
+  protected volatile ExitShellRequest exitShellRequest;
   private Tailor tailor;
 
   @CliCommand(value = {"/*"}, help = "Start of block comment")
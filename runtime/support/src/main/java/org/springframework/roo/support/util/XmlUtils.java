@@ -11,9 +11,10 @@ import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -57,11 +58,94 @@ import org.xml.sax.SAXException;
  */
 public final class XmlUtils {
 
-  private static final Map<String, XPathExpression> COMPILED_EXPRESSION_CACHE =
-      new HashMap<String, XPathExpression>();
+  /**
+   * An XPath expression, compiled on first use unless it is a simple path
+   * that can be evaluated by walking the DOM directly.
+   */
+  private static class CompiledPath {
+
+    private XPathExpression expression;
+    private final String[] steps;
+    private final boolean absolute;
+
+    CompiledPath(final String xPathExpression) {
+      if (SIMPLE_PATH.matcher(xPathExpression).matches()) {
+        absolute = xPathExpression.startsWith("/");
+        steps = StringUtils.split(xPathExpression, '/');
+      } else {
+        absolute = false;
+        steps = null;
+      }
+    }
+
+    XPathExpression getExpression(final String xPathExpression)
+        throws XPathExpressionException {
+      if (expression == null) {
+        expression = XPATH.get().compile(xPathExpression);
+      }
+      return expression;
+    }
+  }
+
+  /** The number of compiled expressions each thread keeps */
+  private static final int MAX_COMPILED_PATHS = 512;
+
+  /** Absolute or relative paths made of plain element names only */
+  private static final Pattern SIMPLE_PATH = Pattern
+      .compile("/?[A-Za-z_][A-Za-z0-9_.\\-]*(/[A-Za-z_][A-Za-z0-9_.\\-]*)*");
+
+  // None of the JAXP factories, builders, transformers or XPath objects are
+  // thread-safe, so the factories are only used while holding their lock and
+  // everything they create is confined to a single thread
   private static final DocumentBuilderFactory FACTORY = DocumentBuilderFactory.newInstance();
-  private static final TransformerFactory TRANSFORMER_FACTORY = TransformerFactory.newInstance();
-  private static final XPath XPATH = XPathFactory.newInstance().newXPath();
+  private static final TransformerFactory TRANSFORMER_FACTORY = createTransformerFactory();
+  private static final XPathFactory XPATH_FACTORY = XPathFactory.newInstance();
+
+  private static final ThreadLocal<Map<String, CompiledPath>> COMPILED_PATHS =
+      new ThreadLocal<Map<String, CompiledPath>>() {
+        @Override
+        protected Map<String, CompiledPath> initialValue() {
+          return new LinkedHashMap<String, CompiledPath>(64, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, CompiledPath> eldest) {
+              return size() > MAX_COMPILED_PATHS;
+            }
+          };
+        }
+      };
+  private static final ThreadLocal<DocumentBuilder> DOCUMENT_BUILDER =
+      new ThreadLocal<DocumentBuilder>() {
+        @Override
+        protected DocumentBuilder initialValue() {
+          return getDocumentBuilder();
+        }
+      };
+  private static final ThreadLocal<Transformer> INDENTING_TRANSFORMER =
+      new ThreadLocal<Transformer>() {
+        @Override
+        protected Transformer initialValue() {
+          return createIndentingTransformer();
+        }
+      };
+  private static final ThreadLocal<Transformer> XML_TRANSFORMER =
+      new ThreadLocal<Transformer>() {
+        @Override
+        protected Transformer initialValue() {
+          final Transformer transformer = createIndentingTransformer();
+          transformer.setOutputProperty(OutputKeys.METHOD, "xml");
+          return transformer;
+        }
+      };
+  private static final ThreadLocal<XPath> XPATH = new ThreadLocal<XPath>() {
+    @Override
+    protected XPath initialValue() {
+      synchronized (XPATH_FACTORY) {
+        return XPATH_FACTORY.newXPath();
+      }
+    }
+  };
 
   /**
    * Checks the presented element for illegal characters that could cause
@@ -132,8 +216,9 @@ public final class XmlUtils {
   public static Transformer createIndentingTransformer() {
     Transformer transformer;
     try {
-      TRANSFORMER_FACTORY.setAttribute("indent-number", 4);
-      transformer = TRANSFORMER_FACTORY.newTransformer();
+      synchronized (TRANSFORMER_FACTORY) {
+        transformer = TRANSFORMER_FACTORY.newTransformer();
+      }
     } catch (final Exception e) {
       throw new IllegalStateException(e);
     }
@@ -142,6 +227,17 @@ public final class XmlUtils {
     return transformer;
   }
 
+  private static TransformerFactory createTransformerFactory() {
+    final TransformerFactory transformerFactory = TransformerFactory.newInstance();
+    try {
+      transformerFactory.setAttribute("indent-number", 4);
+    } catch (final IllegalArgumentException e) {
+      // Not supported by this implementation; the indent-amount output
+      // property still applies
+    }
+    return transformerFactory;
+  }
+
   /**
    * Creates an {@link Element} containing the given text
    * 
@@ -221,15 +317,20 @@ public final class XmlUtils {
    */
   public static List<Element> findElements(final String xPathExpression, final Element root) {
     final List<Element> elements = new ArrayList<Element>();
-    NodeList nodes = null;
+    final CompiledPath compiledPath = getCompiledPath(xPathExpression);
+    if (compiledPath.steps != null) {
+      final Node start = getStartNode(compiledPath, root);
+      if (start != null && walk(start, compiledPath, 0, elements, false)) {
+        return elements;
+      }
+      elements.clear();
+    }
 
+    NodeList nodes = null;
     try {
-      XPathExpression expr = COMPILED_EXPRESSION_CACHE.get(xPathExpression);
-      if (expr == null) {
-        expr = XPATH.compile(xPathExpression);
-        COMPILED_EXPRESSION_CACHE.put(xPathExpression, expr);
-      }
-      nodes = (NodeList) expr.evaluate(root, XPathConstants.NODESET);
+      nodes =
+          (NodeList) compiledPath.getExpression(xPathExpression).evaluate(root,
+              XPathConstants.NODESET);
     } catch (final XPathExpressionException e) {
       throw new IllegalArgumentException("Unable evaluate xpath expression", e);
     }
@@ -251,12 +352,9 @@ public final class XmlUtils {
   public static Node findFirstAttribute(final String xPathExpression, final Element element) {
     Node attr = null;
     try {
-      XPathExpression expr = COMPILED_EXPRESSION_CACHE.get(xPathExpression);
-      if (expr == null) {
-        expr = XPATH.compile(xPathExpression);
-        COMPILED_EXPRESSION_CACHE.put(xPathExpression, expr);
-      }
-      attr = (Node) expr.evaluate(element, XPathConstants.NODE);
+      attr =
+          (Node) getCompiledPath(xPathExpression).getExpression(xPathExpression).evaluate(
+              element, XPathConstants.NODE);
     } catch (final XPathExpressionException e) {
       throw new IllegalArgumentException("Unable evaluate xpath expression", e);
     }
@@ -311,14 +409,19 @@ public final class XmlUtils {
   public static Node findNode(final String xPathExpression, final Node root) {
     Validate.notBlank(xPathExpression, "XPath expression required");
     Validate.notNull(root, "Root element required");
+    final CompiledPath compiledPath = getCompiledPath(xPathExpression);
+    if (compiledPath.steps != null) {
+      final Node start = getStartNode(compiledPath, root);
+      final List<Element> found = new ArrayList<Element>(1);
+      if (start != null && walk(start, compiledPath, 0, found, true)) {
+        return found.isEmpty() ? null : found.get(0);
+      }
+    }
+
     Node node = null;
     try {
-      XPathExpression expr = COMPILED_EXPRESSION_CACHE.get(xPathExpression);
-      if (expr == null) {
-        expr = XPATH.compile(xPathExpression);
-        COMPILED_EXPRESSION_CACHE.put(xPathExpression, expr);
-      }
-      node = (Node) expr.evaluate(root, XPathConstants.NODE);
+      node =
+          (Node) compiledPath.getExpression(xPathExpression).evaluate(root, XPathConstants.NODE);
     } catch (final XPathExpressionException e) {
       throw new IllegalArgumentException("Unable evaluate XPath expression '" + xPathExpression
           + "'", e);
@@ -358,13 +461,25 @@ public final class XmlUtils {
     return getRootElement(clazz, "configuration.xml");
   }
 
+  private static CompiledPath getCompiledPath(final String xPathExpression) {
+    final Map<String, CompiledPath> compiledPaths = COMPILED_PATHS.get();
+    CompiledPath compiledPath = compiledPaths.get(xPathExpression);
+    if (compiledPath == null) {
+      compiledPath = new CompiledPath(xPathExpression);
+      compiledPaths.put(xPathExpression, compiledPath);
+    }
+    return compiledPath;
+  }
+
   /**
    * @return a new document builder (never null)
    */
   public static DocumentBuilder getDocumentBuilder() {
     // factory.setNamespaceAware(true);
     try {
-      return FACTORY.newDocumentBuilder();
+      synchronized (FACTORY) {
+        return FACTORY.newDocumentBuilder();
+      }
     } catch (final ParserConfigurationException e) {
       throw new IllegalStateException(e);
     }
@@ -407,7 +522,7 @@ public final class XmlUtils {
   public static String nodeToString(final Node node) {
     try {
       final StringWriter writer = new StringWriter();
-      createIndentingTransformer().transform(new DOMSource(node), new StreamResult(writer));
+      INDENTING_TRANSFORMER.get().transform(new DOMSource(node), new StreamResult(writer));
       return writer.toString();
     } catch (final TransformerException e) {
       throw new IllegalStateException(e);
@@ -429,7 +544,7 @@ public final class XmlUtils {
       if (!(inputStream instanceof BufferedInputStream)) {
         inputStream = new BufferedInputStream(inputStream);
       }
-      return getDocumentBuilder().parse(inputStream);
+      return parse(inputStream);
     } catch (final Exception e) {
       throw new IllegalStateException(e);
     } finally {
@@ -437,6 +552,19 @@ public final class XmlUtils {
     }
   }
 
+  /**
+   * Parses the given stream with this thread's document builder
+   */
+  private static Document parse(final InputStream inputStream) throws SAXException,
+      IOException {
+    final DocumentBuilder documentBuilder = DOCUMENT_BUILDER.get();
+    try {
+      return documentBuilder.parse(inputStream);
+    } finally {
+      documentBuilder.reset();
+    }
+  }
+
   /**
    * Removes empty text nodes from the specified node
    * 
@@ -461,12 +589,9 @@ public final class XmlUtils {
       return null;
     }
     try {
-      return FACTORY.newDocumentBuilder().parse(new ByteArrayInputStream(xml.getBytes()))
-          .getDocumentElement();
+      return parse(new ByteArrayInputStream(xml.getBytes())).getDocumentElement();
     } catch (final IOException e) {
       throw new IllegalStateException(e);
-    } catch (final ParserConfigurationException e) {
-      throw new IllegalStateException(e);
     } catch (final SAXException e) {
       throw new IllegalStateException(e);
     }
@@ -549,7 +674,7 @@ public final class XmlUtils {
    * @param document the document to write.
    */
   public static void writeXml(final OutputStream outputStream, final Document document) {
-    writeXml(createIndentingTransformer(), outputStream, document);
+    writeXml(XML_TRANSFORMER.get(), outputStream, document);
   }
 
   /**
@@ -582,6 +707,59 @@ public final class XmlUtils {
     }
   }
 
+  /**
+   * Returns the node from which the given simple path is walked, or
+   * <code>null</code> if the path has to be evaluated as XPath (i.e. an
+   * absolute path from a node that is not attached to a document)
+   */
+  private static Node getStartNode(final CompiledPath compiledPath, final Node contextNode) {
+    if (!compiledPath.absolute) {
+      return contextNode;
+    }
+    Node top = contextNode;
+    while (top.getParentNode() != null) {
+      top = top.getParentNode();
+    }
+    return top.getNodeType() == Node.DOCUMENT_NODE ? top : null;
+  }
+
+  /**
+   * Collects, in document order, the child elements of the given node that
+   * match the remaining steps of the given simple path, as XPath would for a
+   * DOM built without namespace awareness.
+   *
+   * @return <code>false</code> if a namespace-aware element was met, in which
+   *         case the results are incomplete and XPath has to be used instead
+   */
+  private static boolean walk(final Node node, final CompiledPath compiledPath, final int step,
+      final List<Element> results, final boolean firstOnly) {
+    for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+      if (child.getNodeType() != Node.ELEMENT_NODE) {
+        continue;
+      }
+      if (child.getNamespaceURI() != null) {
+        return false;
+      }
+      if (!compiledPath.steps[step].equals(getLocalPart(child.getNodeName()))) {
+        continue;
+      }
+      if (step == compiledPath.steps.length - 1) {
+        results.add((Element) child);
+      } else if (!walk(child, compiledPath, step + 1, results, firstOnly)) {
+        return false;
+      }
+      if (firstOnly && !results.isEmpty()) {
+        return true;
+      }
+    }
+    return true;
+  }
+
+  private static String getLocalPart(final String nodeName) {
+    final int colon = nodeName.indexOf(':');
+    return colon < 0 ? nodeName : nodeName.substring(colon + 1);
+  }
+
   /**
    * Constructor is private to prevent instantiation
    */
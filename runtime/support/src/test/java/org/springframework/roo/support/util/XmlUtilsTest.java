@@ -0,0 +1,96 @@
+package org.springframework.roo.support.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Unit test of {@link XmlUtils}
+ *
+ * @since 2.0
+ */
+public class XmlUtilsTest {
+
+  private static final String POM =
+      "<project><dependencies>"
+          + "<dependency><artifactId>a</artifactId></dependency>"
+          + "<dependency><artifactId>b</artifactId></dependency>"
+          + "</dependencies><build><plugins><plugin><artifactId>c</artifactId></plugin>"
+          + "</plugins></build><sec:http xmlns:sec=\"urn:sec\"/></project>";
+
+  private Document readPom() throws Exception {
+    return XmlUtils.readXml(new ByteArrayInputStream(POM.getBytes("UTF-8")));
+  }
+
+  @Test
+  public void testSimplePathsMatchXPathResults() throws Exception {
+    final Element root = readPom().getDocumentElement();
+
+    final List<Element> dependencies =
+        XmlUtils.findElements("/project/dependencies/dependency", root);
+    final List<Element> viaPredicate =
+        XmlUtils.findElements("/project/dependencies/dependency[artifactId]", root);
+
+    assertEquals(2, dependencies.size());
+    assertEquals(viaPredicate, dependencies);
+    assertEquals("a", XmlUtils.getTextContent("artifactId", dependencies.get(0)));
+    assertSame(dependencies.get(0),
+        XmlUtils.findFirstElement("/project/dependencies/dependency", dependencies.get(1)));
+  }
+
+  @Test
+  public void testSimplePathsFromTheContextElement() throws Exception {
+    final Element root = readPom().getDocumentElement();
+
+    assertEquals("c", XmlUtils.findRequiredElement("build/plugins/plugin/artifactId", root)
+        .getTextContent());
+    assertNull(XmlUtils.findFirstElement("plugins/plugin", root));
+    assertEquals(Collections.<Element>emptyList(), XmlUtils.findElements("/build/plugins", root));
+  }
+
+  @Test
+  public void testPrefixedElementsAreFoundByLocalName() throws Exception {
+    final Element root = readPom().getDocumentElement();
+
+    assertEquals("sec:http", XmlUtils.findRequiredElement("/project/http", root).getNodeName());
+    assertSame(XmlUtils.findFirstElement("/project/http[true()]", root),
+        XmlUtils.findFirstElement("/project/http", root));
+  }
+
+  @Test
+  public void testConcurrentParsingAndSerialization() throws Exception {
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final List<Future<String>> results = new ArrayList<Future<String>>();
+      for (int i = 0; i < 32; i++) {
+        results.add(executor.submit(new Callable<String>() {
+          public String call() throws Exception {
+            final Document document = readPom();
+            XmlUtils.findElements("/project/dependencies/dependency", document
+                .getDocumentElement());
+            return XmlUtils.nodeToString(document);
+          }
+        }));
+      }
+      final String expected = XmlUtils.nodeToString(readPom());
+      for (final Future<String> result : results) {
+        assertEquals(expected, result.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
@@ -11,6 +11,7 @@ import java.net.URL;
 import java.util.List;
 import java.util.logging.Level;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Service;
@@ -30,6 +31,7 @@ public class JdkUrlInputStreamService extends AbstractFlashingObject implements
 
   private class ProgressIndicatingInputStream extends InputStream {
     private final InputStream delegate;
+    private boolean finished;
     private long lastNotified;
     private int lastPercentageIndicated = -1;
     private float readSoFar;
@@ -67,38 +69,61 @@ public class JdkUrlInputStreamService extends AbstractFlashingObject implements
 
     @Override
     public int read() throws IOException {
-      readSoFar++;
+      final int result = delegate.read();
+      if (result == -1) {
+        finished();
+      } else {
+        progressed(1);
+      }
+      return result;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      // Bulk reads avoid a call to the delegate and a progress check per byte
+      final int count = delegate.read(b, off, len);
+      if (count == -1) {
+        finished();
+      } else {
+        progressed(count);
+      }
+      return count;
+    }
+
+    private void finished() {
+      if (finished) {
+        return;
+      }
+      finished = true;
+      if (totalSize > 0) {
+        flash(Level.FINE, "Downloaded 100% of " + text, MY_SLOT);
+      } else {
+        flash(Level.FINE, "Downloaded " + Math.round(readSoFar / 1024) + " kB of " + text,
+            MY_SLOT);
+      }
+      flash(Level.FINE, "", MY_SLOT);
+    }
+
+    private void progressed(final int count) {
+      readSoFar += count;
+      final long now = System.currentTimeMillis();
+      if (now <= lastNotified + 1000) {
+        return;
+      }
       if (totalSize > 0) {
         // Total size is known
         final int percentageDownloaded = Math.round(readSoFar / totalSize * 100);
-        if (System.currentTimeMillis() > lastNotified + 1000) {
-          if (lastPercentageIndicated != percentageDownloaded) {
-            flash(Level.FINE, "Downloaded " + percentageDownloaded + "% of " + text, MY_SLOT);
-            lastPercentageIndicated = percentageDownloaded;
-            lastNotified = System.currentTimeMillis();
-          }
+        if (lastPercentageIndicated != percentageDownloaded) {
+          flash(Level.FINE, "Downloaded " + percentageDownloaded + "% of " + text, MY_SLOT);
+          lastPercentageIndicated = percentageDownloaded;
+          lastNotified = now;
         }
       } else {
         // Total size is not known, rely on time-based updates instead
-        if (System.currentTimeMillis() > lastNotified + 1000) {
-          flash(Level.FINE, "Downloaded " + Math.round(readSoFar / 1024) + " kB of " + text,
-              MY_SLOT);
-          lastNotified = System.currentTimeMillis();
-        }
-      }
-
-      final int result = delegate.read();
-      if (result == -1) {
-        if (totalSize > 0) {
-          flash(Level.FINE, "Downloaded 100% of " + text, MY_SLOT);
-        } else {
-          flash(Level.FINE, "Downloaded " + Math.round(readSoFar / 1024) + " kB of " + text,
-              MY_SLOT);
-        }
-        flash(Level.FINE, "", MY_SLOT);
+        flash(Level.FINE, "Downloaded " + Math.round(readSoFar / 1024) + " kB of " + text,
+            MY_SLOT);
+        lastNotified = now;
       }
-
-      return result;
     }
   }
 
@@ -115,6 +140,27 @@ public class JdkUrlInputStreamService extends AbstractFlashingObject implements
     return new ProgressIndicatingInputStream(connection);
   }
 
+  public UrlResponse openConnection(final URL httpUrl, final String eTag, final long lastModified)
+      throws IOException {
+    Validate.notNull(httpUrl, "HTTP URL is required");
+    Validate.isTrue(httpUrl.getProtocol().equals("http"), "Only HTTP is supported (not %s)",
+        httpUrl);
+
+    final HttpURLConnection connection = prepareHttpUrlConnection(httpUrl);
+    if (StringUtils.isNotBlank(eTag)) {
+      connection.setRequestProperty("If-None-Match", eTag);
+    }
+    if (lastModified > 0) {
+      connection.setIfModifiedSince(lastModified);
+    }
+    if (connection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+      connection.disconnect();
+      return new UrlResponse(null, eTag, lastModified);
+    }
+    return new UrlResponse(new ProgressIndicatingInputStream(connection),
+        connection.getHeaderField("ETag"), connection.getLastModified());
+  }
+
   public HttpURLConnection prepareHttpUrlConnection(URL url) throws IOException {
     // Prepare proxy and proxy authentication
     Proxy proxy = setupProxy(url);
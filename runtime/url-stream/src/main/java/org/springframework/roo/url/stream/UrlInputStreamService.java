@@ -43,4 +43,20 @@ public interface UrlInputStreamService {
    * @return the input stream (implementation may not return null)
    */
   InputStream openConnection(URL httpUrl) throws IOException;
+
+  /**
+   * Opens a conditional request to the specified URL, so that a caller
+   * holding a cached copy of the resource only downloads it again if it
+   * changed. The input stream represents the resource (no headers).
+   * 
+   * @param httpUrl to open (HTTP only, never HTTPS or another protocol)
+   * @param eTag the entity tag of the cached copy, sent as
+   *            <code>If-None-Match</code> (can be blank)
+   * @param lastModified the last modification time of the cached copy, sent
+   *            as <code>If-Modified-Since</code> (0 if unknown)
+   * @return the response (never null); without an input stream if the
+   *         server answered that the cached copy is current
+   * @since 2.0
+   */
+  UrlResponse openConnection(URL httpUrl, String eTag, long lastModified) throws IOException;
 }
@@ -0,0 +1,57 @@
+package org.springframework.roo.url.stream;
+
+import java.io.InputStream;
+import java.net.URL;
+
+/**
+ * The outcome of a conditional request made via
+ * {@link UrlInputStreamService#openConnection(URL, String, long)}: either the
+ * resource together with its cache validators, or an indication that the
+ * copy the caller already has is still current.
+ * 
+ * @since 2.0
+ */
+public class UrlResponse {
+
+  private final String eTag;
+  private final InputStream inputStream;
+  private final long lastModified;
+
+  /**
+   * Constructor
+   * 
+   * @param inputStream the resource, or <code>null</code> if it was not
+   *            modified
+   * @param eTag the entity tag sent by the server (can be <code>null</code>)
+   * @param lastModified the last modification time sent by the server, or 0
+   *            if unknown
+   */
+  public UrlResponse(final InputStream inputStream, final String eTag, final long lastModified) {
+    this.inputStream = inputStream;
+    this.eTag = eTag;
+    this.lastModified = lastModified;
+  }
+
+  public String getETag() {
+    return eTag;
+  }
+
+  /**
+   * @return the resource (<code>null</code> if {@link #isNotModified()})
+   */
+  public InputStream getInputStream() {
+    return inputStream;
+  }
+
+  public long getLastModified() {
+    return lastModified;
+  }
+
+  /**
+   * @return <code>true</code> if the server confirmed that the caller's copy
+   *         is current, in which case there is no input stream
+   */
+  public boolean isNotModified() {
+    return inputStream == null;
+  }
+}